@@ -1,22 +1,72 @@
+import config.AppConfig;
 import console.ConsoleApp;
+import persistence.BookingArchiver;
+import persistence.DatabaseBackupJob;
 import persistence.DatabaseManager;
-import persistence.repository.HotelBookingRepository;
-import persistence.repository.HotelRoomRepository;
-import persistence.repository.sqlite.SQLiteHotelBookingRepository;
-import persistence.repository.sqlite.SQLiteHotelRoomRepository;
-import service.BookingService;
+import service.BookingIntegrityChecker;
+import service.HotelGroup;
+import service.IntegrityReport;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
 
 public class Main {
 
    public static void main(String[] args) {
 
-      DatabaseManager.initializeSchema();
+      // One database, event bus and set of repositories per property;
+      // change events feed caches and derived views built on top of the repositories
+      HotelGroup group = HotelGroup.fromConfig(
+              AppConfig.getInt("events.buffer.size", 4096),
+              AppConfig.getInt("search.cache.size", 10_000),
+              Duration.ofSeconds(AppConfig.getInt("search.cache.ttl.seconds", 60)));
+      group.initializeSchemas();
+
+      // Integrity check of every property's bookings before the console opens, with
+      // integrity.check.on.startup=true or --check-integrity on the command line
+      boolean checkIntegrity = AppConfig.getBoolean("integrity.check.on.startup", false)
+              || Arrays.asList(args).contains("--check-integrity");
+
+      Map<String, DatabaseBackupJob> backupJobs = new HashMap<>();
+      for (String propertyId : group.getPropertyIds()) {
+         HotelGroup.Property property = group.property(propertyId);
+
+         if (checkIntegrity) {
+            checkIntegrity(property);
+         }
 
-      HotelRoomRepository roomRepo = new SQLiteHotelRoomRepository();
-      HotelBookingRepository bookingRepo = new SQLiteHotelBookingRepository();
+         if (AppConfig.getBoolean("archive.enabled", true)) {
+            BookingArchiver.fromConfig(property.database()).start(AppConfig.getInt("archive.interval.minutes", 60));
+         }
 
-      BookingService bookingService = new BookingService(roomRepo, bookingRepo);
-      ConsoleApp app = new ConsoleApp(roomRepo, bookingRepo, bookingService);
+         DatabaseBackupJob backupJob = DatabaseBackupJob.fromConfig(property.database());
+         if (AppConfig.getBoolean("backup.enabled", true)) {
+            backupJob.start(AppConfig.getInt("backup.interval.minutes", 360));
+         }
+         backupJobs.put(propertyId, backupJob);
+      }
+
+      // The front desk of one property; searches across the group cover all of them
+      String propertyId = AppConfig.get("console.property", DatabaseManager.getDefaultPropertyId());
+      ConsoleApp app = new ConsoleApp(group, propertyId, backupJobs.get(propertyId));
       app.run();
    }
+
+   private static void checkIntegrity(HotelGroup.Property property) {
+      BookingIntegrityChecker checker = BookingIntegrityChecker.fromConfig(property);
+      IntegrityReport report = checker.check();
+      if (report.isClean()) {
+         System.out.printf("Integrity check of %s: %,d bookings, no issues (%.1f s)%n",
+                 property.id(), report.bookings(), report.duration().toMillis() / 1000.0);
+         return;
+      }
+      System.out.printf("Integrity check of %s: %,d issues in %,d bookings "
+                      + "(%d double bookings, %d over capacity, %d unknown rooms, %d invalid dates)%n",
+              property.id(), report.issues().size(), report.bookings(),
+              report.count(IntegrityReport.Kind.DOUBLE_BOOKING), report.count(IntegrityReport.Kind.OVER_CAPACITY),
+              report.count(IntegrityReport.Kind.UNKNOWN_ROOM), report.count(IntegrityReport.Kind.INVALID_DATES));
+      System.out.println("Repair report: " + checker.writeRepairReport(report).toAbsolutePath());
+   }
 }
@@ -0,0 +1,67 @@
+package config;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+
+/**
+ * Read-only access to {@code application.properties}.
+ *
+ * <p>Any key can be overridden on the command line with a system property,
+ * e.g. {@code -Ddb.url=jdbc:sqlite:/tmp/test.db}.</p>
+ */
+public final class AppConfig {
+
+   private static final String RESOURCE = "/application.properties";
+
+   private static final Properties PROPERTIES = load();
+
+   private AppConfig() {
+   }
+
+   public static String get(String key, String defaultValue) {
+      String value = System.getProperty(key, PROPERTIES.getProperty(key));
+      return value == null || value.isBlank() ? defaultValue : value.trim();
+   }
+
+   public static int getInt(String key, int defaultValue) {
+      String value = get(key, null);
+      if (value == null) {
+         return defaultValue;
+      }
+      try {
+         return Integer.parseInt(value);
+      } catch (NumberFormatException e) {
+         throw new IllegalStateException("Property " + key + " must be an integer but was '" + value + "'", e);
+      }
+   }
+
+   public static double getDouble(String key, double defaultValue) {
+      String value = get(key, null);
+      if (value == null) {
+         return defaultValue;
+      }
+      try {
+         return Double.parseDouble(value);
+      } catch (NumberFormatException e) {
+         throw new IllegalStateException("Property " + key + " must be a number but was '" + value + "'", e);
+      }
+   }
+
+   public static boolean getBoolean(String key, boolean defaultValue) {
+      String value = get(key, null);
+      return value == null ? defaultValue : Boolean.parseBoolean(value);
+   }
+
+   private static Properties load() {
+      Properties properties = new Properties();
+      try (InputStream in = AppConfig.class.getResourceAsStream(RESOURCE)) {
+         if (in != null) {
+            properties.load(in);
+         }
+      } catch (IOException e) {
+         throw new IllegalStateException("Failed to read " + RESOURCE, e);
+      }
+      return properties;
+   }
+}
@@ -3,15 +3,45 @@ package console;
 import domain.GuestPrivilege;
 import domain.HotelBooking;
 import domain.HotelRoom;
+import domain.NightlyInventory;
 import domain.RoomType;
+import domain.WaitlistEntry;
+import persistence.BackupResult;
+import persistence.BookingExporter;
+import persistence.Database;
+import persistence.DatabaseBackupJob;
+import persistence.ExportResult;
+import persistence.WriteQueue;
 import persistence.repository.HotelBookingRepository;
 import persistence.repository.HotelRoomRepository;
+import persistence.repository.RoomInventoryRepository;
+import service.AdmissionRejectedException;
+import service.BookingAdmission;
+import service.BookingIntegrityChecker;
 import service.BookingService;
+import service.HotelGroup;
+import service.IntegrityReport;
+import service.OccupancyCalendar;
+import service.PropertyAvailability;
+import service.PropertyStayWindow;
+import service.SearchCache;
+import service.StayAnalytics;
+import service.StayReport;
+import service.StayWindow;
+import service.Waitlist;
 
+import java.io.BufferedWriter;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.sql.SQLException;
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Scanner;
 
 /**
@@ -28,17 +58,41 @@ import java.util.Scanner;
  */
 public class ConsoleApp {
 
+   private final HotelGroup group;
+   private final String propertyId;
+   private final Database database;
    private final HotelRoomRepository roomRepository;
    private final HotelBookingRepository bookingRepository;
+   private final RoomInventoryRepository inventoryRepository;
    private final BookingService bookingService;
+   private final BookingAdmission admission;
+   private final Waitlist waitlist;
+   private final DatabaseBackupJob backupJob;
+   private final BookingExporter exporter;
+   private final StayAnalytics analytics;
+   private final BookingIntegrityChecker integrityChecker;
    private final Scanner scanner = new Scanner(System.in);
 
-   public ConsoleApp(HotelRoomRepository roomRepository,
-                     HotelBookingRepository bookingRepository,
-                     BookingService bookingService) {
-      this.roomRepository = roomRepository;
-      this.bookingRepository = bookingRepository;
-      this.bookingService = bookingService;
+   /**
+    * @param group all properties, for searches across the group
+    * @param propertyId the property this console manages
+    * @param backupJob backups of that property's database
+    */
+   public ConsoleApp(HotelGroup group, String propertyId, DatabaseBackupJob backupJob) {
+      HotelGroup.Property property = group.property(propertyId);
+      this.group = group;
+      this.propertyId = propertyId;
+      this.database = property.database();
+      this.roomRepository = property.rooms();
+      this.bookingRepository = property.bookings();
+      this.inventoryRepository = property.inventory();
+      this.bookingService = property.bookingService();
+      this.admission = property.admission();
+      this.waitlist = property.waitlist();
+      this.backupJob = backupJob;
+      this.exporter = BookingExporter.fromConfig(database);
+      this.analytics = StayAnalytics.fromConfig(property);
+      this.integrityChecker = BookingIntegrityChecker.fromConfig(property);
    }
 
    /**
@@ -59,6 +113,20 @@ public class ConsoleApp {
             case "3" -> listBookingsForRoom();
             case "4" -> createBooking();
             case "5" -> checkAvailability();
+            case "6" -> createBookingForType();
+            case "7" -> showSystemMetrics();
+            case "8" -> showInventory();
+            case "9" -> showOccupancyCalendar();
+            case "10" -> findFlexibleDates();
+            case "11" -> searchSpecialRequests();
+            case "12" -> showTodaysOperations();
+            case "13" -> backUpDatabase();
+            case "14" -> searchAllProperties();
+            case "15" -> cancelBooking();
+            case "16" -> showWaitlist();
+            case "17" -> exportBookings();
+            case "18" -> showStayAnalytics();
+            case "19" -> checkIntegrity();
             case "0" -> {
                System.out.println("Exiting...");
                running = false;
@@ -77,6 +145,20 @@ public class ConsoleApp {
       System.out.println("3) List bookings for a room");
       System.out.println("4) Create a new booking");
       System.out.println("5) Check room availability");
+      System.out.println("6) Create a booking by room type (auto-assign room)");
+      System.out.println("7) Show system metrics");
+      System.out.println("8) Show rooms left per night by room type");
+      System.out.println("9) Show occupancy calendar (all rooms)");
+      System.out.println("10) Find free stays with flexible dates");
+      System.out.println("11) Search special requests");
+      System.out.println("12) Show today's operations (arrivals, departures, in house)");
+      System.out.println("13) Back up the database now");
+      System.out.println("14) Search availability across all properties");
+      System.out.println("15) Cancel a booking");
+      System.out.println("16) Show the waitlist");
+      System.out.println("17) Export bookings (CSV / JSON Lines)");
+      System.out.println("18) Show occupancy and stay analytics per month");
+      System.out.println("19) Check bookings for double bookings and other integrity issues");
       System.out.println("0) Exit");
       System.out.print("Choose an option: ");
    }
@@ -112,18 +194,8 @@ public class ConsoleApp {
             return;
          }
 
-         System.out.println("Select room type:");
-         RoomType[] types = RoomType.values();
-         for (int i = 0; i < types.length; i++) {
-            System.out.println("  " + (i + 1) + ") " + types[i]);
-         }
-         System.out.print("Choice: ");
-         int typeChoice = Integer.parseInt(scanner.nextLine().trim());
-         if (typeChoice < 1 || typeChoice > types.length) {
-            System.out.println("Invalid room type choice.");
-            return;
-         }
-         RoomType roomType = types[typeChoice - 1];
+         RoomType roomType = readRoomType();
+         if (roomType == null) return;
 
          System.out.print("Enter max guests: ");
          int maxGuests = Integer.parseInt(scanner.nextLine().trim());
@@ -209,55 +281,76 @@ public class ConsoleApp {
          LocalDate checkOut = readDate("Enter check-out date (YYYY-MM-DD): ");
          if (checkOut == null) return;
 
-         System.out.print("Enter guest count: ");
-         int guestCount = Integer.parseInt(scanner.nextLine().trim());
+         GuestDetails guest = readGuestDetails();
+         if (guest == null) return;
 
-         List<String> guestNames = new ArrayList<>();
-         for (int i = 1; i <= guestCount; i++) {
-            System.out.print("Enter name of guest " + i + ": ");
-            String name = scanner.nextLine().trim();
-            if (name.isEmpty()) {
-               System.out.println("Name cannot be empty. Booking cancelled.");
-               return;
-            }
-            guestNames.add(name);
-         }
+         try {
+            HotelBooking booking = admission.createBooking(
+                    room.getId(),
+                    checkIn,
+                    checkOut,
+                    guest.guestCount(),
+                    guest.guestNames(),
+                    guest.createdBy(),
+                    guest.privilege(),
+                    guest.specialRequests()
+            );
 
-         System.out.print("Enter createdBy (e.g. FRONT_DESK, ONLINE, AGENCY: XYZ): ");
-         String createdBy = scanner.nextLine().trim();
+            System.out.println("Booking created: " + booking);
 
-         System.out.println("Select guest privilege:");
-         GuestPrivilege[] privs = GuestPrivilege.values();
-         for (int i = 0; i < privs.length; i++) {
-            System.out.println("  " + (i + 1) + ") " + privs[i]);
-         }
-         System.out.print("Choice: ");
-         int privChoice = Integer.parseInt(scanner.nextLine().trim());
-         if (privChoice < 1 || privChoice > privs.length) {
-            System.out.println("Invalid privilege choice.");
-            return;
+         } catch (AdmissionRejectedException e) {
+            System.out.println(e.getMessage());
+         } catch (IllegalArgumentException e) {
+            System.out.println("Could not create booking: " + e.getMessage());
+         } catch (IllegalStateException e) {
+            System.out.println("Could not create booking: " + e.getMessage());
+            offerWaitlist(room.getRoomType(), checkIn, checkOut, guest);
          }
-         GuestPrivilege privilege = privs[privChoice - 1];
 
-         System.out.print("Special requests (or leave empty): ");
-         String specialRequests = scanner.nextLine().trim();
+         waitForEnter();
+
+      } catch (NumberFormatException e) {
+         System.out.println("Invalid numeric input. Booking not created.");
+      }
+   }
+
+   private void createBookingForType() {
+      try {
+         RoomType roomType = readRoomType();
+         if (roomType == null) return;
+
+         LocalDate checkIn = readDate("Enter check-in date (YYYY-MM-DD): ");
+         if (checkIn == null) return;
+
+         LocalDate checkOut = readDate("Enter check-out date (YYYY-MM-DD): ");
+         if (checkOut == null) return;
+
+         GuestDetails guest = readGuestDetails();
+         if (guest == null) return;
 
          try {
-            HotelBooking booking = bookingService.createBooking(
-                    room.getId(),
+            HotelBooking booking = admission.createBookingForType(
+                    roomType,
                     checkIn,
                     checkOut,
-                    guestCount,
-                    guestNames,
-                    createdBy,
-                    privilege,
-                    specialRequests
+                    guest.guestCount(),
+                    guest.guestNames(),
+                    guest.createdBy(),
+                    guest.privilege(),
+                    guest.specialRequests()
             );
 
+            roomRepository.findById(booking.getRoomId())
+                    .ifPresent(r -> System.out.println("Assigned room " + r.getRoomNumber() + "."));
             System.out.println("Booking created: " + booking);
 
-         } catch (IllegalArgumentException | IllegalStateException e) {
+         } catch (AdmissionRejectedException e) {
+            System.out.println(e.getMessage());
+         } catch (IllegalArgumentException e) {
+            System.out.println("Could not create booking: " + e.getMessage());
+         } catch (IllegalStateException e) {
             System.out.println("Could not create booking: " + e.getMessage());
+            offerWaitlist(roomType, checkIn, checkOut, guest);
          }
 
          waitForEnter();
@@ -267,6 +360,156 @@ public class ConsoleApp {
       }
    }
 
+   /**
+    * Asks whether to put a stay that could not be booked on the waitlist, and does so.
+    */
+   private void offerWaitlist(RoomType roomType, LocalDate checkIn, LocalDate checkOut, GuestDetails guest) {
+      System.out.print("Put the guest on the waitlist for any " + roomType + " room? (y/N): ");
+      if (!scanner.nextLine().trim().equalsIgnoreCase("y")) {
+         return;
+      }
+      System.out.print("Priority, higher is served first (empty for 0): ");
+      String text = scanner.nextLine().trim();
+      int priority = text.isEmpty() ? 0 : Integer.parseInt(text);
+
+      WaitlistEntry entry = waitlist.add(new WaitlistEntry(
+              roomType,
+              checkIn,
+              checkOut,
+              guest.guestCount(),
+              guest.guestNames(),
+              guest.privilege(),
+              guest.createdBy(),
+              guest.specialRequests(),
+              priority
+      ));
+      System.out.println("On the waitlist as entry #" + entry.getId()
+              + "; it is booked automatically when a room frees up.");
+   }
+
+   private void cancelBooking() {
+      try {
+         System.out.print("Enter booking id: ");
+         int bookingId = Integer.parseInt(scanner.nextLine().trim());
+
+         HotelBooking cancelled = bookingService.cancelBooking(bookingId);
+         System.out.println("Booking cancelled: " + cancelled);
+
+      } catch (NumberFormatException e) {
+         System.out.println("Invalid number.");
+      } catch (IllegalArgumentException e) {
+         System.out.println("Error: " + e.getMessage());
+      }
+
+      waitForEnter();
+   }
+
+   private void showWaitlist() {
+      Waitlist.Stats stats = waitlist.getStats();
+      System.out.println("Waitlist: " + stats.waiting() + " waiting, " + stats.promoted() + " booked of "
+              + stats.evaluated() + " tried since startup");
+
+      List<WaitlistEntry> entries = waitlist.findAll();
+      for (WaitlistEntry e : entries) {
+         System.out.printf("  #%-6d priority %-3d %-8s %s → %s  %d: %s%n",
+                 e.getId(), e.getPriority(), e.getRoomType(), e.getCheckInDate(), e.getCheckOutDate(),
+                 e.getGuestCount(), String.join(", ", e.getGuestNames()));
+      }
+
+      List<Waitlist.Promotion> promotions = waitlist.getRecentPromotions();
+      if (!promotions.isEmpty()) {
+         System.out.println("Recently booked from the waitlist:");
+         for (Waitlist.Promotion p : promotions) {
+            System.out.println("  • #" + p.entry().getId() + " " + String.join(", ", p.entry().getGuestNames())
+                    + " → booking #" + p.booking().getId());
+         }
+      }
+
+      if (!entries.isEmpty()) {
+         System.out.print("Entry to remove (or leave empty): ");
+         String text = scanner.nextLine().trim();
+         if (!text.isEmpty()) {
+            try {
+               int entryId = Integer.parseInt(text);
+               System.out.println(waitlist.remove(entryId) ? "Removed." : "No waiting entry #" + entryId + ".");
+            } catch (NumberFormatException e) {
+               System.out.println("Invalid number.");
+            }
+         }
+      }
+
+      waitForEnter();
+   }
+
+   /**
+    * Guest-related input shared by the booking screens.
+    */
+   private record GuestDetails(int guestCount,
+                               List<String> guestNames,
+                               String createdBy,
+                               GuestPrivilege privilege,
+                               String specialRequests) {
+   }
+
+   /**
+    * Reads guest count, names, source, privilege and special requests.
+    * Returns null if the input is invalid and the operation should be cancelled.
+    */
+   private GuestDetails readGuestDetails() {
+      System.out.print("Enter guest count: ");
+      int guestCount = Integer.parseInt(scanner.nextLine().trim());
+
+      List<String> guestNames = new ArrayList<>();
+      for (int i = 1; i <= guestCount; i++) {
+         System.out.print("Enter name of guest " + i + ": ");
+         String name = scanner.nextLine().trim();
+         if (name.isEmpty()) {
+            System.out.println("Name cannot be empty. Booking cancelled.");
+            return null;
+         }
+         guestNames.add(name);
+      }
+
+      System.out.print("Enter createdBy (e.g. FRONT_DESK, ONLINE, AGENCY: XYZ): ");
+      String createdBy = scanner.nextLine().trim();
+
+      System.out.println("Select guest privilege:");
+      GuestPrivilege[] privs = GuestPrivilege.values();
+      for (int i = 0; i < privs.length; i++) {
+         System.out.println("  " + (i + 1) + ") " + privs[i]);
+      }
+      System.out.print("Choice: ");
+      int privChoice = Integer.parseInt(scanner.nextLine().trim());
+      if (privChoice < 1 || privChoice > privs.length) {
+         System.out.println("Invalid privilege choice.");
+         return null;
+      }
+      GuestPrivilege privilege = privs[privChoice - 1];
+
+      System.out.print("Special requests (or leave empty): ");
+      String specialRequests = scanner.nextLine().trim();
+
+      return new GuestDetails(guestCount, guestNames, createdBy, privilege, specialRequests);
+   }
+
+   /**
+    * Reads a room type choice. Returns null if the choice is invalid.
+    */
+   private RoomType readRoomType() {
+      System.out.println("Select room type:");
+      RoomType[] types = RoomType.values();
+      for (int i = 0; i < types.length; i++) {
+         System.out.println("  " + (i + 1) + ") " + types[i]);
+      }
+      System.out.print("Choice: ");
+      int typeChoice = Integer.parseInt(scanner.nextLine().trim());
+      if (typeChoice < 1 || typeChoice > types.length) {
+         System.out.println("Invalid room type choice.");
+         return null;
+      }
+      return types[typeChoice - 1];
+   }
+
    private LocalDate readDate(String prompt) {
       System.out.print(prompt);
       String text = scanner.nextLine().trim();
@@ -321,6 +564,455 @@ public class ConsoleApp {
       }
    }
 
+   private void showSystemMetrics() {
+      try {
+         WriteQueue.Metrics writes = database.getWriteMetrics();
+         System.out.println("Database writes:");
+         System.out.println("  • Queue depth: " + writes.queueDepth() + " (max " + writes.maxQueueDepth() + ")");
+         System.out.println("  • Commands: " + writes.commands() + " in " + writes.transactions() + " transactions"
+                 + String.format(" (avg %.1f per transaction)", writes.averageBatchSize()));
+         System.out.println(String.format("  • Queue wait: avg %.2f ms, max %.2f ms",
+                 writes.averageWaitMillis(), writes.maxWaitMillis()));
+         System.out.println("  • Busy retries: " + writes.busyRetries());
+      } catch (SQLException e) {
+         System.out.println("Could not read database metrics: " + e.getMessage());
+      }
+
+      SearchCache.Stats cache = bookingService.getSearchCacheStats();
+      System.out.println("Search cache:");
+      System.out.printf("  • Hit rate: %.1f%% (%,d hits, %,d misses)%n",
+              cache.hitRate() * 100, cache.hits(), cache.misses());
+      System.out.printf("  • Results cached: %,d%n", cache.size());
+      System.out.printf("  • Dropped: %,d invalidated by bookings, %,d evicted, %,d expired%n",
+              cache.invalidations(), cache.evictions(), cache.expirations());
+
+      System.out.println("Booking admission per channel:");
+      for (BookingAdmission.ChannelMetrics channel : admission.getMetrics()) {
+         System.out.printf("  • %-10s %d running, %d waiting, %,d admitted (queue avg %.2f ms, max %.2f ms), "
+                         + "%,d rejected (%,d rate limited, %,d queue full, %,d timed out)%n",
+                 channel.channel(), channel.inFlight(), channel.waiting(), channel.admitted(),
+                 channel.averageQueueMillis(), channel.maxQueueMillis(), channel.rejected(),
+                 channel.rateLimited(), channel.queueFull(), channel.timedOut());
+      }
+
+      waitForEnter();
+   }
+
+   private void backUpDatabase() {
+      System.out.println("Backing up while the hotel keeps running...");
+      try {
+         BackupResult backup = backupJob.backupNow();
+         System.out.println("Backup written and verified: " + backup.file().toAbsolutePath());
+         System.out.printf("  • %,d pages, %.1f MB in %.1f s%n",
+                 backup.pages(), backup.bytes() / 1e6, backup.duration().toMillis() / 1000.0);
+         if (backup.restarts() > 0) {
+            System.out.println("  • Restarted " + backup.restarts() + " time(s) because the database changed");
+         }
+      } catch (RuntimeException e) {
+         System.out.println("Backup failed: " + e.getMessage());
+      }
+
+      waitForEnter();
+   }
+
+   private void exportBookings() {
+      System.out.println("Format:");
+      System.out.println("  1) CSV");
+      System.out.println("  2) JSON Lines");
+      System.out.print("Choice: ");
+      String choice = scanner.nextLine().trim();
+      BookingExporter.Format format = switch (choice) {
+         case "1" -> BookingExporter.Format.CSV;
+         case "2" -> BookingExporter.Format.JSON_LINES;
+         default -> null;
+      };
+      if (format == null) {
+         System.out.println("Invalid format choice.");
+         return;
+      }
+
+      try {
+         System.out.print("Stays from (YYYY-MM-DD, empty for all): ");
+         String text = scanner.nextLine().trim();
+         LocalDate from = text.isEmpty() ? null : LocalDate.parse(text);
+
+         System.out.print("Stays until (YYYY-MM-DD, exclusive, empty for all): ");
+         text = scanner.nextLine().trim();
+         LocalDate to = text.isEmpty() ? null : LocalDate.parse(text);
+
+         System.out.print("Compress with gzip? (y/N): ");
+         boolean gzip = scanner.nextLine().trim().equalsIgnoreCase("y");
+
+         System.out.println("Exporting...");
+         ExportResult export = exporter.exportNow(format, from, to, gzip);
+         System.out.println("Export written: " + export.file().toAbsolutePath());
+         System.out.printf("  • %,d bookings, %.1f MB in %.1f s (%,.0f rows/s)%n",
+                 export.rows(), export.bytes() / 1e6, export.duration().toMillis() / 1000.0, export.rowsPerSecond());
+
+      } catch (DateTimeParseException e) {
+         System.out.println("Invalid date format. Expected YYYY-MM-DD. Operation cancelled.");
+      } catch (IllegalArgumentException e) {
+         System.out.println("Error: " + e.getMessage());
+      } catch (RuntimeException e) {
+         System.out.println("Export failed: " + e.getMessage());
+      }
+
+      waitForEnter();
+   }
+
+   private void showStayAnalytics() {
+      try {
+         YearMonth current = YearMonth.now();
+         System.out.print("First month (YYYY-MM, empty for 5 years ago): ");
+         String text = scanner.nextLine().trim();
+         YearMonth first = text.isEmpty() ? current.minusYears(5).plusMonths(1) : YearMonth.parse(text);
+
+         System.out.print("Last month (YYYY-MM, empty for this month): ");
+         text = scanner.nextLine().trim();
+         YearMonth last = text.isEmpty() ? current : YearMonth.parse(text);
+
+         StayReport report = analytics.report(first, last);
+
+         RoomType[] types = RoomType.values();
+         GuestPrivilege[] privileges = GuestPrivilege.values();
+         System.out.printf("%-8s %6s %6s", "Month", "Occ%", "ALOS");
+         for (RoomType type : types) {
+            System.out.printf(" %7.7s", type);
+         }
+         for (GuestPrivilege privilege : privileges) {
+            System.out.printf(" %7.7s", privilege);
+         }
+         System.out.println();
+
+         // Room type and board columns are shares of the month's sold room nights
+         for (StayReport.MonthlyStays m : report.months()) {
+            System.out.printf("%-8s %6.1f %6.2f", m.month(), m.occupancy() * 100, m.averageLengthOfStay());
+            for (RoomType type : types) {
+               System.out.printf(" %6.1f%%", m.typeShare(type) * 100);
+            }
+            for (GuestPrivilege privilege : privileges) {
+               System.out.printf(" %6.1f%%", m.privilegeShare(privilege) * 100);
+            }
+            System.out.println();
+         }
+         System.out.printf("%,d stays of %d rooms in %.2f s%n",
+                 report.stays(), report.rooms(), report.duration().toMillis() / 1000.0);
+
+         System.out.print("Write the report as CSV? (y/N): ");
+         if (scanner.nextLine().trim().equalsIgnoreCase("y")) {
+            System.out.println("Report written: " + analytics.writeReport(report).toAbsolutePath());
+         }
+
+      } catch (DateTimeParseException e) {
+         System.out.println("Invalid month format. Expected YYYY-MM. Operation cancelled.");
+      } catch (IllegalArgumentException e) {
+         System.out.println("Error: " + e.getMessage());
+      } catch (RuntimeException e) {
+         System.out.println("Analytics failed: " + e.getMessage());
+      }
+
+      waitForEnter();
+   }
+
+   private void checkIntegrity() {
+      System.out.println("Checking all bookings...");
+      try {
+         IntegrityReport report = integrityChecker.check();
+         System.out.printf("%,d bookings of %d rooms checked in %.1f s%n",
+                 report.bookings(), report.rooms(), report.duration().toMillis() / 1000.0);
+         if (report.isClean()) {
+            System.out.println("No issues found.");
+            waitForEnter();
+            return;
+         }
+
+         for (IntegrityReport.Kind kind : IntegrityReport.Kind.values()) {
+            System.out.printf("  • %-15s %,d%n", kind, report.count(kind));
+         }
+         // The first few, the rest are in the repair report
+         List<IntegrityReport.Issue> issues = report.issues();
+         for (IntegrityReport.Issue issue : issues.subList(0, Math.min(20, issues.size()))) {
+            System.out.printf("  [%s] booking %d, room %d, %s to %s: %s%n",
+                    issue.kind(), issue.bookingId(), issue.roomId(), issue.checkIn(), issue.checkOut(),
+                    issue.repair());
+         }
+         if (issues.size() > 20) {
+            System.out.printf("  ... and %,d more%n", issues.size() - 20);
+         }
+         System.out.println("Repair report: " + integrityChecker.writeRepairReport(report).toAbsolutePath());
+
+      } catch (RuntimeException e) {
+         System.out.println("Integrity check failed: " + e.getMessage());
+      }
+
+      waitForEnter();
+   }
+
+   private void showInventory() {
+      try {
+         System.out.print("Enter first night (YYYY-MM-DD, empty for today): ");
+         String text = scanner.nextLine().trim();
+         LocalDate from = text.isEmpty() ? LocalDate.now() : LocalDate.parse(text);
+
+         System.out.print("Enter number of nights (empty for 30): ");
+         text = scanner.nextLine().trim();
+         int nights = text.isEmpty() ? 30 : Integer.parseInt(text);
+         if (nights <= 0) {
+            System.out.println("Number of nights must be positive.");
+            return;
+         }
+
+         RoomType[] types = RoomType.values();
+         List<NightlyInventory> inventory = inventoryRepository.findAll(from, from.plusDays(nights));
+
+         // Rooms left / total rooms, one column per room type
+         System.out.printf("%-12s", "Night");
+         for (RoomType type : types) {
+            System.out.printf("%10s", type);
+         }
+         System.out.println();
+
+         for (int i = 0; i < inventory.size(); i += types.length) {
+            System.out.printf("%-12s", inventory.get(i).night());
+            for (int t = 0; t < types.length; t++) {
+               NightlyInventory n = inventory.get(i + t);
+               System.out.printf("%10s", n.available() + "/" + n.totalRooms());
+            }
+            System.out.println();
+         }
+
+         waitForEnter();
+
+      } catch (DateTimeParseException e) {
+         System.out.println("Invalid date format. Expected YYYY-MM-DD.");
+      } catch (NumberFormatException e) {
+         System.out.println("Invalid number.");
+      }
+   }
+
+   private void showOccupancyCalendar() {
+      try {
+         System.out.print("Enter first night (YYYY-MM-DD, empty for today): ");
+         String text = scanner.nextLine().trim();
+         LocalDate from = text.isEmpty() ? LocalDate.now() : LocalDate.parse(text);
+
+         System.out.print("Enter number of nights (empty for 60): ");
+         text = scanner.nextLine().trim();
+         int nights = text.isEmpty() ? 60 : Integer.parseInt(text);
+
+         OccupancyCalendar calendar = bookingService.buildOccupancyCalendar(from, nights);
+
+         // One buffered write instead of a flush per line; System.out itself stays open
+         PrintWriter out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out), 1 << 16));
+         calendar.render(out);
+         out.flush();
+
+         waitForEnter();
+
+      } catch (DateTimeParseException e) {
+         System.out.println("Invalid date format. Expected YYYY-MM-DD.");
+      } catch (NumberFormatException e) {
+         System.out.println("Invalid number.");
+      } catch (IllegalArgumentException e) {
+         System.out.println("Error: " + e.getMessage());
+      }
+   }
+
+   private void findFlexibleDates() {
+      try {
+         System.out.println("Select room type:");
+         RoomType[] types = RoomType.values();
+         System.out.println("  0) Any");
+         for (int i = 0; i < types.length; i++) {
+            System.out.println("  " + (i + 1) + ") " + types[i]);
+         }
+         System.out.print("Choice: ");
+         int typeChoice = Integer.parseInt(scanner.nextLine().trim());
+         if (typeChoice < 0 || typeChoice > types.length) {
+            System.out.println("Invalid room type choice.");
+            return;
+         }
+         RoomType roomType = typeChoice == 0 ? null : types[typeChoice - 1];
+
+         System.out.print("Enter guest count: ");
+         int guestCount = Integer.parseInt(scanner.nextLine().trim());
+
+         System.out.print("Enter number of nights: ");
+         int nights = Integer.parseInt(scanner.nextLine().trim());
+
+         LocalDate from = readDate("Enter earliest check-in (YYYY-MM-DD): ");
+         if (from == null) return;
+
+         LocalDate to = readDate("Enter latest check-out (YYYY-MM-DD): ");
+         if (to == null) return;
+
+         System.out.print("How many results (empty for 10): ");
+         String text = scanner.nextLine().trim();
+         int limit = text.isEmpty() ? 10 : Integer.parseInt(text);
+
+         try {
+            List<StayWindow> windows = bookingService.findOpenWindows(roomType, guestCount, nights, from, to, limit);
+            if (windows.isEmpty()) {
+               System.out.println("No free " + nights + "-night stay between " + from + " and " + to + ".");
+            } else {
+               System.out.println("Best free stays (tightest fit first):");
+               for (StayWindow w : windows) {
+                  System.out.println("  • Room " + w.room().getRoomNumber() + " (" + w.room().getRoomType() + "): "
+                          + w.checkIn() + " → " + w.checkOut());
+               }
+            }
+         } catch (IllegalArgumentException e) {
+            System.out.println("Error: " + e.getMessage());
+         }
+
+         waitForEnter();
+
+      } catch (NumberFormatException e) {
+         System.out.println("Invalid number.");
+      }
+   }
+
+   private void searchSpecialRequests() {
+      try {
+         System.out.print("Search for (separate alternatives with commas, e.g. crib, late check-in): ");
+         String query = scanner.nextLine().trim();
+         if (query.isEmpty()) {
+            System.out.println("Nothing to search for.");
+            return;
+         }
+
+         System.out.print("Enter first night (YYYY-MM-DD, empty for tonight): ");
+         String text = scanner.nextLine().trim();
+         LocalDate from = text.isEmpty() ? LocalDate.now() : LocalDate.parse(text);
+
+         System.out.print("Enter number of nights (empty for 1): ");
+         text = scanner.nextLine().trim();
+         int nights = text.isEmpty() ? 1 : Integer.parseInt(text);
+         if (nights <= 0) {
+            System.out.println("Number of nights must be positive.");
+            return;
+         }
+
+         List<HotelBooking> bookings = bookingRepository.searchSpecialRequests(query, from, from.plusDays(nights));
+         if (bookings.isEmpty()) {
+            System.out.println("No stays mention \"" + query + "\".");
+         } else {
+            System.out.println(bookings.size() + " stay(s) found:");
+            for (HotelBooking b : bookings) {
+               roomRepository.findById(b.getRoomId())
+                       .ifPresent(r -> System.out.println("Room " + r.getRoomNumber()));
+               printBooking(b);
+               System.out.println();
+            }
+         }
+
+         waitForEnter();
+
+      } catch (DateTimeParseException e) {
+         System.out.println("Invalid date format. Expected YYYY-MM-DD.");
+      } catch (NumberFormatException e) {
+         System.out.println("Invalid number.");
+      }
+   }
+
+   private void searchAllProperties() {
+      try {
+         LocalDate checkIn = readDate("Enter check-in date (YYYY-MM-DD): ");
+         if (checkIn == null) return;
+
+         LocalDate checkOut = readDate("Enter check-out date (YYYY-MM-DD): ");
+         if (checkOut == null) return;
+
+         List<PropertyAvailability> availability = group.findAvailability(checkIn, checkOut);
+         System.out.println("Rooms left for the whole stay, " + group.getPropertyIds().size() + " property(ies):");
+         String shown = null;
+         for (PropertyAvailability a : availability) {
+            if (!a.propertyId().equals(shown)) {
+               shown = a.propertyId();
+               System.out.println(shown + (shown.equals(propertyId) ? " (this property)" : ""));
+            }
+            System.out.println("  • " + a.roomType() + ": " + a.roomsLeft() + " of " + a.totalRooms());
+         }
+
+         int nights = (int) ChronoUnit.DAYS.between(checkIn, checkOut);
+         List<PropertyStayWindow> windows = group.findOpenWindows(null, 1, nights, checkIn, checkOut, 5);
+         if (!windows.isEmpty()) {
+            System.out.println("Tightest fits for exactly these dates:");
+            for (PropertyStayWindow w : windows) {
+               StayWindow stay = w.window();
+               System.out.println("  • " + w.propertyId() + ", room " + stay.room().getRoomNumber()
+                       + " (" + stay.room().getRoomType() + ")");
+            }
+         }
+
+      } catch (IllegalArgumentException e) {
+         System.out.println("Error: " + e.getMessage());
+      } catch (RuntimeException e) {
+         System.out.println("Search failed: " + e.getMessage());
+      }
+
+      waitForEnter();
+   }
+
+   private void showTodaysOperations() {
+      try {
+         System.out.print("Enter date (YYYY-MM-DD, empty for today): ");
+         String text = scanner.nextLine().trim();
+         LocalDate date = text.isEmpty() ? LocalDate.now() : LocalDate.parse(text);
+
+         List<HotelBooking> arrivals = bookingRepository.findArrivingOn(date);
+         List<HotelBooking> departures = bookingRepository.findDepartingOn(date);
+         List<HotelBooking> inHouse = bookingRepository.findInHouseOn(date);
+
+         Map<Integer, HotelRoom> rooms = new HashMap<>();
+         for (HotelRoom room : roomRepository.findAll()) {
+            rooms.put(room.getId(), room);
+         }
+
+         int guests = 0;
+         for (HotelBooking b : inHouse) {
+            guests += b.getGuestCount();
+         }
+
+         System.out.println("Operations for " + date);
+         System.out.printf("  Arrivals: %d   Departures: %d   "
+                         + "In house tonight: %d room(s), %d guest(s) (%.1f%% occupancy)%n",
+                 arrivals.size(), departures.size(), inHouse.size(), guests,
+                 rooms.isEmpty() ? 0.0 : inHouse.size() * 100.0 / rooms.size());
+
+         printOperationsSection("Arrivals", arrivals, rooms);
+         printOperationsSection("Departures", departures, rooms);
+         printOperationsSection("In house tonight", inHouse, rooms);
+
+         waitForEnter();
+
+      } catch (DateTimeParseException e) {
+         System.out.println("Invalid date format. Expected YYYY-MM-DD.");
+      }
+   }
+
+   /**
+    * Prints one line per booking: room, booking id, stay, guests and special requests.
+    */
+   private void printOperationsSection(String title, List<HotelBooking> bookings, Map<Integer, HotelRoom> rooms) {
+      System.out.println();
+      System.out.println(title + " (" + bookings.size() + ")");
+      if (bookings.isEmpty()) {
+         System.out.println("  none");
+         return;
+      }
+      for (HotelBooking b : bookings) {
+         HotelRoom room = rooms.get(b.getRoomId());
+         String requests = b.getSpecialRequests() == null || b.getSpecialRequests().isBlank()
+                 ? "" : "  \"" + b.getSpecialRequests() + "\"";
+         System.out.printf("  Room %-6s #%-8d %s → %s  %d: %s  %s%s%n",
+                 room == null ? "?" : room.getRoomNumber(), b.getId(),
+                 b.getCheckInDate(), b.getCheckOutDate(),
+                 b.getGuestCount(), String.join(", ", b.getGuestNames()),
+                 prettifyEnum(b.getGuestPrivilege()), requests);
+      }
+   }
+
    /**
     * Prints a human-friendly summary of a hotel room to the console.
     */
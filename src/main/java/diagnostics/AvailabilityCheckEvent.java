@@ -0,0 +1,79 @@
+package diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+import java.time.LocalDate;
+
+/**
+ * JFR event for one {@code BookingService.isRoomAvailable} call.
+ */
+@Name("hotel.AvailabilityCheck")
+@Label("Availability Check")
+@Category({"Hotel Booking", "Service"})
+@Description("Overlap check of one room and date range")
+@StackTrace(false)
+public class AvailabilityCheckEvent extends Event {
+
+   @Label("Room Id")
+   private int roomId;
+
+   @Label("Check-in")
+   private String checkIn;
+
+   @Label("Check-out")
+   private String checkOut;
+
+   @Label("Rows Scanned")
+   @Description("Overlapping bookings read from the database")
+   private int rowsScanned;
+
+   @Label("Available")
+   private boolean available;
+
+   @Label("Cached")
+   @Description("Answered from the search cache without reading the database")
+   private boolean cached;
+
+   @Label("Outcome")
+   @Description("AVAILABLE, UNAVAILABLE or FAILED")
+   private String outcome = "FAILED";
+
+   public static AvailabilityCheckEvent start() {
+      AvailabilityCheckEvent event = new AvailabilityCheckEvent();
+      event.begin();
+      return event;
+   }
+
+   public void result(int rowsScanned) {
+      this.rowsScanned = rowsScanned;
+      this.available = rowsScanned == 0;
+      this.outcome = available ? "AVAILABLE" : "UNAVAILABLE";
+   }
+
+   /**
+    * Records an answer taken from the search cache.
+    */
+   public void cachedResult(boolean available) {
+      this.cached = true;
+      this.available = available;
+      this.outcome = available ? "AVAILABLE" : "UNAVAILABLE";
+   }
+
+   /**
+    * Ends the event and records it if it is enabled and over its threshold.
+    */
+   public void finish(int roomId, LocalDate checkIn, LocalDate checkOut) {
+      end();
+      if (shouldCommit()) {
+         this.roomId = roomId;
+         this.checkIn = String.valueOf(checkIn);
+         this.checkOut = String.valueOf(checkOut);
+         commit();
+      }
+   }
+}
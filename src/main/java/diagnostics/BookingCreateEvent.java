@@ -0,0 +1,75 @@
+package diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+import java.time.LocalDate;
+
+/**
+ * JFR event for one {@code BookingService.createBooking} call.
+ */
+@Name("hotel.BookingCreate")
+@Label("Create Booking")
+@Category({"Hotel Booking", "Service"})
+@Description("Validation, availability check and insert of a single booking")
+@StackTrace(false)
+public class BookingCreateEvent extends Event {
+
+   public static final String CREATED = "CREATED";
+   public static final String REJECTED = "REJECTED";
+   public static final String UNAVAILABLE = "UNAVAILABLE";
+   public static final String FAILED = "FAILED";
+
+   @Label("Room Id")
+   private int roomId;
+
+   @Label("Check-in")
+   private String checkIn;
+
+   @Label("Check-out")
+   private String checkOut;
+
+   @Label("Guest Count")
+   private int guestCount;
+
+   @Label("Booking Id")
+   @Description("Id of the stored booking, 0 unless the outcome is CREATED")
+   private int bookingId;
+
+   @Label("Outcome")
+   @Description("CREATED, REJECTED (invalid input), UNAVAILABLE or FAILED")
+   private String outcome = FAILED;
+
+   public static BookingCreateEvent start() {
+      BookingCreateEvent event = new BookingCreateEvent();
+      event.begin();
+      return event;
+   }
+
+   public void created(int bookingId) {
+      this.bookingId = bookingId;
+      this.outcome = CREATED;
+   }
+
+   public void outcome(String outcome) {
+      this.outcome = outcome;
+   }
+
+   /**
+    * Ends the event and records it if it is enabled and over its threshold.
+    */
+   public void finish(int roomId, LocalDate checkIn, LocalDate checkOut, int guestCount) {
+      end();
+      if (shouldCommit()) {
+         this.roomId = roomId;
+         this.checkIn = String.valueOf(checkIn);
+         this.checkOut = String.valueOf(checkOut);
+         this.guestCount = guestCount;
+         commit();
+      }
+   }
+}
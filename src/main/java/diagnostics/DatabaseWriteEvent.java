@@ -0,0 +1,58 @@
+package diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * JFR event for one write command, from enqueue until its transaction committed.
+ */
+@Name("hotel.DatabaseWrite")
+@Label("Database Write")
+@Category({"Hotel Booking", "Persistence"})
+@Description("A write command submitted to the single writer thread")
+@StackTrace(false)
+public class DatabaseWriteEvent extends Event {
+
+   @Label("Queue Wait")
+   @Description("Time the command waited before the writer thread picked it up")
+   @Timespan(Timespan.NANOSECONDS)
+   private long queueWait;
+
+   @Label("Batch Size")
+   @Description("Commands committed in the same transaction")
+   private int batchSize;
+
+   @Label("Outcome")
+   @Description("OK, QUEUE_FULL or FAILED")
+   private String outcome = "FAILED";
+
+   public static DatabaseWriteEvent start() {
+      DatabaseWriteEvent event = new DatabaseWriteEvent();
+      event.begin();
+      return event;
+   }
+
+   public void executed(long queueWaitNanos, int batchSize) {
+      this.queueWait = queueWaitNanos;
+      this.batchSize = batchSize;
+   }
+
+   public void outcome(String outcome) {
+      this.outcome = outcome;
+   }
+
+   /**
+    * Ends the event and records it if it is enabled and over its threshold.
+    */
+   public void finish() {
+      end();
+      if (shouldCommit()) {
+         commit();
+      }
+   }
+}
@@ -0,0 +1,154 @@
+package diagnostics;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Prints a short summary of the booking events in a Flight Recorder file.
+ *
+ * <p>Events are grouped by type (repository queries also by operation) and
+ * reported with their count, latency percentiles, outcomes and average rows
+ * scanned, followed by the slowest individual events and the GC pauses in
+ * the same recording.</p>
+ *
+ * <p>Usage: {@code java diagnostics.JfrRecordingSummary booking.jfr [slowest]}</p>
+ */
+public class JfrRecordingSummary {
+
+   private static final String PREFIX = "hotel.";
+
+   private static final class Group {
+      final List<Long> durations = new ArrayList<>();
+      final Map<String, Integer> outcomes = new TreeMap<>();
+      long rowsScanned;
+      long queueWait;
+      long batchSize;
+   }
+
+   public static void main(String[] args) throws IOException {
+      if (args.length < 1) {
+         System.err.println("Usage: java diagnostics.JfrRecordingSummary <recording.jfr> [slowest]");
+         System.exit(1);
+      }
+      int slowestCount = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+      Map<String, Group> groups = new TreeMap<>();
+      List<RecordedEvent> slowest = new ArrayList<>();
+      int gcCount = 0;
+      Duration gcPause = Duration.ZERO;
+      Duration longestGc = Duration.ZERO;
+
+      try (RecordingFile recording = new RecordingFile(Path.of(args[0]))) {
+         while (recording.hasMoreEvents()) {
+            RecordedEvent event = recording.readEvent();
+            String type = event.getEventType().getName();
+
+            if (type.equals("jdk.GarbageCollection")) {
+               gcCount++;
+               Duration pause = event.getDuration("sumOfPauses");
+               gcPause = gcPause.plus(pause);
+               longestGc = pause.compareTo(longestGc) > 0 ? pause : longestGc;
+               continue;
+            }
+            if (!type.startsWith(PREFIX)) {
+               continue;
+            }
+
+            Group group = groups.computeIfAbsent(groupName(event), k -> new Group());
+            group.durations.add(event.getDuration().toNanos());
+            if (event.hasField("outcome")) {
+               group.outcomes.merge(String.valueOf(event.getString("outcome")), 1, Integer::sum);
+            }
+            if (event.hasField("rowsScanned")) {
+               group.rowsScanned += event.getInt("rowsScanned");
+            }
+            if (event.hasField("queueWait")) {
+               group.queueWait += event.getLong("queueWait");
+               group.batchSize += event.getInt("batchSize");
+            }
+
+            slowest.add(event);
+            if (slowest.size() > slowestCount * 8) {
+               keepSlowest(slowest, slowestCount);
+            }
+         }
+      }
+      keepSlowest(slowest, slowestCount);
+
+      if (groups.isEmpty()) {
+         System.out.println("No hotel.* events found. Was the recording started with hotel-booking.jfc?");
+         return;
+      }
+
+      System.out.printf("%-42s %8s %10s %10s %10s  %s%n", "Event", "Count", "p50 ms", "p99 ms", "max ms", "Details");
+      for (Map.Entry<String, Group> entry : groups.entrySet()) {
+         Group g = entry.getValue();
+         g.durations.sort(null);
+         int n = g.durations.size();
+
+         StringBuilder details = new StringBuilder(g.outcomes.toString());
+         if (g.rowsScanned > 0) {
+            details.append(String.format(", avg rows %.1f", (double) g.rowsScanned / n));
+         }
+         if (g.batchSize > 0) {
+            details.append(String.format(", avg queue wait %.2f ms, avg batch %.1f",
+                    g.queueWait / 1e6 / n, (double) g.batchSize / n));
+         }
+
+         System.out.printf("%-42s %8d %10.3f %10.3f %10.3f  %s%n",
+                 entry.getKey(), n,
+                 g.durations.get(n / 2) / 1e6,
+                 g.durations.get(Math.min(n - 1, (int) (n * 0.99))) / 1e6,
+                 g.durations.get(n - 1) / 1e6,
+                 details);
+      }
+
+      System.out.println();
+      System.out.println("Slowest events:");
+      for (RecordedEvent event : slowest) {
+         System.out.printf("  %10.3f ms  %-42s %s%n",
+                 event.getDuration().toNanos() / 1e6, groupName(event), describe(event));
+      }
+
+      System.out.println();
+      System.out.printf("GC: %d collections, %.1f ms total pause, longest %.1f ms%n",
+              gcCount, gcPause.toNanos() / 1e6, longestGc.toNanos() / 1e6);
+   }
+
+   private static String groupName(RecordedEvent event) {
+      String name = event.getEventType().getName().substring(PREFIX.length());
+      if (event.hasField("operation")) {
+         return name + " " + event.getString("repository") + "." + event.getString("operation");
+      }
+      return name;
+   }
+
+   private static String describe(RecordedEvent event) {
+      StringBuilder text = new StringBuilder();
+      for (String field : List.of("roomId", "checkIn", "checkOut", "from", "to", "rowsScanned", "outcome")) {
+         if (event.hasField(field)) {
+            Object value = event.getValue(field);
+            if (value != null) {
+               text.append(field).append('=').append(value).append(' ');
+            }
+         }
+      }
+      return text.toString().trim();
+   }
+
+   private static void keepSlowest(List<RecordedEvent> events, int count) {
+      events.sort(Comparator.comparing(RecordedEvent::getDuration, Comparator.reverseOrder()));
+      if (events.size() > count) {
+         events.subList(count, events.size()).clear();
+      }
+   }
+}
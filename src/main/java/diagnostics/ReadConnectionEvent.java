@@ -0,0 +1,57 @@
+package diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * JFR event for borrowing a connection from the read pool.
+ *
+ * <p>The duration is the time spent waiting for a pooled connection, so only
+ * slow acquisitions are recorded by default.</p>
+ */
+@Name("hotel.ReadConnection")
+@Label("Read Connection Acquire")
+@Category({"Hotel Booking", "Persistence"})
+@Description("Wait for a read-only connection from the pool")
+@Threshold("1 ms")
+@StackTrace(false)
+public class ReadConnectionEvent extends Event {
+
+   @Label("Opened")
+   @Description("A new connection was opened because the pool was below its size")
+   private boolean opened;
+
+   @Label("Outcome")
+   @Description("OK, TIMEOUT or FAILED")
+   private String outcome = "FAILED";
+
+   public static ReadConnectionEvent start() {
+      ReadConnectionEvent event = new ReadConnectionEvent();
+      event.begin();
+      return event;
+   }
+
+   public void acquired(boolean opened) {
+      this.opened = opened;
+      this.outcome = "OK";
+   }
+
+   public void outcome(String outcome) {
+      this.outcome = outcome;
+   }
+
+   /**
+    * Ends the event and records it if it is enabled and over its threshold.
+    */
+   public void finish() {
+      end();
+      if (shouldCommit()) {
+         commit();
+      }
+   }
+}
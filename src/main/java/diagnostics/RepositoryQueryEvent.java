@@ -0,0 +1,79 @@
+package diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+import java.time.LocalDate;
+
+/**
+ * JFR event for one repository read.
+ *
+ * <p>The duration covers reading the partition layout, every partition query
+ * and mapping the rows.</p>
+ */
+@Name("hotel.RepositoryQuery")
+@Label("Repository Query")
+@Category({"Hotel Booking", "Persistence"})
+@Description("A read through one of the SQLite repositories")
+@StackTrace(false)
+public class RepositoryQueryEvent extends Event {
+
+   @Label("Repository")
+   private String repository;
+
+   @Label("Operation")
+   private String operation;
+
+   @Label("Room Id")
+   @Description("Room the query is restricted to, 0 if it is not room-specific")
+   private int roomId;
+
+   @Label("From")
+   private String from;
+
+   @Label("To")
+   private String to;
+
+   @Label("Tables")
+   @Description("Booking partitions (and archive) queried")
+   private int tables;
+
+   @Label("Rows Scanned")
+   @Description("Rows read from the result sets")
+   private int rowsScanned;
+
+   @Label("Outcome")
+   @Description("OK or FAILED")
+   private String outcome = "FAILED";
+
+   public static RepositoryQueryEvent start(String repository, String operation) {
+      RepositoryQueryEvent event = new RepositoryQueryEvent();
+      event.repository = repository;
+      event.operation = operation;
+      event.begin();
+      return event;
+   }
+
+   public void result(int tables, int rowsScanned) {
+      this.tables = tables;
+      this.rowsScanned = rowsScanned;
+      this.outcome = "OK";
+   }
+
+   /**
+    * Ends the event and records it if it is enabled and over its threshold.
+    */
+   public void finish(int roomId, LocalDate from, LocalDate to) {
+      end();
+      if (shouldCommit()) {
+         this.roomId = roomId;
+         this.from = from == null ? null : from.toString();
+         this.to = to == null ? null : to.toString();
+         commit();
+      }
+   }
+}
@@ -0,0 +1,231 @@
+package domain;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compact, immutable read model of a booking for large in-memory working sets.
+ *
+ * <p>Dates are stored as epoch days, the creation time as epoch seconds, the
+ * privilege as its ordinal and the source ({@code createdBy}) as a code into a
+ * dictionary shared by all instances. Guest names are kept as the UTF-8 bytes
+ * of the single {@code |}-separated string they are stored as in the database.
+ * With typical names a booking retains about a third of the heap of a
+ * {@link HotelBooking} (see {@code benchmark.BookingFootprintBenchmark}).</p>
+ *
+ * <p>Instances can be shared between threads without synchronization. Accessors
+ * that return objects ({@link #getCheckInDate()}, {@link #getGuestNames()}, ...)
+ * build them on every call; {@link #toHotelBooking()} builds the full booking
+ * when one is needed, e.g. for display.</p>
+ */
+public final class CompactBooking {
+
+   private static final GuestPrivilege[] PRIVILEGES = GuestPrivilege.values();
+
+   private static final byte[] EMPTY = new byte[0];
+
+   private final int id;
+   private final int roomId;
+   private final int checkInDay;
+   private final int checkOutDay;
+   private final long createdAtSecond;
+   private final short guestCount;
+   private final short createdBy;
+   private final byte guestPrivilege;
+   private final byte[] guestNames;
+   private final String specialRequests;
+
+   /**
+    * @param checkInDay check-in date as epoch day
+    * @param checkOutDay check-out date as epoch day
+    * @param guestNames guest names separated by {@code |}
+    * @param createdAtSecond creation time as epoch seconds of the local date-time read as UTC
+    */
+   public CompactBooking(int id,
+                         int roomId,
+                         int checkInDay,
+                         int checkOutDay,
+                         int guestCount,
+                         String guestNames,
+                         GuestPrivilege guestPrivilege,
+                         String createdBy,
+                         String specialRequests,
+                         long createdAtSecond) {
+      if (guestCount < 0 || guestCount > Short.MAX_VALUE) {
+         throw new IllegalArgumentException("Guest count out of range: " + guestCount);
+      }
+      this.id = id;
+      this.roomId = roomId;
+      this.checkInDay = checkInDay;
+      this.checkOutDay = checkOutDay;
+      this.guestCount = (short) guestCount;
+      this.guestNames = guestNames == null ? EMPTY : guestNames.getBytes(StandardCharsets.UTF_8);
+      this.guestPrivilege = (byte) guestPrivilege.ordinal();
+      this.createdBy = Sources.codeOf(createdBy);
+      this.specialRequests = specialRequests;
+      this.createdAtSecond = createdAtSecond;
+   }
+
+   /**
+    * Compacts a stored booking. The creation time keeps whole seconds only.
+    */
+   public static CompactBooking of(HotelBooking booking) {
+      if (booking.getId() == null) {
+         throw new IllegalArgumentException("Only stored bookings can be compacted");
+      }
+      return new CompactBooking(
+              booking.getId(),
+              booking.getRoomId(),
+              (int) booking.getCheckInDate().toEpochDay(),
+              (int) booking.getCheckOutDate().toEpochDay(),
+              booking.getGuestCount(),
+              String.join("|", booking.getGuestNames()),
+              booking.getGuestPrivilege(),
+              booking.getCreatedBy(),
+              booking.getSpecialRequests(),
+              booking.getCreatedAt().toEpochSecond(ZoneOffset.UTC)
+      );
+   }
+
+   /**
+    * Builds the full booking. Every call returns a new instance.
+    */
+   public HotelBooking toHotelBooking() {
+      return new HotelBooking(
+              id,
+              roomId,
+              getCheckInDate(),
+              getCheckOutDate(),
+              guestCount,
+              getGuestNames(),
+              getGuestPrivilege(),
+              getCreatedBy(),
+              specialRequests,
+              getCreatedAt()
+      );
+   }
+
+   public int getId() {
+      return id;
+   }
+
+   public int getRoomId() {
+      return roomId;
+   }
+
+   public int getCheckInDay() {
+      return checkInDay;
+   }
+
+   public int getCheckOutDay() {
+      return checkOutDay;
+   }
+
+   public LocalDate getCheckInDate() {
+      return LocalDate.ofEpochDay(checkInDay);
+   }
+
+   public LocalDate getCheckOutDate() {
+      return LocalDate.ofEpochDay(checkOutDay);
+   }
+
+   public int getNights() {
+      return checkOutDay - checkInDay;
+   }
+
+   /**
+    * True if the stay overlaps the half-open range [fromDay, toDay) of epoch days.
+    */
+   public boolean overlaps(int fromDay, int toDay) {
+      return checkInDay < toDay && checkOutDay > fromDay;
+   }
+
+   public int getGuestCount() {
+      return guestCount;
+   }
+
+   public List<String> getGuestNames() {
+      String text = new String(guestNames, StandardCharsets.UTF_8);
+      if (text.isBlank()) {
+         return List.of();
+      }
+      return List.of(text.split("\\|"));
+   }
+
+   /**
+    * The source, as the one instance the dictionary holds for it.
+    */
+   public String getCreatedBy() {
+      return Sources.nameOf(createdBy);
+   }
+
+   public GuestPrivilege getGuestPrivilege() {
+      return PRIVILEGES[guestPrivilege];
+   }
+
+   public String getSpecialRequests() {
+      return specialRequests;
+   }
+
+   public LocalDateTime getCreatedAt() {
+      return LocalDateTime.ofEpochSecond(createdAtSecond, 0, ZoneOffset.UTC);
+   }
+
+   @Override
+   public String toString() {
+      return "domain.CompactBooking{" +
+              "id=" + id +
+              ", roomId=" + roomId +
+              ", checkInDate=" + getCheckInDate() +
+              ", checkOutDate=" + getCheckOutDate() +
+              ", guestCount=" + guestCount +
+              ", createdBy='" + getCreatedBy() + '\'' +
+              ", guestPrivilege=" + getGuestPrivilege() +
+              '}';
+   }
+
+   /**
+    * Dictionary of booking sources ("ONLINE", "FRONT_DESK", ...). There are only a
+    * handful, so codes are assigned on first sight and never released.
+    */
+   private static final class Sources {
+
+      private static final Map<String, Short> CODES = new ConcurrentHashMap<>();
+
+      // Copy-on-write, indexed by code
+      private static volatile String[] names = new String[0];
+
+      static short codeOf(String source) {
+         Objects.requireNonNull(source, "createdBy");
+         Short code = CODES.get(source);
+         return code != null ? code : register(source);
+      }
+
+      static String nameOf(short code) {
+         return names[code];
+      }
+
+      private static synchronized short register(String source) {
+         Short code = CODES.get(source);
+         if (code != null) {
+            return code;
+         }
+         if (names.length > Short.MAX_VALUE) {
+            throw new IllegalStateException("Too many distinct booking sources");
+         }
+         String[] grown = Arrays.copyOf(names, names.length + 1);
+         grown[names.length] = source;
+         // Publish the name before the code, so that every code handed out can be resolved
+         names = grown;
+         CODES.put(source, (short) (grown.length - 1));
+         return (short) (grown.length - 1);
+      }
+   }
+}
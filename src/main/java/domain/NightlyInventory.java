@@ -0,0 +1,18 @@
+package domain;
+
+import java.time.LocalDate;
+
+/**
+ * Rooms of one type sold and still free on one night.
+ *
+ * @param roomType the room type
+ * @param night the night, identified by its date
+ * @param totalRooms number of rooms of this type
+ * @param sold rooms of this type booked for the night
+ */
+public record NightlyInventory(RoomType roomType, LocalDate night, int totalRooms, int sold) {
+
+   public int available() {
+      return Math.max(0, totalRooms - sold);
+   }
+}
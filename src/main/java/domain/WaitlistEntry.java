@@ -0,0 +1,140 @@
+package domain;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * A stay request waiting for a room of its type to become free.
+ *
+ * <p>Entries with a higher {@code priority} are promoted first; entries of equal
+ * priority in the order they were added.</p>
+ */
+public class WaitlistEntry {
+
+   private Integer id;
+   private RoomType roomType;
+
+   private LocalDate checkInDate;
+   private LocalDate checkOutDate;
+
+   private int guestCount;
+   private List<String> guestNames;
+
+   private String createdBy;
+   private GuestPrivilege guestPrivilege;
+   private String specialRequests;
+
+   private int priority;
+   private LocalDateTime createdAt;
+
+   // Full constructor
+   public WaitlistEntry(Integer id,
+                        RoomType roomType,
+                        LocalDate checkInDate,
+                        LocalDate checkOutDate,
+                        int guestCount,
+                        List<String> guestNames,
+                        GuestPrivilege guestPrivilege,
+                        String createdBy,
+                        String specialRequests,
+                        int priority,
+                        LocalDateTime createdAt) {
+      this.id = id;
+      this.roomType = roomType;
+      this.checkInDate = checkInDate;
+      this.checkOutDate = checkOutDate;
+      this.guestCount = guestCount;
+      this.guestNames = guestNames;
+      this.guestPrivilege = guestPrivilege;
+      this.createdBy = createdBy;
+      this.specialRequests = specialRequests;
+      this.priority = priority;
+      this.createdAt = createdAt;
+   }
+
+   // Constructor for new entries created in code
+   public WaitlistEntry(RoomType roomType,
+                        LocalDate checkInDate,
+                        LocalDate checkOutDate,
+                        int guestCount,
+                        List<String> guestNames,
+                        GuestPrivilege guestPrivilege,
+                        String createdBy,
+                        String specialRequests,
+                        int priority) {
+      this(null,
+              roomType,
+              checkInDate,
+              checkOutDate,
+              guestCount,
+              guestNames,
+              guestPrivilege,
+              createdBy,
+              specialRequests,
+              priority,
+              LocalDateTime.now());
+   }
+
+   public Integer getId() {
+      return id;
+   }
+
+   public RoomType getRoomType() {
+      return roomType;
+   }
+
+   public LocalDate getCheckInDate() {
+      return checkInDate;
+   }
+
+   public LocalDate getCheckOutDate() {
+      return checkOutDate;
+   }
+
+   public int getGuestCount() {
+      return guestCount;
+   }
+
+   public List<String> getGuestNames() {
+      return guestNames;
+   }
+
+   public GuestPrivilege getGuestPrivilege() {
+      return guestPrivilege;
+   }
+
+   public String getCreatedBy() {
+      return createdBy;
+   }
+
+   public String getSpecialRequests() {
+      return specialRequests;
+   }
+
+   public int getPriority() {
+      return priority;
+   }
+
+   public LocalDateTime getCreatedAt() {
+      return createdAt;
+   }
+
+   public void setId(Integer id) {
+      this.id = id;
+   }
+
+   @Override
+   public String toString() {
+      return "domain.WaitlistEntry{" +
+              "id=" + id +
+              ", roomType=" + roomType +
+              ", checkInDate=" + checkInDate +
+              ", checkOutDate=" + checkOutDate +
+              ", guestCount=" + guestCount +
+              ", guestNames=" + guestNames +
+              ", priority=" + priority +
+              ", createdAt=" + createdAt +
+              '}';
+   }
+}
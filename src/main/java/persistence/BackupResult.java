@@ -0,0 +1,16 @@
+package persistence;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Outcome of an online backup made by {@link DatabaseManager#backup}.
+ *
+ * @param file the verified backup file
+ * @param pages number of database pages copied
+ * @param bytes size of the backup file
+ * @param restarts how often the copy started over because another connection changed the database
+ * @param duration time spent copying and verifying
+ */
+public record BackupResult(Path file, int pages, long bytes, int restarts, Duration duration) {
+}
@@ -0,0 +1,203 @@
+package persistence;
+
+import config.AppConfig;
+import persistence.BookingPartitions.Partition;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background job that moves long checked-out stays into {@code hotel_bookings_archive}.
+ *
+ * <p>Rows are moved in small batches, each submitted as its own write command,
+ * with a pause in between so booking inserts never queue behind one large
+ * archival transaction. Only partitions whose year is not after the cutoff year can hold
+ * archivable stays, so the current partitions are not scanned.</p>
+ */
+public class BookingArchiver {
+
+   // Pause between batches so queued booking writes go first
+   private static final long PAUSE_BETWEEN_BATCHES_MILLIS = 20;
+
+   private final Database database;
+   private final int archiveAfterDays;
+   private final int batchSize;
+
+   private ScheduledExecutorService scheduler;
+
+   /**
+    * Creates an archiver for the default property's database.
+    *
+    * @param archiveAfterDays stays that checked out at least this many days ago are archived
+    * @param batchSize maximum number of bookings moved per transaction
+    */
+   public BookingArchiver(int archiveAfterDays, int batchSize) {
+      this(DatabaseManager.defaultDatabase(), archiveAfterDays, batchSize);
+   }
+
+   /**
+    * @param database the database of the property whose bookings are archived
+    * @param archiveAfterDays stays that checked out at least this many days ago are archived
+    * @param batchSize maximum number of bookings moved per transaction
+    */
+   public BookingArchiver(Database database, int archiveAfterDays, int batchSize) {
+      if (archiveAfterDays < 0) {
+         throw new IllegalArgumentException("archiveAfterDays must not be negative");
+      }
+      if (batchSize <= 0) {
+         throw new IllegalArgumentException("batchSize must be positive");
+      }
+      this.database = database;
+      this.archiveAfterDays = archiveAfterDays;
+      this.batchSize = batchSize;
+   }
+
+   /**
+    * Creates an archiver for the database from the {@code archive.*} settings in application.properties.
+    */
+   public static BookingArchiver fromConfig(Database database) {
+      return new BookingArchiver(
+              database,
+              AppConfig.getInt("archive.after.days", 365),
+              AppConfig.getInt("archive.batch.size", 500)
+      );
+   }
+
+   /**
+    * Starts archiving periodically on a background daemon thread.
+    */
+   public synchronized void start(long intervalMinutes) {
+      if (scheduler != null) {
+         return;
+      }
+      scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+         Thread t = new Thread(r, "booking-archiver-" + database.getPropertyId());
+         t.setDaemon(true);
+         return t;
+      });
+      scheduler.scheduleWithFixedDelay(() -> {
+         try {
+            archiveNow();
+         } catch (RuntimeException e) {
+            // Keep the schedule alive; the next run retries the remaining rows
+            System.err.println("Booking archival failed: " + e.getMessage());
+         }
+      }, 0, intervalMinutes, TimeUnit.MINUTES);
+   }
+
+   public synchronized void stop() {
+      if (scheduler != null) {
+         scheduler.shutdownNow();
+         scheduler = null;
+      }
+   }
+
+   /**
+    * Archives every stay that checked out before the cutoff, batch by batch.
+    *
+    * @return number of bookings moved to the archive
+    */
+   public int archiveNow() {
+      LocalDate cutoff = LocalDate.now().minusDays(archiveAfterDays);
+      int total = 0;
+
+      try {
+         for (Partition p : BookingPartitions.layout(database).partitions()) {
+            // A stay checking out by the cutoff also checked in before it
+            if (p.year() > cutoff.getYear()) {
+               break;
+            }
+
+            int moved;
+            do {
+               moved = archiveBatch(p, cutoff);
+               total += moved;
+               if (moved > 0) {
+                  Thread.sleep(PAUSE_BETWEEN_BATCHES_MILLIS);
+               }
+            } while (moved == batchSize);
+         }
+
+         return total;
+
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         return total;
+      } catch (SQLException e) {
+         throw new RuntimeException("Failed to archive bookings", e);
+      }
+   }
+
+   /**
+    * Moves up to {@code batchSize} bookings of one partition in a single write command.
+    */
+   private int archiveBatch(Partition partition, LocalDate cutoff) throws SQLException {
+      String table = partition.tableName();
+
+      String selectSql = """
+              SELECT max(id), count(*), max(check_out_date)
+              FROM (SELECT id, check_out_date
+                    FROM %s
+                    WHERE check_out_date <= ?
+                    ORDER BY id
+                    LIMIT ?)
+              """.formatted(table);
+      String copySql = """
+              INSERT INTO hotel_bookings_archive
+              SELECT * FROM %s
+              WHERE check_out_date <= ? AND id <= ?
+              """.formatted(table);
+      String deleteSql = """
+              DELETE FROM %s
+              WHERE check_out_date <= ? AND id <= ?
+              """.formatted(table);
+      String stateSql = """
+              UPDATE hotel_booking_archive_state
+              SET max_check_out_date = ?
+              WHERE id = 1
+                AND (max_check_out_date IS NULL OR max_check_out_date < ?)
+              """;
+
+      return database.write(conn -> {
+         int maxId;
+         int count;
+         String maxCheckOut;
+         try (PreparedStatement ps = conn.prepareStatement(selectSql)) {
+            ps.setString(1, cutoff.toString());
+            ps.setInt(2, batchSize);
+            try (ResultSet rs = ps.executeQuery()) {
+               rs.next();
+               maxId = rs.getInt(1);
+               count = rs.getInt(2);
+               maxCheckOut = rs.getString(3);
+            }
+         }
+
+         if (count == 0) {
+            return 0;
+         }
+
+         for (String sql : List.of(copySql, deleteSql)) {
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+               ps.setString(1, cutoff.toString());
+               ps.setInt(2, maxId);
+               ps.executeUpdate();
+            }
+         }
+
+         try (PreparedStatement ps = conn.prepareStatement(stateSql)) {
+            ps.setString(1, maxCheckOut);
+            ps.setString(2, maxCheckOut);
+            ps.executeUpdate();
+         }
+
+         return count;
+      });
+   }
+}
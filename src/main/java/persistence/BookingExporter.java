@@ -0,0 +1,443 @@
+package persistence;
+
+import config.AppConfig;
+import persistence.BookingPartitions.Partition;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streams the bookings of one property's database into a CSV or JSON Lines file.
+ *
+ * <p>Rows go straight from the {@code ResultSet} into fixed-size chunks of column
+ * values; no {@code HotelBooking} is created. Chunks are encoded (and gzipped)
+ * on a small pool of threads while the next chunk is read, and written in order
+ * to a {@link FileChannel}. At most two chunks per encoding thread are in flight,
+ * so memory use does not grow with the number of bookings.</p>
+ *
+ * <p>All tables are read in one read transaction, so an export is a consistent
+ * snapshot even while bookings are made or archived. Bookings come out table by
+ * table, oldest first (the archive, then the yearly partitions), each in id
+ * order, or in check-in order when limited to a date range. A gzipped export
+ * is a series of gzip members, one per chunk, which {@code gunzip}, {@code zcat}
+ * and {@code GZIPInputStream} read as one stream.</p>
+ */
+public class BookingExporter {
+
+   // Bookings encoded and written together
+   private static final int ROWS_PER_CHUNK = 2048;
+
+   // Exported columns, in file order
+   private static final String[] COLUMNS = {
+           "id", "room_id", "check_in_date", "check_out_date", "guest_count",
+           "guest_names", "guest_privilege", "created_by", "special_requests", "created_at"
+   };
+   private static final int ID = 0;
+   private static final int ROOM_ID = 1;
+   private static final int GUEST_COUNT = 4;
+   private static final int GUEST_NAMES = 5;
+
+   private static final String PREFIX = "bookings-";
+
+   // Sortable, so the newest exports sort last
+   private static final DateTimeFormatter STAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+   private final Database database;
+   private final Path directory;
+   private final int threads;
+
+   public enum Format {
+      CSV("csv"),
+      JSON_LINES("jsonl");
+
+      private final String extension;
+
+      Format(String extension) {
+         this.extension = extension;
+      }
+
+      public String getExtension() {
+         return extension;
+      }
+   }
+
+   /**
+    * @param database the database whose bookings are exported
+    * @param directory where {@link #exportNow} writes; created if missing
+    * @param threads number of threads encoding chunks
+    */
+   public BookingExporter(Database database, Path directory, int threads) {
+      if (threads <= 0) {
+         throw new IllegalArgumentException("threads must be positive");
+      }
+      this.database = database;
+      this.directory = directory;
+      this.threads = threads;
+   }
+
+   /**
+    * Creates an exporter for the database from the {@code export.*} settings in
+    * application.properties; each property exports into its own subdirectory.
+    */
+   public static BookingExporter fromConfig(Database database) {
+      return new BookingExporter(
+              database,
+              Path.of(AppConfig.get("export.dir", "exports")).resolve(database.getPropertyId()),
+              AppConfig.getInt("export.threads", Runtime.getRuntime().availableProcessors())
+      );
+   }
+
+   /**
+    * Exports into a new file of the export directory named after the current time,
+    * e.g. {@code bookings-20260315-020000.csv.gz}.
+    *
+    * @see #export
+    */
+   public ExportResult exportNow(Format format, LocalDate from, LocalDate to, boolean gzip) {
+      String name = PREFIX + STAMP.format(LocalDateTime.now()) + "." + format.getExtension() + (gzip ? ".gz" : "");
+      return export(directory.resolve(name), format, from, to, gzip);
+   }
+
+   /**
+    * Exports the bookings whose stay overlaps [from, to) into {@code target}.
+    *
+    * <p>The file is written under a temporary name and moved into place when
+    * complete, so a reader never sees a partial export.</p>
+    *
+    * @param from start of the range (inclusive), or null for no start
+    * @param to end of the range (exclusive), or null for no end
+    * @param gzip whether to compress the file
+    * @throws IllegalArgumentException if both dates are given and from is not before to
+    */
+   public ExportResult export(Path target, Format format, LocalDate from, LocalDate to, boolean gzip) {
+      if (from != null && to != null && !from.isBefore(to)) {
+         throw new IllegalArgumentException("from must be before to");
+      }
+
+      long start = System.nanoTime();
+      Path partial = target.resolveSibling(target.getFileName() + ".part");
+      AtomicInteger counter = new AtomicInteger();
+      ExecutorService encoders = Executors.newFixedThreadPool(threads, r -> {
+         Thread t = new Thread(r, "booking-export-" + database.getPropertyId() + "-" + counter.incrementAndGet());
+         t.setDaemon(true);
+         return t;
+      });
+
+      try {
+         Path parent = target.toAbsolutePath().getParent();
+         if (parent != null) {
+            Files.createDirectories(parent);
+         }
+
+         long rows = 0;
+         try (FileChannel out = FileChannel.open(partial,
+                 StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+              Connection conn = database.getReadConnection()) {
+
+            if (format == Format.CSV) {
+               writeFully(out, encode(String.join(",", COLUMNS) + "\n", gzip));
+            }
+
+            // One snapshot across all tables
+            conn.setAutoCommit(false);
+
+            Deque<Future<ByteBuffer>> pending = new ArrayDeque<>();
+            Chunk chunk = new Chunk();
+            for (Partition table : tablesToExport(conn, from, to)) {
+               try (PreparedStatement ps = prepare(conn, table, from, to);
+                    ResultSet rs = ps.executeQuery()) {
+                  while (rs.next()) {
+                     chunk.add(rs);
+                     rows++;
+                     if (chunk.rows == ROWS_PER_CHUNK) {
+                        submit(chunk, format, gzip, encoders, pending, out);
+                        chunk = new Chunk();
+                     }
+                  }
+               }
+            }
+            if (chunk.rows > 0) {
+               submit(chunk, format, gzip, encoders, pending, out);
+            }
+            while (!pending.isEmpty()) {
+               writeFully(out, await(pending.removeFirst()));
+            }
+            out.force(true);
+         }
+
+         Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+         return new ExportResult(target, rows, Files.size(target), Duration.ofNanos(System.nanoTime() - start));
+
+      } catch (IOException | SQLException e) {
+         throw new RuntimeException("Failed to export bookings to " + target, e);
+      } finally {
+         encoders.shutdownNow();
+         try {
+            Files.deleteIfExists(partial);
+         } catch (IOException ignored) {
+            // only left behind after a failed export
+         }
+      }
+   }
+
+   // ----- private helpers -----
+
+   /**
+    * Column values of consecutive rows, as read from the result set.
+    */
+   private static final class Chunk {
+      final String[] values = new String[ROWS_PER_CHUNK * COLUMNS.length];
+      int rows;
+
+      void add(ResultSet rs) throws SQLException {
+         int base = rows * COLUMNS.length;
+         for (int c = 0; c < COLUMNS.length; c++) {
+            values[base + c] = rs.getString(c + 1);
+         }
+         rows++;
+      }
+   }
+
+   /**
+    * Hands a full chunk to the encoders; once too many are in flight, first
+    * writes the oldest, which also keeps the file in read order.
+    */
+   private void submit(Chunk chunk,
+                       Format format,
+                       boolean gzip,
+                       ExecutorService encoders,
+                       Deque<Future<ByteBuffer>> pending,
+                       FileChannel out) throws IOException {
+      if (pending.size() >= 2 * threads) {
+         writeFully(out, await(pending.removeFirst()));
+      }
+      pending.addLast(encoders.submit(() -> encode(chunk, format, gzip)));
+   }
+
+   /**
+    * The archive and partitions that may hold a stay overlapping [from, to), oldest first.
+    */
+   private static List<Partition> tablesToExport(Connection conn, LocalDate from, LocalDate to) throws SQLException {
+      List<Partition> tables = new ArrayList<>();
+      Partition archive = BookingPartitions.archive(conn);
+      if (from == null || (archive.maxCheckOut() != null && archive.maxCheckOut().isAfter(from))) {
+         tables.add(archive);
+      }
+      for (Partition p : BookingPartitions.list(conn)) {
+         boolean startsBeforeTo = to == null || p.year() <= to.minusDays(1).getYear();
+         boolean reachesFrom = from == null || (p.maxCheckOut() != null && p.maxCheckOut().isAfter(from));
+         if (startsBeforeTo && reachesFrom) {
+            tables.add(p);
+         }
+      }
+      return tables;
+   }
+
+   /**
+    * Selects the table's stays overlapping [from, to) without a sort: a whole table
+    * in rowid order, which reads about twice as fast as walking an index, and a
+    * date range along the check-in index, so that only the range is read.
+    */
+   private static PreparedStatement prepare(Connection conn, Partition table, LocalDate from, LocalDate to)
+           throws SQLException {
+      List<String> conditions = new ArrayList<>();
+      List<String> params = new ArrayList<>();
+      if (from != null) {
+         LocalDate earliest = table.earliestCheckInReaching(from);
+         if (earliest != null) {
+            conditions.add("check_in_date >= ?");
+            params.add(earliest.toString());
+         }
+         conditions.add("check_out_date > ?");
+         params.add(from.toString());
+      }
+      if (to != null) {
+         conditions.add("check_in_date < ?");
+         params.add(to.toString());
+      }
+
+      String sql;
+      if (conditions.isEmpty()) {
+         sql = """
+               SELECT %s
+               FROM %s
+               ORDER BY id
+               """.formatted(String.join(", ", COLUMNS), table.tableName());
+      } else {
+         sql = """
+               SELECT %s
+               FROM %s INDEXED BY idx_%s_check_in
+               WHERE %s
+               ORDER BY check_in_date
+               """.formatted(
+                 String.join(", ", COLUMNS),
+                 table.tableName(),
+                 table.tableName(),
+                 String.join(" AND ", conditions));
+      }
+
+      PreparedStatement ps = conn.prepareStatement(sql);
+      for (int i = 0; i < params.size(); i++) {
+         ps.setString(i + 1, params.get(i));
+      }
+      return ps;
+   }
+
+   private static ByteBuffer encode(Chunk chunk, Format format, boolean gzip) throws IOException {
+      StringBuilder text = new StringBuilder(chunk.rows * 256);
+      for (int r = 0; r < chunk.rows; r++) {
+         int base = r * COLUMNS.length;
+         if (format == Format.CSV) {
+            appendCsvRow(text, chunk.values, base);
+         } else {
+            appendJsonRow(text, chunk.values, base);
+         }
+      }
+      return encode(text, gzip);
+   }
+
+   private static ByteBuffer encode(CharSequence text, boolean gzip) throws IOException {
+      ByteBuffer utf8 = StandardCharsets.UTF_8.encode(CharBuffer.wrap(text));
+      if (!gzip) {
+         return utf8;
+      }
+      ByteArrayOutputStream compressed = new ByteArrayOutputStream(utf8.remaining() / 4 + 64);
+      try (GZIPOutputStream out = new GZIPOutputStream(compressed, 64 * 1024)) {
+         out.write(utf8.array(), utf8.arrayOffset() + utf8.position(), utf8.remaining());
+      }
+      return ByteBuffer.wrap(compressed.toByteArray());
+   }
+
+   /**
+    * RFC 4180: fields with a comma, quote or line break are quoted, quotes doubled.
+    * Guest names keep their stored form, e.g. {@code Alice Smith|Bob Smith}.
+    */
+   private static void appendCsvRow(StringBuilder text, String[] values, int base) {
+      for (int c = 0; c < COLUMNS.length; c++) {
+         if (c > 0) {
+            text.append(',');
+         }
+         String value = values[base + c];
+         if (value == null) {
+            continue;
+         }
+         boolean quote = false;
+         for (int i = 0; i < value.length() && !quote; i++) {
+            char ch = value.charAt(i);
+            quote = ch == ',' || ch == '"' || ch == '\n' || ch == '\r';
+         }
+         if (quote) {
+            text.append('"').append(value.replace("\"", "\"\"")).append('"');
+         } else {
+            text.append(value);
+         }
+      }
+      text.append('\n');
+   }
+
+   /**
+    * One JSON object per line; ids and guest count as numbers, guest names as an array.
+    */
+   private static void appendJsonRow(StringBuilder text, String[] values, int base) {
+      text.append('{');
+      for (int c = 0; c < COLUMNS.length; c++) {
+         if (c > 0) {
+            text.append(',');
+         }
+         text.append('"').append(COLUMNS[c]).append("\":");
+         String value = values[base + c];
+         if (value == null) {
+            text.append("null");
+         } else if (c == ID || c == ROOM_ID || c == GUEST_COUNT) {
+            text.append(value);
+         } else if (c == GUEST_NAMES) {
+            text.append('[');
+            int start = 0;
+            while (start < value.length()) {
+               int end = value.indexOf('|', start);
+               if (end < 0) {
+                  end = value.length();
+               }
+               if (start > 0) {
+                  text.append(',');
+               }
+               appendJsonString(text, value, start, end);
+               start = end + 1;
+            }
+            text.append(']');
+         } else {
+            appendJsonString(text, value, 0, value.length());
+         }
+      }
+      text.append("}\n");
+   }
+
+   private static void appendJsonString(StringBuilder text, String value, int start, int end) {
+      text.append('"');
+      for (int i = start; i < end; i++) {
+         char ch = value.charAt(i);
+         switch (ch) {
+            case '"' -> text.append("\\\"");
+            case '\\' -> text.append("\\\\");
+            case '\n' -> text.append("\\n");
+            case '\r' -> text.append("\\r");
+            case '\t' -> text.append("\\t");
+            default -> {
+               if (ch < 0x20) {
+                  text.append(String.format("\\u%04x", (int) ch));
+               } else {
+                  text.append(ch);
+               }
+            }
+         }
+      }
+      text.append('"');
+   }
+
+   private static ByteBuffer await(Future<ByteBuffer> future) throws IOException {
+      try {
+         return future.get();
+      } catch (ExecutionException e) {
+         if (e.getCause() instanceof IOException io) {
+            throw io;
+         }
+         throw new RuntimeException("Failed to encode bookings", e.getCause());
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         throw new InterruptedIOException("Interrupted while encoding bookings");
+      }
+   }
+
+   private static void writeFully(FileChannel out, ByteBuffer bytes) throws IOException {
+      while (bytes.hasRemaining()) {
+         out.write(bytes);
+      }
+   }
+}
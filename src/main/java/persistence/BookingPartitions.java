@@ -0,0 +1,503 @@
+package persistence;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Year-partitioned storage for bookings.
+ *
+ * <p>Bookings live in one table per check-in year ({@code hotel_bookings_2025},
+ * {@code hotel_bookings_2026}, ...). The {@code hotel_booking_partitions} table
+ * lists the partitions together with the latest check-out date and the longest
+ * stay stored in each, so a query for a date range only touches partitions that
+ * can contain an overlapping stay, and only the check-ins that can reach it.
+ * Booking ids stay unique across partitions because they are allocated from
+ * the single-row {@code hotel_booking_sequence} table.</p>
+ *
+ * <p>Because partitions split bookings by check-in year, reading them in year
+ * order yields bookings in {@code check_in_date} order without any merge sort.</p>
+ *
+ * <p>Stays that checked out long ago are moved to {@code hotel_bookings_archive}
+ * by {@link BookingArchiver}. The archive is only read by queries that ask for
+ * history: ranges starting before its latest check-out date, or full listings.</p>
+ */
+public final class BookingPartitions {
+
+   private static final String TABLE_PREFIX = "hotel_bookings_";
+
+   public static final String ARCHIVE_TABLE = "hotel_bookings_archive";
+
+   // Year reported for the archive pseudo-partition
+   private static final int ARCHIVE_YEAR = 0;
+
+   // Pre-partitioning databases stored every booking in this single table
+   private static final String LEGACY_TABLE = "hotel_bookings";
+
+   private BookingPartitions() {
+   }
+
+   /**
+    * A single year partition.
+    *
+    * @param year the check-in year stored in this partition
+    * @param tableName the physical table name
+    * @param maxCheckOut the latest check-out date stored, or null if the partition is empty
+    * @param maxNights the longest stay stored, in nights, or 0 if unknown
+    */
+   public record Partition(int year, String tableName, LocalDate maxCheckOut, int maxNights) {
+
+      /**
+       * Earliest check-in of a stay in this partition that can still be in house
+       * the night of {@code date}, or null if the longest stay is unknown.
+       */
+      public LocalDate earliestCheckInReaching(LocalDate date) {
+         return maxNights > 0 ? date.minusDays(maxNights - 1) : null;
+      }
+   }
+
+   /**
+    * Work executed against one partition during a fan-out query.
+    */
+   @FunctionalInterface
+   public interface PartitionQuery<T> {
+      List<T> run(Connection conn, Partition partition) throws SQLException;
+   }
+
+   /**
+    * Returns the archive as a pseudo-partition; its max check-out is null while it is empty,
+    * and its longest stay is not tracked.
+    */
+   public static Partition archive(Connection conn) throws SQLException {
+      String sql = """
+              SELECT max_check_out_date
+              FROM hotel_booking_archive_state
+              WHERE id = 1
+              """;
+
+      try (PreparedStatement ps = conn.prepareStatement(sql);
+           ResultSet rs = ps.executeQuery()) {
+         String maxCheckOut = rs.next() ? rs.getString(1) : null;
+         return new Partition(ARCHIVE_YEAR, ARCHIVE_TABLE,
+                 maxCheckOut == null ? null : LocalDate.parse(maxCheckOut), 0);
+      }
+   }
+
+   public static String tableName(int year) {
+      return TABLE_PREFIX + year;
+   }
+
+   /**
+    * Lists all partitions, ordered by year.
+    */
+   public static List<Partition> list(Connection conn) throws SQLException {
+      String sql = """
+              SELECT year, table_name, max_check_out_date, max_stay_nights
+              FROM hotel_booking_partitions
+              ORDER BY year
+              """;
+
+      List<Partition> result = new ArrayList<>();
+      try (PreparedStatement ps = conn.prepareStatement(sql);
+           ResultSet rs = ps.executeQuery()) {
+         while (rs.next()) {
+            String maxCheckOut = rs.getString("max_check_out_date");
+            result.add(new Partition(
+                    rs.getInt("year"),
+                    rs.getString("table_name"),
+                    maxCheckOut == null ? null : LocalDate.parse(maxCheckOut),
+                    rs.getInt("max_stay_nights")
+            ));
+         }
+      }
+      return result;
+   }
+
+   /**
+    * Current partitions and archive, read once so that fan-out queries do not
+    * hold a connection while waiting for their partition queries.
+    */
+   public record Layout(List<Partition> partitions, Partition archive) {
+
+      /**
+       * Partitions that may hold a stay overlapping [from, to), ordered by year.
+       *
+       * <p>A partition is skipped if its year starts on or after {@code to}, or if
+       * none of its stays checks out after {@code from}.</p>
+       */
+      public List<Partition> overlapping(LocalDate from, LocalDate to) {
+         int lastYear = to.minusDays(1).getYear();
+
+         List<Partition> result = new ArrayList<>();
+         for (Partition p : partitions) {
+            if (p.year() <= lastYear && p.maxCheckOut() != null && p.maxCheckOut().isAfter(from)) {
+               result.add(p);
+            }
+         }
+         return result;
+      }
+
+      /**
+       * The archive if it may hold a stay that checks out after {@code from}, otherwise null.
+       */
+      public Partition archiveIfOverlapping(LocalDate from) {
+         if (archive.maxCheckOut() != null && archive.maxCheckOut().isAfter(from)) {
+            return archive;
+         }
+         return null;
+      }
+   }
+
+   /**
+    * Reads the current partition layout on a pooled read connection.
+    */
+   public static Layout layout(Database database) throws SQLException {
+      try (Connection conn = database.getReadConnection()) {
+         return new Layout(list(conn), archive(conn));
+      }
+   }
+
+   /**
+    * Creates the partition for the given year if it is not listed yet.
+    * Must be called from the write command that writes to the partition.
+    *
+    * <p>Runs on the single writer for every insert, so an existing partition
+    * costs one primary-key lookup instead of re-running its DDL.</p>
+    */
+   public static String ensure(Connection conn, int year) throws SQLException {
+      String sql = "SELECT 1 FROM hotel_booking_partitions WHERE year = ?";
+      try (PreparedStatement ps = conn.prepareStatement(sql)) {
+         ps.setInt(1, year);
+         try (ResultSet rs = ps.executeQuery()) {
+            if (rs.next()) {
+               return tableName(year);
+            }
+         }
+      }
+      return create(conn, year);
+   }
+
+   /**
+    * Creates the partition for the given year, its indexes and triggers, skipping
+    * whatever already exists.
+    */
+   private static String create(Connection conn, int year) throws SQLException {
+      String table = tableName(year);
+      String sql = """
+              CREATE TABLE IF NOT EXISTS %1$s (
+                  id INTEGER PRIMARY KEY,
+                  room_id INTEGER NOT NULL,
+                  check_in_date TEXT NOT NULL
+                      CHECK (check_in_date >= '%2$04d-01-01' AND check_in_date < '%3$04d-01-01'),
+                  check_out_date TEXT NOT NULL,
+                  guest_count INTEGER NOT NULL CHECK (guest_count > 0),
+                  guest_names TEXT NOT NULL,
+                  created_by TEXT NOT NULL,
+                  guest_privilege TEXT NOT NULL,
+                  special_requests TEXT,
+                  created_at TEXT NOT NULL,
+                  FOREIGN KEY (room_id) REFERENCES hotel_rooms(id) ON DELETE CASCADE
+              );
+
+              CREATE INDEX IF NOT EXISTS idx_%1$s_room ON %1$s (room_id, check_in_date);
+              CREATE INDEX IF NOT EXISTS idx_%1$s_check_in ON %1$s (check_in_date);
+              CREATE INDEX IF NOT EXISTS idx_%1$s_check_out ON %1$s (check_out_date);
+
+              INSERT OR IGNORE INTO hotel_booking_partitions (year, table_name)
+              VALUES (%2$d, '%1$s');
+              """.formatted(table, year, year + 1);
+
+      try (Statement stmt = conn.createStatement()) {
+         stmt.executeUpdate(sql);
+      }
+      SpecialRequestIndex.attach(conn, table);
+      return table;
+   }
+
+   /**
+    * Allocates the next booking id. Must be called from the inserting write command.
+    */
+   public static int nextBookingId(Connection conn) throws SQLException {
+      String sql = """
+              UPDATE hotel_booking_sequence
+              SET last_id = last_id + 1
+              WHERE id = 1
+              RETURNING last_id
+              """;
+
+      try (PreparedStatement ps = conn.prepareStatement(sql);
+           ResultSet rs = ps.executeQuery()) {
+         if (!rs.next()) {
+            throw new SQLException("hotel_booking_sequence is not initialized");
+         }
+         return rs.getInt(1);
+      }
+   }
+
+   /**
+    * Widens the partition's latest check-out date and longest stay after a booking
+    * was stored in it.
+    */
+   public static void recordStay(Connection conn, int year, LocalDate checkIn, LocalDate checkOut) throws SQLException {
+      String sql = """
+              UPDATE hotel_booking_partitions
+              SET max_check_out_date = max(coalesce(max_check_out_date, ''), ?1),
+                  max_stay_nights = max(coalesce(max_stay_nights, 0), ?2)
+              WHERE year = ?3
+                AND (max_check_out_date IS NULL OR max_check_out_date < ?1
+                     OR max_stay_nights IS NULL OR max_stay_nights < ?2)
+              """;
+
+      try (PreparedStatement ps = conn.prepareStatement(sql)) {
+         ps.setString(1, checkOut.toString());
+         ps.setLong(2, ChronoUnit.DAYS.between(checkIn, checkOut));
+         ps.setInt(3, year);
+         ps.executeUpdate();
+      }
+   }
+
+   /**
+    * Recomputes the partition's latest check-out date and longest stay from its rows,
+    * for bulk loads that bypass {@link #recordStay}.
+    */
+   public static void refreshStatistics(Connection conn, int year) throws SQLException {
+      String sql = """
+              UPDATE hotel_booking_partitions
+              SET (max_check_out_date, max_stay_nights) =
+                  (SELECT max(check_out_date),
+                          CAST(max(julianday(check_out_date) - julianday(check_in_date)) AS INTEGER)
+                   FROM %s)
+              WHERE year = %d
+              """.formatted(tableName(year), year);
+
+      try (Statement stmt = conn.createStatement()) {
+         stmt.executeUpdate(sql);
+      }
+   }
+
+   /**
+    * Runs a query against every given partition of the database in parallel, each
+    * on its own read connection, and concatenates the results in partition (year) order.
+    */
+   public static <T> List<T> fanOut(Database database,
+                                    List<Partition> partitions,
+                                    PartitionQuery<T> query) throws SQLException {
+      return fanOut(database, partitions, null, query, null);
+   }
+
+   /**
+    * Like {@link #fanOut(Database, List, PartitionQuery)}, but also queries the archive
+    * (unless it is null) and merges its rows into the partition results.
+    *
+    * @param order the order every single query returns its rows in
+    */
+   public static <T> List<T> fanOut(Database database,
+                                    List<Partition> partitions,
+                                    Partition archive,
+                                    PartitionQuery<T> query,
+                                    Comparator<? super T> order) throws SQLException {
+      List<Partition> targets = new ArrayList<>(partitions);
+      if (archive != null) {
+         targets.add(archive);
+      }
+      if (targets.isEmpty()) {
+         return new ArrayList<>();
+      }
+      if (targets.size() == 1) {
+         try (Connection conn = database.getReadConnection()) {
+            return query.run(conn, targets.get(0));
+         }
+      }
+
+      List<Future<List<T>>> futures = new ArrayList<>();
+      for (Partition p : targets) {
+         futures.add(database.fanOutExecutor().submit(() -> {
+            try (Connection conn = database.getReadConnection()) {
+               return query.run(conn, p);
+            }
+         }));
+      }
+
+      List<T> result = new ArrayList<>();
+      for (int i = 0; i < partitions.size(); i++) {
+         result.addAll(await(futures.get(i)));
+      }
+      if (archive != null) {
+         // Archived stays may start after stays still held in the partitions
+         result = merge(await(futures.get(futures.size() - 1)), result, order);
+      }
+      return result;
+   }
+
+   private static <T> List<T> await(Future<List<T>> future) throws SQLException {
+      try {
+         return future.get();
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         throw new SQLException("Interrupted while querying booking partitions", e);
+      } catch (ExecutionException e) {
+         if (e.getCause() instanceof SQLException sqlException) {
+            throw sqlException;
+         }
+         throw new SQLException("Partition query failed", e.getCause());
+      }
+   }
+
+   /**
+    * Merges two lists that are each sorted by {@code order} into one sorted list.
+    */
+   private static <T> List<T> merge(List<T> first, List<T> second, Comparator<? super T> order) {
+      List<T> result = new ArrayList<>(first.size() + second.size());
+      int i = 0;
+      int j = 0;
+      while (i < first.size() && j < second.size()) {
+         if (order.compare(first.get(i), second.get(j)) <= 0) {
+            result.add(first.get(i++));
+         } else {
+            result.add(second.get(j++));
+         }
+      }
+      result.addAll(first.subList(i, first.size()));
+      result.addAll(second.subList(j, second.size()));
+      return result;
+   }
+
+   /**
+    * Creates the partition bookkeeping tables and moves bookings out of the
+    * legacy single {@code hotel_bookings} table, if one exists.
+    */
+   static void initialize(Connection conn) throws SQLException {
+      String sql = """
+              CREATE TABLE IF NOT EXISTS hotel_booking_partitions (
+                  year INTEGER PRIMARY KEY,
+                  table_name TEXT NOT NULL UNIQUE,
+                  max_check_out_date TEXT,
+                  max_stay_nights INTEGER
+              );
+
+              CREATE TABLE IF NOT EXISTS hotel_booking_sequence (
+                  id INTEGER PRIMARY KEY CHECK (id = 1),
+                  last_id INTEGER NOT NULL
+              );
+
+              INSERT OR IGNORE INTO hotel_booking_sequence (id, last_id) VALUES (1, 0);
+
+              CREATE TABLE IF NOT EXISTS hotel_bookings_archive (
+                  id INTEGER PRIMARY KEY,
+                  room_id INTEGER NOT NULL,
+                  check_in_date TEXT NOT NULL,
+                  check_out_date TEXT NOT NULL,
+                  guest_count INTEGER NOT NULL,
+                  guest_names TEXT NOT NULL,
+                  created_by TEXT NOT NULL,
+                  guest_privilege TEXT NOT NULL,
+                  special_requests TEXT,
+                  created_at TEXT NOT NULL
+              );
+
+              CREATE INDEX IF NOT EXISTS idx_hotel_bookings_archive_room
+                  ON hotel_bookings_archive (room_id, check_in_date);
+              CREATE INDEX IF NOT EXISTS idx_hotel_bookings_archive_check_in
+                  ON hotel_bookings_archive (check_in_date);
+              CREATE INDEX IF NOT EXISTS idx_hotel_bookings_archive_check_out
+                  ON hotel_bookings_archive (check_out_date);
+
+              CREATE TABLE IF NOT EXISTS hotel_booking_archive_state (
+                  id INTEGER PRIMARY KEY CHECK (id = 1),
+                  max_check_out_date TEXT
+              );
+
+              INSERT OR IGNORE INTO hotel_booking_archive_state (id) VALUES (1);
+              """;
+
+      try (Statement stmt = conn.createStatement()) {
+         stmt.executeUpdate(sql);
+      }
+      boolean newSearchIndex = SpecialRequestIndex.createTable(conn);
+
+      // Partitions created before the longest stay was tracked
+      if (!columnExists(conn, "hotel_booking_partitions", "max_stay_nights")) {
+         try (Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("ALTER TABLE hotel_booking_partitions ADD COLUMN max_stay_nights INTEGER");
+         }
+         for (Partition p : list(conn)) {
+            refreshStatistics(conn, p.year());
+         }
+      }
+
+      // Re-apply partition DDL so partitions created by older versions get new indexes and triggers
+      for (Partition p : list(conn)) {
+         create(conn, p.year());
+      }
+
+      if (legacyTableExists(conn)) {
+         migrateLegacyTable(conn);
+      }
+
+      if (newSearchIndex) {
+         SpecialRequestIndex.rebuild(conn);
+      }
+   }
+
+   private static boolean columnExists(Connection conn, String table, String column) throws SQLException {
+      try (Statement stmt = conn.createStatement();
+           ResultSet rs = stmt.executeQuery("PRAGMA table_info(" + table + ")")) {
+         while (rs.next()) {
+            if (rs.getString("name").equals(column)) {
+               return true;
+            }
+         }
+      }
+      return false;
+   }
+
+   private static boolean legacyTableExists(Connection conn) throws SQLException {
+      String sql = "SELECT 1 FROM sqlite_master WHERE type = 'table' AND name = ?";
+      try (PreparedStatement ps = conn.prepareStatement(sql)) {
+         ps.setString(1, LEGACY_TABLE);
+         try (ResultSet rs = ps.executeQuery()) {
+            return rs.next();
+         }
+      }
+   }
+
+   // Runs inside the caller's (schema initialization) transaction
+   private static void migrateLegacyTable(Connection conn) throws SQLException {
+      try (Statement stmt = conn.createStatement()) {
+
+         List<Integer> years = new ArrayList<>();
+         try (ResultSet rs = stmt.executeQuery(
+                 "SELECT DISTINCT CAST(substr(check_in_date, 1, 4) AS INTEGER) FROM " + LEGACY_TABLE)) {
+            while (rs.next()) {
+               years.add(rs.getInt(1));
+            }
+         }
+
+         for (int year : years) {
+            String table = ensure(conn, year);
+            stmt.executeUpdate("""
+                    INSERT INTO %s
+                    SELECT * FROM %s
+                    WHERE CAST(substr(check_in_date, 1, 4) AS INTEGER) = %d
+                    """.formatted(table, LEGACY_TABLE, year));
+            refreshStatistics(conn, year);
+         }
+
+         stmt.executeUpdate("""
+                 UPDATE hotel_booking_sequence
+                 SET last_id = max(last_id, (SELECT coalesce(max(id), 0) FROM %s))
+                 WHERE id = 1
+                 """.formatted(LEGACY_TABLE));
+         stmt.executeUpdate("DROP TABLE " + LEGACY_TABLE);
+      }
+   }
+}
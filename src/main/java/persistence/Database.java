@@ -0,0 +1,457 @@
+package persistence;
+
+import config.AppConfig;
+import diagnostics.ReadConnectionEvent;
+import org.sqlite.SQLiteConfig;
+import org.sqlite.SQLiteConnection;
+import org.sqlite.SQLiteErrorCode;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One SQLite database file with its own connections: the database of one property.
+ *
+ * <p>The database runs in WAL mode, so readers never wait for the writer and
+ * the writer never waits for readers. Connections come in two roles:</p>
+ * <ul>
+ *    <li>one writer connection, owned by the {@link WriteQueue} thread; every
+ *        insert and schema change is submitted through {@link #write};</li>
+ *    <li>a small pool of read-only connections ({@link #getReadConnection()})
+ *        used by all query methods.</li>
+ * </ul>
+ * <p>Closing a read connection obtained here returns it to the pool instead of
+ * closing the underlying SQLite handle.</p>
+ *
+ * <p>Databases share nothing: every one has its own writer thread, reader pool
+ * and partition fan-out threads, so load on one property never queues behind
+ * another. Instances are obtained from {@link DatabaseManager#forProperty}.</p>
+ */
+public class Database {
+
+   private static final long READ_WAIT_SECONDS = 30;
+
+   // Sleep between retries while a backup step finds the database locked
+   private static final int BACKUP_BUSY_SLEEP_MILLIS = 50;
+
+   private final String propertyId;
+   private final String url;
+
+   private final int readPoolSize = AppConfig.getInt("db.read.pool.size", 4);
+   private final int busyTimeoutMillis = AppConfig.getInt("db.busy.timeout.millis", 5_000);
+   private final int writeQueueCapacity = AppConfig.getInt("db.write.queue.capacity", 1024);
+   private final int writeBatchSize = AppConfig.getInt("db.write.batch.size", 64);
+
+   private WriteQueue writeQueue;
+   private ExecutorService fanOut;
+
+   private final BlockingQueue<Connection> idleReaders = new ArrayBlockingQueue<>(readPoolSize);
+   private final List<Connection> allReaders = new ArrayList<>();
+
+   Database(String propertyId, String url) {
+      this.propertyId = propertyId;
+      this.url = url;
+   }
+
+   public String getPropertyId() {
+      return propertyId;
+   }
+
+   public String getUrl() {
+      return url;
+   }
+
+   /**
+    * Runs a mutation on the single writer thread and waits until it is committed.
+    *
+    * <p>Concurrent writes are coalesced into one transaction; each command runs
+    * in its own savepoint, so a failing command does not affect the others.
+    * Commands must not manage transactions themselves.</p>
+    *
+    * @param command the work to execute on the writer connection
+    * @return the command's result
+    * @throws SQLException if the command fails or cannot be committed
+    */
+   public <T> T write(WriteQueue.WriteCommand<T> command) throws SQLException {
+      return writeQueue().submit(command, null);
+   }
+
+   /**
+    * Same as {@link #write(WriteQueue.WriteCommand)}, and runs {@code afterCommit}
+    * with the command's result on the writer thread right after its transaction
+    * committed. Transactions commit one after another, so work done there, such as
+    * publishing change events, happens in commit order.
+    *
+    * @param afterCommit quick work that must not write; not run if the command fails
+    */
+   public <T> T write(WriteQueue.WriteCommand<T> command, WriteQueue.AfterCommit<? super T> afterCommit)
+           throws SQLException {
+      return writeQueue().submit(command, afterCommit);
+   }
+
+   /**
+    * Current depth, wait times and batch sizes of the write queue.
+    */
+   public WriteQueue.Metrics getWriteMetrics() throws SQLException {
+      return writeQueue().metrics();
+   }
+
+   /**
+    * Borrows a read-only connection from the pool.
+    *
+    * @return a read-only connection; closing it returns it to the pool
+    * @throws SQLException if no connection becomes available or it cannot be opened
+    */
+   public Connection getReadConnection() throws SQLException {
+      ReadConnectionEvent event = ReadConnectionEvent.start();
+      try {
+         boolean opened = false;
+         Connection conn = idleReaders.poll();
+         if (conn == null) {
+            conn = openReaderIfBelowLimit();
+            opened = conn != null;
+         }
+         if (conn == null) {
+            try {
+               conn = idleReaders.poll(READ_WAIT_SECONDS, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+               Thread.currentThread().interrupt();
+               throw new SQLException("Interrupted while waiting for a read connection", e);
+            }
+            if (conn == null) {
+               event.outcome("TIMEOUT");
+               throw new SQLException("Timed out waiting for a read connection");
+            }
+         }
+         event.acquired(opened);
+         return wrap(conn, this::releaseReader);
+      } finally {
+         event.finish();
+      }
+   }
+
+   /**
+    * Number of statements SQLite can actually run at the same time here:
+    * every pooled reader plus the single writer.
+    */
+   public int getMaxConcurrency() {
+      return readPoolSize + 1;
+   }
+
+   /**
+    * Creates required tables if they do not already exist.
+    *
+    * <p>Intended to be called once per database at application startup.</p>
+    *
+    * @throws RuntimeException if schema creation fails
+    */
+   public void initializeSchema() {
+      String sql = """
+              CREATE TABLE IF NOT EXISTS hotel_rooms (
+                  id INTEGER PRIMARY KEY AUTOINCREMENT,
+                  room_number INTEGER NOT NULL UNIQUE,
+                  room_type TEXT NOT NULL,
+                  max_guests INTEGER NOT NULL CHECK (max_guests > 0),
+                  has_balcony INTEGER NOT NULL CHECK (has_balcony IN (0, 1)),
+                  has_beach_view INTEGER NOT NULL CHECK (has_beach_view IN (0, 1)),
+                  has_air_conditioning INTEGER NOT NULL CHECK (has_air_conditioning IN (0, 1))
+              );
+
+              CREATE TABLE IF NOT EXISTS stay_waitlist (
+                  id INTEGER PRIMARY KEY AUTOINCREMENT,
+                  room_type TEXT NOT NULL,
+                  check_in_date TEXT NOT NULL,
+                  check_out_date TEXT NOT NULL,
+                  guest_count INTEGER NOT NULL CHECK (guest_count > 0),
+                  guest_names TEXT NOT NULL,
+                  created_by TEXT NOT NULL,
+                  guest_privilege TEXT NOT NULL,
+                  special_requests TEXT,
+                  priority INTEGER NOT NULL,
+                  created_at TEXT NOT NULL,
+                  CHECK (check_in_date < check_out_date)
+              );
+              """;
+
+      try {
+         write(conn -> {
+            try (Statement stmt = conn.createStatement()) {
+               stmt.executeUpdate(sql);
+            }
+
+            // Bookings are stored in per-year partitions
+            BookingPartitions.initialize(conn);
+            RoomInventory.initialize(conn);
+            return null;
+         });
+
+      } catch (SQLException e) {
+         throw new RuntimeException("Failed to initialize database schema of property " + propertyId, e);
+      }
+   }
+
+   /**
+    * Copies the database into {@code target} while reads and writes go on.
+    *
+    * <p>Uses SQLite's online backup API on a dedicated read-only connection,
+    * {@code pagesPerStep} pages at a time with a pause after every step. The
+    * connection keeps one read transaction open for the whole copy, so in WAL
+    * mode the copy is a consistent snapshot, writers are never blocked and their
+    * commits do not restart it. The copy is written next to {@code target}, checked
+    * with {@code PRAGMA integrity_check}, switched to a self-contained rollback
+    * journal and only then renamed to {@code target}; a failed backup leaves no file.</p>
+    *
+    * @param target the backup file; replaced if it exists
+    * @param pagesPerStep pages copied per step
+    * @param pauseMillis pause after each step, to leave I/O to the application
+    * @return what was copied
+    * @throws SQLException if the copy fails or the copy does not pass the integrity check
+    */
+   public BackupResult backup(Path target, int pagesPerStep, long pauseMillis) throws SQLException {
+      if (pagesPerStep <= 0) {
+         throw new IllegalArgumentException("pagesPerStep must be positive");
+      }
+      long start = System.nanoTime();
+      Path partial = target.resolveSibling(target.getFileName() + ".partial");
+
+      int[] pages = {0};
+      int[] restarts = {0};
+      try {
+         Files.deleteIfExists(partial);
+
+         // A dedicated connection, so the copy does not hold a pooled reader for its whole duration
+         writeQueue();
+         try (Connection conn = open(true)) {
+            conn.setAutoCommit(false);
+            try (Statement stmt = conn.createStatement()) {
+               // Starts the read transaction that pins the snapshot
+               stmt.executeQuery("SELECT count(*) FROM sqlite_master").close();
+            }
+
+            int[] lastRemaining = {Integer.MAX_VALUE};
+            int rc = conn.unwrap(SQLiteConnection.class).getDatabase().backup("main", partial.toString(),
+                    (remaining, pageCount) -> {
+                       if (remaining > lastRemaining[0]) {
+                          restarts[0]++;
+                       }
+                       lastRemaining[0] = remaining;
+                       pages[0] = pageCount;
+                       if (remaining > 0 && pauseMillis > 0) {
+                          pause(pauseMillis);
+                       }
+                    },
+                    BACKUP_BUSY_SLEEP_MILLIS, busyTimeoutMillis / BACKUP_BUSY_SLEEP_MILLIS, pagesPerStep);
+            conn.rollback();
+            if (rc != SQLiteErrorCode.SQLITE_DONE.code && rc != SQLiteErrorCode.SQLITE_OK.code) {
+               throw new SQLException("Backup to " + partial + " failed with SQLite error " + rc);
+            }
+         }
+
+         verifyBackup(partial);
+         Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+         return new BackupResult(target, pages[0], Files.size(target), restarts[0],
+                 Duration.ofNanos(System.nanoTime() - start));
+
+      } catch (IOException e) {
+         throw new SQLException("Failed to write backup " + target, e);
+      } finally {
+         try {
+            Files.deleteIfExists(partial);
+         } catch (IOException ignored) {
+            // the failure that got us here is more useful than this one
+         }
+      }
+   }
+
+   /**
+    * Stops the writer thread and closes all pooled readers.
+    * Connections are reopened on next use.
+    */
+   public void shutdown() {
+      WriteQueue queue;
+      synchronized (this) {
+         queue = writeQueue;
+         writeQueue = null;
+      }
+      if (queue != null) {
+         queue.shutdown();
+      }
+      synchronized (allReaders) {
+         allReaders.forEach(Database::closeQuietly);
+         allReaders.clear();
+         idleReaders.clear();
+      }
+   }
+
+   /**
+    * Threads running the partition queries of one fan-out read in parallel.
+    */
+   synchronized ExecutorService fanOutExecutor() {
+      if (fanOut == null) {
+         fanOut = Executors.newFixedThreadPool(
+                 Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors())),
+                 r -> {
+                    Thread t = new Thread(r, "booking-partition-query-" + propertyId);
+                    t.setDaemon(true);
+                    return t;
+                 });
+      }
+      return fanOut;
+   }
+
+   // ----- private helpers -----
+
+   private synchronized WriteQueue writeQueue() throws SQLException {
+      if (writeQueue == null) {
+         WriteQueue queue = new WriteQueue(() -> open(false),
+                 writeQueueCapacity, writeBatchSize, busyTimeoutMillis);
+         queue.start();
+         writeQueue = queue;
+      }
+      return writeQueue;
+   }
+
+   private Connection open(boolean readOnly) throws SQLException {
+      SQLiteConfig config = new SQLiteConfig();
+      config.setBusyTimeout(busyTimeoutMillis);
+      if (readOnly) {
+         config.setReadOnly(true);
+      } else {
+         // WAL is a property of the database file; setting it once on the writer is enough
+         config.setJournalMode(SQLiteConfig.JournalMode.WAL);
+         config.setSynchronous(SQLiteConfig.SynchronousMode.NORMAL);
+         // Take the write lock when the batch starts, where busy waits are safe to retry
+         config.setTransactionMode(SQLiteConfig.TransactionMode.IMMEDIATE);
+      }
+      return DriverManager.getConnection(url, config.toProperties());
+   }
+
+   private Connection openReaderIfBelowLimit() throws SQLException {
+      // Make sure the writer has switched the file to WAL before the first reader opens it
+      writeQueue();
+      synchronized (allReaders) {
+         if (allReaders.size() >= readPoolSize) {
+            return null;
+         }
+         Connection conn = open(true);
+         allReaders.add(conn);
+         return conn;
+      }
+   }
+
+   private void releaseReader(Connection conn) throws SQLException {
+      if (!conn.getAutoCommit()) {
+         conn.rollback();
+         conn.setAutoCommit(true);
+      }
+      synchronized (allReaders) {
+         if (allReaders.contains(conn)) {
+            idleReaders.offer(conn);
+            return;
+         }
+      }
+      // Pool was shut down while the connection was borrowed
+      closeQuietly(conn);
+   }
+
+   private static void verifyBackup(Path file) throws SQLException {
+      try (Connection conn = DriverManager.getConnection("jdbc:sqlite:" + file);
+           Statement stmt = conn.createStatement()) {
+
+         List<String> problems = new ArrayList<>();
+         try (ResultSet rs = stmt.executeQuery("PRAGMA integrity_check")) {
+            while (rs.next()) {
+               problems.add(rs.getString(1));
+            }
+         }
+         if (!problems.equals(List.of("ok"))) {
+            throw new SQLException("Backup " + file + " failed the integrity check: " + problems);
+         }
+
+         // The copy inherits WAL mode; a rollback journal keeps the backup a single file
+         stmt.execute("PRAGMA journal_mode = DELETE");
+      }
+   }
+
+   private static void pause(long millis) {
+      try {
+         Thread.sleep(millis);
+      } catch (InterruptedException e) {
+         // Finish the copy without pausing; the caller sees the interrupt afterwards
+         Thread.currentThread().interrupt();
+      }
+   }
+
+   private static void closeQuietly(Connection conn) {
+      if (conn == null) {
+         return;
+      }
+      try {
+         conn.close();
+      } catch (SQLException ignored) {
+         // nothing useful to do while shutting down
+      }
+   }
+
+   @FunctionalInterface
+   private interface Release {
+      void release(Connection conn) throws SQLException;
+   }
+
+   /**
+    * Wraps a pooled connection so that {@code close()} hands it back instead of closing it.
+    */
+   private static Connection wrap(Connection target, Release release) {
+      InvocationHandler handler = new InvocationHandler() {
+         private boolean closed;
+
+         @Override
+         public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+               case "close" -> {
+                  if (!closed) {
+                     closed = true;
+                     release.release(target);
+                  }
+                  return null;
+               }
+               case "isClosed" -> {
+                  return closed || target.isClosed();
+               }
+               default -> {
+                  if (closed) {
+                     throw new SQLException("Connection has been returned to the pool");
+                  }
+                  try {
+                     return method.invoke(target, args);
+                  } catch (InvocationTargetException e) {
+                     throw e.getCause();
+                  }
+               }
+            }
+         }
+      };
+      return (Connection) Proxy.newProxyInstance(
+              Connection.class.getClassLoader(), new Class<?>[]{Connection.class}, handler);
+   }
+}
@@ -0,0 +1,145 @@
+package persistence;
+
+import config.AppConfig;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Takes online backups of one property's database into a directory and prunes old ones.
+ *
+ * <p>Each backup is a complete, verified SQLite file named after the time it
+ * was taken ({@code hotel_booking-20260315-020000.db}), made with
+ * {@link Database#backup} while the application keeps running. Only the
+ * newest {@code keep} backups are retained.</p>
+ *
+ * <p>Backups run one at a time, whether scheduled or taken on demand, and an
+ * existing backup is never overwritten.</p>
+ */
+public class DatabaseBackupJob {
+
+   private static final String PREFIX = "hotel_booking-";
+   private static final String SUFFIX = ".db";
+
+   // Sortable, so the newest backups sort last
+   private static final DateTimeFormatter STAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+   private final Database database;
+   private final Path directory;
+   private final int keep;
+   private final int pagesPerStep;
+   private final long pauseMillis;
+
+   private ScheduledExecutorService scheduler;
+
+   /**
+    * @param database the database to back up
+    * @param directory where backups are written; created if missing
+    * @param keep number of newest backups retained
+    * @param pagesPerStep pages copied per backup step
+    * @param pauseMillis pause after each step
+    */
+   public DatabaseBackupJob(Database database, Path directory, int keep, int pagesPerStep, long pauseMillis) {
+      if (keep <= 0) {
+         throw new IllegalArgumentException("keep must be positive");
+      }
+      if (pagesPerStep <= 0) {
+         throw new IllegalArgumentException("pagesPerStep must be positive");
+      }
+      this.database = database;
+      this.directory = directory;
+      this.keep = keep;
+      this.pagesPerStep = pagesPerStep;
+      this.pauseMillis = pauseMillis;
+   }
+
+   /**
+    * Creates a backup job for the database from the {@code backup.*} settings in
+    * application.properties; each property is backed up into its own subdirectory.
+    */
+   public static DatabaseBackupJob fromConfig(Database database) {
+      return new DatabaseBackupJob(
+              database,
+              Path.of(AppConfig.get("backup.dir", "backups")).resolve(database.getPropertyId()),
+              AppConfig.getInt("backup.keep", 7),
+              AppConfig.getInt("backup.pages.per.step", 256),
+              AppConfig.getInt("backup.pause.millis", 10)
+      );
+   }
+
+   /**
+    * Starts taking backups periodically on a background daemon thread, the first
+    * one after a full interval.
+    */
+   public synchronized void start(long intervalMinutes) {
+      if (scheduler != null) {
+         return;
+      }
+      scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+         Thread t = new Thread(r, "database-backup-" + database.getPropertyId());
+         t.setDaemon(true);
+         return t;
+      });
+      scheduler.scheduleWithFixedDelay(() -> {
+         try {
+            backupNow();
+         } catch (RuntimeException e) {
+            // Keep the schedule alive; the next run tries again
+            System.err.println("Database backup failed: " + e.getMessage());
+         }
+      }, intervalMinutes, intervalMinutes, TimeUnit.MINUTES);
+   }
+
+   public synchronized void stop() {
+      if (scheduler != null) {
+         scheduler.shutdownNow();
+         scheduler = null;
+      }
+   }
+
+   /**
+    * Takes a backup now and removes the backups beyond the newest {@code keep}.
+    * Waits for a backup already running to finish first.
+    *
+    * @return the verified backup
+    * @throws IllegalStateException if a backup was already taken within the same second
+    */
+   public synchronized BackupResult backupNow() {
+      try {
+         Files.createDirectories(directory);
+         Path target = directory.resolve(PREFIX + STAMP.format(LocalDateTime.now()) + SUFFIX);
+         if (Files.exists(target)) {
+            throw new IllegalStateException("Backup " + target.getFileName()
+                    + " already exists; try again in a moment");
+         }
+         BackupResult result = database.backup(target, pagesPerStep, pauseMillis);
+         prune();
+         return result;
+
+      } catch (IOException | SQLException e) {
+         throw new RuntimeException("Failed to back up the database into " + directory, e);
+      }
+   }
+
+   private void prune() throws IOException {
+      List<Path> backups = new ArrayList<>();
+      try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+         files.forEach(backups::add);
+      }
+      Collections.sort(backups);
+      for (int i = 0; i < backups.size() - keep; i++) {
+         Files.deleteIfExists(backups.get(i));
+      }
+   }
+}
@@ -1,70 +1,136 @@
 package persistence;
 
+import config.AppConfig;
+
+import java.nio.file.Path;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
-import java.sql.Statement;   // when needed
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Centralized access for SQLite connections and schema initialization.
+ *
+ * <p>Every property (hotel) listed in {@code hotel.properties} has its own
+ * database file, a {@link Database} with its own writer and reader pool,
+ * obtained with {@link #forProperty}. The first property listed is the default
+ * one and is stored at {@code db.url}; every other property {@code <id>} is stored
+ * at {@code property.<id>.db.url}, by default {@code hotel_booking_<id>.db}.</p>
+ *
+ * <p>The static {@link #write}, {@link #getReadConnection()}, ... methods act on
+ * the default property's database, for single-property setups and tools.</p>
  */
 public class DatabaseManager {
 
-   // This will create/use a file called hotel_booking.db in your project folder
-   private static final String DB_URL = "jdbc:sqlite:hotel_booking.db";
+   // This will create/use a file called hotel_booking.db in your project folder,
+   // unless db.url points somewhere else
+   private static final String DB_URL = AppConfig.get("db.url", "jdbc:sqlite:hotel_booking.db");
+
+   private static final List<String> PROPERTY_IDS = parsePropertyIds(AppConfig.get("hotel.properties", "main"));
+
+   private static final Map<String, Database> DATABASES = new ConcurrentHashMap<>();
+
+   /**
+    * Ids of all configured properties; the first one is the default property.
+    */
+   public static List<String> getPropertyIds() {
+      return PROPERTY_IDS;
+   }
+
+   public static String getDefaultPropertyId() {
+      return PROPERTY_IDS.get(0);
+   }
 
    /**
-    * Opens a new SQLite connection to the application database file.
+    * The database of a configured property. Connections are opened on first use;
+    * call {@link Database#initializeSchema()} once before using a new database file.
     *
-    * @return a new JDBC connection
-    * @throws SQLException if the connection cannot be opened
+    * @throws IllegalArgumentException if the property is not listed in {@code hotel.properties}
+    */
+   public static Database forProperty(String propertyId) {
+      if (!PROPERTY_IDS.contains(propertyId)) {
+         throw new IllegalArgumentException("Unknown property '" + propertyId + "', expected one of " + PROPERTY_IDS);
+      }
+      // Creating a Database does no I/O, so other properties never wait here
+      return DATABASES.computeIfAbsent(propertyId, id -> new Database(id, urlOf(id)));
+   }
+
+   /**
+    * The database of the default property.
+    */
+   public static Database defaultDatabase() {
+      return forProperty(getDefaultPropertyId());
+   }
+
+   /**
+    * Runs a mutation on the default database's writer thread; see {@link Database#write}.
     */
-   public static Connection getConnection() throws SQLException {
-      return DriverManager.getConnection(DB_URL);
+   public static <T> T write(WriteQueue.WriteCommand<T> command) throws SQLException {
+      return defaultDatabase().write(command);
    }
 
-   // NEW: create tables (for now only hotel_rooms)
    /**
-    * Creates required tables if they do not already exist.
+    * Current depth, wait times and batch sizes of the default database's write queue.
+    */
+   public static WriteQueue.Metrics getWriteMetrics() throws SQLException {
+      return defaultDatabase().getWriteMetrics();
+   }
+
+   /**
+    * Borrows a read-only connection to the default database; see {@link Database#getReadConnection()}.
+    */
+   public static Connection getReadConnection() throws SQLException {
+      return defaultDatabase().getReadConnection();
+   }
+
+   /**
+    * Backs up the default database; see {@link Database#backup}.
+    */
+   public static BackupResult backup(Path target, int pagesPerStep, long pauseMillis) throws SQLException {
+      return defaultDatabase().backup(target, pagesPerStep, pauseMillis);
+   }
+
+   /**
+    * Stops the writer threads and closes the pooled readers of every database.
+    * Connections are reopened on next use.
+    */
+   public static void shutdown() {
+      DATABASES.values().forEach(Database::shutdown);
+   }
+
+   /**
+    * Creates the default database's tables if they do not already exist.
     *
     * <p>Intended to be called once at application startup.</p>
     *
     * @throws RuntimeException if schema creation fails
     */
    public static void initializeSchema() {
-      String sql = """
-              CREATE TABLE IF NOT EXISTS hotel_rooms (
-                  id INTEGER PRIMARY KEY AUTOINCREMENT,
-                  room_number INTEGER NOT NULL UNIQUE,
-                  room_type TEXT NOT NULL,
-                  max_guests INTEGER NOT NULL CHECK (max_guests > 0),
-                  has_balcony INTEGER NOT NULL CHECK (has_balcony IN (0, 1)),
-                  has_beach_view INTEGER NOT NULL CHECK (has_beach_view IN (0, 1)),
-                  has_air_conditioning INTEGER NOT NULL CHECK (has_air_conditioning IN (0, 1))
-              );
-              
-              CREATE TABLE IF NOT EXISTS hotel_bookings (
-                  id INTEGER PRIMARY KEY AUTOINCREMENT,
-                  room_id INTEGER NOT NULL,
-                  check_in_date TEXT NOT NULL,
-                  check_out_date TEXT NOT NULL,
-                  guest_count INTEGER NOT NULL CHECK (guest_count > 0),
-                  guest_names TEXT NOT NULL,
-                  created_by TEXT NOT NULL,
-                  guest_privilege TEXT NOT NULL,
-                  special_requests TEXT,
-                  created_at TEXT NOT NULL,
-                  FOREIGN KEY (room_id) REFERENCES hotel_rooms(id) ON DELETE CASCADE
-              );
-              """;
-
-      try (Connection conn = getConnection();
-           Statement stmt = conn.createStatement()) {
-
-         stmt.executeUpdate(sql);
-
-      } catch (SQLException e) {
-         throw new RuntimeException("Failed to initialize database schema", e);
+      defaultDatabase().initializeSchema();
+   }
+
+   // ----- private helpers -----
+
+   private static String urlOf(String propertyId) {
+      String fallback = propertyId.equals(getDefaultPropertyId())
+              ? DB_URL
+              : "jdbc:sqlite:hotel_booking_" + propertyId + ".db";
+      return AppConfig.get("property." + propertyId + ".db.url", fallback);
+   }
+
+   private static List<String> parsePropertyIds(String text) {
+      List<String> ids = new ArrayList<>();
+      for (String id : text.split(",")) {
+         id = id.trim();
+         if (!id.matches("[A-Za-z0-9_-]+")) {
+            throw new IllegalStateException("Invalid property id '" + id + "' in hotel.properties");
+         }
+         if (!ids.contains(id)) {
+            ids.add(id);
+         }
       }
+      return List.copyOf(ids);
    }
 }
@@ -0,0 +1,20 @@
+package persistence;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Outcome of a bulk export made by {@link BookingExporter#export}.
+ *
+ * @param file the written export file
+ * @param rows number of bookings exported
+ * @param bytes size of the export file
+ * @param duration time spent reading, encoding and writing
+ */
+public record ExportResult(Path file, long rows, long bytes, Duration duration) {
+
+   public double rowsPerSecond() {
+      long nanos = Math.max(1, duration.toNanos());
+      return rows * 1e9 / nanos;
+   }
+}
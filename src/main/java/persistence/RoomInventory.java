@@ -0,0 +1,160 @@
+package persistence;
+
+import persistence.BookingPartitions.Partition;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Materialized count of rooms sold per room type and night.
+ *
+ * <p>{@code room_type_inventory} holds one row per (room type, night) with at
+ * least one room sold; nights without a row have nothing sold. The total per
+ * room type is not stored, it is the number of rooms of that type in
+ * {@code hotel_rooms}.</p>
+ *
+ * <p>Every booking insert calls {@link #recordStay} and every cancellation
+ * {@link #releaseStay} from its write command, so the counters commit or roll
+ * back together with the booking.</p>
+ */
+public final class RoomInventory {
+
+   private RoomInventory() {
+   }
+
+   /**
+    * Adds one sold room of the booked room's type to every night of [checkIn, checkOut).
+    * Must be called from the inserting write command.
+    */
+   public static void recordStay(Connection conn, int roomId, LocalDate checkIn, LocalDate checkOut)
+           throws SQLException {
+      String sql = """
+              WITH RECURSIVE nights(night) AS (
+                  SELECT ?
+                  UNION ALL
+                  SELECT date(night, '+1 day') FROM nights WHERE date(night, '+1 day') < ?
+              )
+              INSERT INTO room_type_inventory (room_type, night, sold)
+              SELECT r.room_type, n.night, 1
+              FROM nights n, hotel_rooms r
+              WHERE r.id = ?
+              ON CONFLICT (room_type, night) DO UPDATE SET sold = sold + 1
+              """;
+
+      try (PreparedStatement ps = conn.prepareStatement(sql)) {
+         ps.setString(1, checkIn.toString());
+         ps.setString(2, checkOut.toString());
+         ps.setInt(3, roomId);
+         ps.executeUpdate();
+      }
+   }
+
+   /**
+    * Removes one sold room of the booked room's type from every night of [checkIn, checkOut).
+    * Must be called from the deleting write command.
+    */
+   public static void releaseStay(Connection conn, int roomId, LocalDate checkIn, LocalDate checkOut)
+           throws SQLException {
+      String sql = """
+              WITH RECURSIVE nights(night) AS (
+                  SELECT ?
+                  UNION ALL
+                  SELECT date(night, '+1 day') FROM nights WHERE date(night, '+1 day') < ?
+              )
+              UPDATE room_type_inventory
+              SET sold = sold - 1
+              WHERE room_type = (SELECT room_type FROM hotel_rooms WHERE id = ?)
+                AND night IN (SELECT night FROM nights)
+              """;
+
+      // Nights without a row have nothing sold
+      String pruneSql = """
+              DELETE FROM room_type_inventory
+              WHERE sold = 0
+                AND night >= ?
+                AND night < ?
+              """;
+
+      try (PreparedStatement ps = conn.prepareStatement(sql)) {
+         ps.setString(1, checkIn.toString());
+         ps.setString(2, checkOut.toString());
+         ps.setInt(3, roomId);
+         ps.executeUpdate();
+      }
+      try (PreparedStatement ps = conn.prepareStatement(pruneSql)) {
+         ps.setString(1, checkIn.toString());
+         ps.setString(2, checkOut.toString());
+         ps.executeUpdate();
+      }
+   }
+
+   /**
+    * Recomputes all counters from the stored bookings (partitions and archive).
+    * Must be called from a write command.
+    */
+   public static void rebuild(Connection conn) throws SQLException {
+      String sql = """
+              WITH RECURSIVE nights(room_type, night, check_out) AS (
+                  SELECT r.room_type, b.check_in_date, b.check_out_date
+                  FROM %s b
+                  JOIN hotel_rooms r ON r.id = b.room_id
+                  UNION ALL
+                  SELECT room_type, date(night, '+1 day'), check_out
+                  FROM nights
+                  WHERE date(night, '+1 day') < check_out
+              )
+              INSERT INTO room_type_inventory (room_type, night, sold)
+              SELECT room_type, night, count(*)
+              FROM nights
+              WHERE true
+              GROUP BY room_type, night
+              ON CONFLICT (room_type, night) DO UPDATE SET sold = sold + excluded.sold
+              """;
+
+      List<Partition> tables = new ArrayList<>(BookingPartitions.list(conn));
+      tables.add(BookingPartitions.archive(conn));
+
+      try (Statement stmt = conn.createStatement()) {
+         stmt.executeUpdate("DELETE FROM room_type_inventory");
+         for (Partition p : tables) {
+            stmt.executeUpdate(sql.formatted(p.tableName()));
+         }
+      }
+   }
+
+   /**
+    * Creates the inventory table; when it did not exist yet, fills it from the existing bookings.
+    * Must run after the booking partitions have been initialized.
+    */
+   static void initialize(Connection conn) throws SQLException {
+      boolean exists;
+      try (PreparedStatement ps = conn.prepareStatement(
+              "SELECT 1 FROM sqlite_master WHERE type = 'table' AND name = 'room_type_inventory'");
+           ResultSet rs = ps.executeQuery()) {
+         exists = rs.next();
+      }
+
+      String sql = """
+              CREATE TABLE IF NOT EXISTS room_type_inventory (
+                  room_type TEXT NOT NULL,
+                  night TEXT NOT NULL,
+                  sold INTEGER NOT NULL CHECK (sold >= 0),
+                  PRIMARY KEY (room_type, night)
+              ) WITHOUT ROWID;
+              """;
+
+      try (Statement stmt = conn.createStatement()) {
+         stmt.executeUpdate(sql);
+      }
+
+      if (!exists) {
+         rebuild(conn);
+      }
+   }
+}
@@ -0,0 +1,142 @@
+package persistence;
+
+import persistence.BookingPartitions.Partition;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * FTS5 full-text index over the bookings' {@code special_requests}.
+ *
+ * <p>{@code hotel_booking_requests_fts} is a contentless FTS5 table whose rowid
+ * is the booking id, so it stores only the inverted index, not a second copy
+ * of the text. Triggers on every partition keep it in sync; words are stemmed
+ * ("cribs" finds "crib") and accents are ignored.</p>
+ *
+ * <p>Stays moved to the archive keep their entry: the archiver copies a row
+ * before deleting it from its partition, and the delete trigger leaves the
+ * entry alone when the id already exists in the archive.</p>
+ */
+public final class SpecialRequestIndex {
+
+   public static final String FTS_TABLE = "hotel_booking_requests_fts";
+
+   // Separates alternatives in a user query: "crib, late check-in" or "crib OR late check-in"
+   private static final Pattern ALTERNATIVES = Pattern.compile("\\s*(?:,|\\bOR\\b)\\s*", Pattern.CASE_INSENSITIVE);
+
+   private SpecialRequestIndex() {
+   }
+
+   /**
+    * Turns free text into an FTS5 query: every alternative becomes a quoted phrase,
+    * so punctuation such as the hyphen in "check-in" is never read as query syntax.
+    * A trailing {@code *} on an alternative makes its last word a prefix.
+    *
+    * @return the FTS5 query, or null if the text contains no searchable words
+    */
+   public static String toMatchQuery(String text) {
+      if (text == null) {
+         return null;
+      }
+      List<String> phrases = new ArrayList<>();
+      for (String alternative : ALTERNATIVES.split(text.trim())) {
+         boolean prefix = alternative.endsWith("*");
+         String words = (prefix ? alternative.substring(0, alternative.length() - 1) : alternative).trim();
+         if (words.isEmpty()) {
+            continue;
+         }
+         phrases.add("\"" + words.replace("\"", "\"\"") + "\"" + (prefix ? "*" : ""));
+      }
+      return phrases.isEmpty() ? null : String.join(" OR ", phrases);
+   }
+
+   /**
+    * Adds the triggers that mirror a partition's special requests into the index.
+    */
+   static void attach(Connection conn, String table) throws SQLException {
+      String sql = """
+              CREATE TRIGGER IF NOT EXISTS %1$s_fts_insert AFTER INSERT ON %1$s
+              WHEN coalesce(new.special_requests, '') <> ''
+              BEGIN
+                  INSERT OR REPLACE INTO %2$s (rowid, special_requests) VALUES (new.id, new.special_requests);
+              END;
+
+              CREATE TRIGGER IF NOT EXISTS %1$s_fts_update AFTER UPDATE OF special_requests ON %1$s
+              BEGIN
+                  DELETE FROM %2$s WHERE rowid = old.id;
+                  INSERT INTO %2$s (rowid, special_requests)
+                  SELECT new.id, new.special_requests WHERE coalesce(new.special_requests, '') <> '';
+              END;
+
+              CREATE TRIGGER IF NOT EXISTS %1$s_fts_delete AFTER DELETE ON %1$s
+              WHEN NOT EXISTS (SELECT 1 FROM %3$s WHERE id = old.id)
+              BEGIN
+                  DELETE FROM %2$s WHERE rowid = old.id;
+              END;
+              """.formatted(table, FTS_TABLE, BookingPartitions.ARCHIVE_TABLE);
+
+      try (Statement stmt = conn.createStatement()) {
+         stmt.executeUpdate(sql);
+      }
+   }
+
+   /**
+    * Re-indexes the special requests of every partition and the archive.
+    * Must be called from a write command.
+    */
+   public static void rebuild(Connection conn) throws SQLException {
+      List<Partition> tables = new ArrayList<>(BookingPartitions.list(conn));
+      tables.add(BookingPartitions.archive(conn));
+
+      try (Statement stmt = conn.createStatement()) {
+         stmt.executeUpdate("DELETE FROM " + FTS_TABLE);
+         for (Partition p : tables) {
+            stmt.executeUpdate("""
+                    INSERT INTO %s (rowid, special_requests)
+                    SELECT id, special_requests
+                    FROM %s
+                    WHERE coalesce(special_requests, '') <> ''
+                    """.formatted(FTS_TABLE, p.tableName()));
+         }
+      }
+   }
+
+   /**
+    * Creates the FTS table if it does not exist yet.
+    *
+    * @return true if the table was created and still has to be filled by {@link #rebuild}
+    */
+   static boolean createTable(Connection conn) throws SQLException {
+      boolean exists;
+      try (PreparedStatement ps = conn.prepareStatement(
+              "SELECT 1 FROM sqlite_master WHERE type = 'table' AND name = ?")) {
+         ps.setString(1, FTS_TABLE);
+         try (ResultSet rs = ps.executeQuery()) {
+            exists = rs.next();
+         }
+      }
+      if (exists) {
+         return false;
+      }
+
+      String sql = """
+              CREATE VIRTUAL TABLE %s USING fts5(
+                  special_requests,
+                  content = '',
+                  contentless_delete = 1,
+                  tokenize = 'porter unicode61 remove_diacritics 2'
+              )
+              """.formatted(FTS_TABLE);
+
+      try (Statement stmt = conn.createStatement()) {
+         stmt.executeUpdate(sql);
+      }
+      return true;
+   }
+}
@@ -0,0 +1,379 @@
+package persistence;
+
+import diagnostics.DatabaseWriteEvent;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single writer thread that executes every database mutation.
+ *
+ * <p>Callers enqueue {@link WriteCommand}s into a bounded queue and wait for
+ * their result. The writer thread drains whatever is queued (up to
+ * {@code maxBatch} commands) and runs it in one transaction, each command
+ * inside its own savepoint so that a failing command is rolled back alone.
+ * Callers are released only after the transaction has committed. Work that
+ * must follow the commit in commit order, such as publishing change events, is
+ * passed as an {@link AfterCommit} and run by the writer thread right after the
+ * commit, batch by batch and command by command.</p>
+ *
+ * <p>{@code SQLITE_BUSY} (another process holding the file lock) is handled
+ * here: the whole batch is rolled back and retried with a growing pause
+ * before the commands are failed.</p>
+ */
+public final class WriteQueue {
+
+   private static final int MAX_BUSY_RETRIES = 5;
+   private static final long BUSY_BACKOFF_MILLIS = 50;
+
+   // SQLite primary result codes
+   private static final int SQLITE_BUSY = 5;
+   private static final int SQLITE_LOCKED = 6;
+
+   /**
+    * Work executed on the writer connection inside the batch transaction.
+    * Must not commit, roll back or change the auto-commit mode.
+    */
+   @FunctionalInterface
+   public interface WriteCommand<T> {
+      T execute(Connection conn) throws SQLException;
+   }
+
+   /**
+    * Work run on the writer thread with a command's result once its transaction
+    * committed, before the caller is released. Must be quick and must not write.
+    */
+   @FunctionalInterface
+   public interface AfterCommit<T> {
+      void run(T value);
+   }
+
+   /**
+    * Point-in-time view of the queue.
+    *
+    * @param queueDepth commands currently waiting
+    * @param maxQueueDepth highest number of waiting commands seen
+    * @param commands commands executed (committed or failed)
+    * @param transactions batch transactions run
+    * @param averageWaitMillis average time from enqueue until the command started
+    * @param maxWaitMillis longest such wait
+    * @param busyRetries batches retried because the database was busy
+    */
+   public record Metrics(int queueDepth,
+                         int maxQueueDepth,
+                         long commands,
+                         long transactions,
+                         double averageWaitMillis,
+                         double maxWaitMillis,
+                         long busyRetries) {
+
+      public double averageBatchSize() {
+         return transactions == 0 ? 0 : (double) commands / transactions;
+      }
+   }
+
+   @FunctionalInterface
+   interface ConnectionOpener {
+      Connection open() throws SQLException;
+   }
+
+   private static final class Pending<T> {
+      final WriteCommand<T> command;
+      final AfterCommit<? super T> afterCommit;
+      final CompletableFuture<T> result = new CompletableFuture<>();
+      // after-commit work of this command and of the writes nested in it, in order
+      final List<Runnable> committed = new ArrayList<>();
+      final long enqueuedAt = System.nanoTime();
+      // set by the writer thread, read after the result completed
+      long startedAt;
+      int batchSize;
+      T value;
+      Exception failure;
+
+      Pending(WriteCommand<T> command, AfterCommit<? super T> afterCommit) {
+         this.command = command;
+         this.afterCommit = afterCommit;
+      }
+
+      void run(Connection conn) throws SQLException {
+         committed.clear();
+         T executed = command.execute(conn);
+         value = executed;
+         if (afterCommit != null) {
+            committed.add(() -> afterCommit.run(executed));
+         }
+      }
+
+      void complete() {
+         if (failure != null) {
+            result.completeExceptionally(failure);
+         } else {
+            result.complete(value);
+         }
+      }
+   }
+
+   private final ConnectionOpener opener;
+   private final BlockingQueue<Pending<?>> queue;
+   private final int maxBatch;
+   private final long enqueueTimeoutMillis;
+   private final Thread thread;
+
+   private Connection conn;
+   // the command the writer thread is running; writes nested in it join its after-commit work
+   private Pending<?> running;
+
+   // metrics, guarded by this
+   private int maxQueueDepth;
+   private long commands;
+   private long transactions;
+   private long totalWaitNanos;
+   private long maxWaitNanos;
+   private long busyRetries;
+
+   WriteQueue(ConnectionOpener opener, int capacity, int maxBatch, long enqueueTimeoutMillis) {
+      this.opener = opener;
+      this.queue = new ArrayBlockingQueue<>(capacity);
+      this.maxBatch = maxBatch;
+      this.enqueueTimeoutMillis = enqueueTimeoutMillis;
+      this.thread = new Thread(this::runLoop, "database-writer");
+      this.thread.setDaemon(true);
+   }
+
+   void start() throws SQLException {
+      conn = opener.open();
+      thread.start();
+   }
+
+   /**
+    * Stops the writer thread after the queued commands and closes its connection.
+    */
+   void shutdown() {
+      thread.interrupt();
+      try {
+         thread.join(TimeUnit.SECONDS.toMillis(10));
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+      }
+   }
+
+   /**
+    * Runs a command on the writer thread and waits until its transaction committed
+    * and {@code afterCommit} (may be null) ran.
+    *
+    * @throws SQLException if the command failed, the batch could not be committed,
+    *                      or the queue stayed full for the enqueue timeout
+    */
+   <T> T submit(WriteCommand<T> command, AfterCommit<? super T> afterCommit) throws SQLException {
+      // A command that writes again is already inside the batch transaction
+      if (Thread.currentThread() == thread) {
+         T value = command.execute(conn);
+         if (afterCommit != null) {
+            running.committed.add(() -> afterCommit.run(value));
+         }
+         return value;
+      }
+
+      DatabaseWriteEvent event = DatabaseWriteEvent.start();
+      Pending<T> pending = new Pending<>(command, afterCommit);
+      try {
+         if (!queue.offer(pending, enqueueTimeoutMillis, TimeUnit.MILLISECONDS)) {
+            event.outcome("QUEUE_FULL");
+            throw new SQLException("Write queue is full (" + queue.size() + " pending writes)");
+         }
+         recordDepth(queue.size());
+         T value = pending.result.get();
+         event.outcome("OK");
+         return value;
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         throw new SQLException("Interrupted while waiting for a database write", e);
+      } catch (ExecutionException e) {
+         Throwable cause = e.getCause();
+         if (cause instanceof SQLException sqlException) {
+            throw sqlException;
+         }
+         if (cause instanceof RuntimeException runtimeException) {
+            throw runtimeException;
+         }
+         throw new SQLException("Database write failed", cause);
+      } finally {
+         if (pending.result.isDone()) {
+            event.executed(pending.startedAt - pending.enqueuedAt, pending.batchSize);
+         }
+         event.finish();
+      }
+   }
+
+   public synchronized Metrics metrics() {
+      return new Metrics(
+              queue.size(),
+              maxQueueDepth,
+              commands,
+              transactions,
+              commands == 0 ? 0 : totalWaitNanos / 1e6 / commands,
+              maxWaitNanos / 1e6,
+              busyRetries
+      );
+   }
+
+   // ----- writer thread -----
+
+   private void runLoop() {
+      List<Pending<?>> batch = new ArrayList<>(maxBatch);
+      try {
+         while (true) {
+            batch.add(queue.take());
+            queue.drainTo(batch, maxBatch - 1);
+            executeBatch(batch);
+            batch.clear();
+         }
+      } catch (InterruptedException e) {
+         // Shutting down: finish what is already queued
+         queue.drainTo(batch);
+         if (!batch.isEmpty()) {
+            executeBatch(batch);
+         }
+      } finally {
+         try {
+            conn.close();
+         } catch (SQLException ignored) {
+            // nothing useful to do while shutting down
+         }
+      }
+   }
+
+   private void executeBatch(List<Pending<?>> batch) {
+      long started = System.nanoTime();
+      recordWaits(batch, started);
+
+      for (int attempt = 0; ; attempt++) {
+         try {
+            runInTransaction(batch);
+            break;
+         } catch (SQLException e) {
+            rollbackQuietly();
+            if (isBusy(e) && attempt < MAX_BUSY_RETRIES) {
+               synchronized (this) {
+                  busyRetries++;
+               }
+               if (!pause(BUSY_BACKOFF_MILLIS * (attempt + 1))) {
+                  failAll(batch, e);
+                  break;
+               }
+               continue;
+            }
+            failAll(batch, e);
+            break;
+         }
+      }
+
+      for (Pending<?> p : batch) {
+         if (p.failure == null) {
+            runAfterCommit(p);
+         }
+         p.complete();
+      }
+   }
+
+   private void runInTransaction(List<Pending<?>> batch) throws SQLException {
+      conn.setAutoCommit(false);
+
+      for (Pending<?> p : batch) {
+         p.failure = null;
+         Savepoint savepoint = conn.setSavepoint();
+         running = p;
+         try {
+            p.run(conn);
+            conn.releaseSavepoint(savepoint);
+         } catch (SQLException e) {
+            if (isBusy(e)) {
+               throw e;  // retry the whole batch
+            }
+            conn.rollback(savepoint);
+            p.failure = e;
+         } catch (RuntimeException e) {
+            conn.rollback(savepoint);
+            p.failure = e;
+         } finally {
+            running = null;
+         }
+      }
+
+      conn.commit();
+      conn.setAutoCommit(true);
+
+      synchronized (this) {
+         transactions++;
+         commands += batch.size();
+      }
+   }
+
+   private static void runAfterCommit(Pending<?> p) {
+      for (Runnable work : p.committed) {
+         try {
+            work.run();
+         } catch (RuntimeException e) {
+            // The write is committed; its caller still gets the result
+            System.err.println("After-commit work failed: " + e.getMessage());
+         }
+      }
+   }
+
+   private void failAll(List<Pending<?>> batch, SQLException e) {
+      for (Pending<?> p : batch) {
+         p.failure = e;
+      }
+      synchronized (this) {
+         commands += batch.size();
+      }
+   }
+
+   private void rollbackQuietly() {
+      try {
+         if (!conn.getAutoCommit()) {
+            conn.rollback();
+            conn.setAutoCommit(true);
+         }
+      } catch (SQLException ignored) {
+         // the next batch starts a fresh transaction anyway
+      }
+   }
+
+   private boolean pause(long millis) {
+      try {
+         Thread.sleep(millis);
+         return true;
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         return false;
+      }
+   }
+
+   private static boolean isBusy(SQLException e) {
+      int code = e.getErrorCode() & 0xff;
+      return code == SQLITE_BUSY || code == SQLITE_LOCKED;
+   }
+
+   private synchronized void recordDepth(int depth) {
+      maxQueueDepth = Math.max(maxQueueDepth, depth);
+   }
+
+   private synchronized void recordWaits(List<Pending<?>> batch, long started) {
+      for (Pending<?> p : batch) {
+         p.startedAt = started;
+         p.batchSize = batch.size();
+         long wait = started - p.enqueuedAt;
+         totalWaitNanos += wait;
+         maxWaitNanos = Math.max(maxWaitNanos, wait);
+      }
+   }
+}
@@ -0,0 +1,35 @@
+package persistence.event;
+
+import domain.HotelBooking;
+import domain.HotelRoom;
+
+/**
+ * Change published by a repository after the change has been committed.
+ */
+public sealed interface RepositoryEvent {
+
+   /**
+    * A room was inserted.
+    */
+   record RoomSaved(HotelRoom room) implements RepositoryEvent {
+   }
+
+   /**
+    * A booking was inserted.
+    */
+   record BookingCreated(HotelBooking booking) implements RepositoryEvent {
+   }
+
+   /**
+    * A booking was cancelled and deleted; its nights are free again.
+    */
+   record BookingCancelled(HotelBooking booking) implements RepositoryEvent {
+   }
+
+   /**
+    * The event buffer was full and {@code count} events were discarded.
+    * Consumers holding derived state should rebuild it from the repositories.
+    */
+   record EventsDropped(long count) implements RepositoryEvent {
+   }
+}
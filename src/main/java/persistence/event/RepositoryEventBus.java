@@ -0,0 +1,139 @@
+package persistence.event;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Asynchronous, ordered delivery of {@link RepositoryEvent}s to listeners.
+ *
+ * <p>Repositories publish into a fixed-size ring buffer and return immediately;
+ * a single dispatcher thread drains the buffer in batches and calls the
+ * listeners in publish order. When the buffer is full, the event is dropped
+ * rather than making the committing writer wait, and listeners receive an
+ * {@link RepositoryEvent.EventsDropped} before the next delivered event.</p>
+ *
+ * <p>No dispatcher thread is started until the first listener subscribes, and
+ * publishing without listeners costs a single volatile read.</p>
+ */
+public class RepositoryEventBus {
+
+   private final RepositoryEvent[] ring;
+   private int head;  // next slot to read
+   private int size;
+   private long dropped;
+
+   private final List<RepositoryEventListener> listeners = new CopyOnWriteArrayList<>();
+   private volatile boolean hasListeners;
+   private Thread dispatcher;
+
+   private long published;
+
+   public RepositoryEventBus(int capacity) {
+      if (capacity <= 0) {
+         throw new IllegalArgumentException("capacity must be positive");
+      }
+      this.ring = new RepositoryEvent[capacity];
+   }
+
+   /**
+    * Registers a listener and starts the dispatcher thread if needed.
+    */
+   public synchronized void subscribe(RepositoryEventListener listener) {
+      listeners.add(listener);
+      hasListeners = true;
+      if (dispatcher == null) {
+         dispatcher = new Thread(this::dispatchLoop, "repository-events");
+         dispatcher.setDaemon(true);
+         dispatcher.start();
+      }
+   }
+
+   public void unsubscribe(RepositoryEventListener listener) {
+      listeners.remove(listener);
+   }
+
+   /**
+    * Enqueues an event without blocking. Call only after the change is committed.
+    */
+   public void publish(RepositoryEvent event) {
+      if (!hasListeners) {
+         return;
+      }
+      synchronized (this) {
+         if (size == ring.length) {
+            dropped++;
+            return;
+         }
+         ring[(head + size) % ring.length] = event;
+         size++;
+         published++;
+         if (size == 1) {
+            notifyAll();
+         }
+      }
+   }
+
+   /**
+    * Total number of events accepted into the buffer.
+    */
+   public synchronized long getPublishedCount() {
+      return published;
+   }
+
+   /**
+    * Number of events currently waiting for delivery.
+    */
+   public synchronized int getPendingCount() {
+      return size;
+   }
+
+   private void dispatchLoop() {
+      RepositoryEvent[] batch = new RepositoryEvent[ring.length];
+
+      while (true) {
+         int count;
+         long droppedBefore;
+
+         synchronized (this) {
+            while (size == 0 && dropped == 0) {
+               try {
+                  wait();
+               } catch (InterruptedException e) {
+                  return;
+               }
+            }
+            droppedBefore = dropped;
+            dropped = 0;
+
+            // Drain everything at once so the lock is taken once per batch, not per event
+            count = size;
+            for (int i = 0; i < count; i++) {
+               int slot = (head + i) % ring.length;
+               batch[i] = ring[slot];
+               ring[slot] = null;
+            }
+            head = (head + count) % ring.length;
+            size = 0;
+         }
+
+         // Events dropped while this batch was buffered happened after it
+         for (int i = 0; i < count; i++) {
+            deliver(batch[i]);
+            batch[i] = null;
+         }
+         if (droppedBefore > 0) {
+            deliver(new RepositoryEvent.EventsDropped(droppedBefore));
+         }
+      }
+   }
+
+   private void deliver(RepositoryEvent event) {
+      for (RepositoryEventListener listener : listeners) {
+         try {
+            listener.onEvent(event);
+         } catch (RuntimeException e) {
+            System.err.println("Repository event listener failed on " + event + ": " + e.getMessage());
+         }
+      }
+   }
+}
@@ -0,0 +1,10 @@
+package persistence.event;
+
+/**
+ * Receives repository changes on the event bus dispatcher thread, in commit order.
+ */
+@FunctionalInterface
+public interface RepositoryEventListener {
+
+   void onEvent(RepositoryEvent event);
+}
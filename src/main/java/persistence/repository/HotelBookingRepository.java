@@ -1,7 +1,10 @@
 package persistence.repository;
 
+import domain.CompactBooking;
+import domain.GuestPrivilege;
 import domain.HotelBooking;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 
@@ -9,9 +12,65 @@ public interface HotelBookingRepository {
 
    HotelBooking save(HotelBooking booking);   // create or update (though we’ll mostly create)
 
+   // inserts the booking only if the room exists, holds its guests and has no overlapping stay,
+   // checked and written atomically; sets the booking's id when CREATED
+   InsertResult insertIfAvailable(HotelBooking booking);
+
+   // deletes a booking that has not been archived and frees its nights; returns the deleted booking
+   Optional<HotelBooking> deleteById(int id);
+
    Optional<HotelBooking> findById(int id);
 
    List<HotelBooking> findAll();
 
    List<HotelBooking> findByRoomId(int roomId);
+
+   // bookings of the room whose stay overlaps [from, to), ordered by check-in
+   List<HotelBooking> findByRoomIdOverlapping(int roomId, LocalDate from, LocalDate to);
+
+   // bookings of any room whose stay overlaps [from, to), ordered by check-in
+   List<HotelBooking> findOverlapping(LocalDate from, LocalDate to);
+
+   // same as findOverlapping, as compact read models for large working sets
+   List<CompactBooking> findCompactOverlapping(LocalDate from, LocalDate to);
+
+   // bookings checking in on the date, ordered by room
+   List<HotelBooking> findArrivingOn(LocalDate date);
+
+   // bookings checking out on the date, ordered by room
+   List<HotelBooking> findDepartingOn(LocalDate date);
+
+   // bookings staying the night of the date (checked in on or before it, leaving after it), ordered by room
+   List<HotelBooking> findInHouseOn(LocalDate date);
+
+   // bookings overlapping [from, to) whose special requests match the text, ordered by check-in;
+   // alternatives are separated by commas or OR, e.g. "crib, late check-in"
+   List<HotelBooking> searchSpecialRequests(String query, LocalDate from, LocalDate to);
+
+   // streams every stay of any room overlapping [from, to) without loading full bookings
+   void forEachStayOverlapping(LocalDate from, LocalDate to, StayVisitor visitor);
+
+   // same as forEachStayOverlapping with the guests and board of every stay, dates as epoch days
+   void forEachStayDetailsOverlapping(LocalDate from, LocalDate to, StayDetailsVisitor visitor);
+
+   // streams every stay of every room, archived ones included, ordered by room and check-in
+   void forEachStayByRoom(StayDetailsVisitor visitor);
+
+   enum InsertResult {
+      CREATED,
+      CONFLICT,        // another booking of the room overlaps the stay
+      OVER_CAPACITY,   // more guests than the room holds
+      UNKNOWN_ROOM
+   }
+
+   @FunctionalInterface
+   interface StayVisitor {
+      void visit(int bookingId, int roomId, LocalDate checkIn, LocalDate checkOut);
+   }
+
+   @FunctionalInterface
+   interface StayDetailsVisitor {
+      void visit(int bookingId, int roomId, long checkInDay, long checkOutDay,
+                 int guestCount, GuestPrivilege privilege);
+   }
 }
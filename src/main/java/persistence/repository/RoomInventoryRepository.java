@@ -0,0 +1,16 @@
+package persistence.repository;
+
+import domain.NightlyInventory;
+import domain.RoomType;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface RoomInventoryRepository {
+
+   // one entry per night of [from, to), ordered by night
+   List<NightlyInventory> findByRoomType(RoomType roomType, LocalDate from, LocalDate to);
+
+   // one entry per room type and night of [from, to), ordered by night, then room type
+   List<NightlyInventory> findAll(LocalDate from, LocalDate to);
+}
@@ -0,0 +1,18 @@
+package persistence.repository;
+
+import domain.WaitlistEntry;
+
+import java.util.List;
+
+public interface WaitlistRepository {
+
+   // inserts an entry without id and sets its id, or updates the entry with that id;
+   // IllegalArgumentException if there is no such entry to update
+   WaitlistEntry save(WaitlistEntry entry);
+
+   // returns false if there was no such entry
+   boolean deleteById(int id);
+
+   // every waiting entry, ordered by id
+   List<WaitlistEntry> findAll();
+}
@@ -0,0 +1,51 @@
+package persistence.repository.async;
+
+import domain.HotelBooking;
+import persistence.repository.HotelBookingRepository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Non-blocking view of a {@link HotelBookingRepository}.
+ *
+ * <p>Each call runs the blocking repository method on the given executor,
+ * created with {@link DatabaseExecutor#create} for the repository's database,
+ * and returns immediately. Failures, including a full executor queue, complete
+ * the future exceptionally.</p>
+ */
+public class AsyncHotelBookingRepository {
+
+   private final HotelBookingRepository repository;
+   private final Executor executor;
+
+   public AsyncHotelBookingRepository(HotelBookingRepository repository, Executor executor) {
+      this.repository = repository;
+      this.executor = executor;
+   }
+
+   public CompletableFuture<HotelBooking> save(HotelBooking booking) {
+      return DatabaseExecutor.supply(() -> repository.save(booking), executor);
+   }
+
+   public CompletableFuture<Optional<HotelBooking>> findById(int id) {
+      return DatabaseExecutor.supply(() -> repository.findById(id), executor);
+   }
+
+   public CompletableFuture<List<HotelBooking>> findAll() {
+      return DatabaseExecutor.supply(repository::findAll, executor);
+   }
+
+   public CompletableFuture<List<HotelBooking>> findByRoomId(int roomId) {
+      return DatabaseExecutor.supply(() -> repository.findByRoomId(roomId), executor);
+   }
+
+   public CompletableFuture<List<HotelBooking>> findByRoomIdOverlapping(int roomId,
+                                                                        LocalDate from,
+                                                                        LocalDate to) {
+      return DatabaseExecutor.supply(() -> repository.findByRoomIdOverlapping(roomId, from, to), executor);
+   }
+}
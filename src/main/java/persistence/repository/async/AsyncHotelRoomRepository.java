@@ -0,0 +1,44 @@
+package persistence.repository.async;
+
+import domain.HotelRoom;
+import persistence.repository.HotelRoomRepository;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Non-blocking view of a {@link HotelRoomRepository}.
+ *
+ * <p>Each call runs the blocking repository method on the given executor,
+ * created with {@link DatabaseExecutor#create} for the repository's database,
+ * and returns immediately. Failures, including a full executor queue, complete
+ * the future exceptionally.</p>
+ */
+public class AsyncHotelRoomRepository {
+
+   private final HotelRoomRepository repository;
+   private final Executor executor;
+
+   public AsyncHotelRoomRepository(HotelRoomRepository repository, Executor executor) {
+      this.repository = repository;
+      this.executor = executor;
+   }
+
+   public CompletableFuture<HotelRoom> save(HotelRoom room) {
+      return DatabaseExecutor.supply(() -> repository.save(room), executor);
+   }
+
+   public CompletableFuture<Optional<HotelRoom>> findById(int id) {
+      return DatabaseExecutor.supply(() -> repository.findById(id), executor);
+   }
+
+   public CompletableFuture<Optional<HotelRoom>> findByRoomNumber(int roomNumber) {
+      return DatabaseExecutor.supply(() -> repository.findByRoomNumber(roomNumber), executor);
+   }
+
+   public CompletableFuture<List<HotelRoom>> findAll() {
+      return DatabaseExecutor.supply(repository::findAll, executor);
+   }
+}
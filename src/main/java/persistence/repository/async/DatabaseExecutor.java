@@ -0,0 +1,64 @@
+package persistence.repository.async;
+
+import persistence.Database;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Bounded executor for blocking repository calls on one database.
+ *
+ * <p>It has as many threads as that database can serve at once (see
+ * {@link Database#getMaxConcurrency()}); more threads would only wait
+ * for a connection. Every property has its own database, so each gets its
+ * own executor. Work beyond {@code queueCapacity} is rejected instead of
+ * queueing without limit; calls submitted through {@link #supply} then get a
+ * future failed with the {@link RejectedExecutionException}.</p>
+ */
+public final class DatabaseExecutor {
+
+   private DatabaseExecutor() {
+   }
+
+   /**
+    * Creates the executor for calls on the repositories of {@code database}.
+    */
+   public static ExecutorService create(Database database, int queueCapacity) {
+      int threads = database.getMaxConcurrency();
+      AtomicInteger counter = new AtomicInteger();
+
+      return new ThreadPoolExecutor(
+              threads,
+              threads,
+              0L,
+              TimeUnit.MILLISECONDS,
+              new ArrayBlockingQueue<>(queueCapacity),
+              r -> {
+                 Thread t = new Thread(r, "database-" + database.getPropertyId() + "-" + counter.incrementAndGet());
+                 t.setDaemon(true);
+                 return t;
+              },
+              new ThreadPoolExecutor.AbortPolicy()
+      );
+   }
+
+   /**
+    * Runs the task on the executor, like {@link CompletableFuture#supplyAsync(Supplier, Executor)},
+    * but a rejected task fails the returned future instead of throwing to the caller,
+    * so composed stages see it like any other failure.
+    */
+   public static <T> CompletableFuture<T> supply(Supplier<T> task, Executor executor) {
+      try {
+         return CompletableFuture.supplyAsync(task, executor);
+      } catch (RejectedExecutionException e) {
+         return CompletableFuture.failedFuture(e);
+      }
+   }
+}
@@ -1,19 +1,69 @@
 package persistence.repository.sqlite;
 
+import diagnostics.RepositoryQueryEvent;
+import domain.CompactBooking;
 import domain.GuestPrivilege;
 import domain.HotelBooking;
+import persistence.BookingPartitions;
+import persistence.BookingPartitions.Layout;
+import persistence.BookingPartitions.Partition;
+import persistence.Database;
 import persistence.DatabaseManager;
+import persistence.RoomInventory;
+import persistence.SpecialRequestIndex;
+import persistence.event.RepositoryEvent;
+import persistence.event.RepositoryEventBus;
 import persistence.repository.HotelBookingRepository;
 
 import java.sql.*;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
 
 public class SQLiteHotelBookingRepository implements HotelBookingRepository {
 
+   // Repository name reported in JFR query events
+   private static final String REPOSITORY = "bookings";
+
+   private static final Comparator<HotelBooking> BY_CHECK_IN =
+           Comparator.comparing(HotelBooking::getCheckInDate);
+
+   private static final Comparator<HotelBooking> BY_ROOM =
+           Comparator.comparingInt(HotelBooking::getRoomId);
+
+   private final Database database;
+   private final RepositoryEventBus events;
+
+   /**
+    * Creates a repository whose change events are not delivered anywhere.
+    */
+   public SQLiteHotelBookingRepository() {
+      this(new RepositoryEventBus(1));
+   }
+
+   /**
+    * Creates a repository on the default property's database.
+    *
+    * @param events bus that receives a {@code BookingCreated} or {@code BookingCancelled} event
+    *               after each committed change
+    */
+   public SQLiteHotelBookingRepository(RepositoryEventBus events) {
+      this(DatabaseManager.defaultDatabase(), events);
+   }
+
+   /**
+    * @param database the database of the property this repository reads and writes
+    * @param events bus that receives a {@code BookingCreated} or {@code BookingCancelled} event
+    *               after each committed change
+    */
+   public SQLiteHotelBookingRepository(Database database, RepositoryEventBus events) {
+      this.database = database;
+      this.events = events;
+   }
+
    @Override
    public HotelBooking save(HotelBooking booking) {
 
@@ -23,33 +73,34 @@ public class SQLiteHotelBookingRepository implements HotelBookingRepository {
       }
 
       String sql = """
-                INSERT INTO hotel_bookings
-                (room_id, check_in_date, check_out_date, guest_count,
+                INSERT INTO %s
+                (id, room_id, check_in_date, check_out_date, guest_count,
                  guest_names, created_by, guest_privilege,
                  special_requests, created_at)
-                VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)
+                VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
                 """;
 
-      try (Connection conn = DatabaseManager.getConnection();
-           PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+      int year = booking.getCheckInDate().getYear();
 
-         ps.setInt(1, booking.getRoomId());
-         ps.setString(2, booking.getCheckInDate().toString());   // LocalDate -> "YYYY-MM-DD"
-         ps.setString(3, booking.getCheckOutDate().toString());
-         ps.setInt(4, booking.getGuestCount());
-         ps.setString(5, serializeGuestNames(booking.getGuestNames()));
-         ps.setString(6, booking.getCreatedBy());
-         ps.setString(7, booking.getGuestPrivilege().name());
-         ps.setString(8, booking.getSpecialRequests());
-         ps.setString(9, booking.getCreatedAt().toString());     // LocalDateTime -> ISO string
-
-         ps.executeUpdate();
+      try {
+         database.write(conn -> {
+            String table = BookingPartitions.ensure(conn, year);
+            int newId = BookingPartitions.nextBookingId(conn);
 
-         try (ResultSet rs = ps.getGeneratedKeys()) {
-            if (rs.next()) {
-               booking.setId(rs.getInt(1));
+            try (PreparedStatement ps = conn.prepareStatement(sql.formatted(table))) {
+               ps.setInt(1, newId);
+               bindColumns(ps, 2, booking);
+               ps.executeUpdate();
             }
-         }
+
+            BookingPartitions.recordStay(conn, year, booking.getCheckInDate(), booking.getCheckOutDate());
+            RoomInventory.recordStay(conn, booking.getRoomId(), booking.getCheckInDate(), booking.getCheckOutDate());
+            return newId;
+         }, newId -> {
+            // Published by the writer right after the commit, so events keep commit order
+            booking.setId(newId);
+            events.publish(new RepositoryEvent.BookingCreated(booking));
+         });
 
          return booking;
 
@@ -58,29 +109,189 @@ public class SQLiteHotelBookingRepository implements HotelBookingRepository {
       }
    }
 
+   @Override
+   public InsertResult insertIfAvailable(HotelBooking booking) {
+
+      if (booking.getId() != null) {
+         throw new IllegalArgumentException("Booking is already stored with id " + booking.getId());
+      }
+
+      // Room, capacity and overlap are checked by the statement that inserts the row. Writes run in
+      // IMMEDIATE transactions, so the write lock is held before anything is read, also against other
+      // processes using the same database file.
+      String insertSql = """
+                INSERT INTO %s
+                (id, room_id, check_in_date, check_out_date, guest_count,
+                 guest_names, created_by, guest_privilege,
+                 special_requests, created_at)
+                SELECT (SELECT last_id + 1 FROM hotel_booking_sequence WHERE id = 1),
+                       ?, ?, ?, ?, ?, ?, ?, ?, ?
+                FROM hotel_rooms r
+                WHERE r.id = ?
+                  AND r.max_guests >= ?
+                %s
+                RETURNING id
+                """;
+      String noOverlapSql = """
+                  AND NOT EXISTS (SELECT 1
+                                  FROM %s
+                                  WHERE room_id = r.id
+                                    AND check_in_date < ?
+                                    AND check_out_date > ?)
+                """;
+
+      LocalDate checkIn = booking.getCheckInDate();
+      LocalDate checkOut = booking.getCheckOutDate();
+      int year = checkIn.getYear();
+
+      try {
+         Inserted inserted = database.write(conn -> {
+            String table = BookingPartitions.ensure(conn, year);
+
+            // Partition metadata is read under the write lock, so no overlapping stay can be missed
+            Layout layout = new Layout(BookingPartitions.list(conn), BookingPartitions.archive(conn));
+            List<Partition> tables = new ArrayList<>(layout.overlapping(checkIn, checkOut));
+            if (layout.archiveIfOverlapping(checkIn) != null) {
+               tables.add(layout.archive());
+            }
+            StringBuilder noOverlap = new StringBuilder();
+            for (Partition p : tables) {
+               noOverlap.append(noOverlapSql.formatted(p.tableName()));
+            }
+
+            Integer newId = null;
+            try (PreparedStatement ps = conn.prepareStatement(insertSql.formatted(table, noOverlap))) {
+               int next = bindColumns(ps, 1, booking);
+               ps.setInt(next++, booking.getRoomId());
+               ps.setInt(next++, booking.getGuestCount());
+               for (int i = 0; i < tables.size(); i++) {
+                  ps.setString(next++, checkOut.toString());
+                  ps.setString(next++, checkIn.toString());
+               }
+               try (ResultSet rs = ps.executeQuery()) {
+                  if (rs.next()) {
+                     newId = rs.getInt(1);
+                  }
+               }
+            }
+            if (newId == null) {
+               return new Inserted(rejection(conn, booking), 0);
+            }
+
+            if (BookingPartitions.nextBookingId(conn) != newId) {
+               throw new SQLException("hotel_booking_sequence changed while inserting booking " + newId);
+            }
+            BookingPartitions.recordStay(conn, year, checkIn, checkOut);
+            RoomInventory.recordStay(conn, booking.getRoomId(), checkIn, checkOut);
+            return new Inserted(InsertResult.CREATED, newId);
+         }, done -> {
+            // Published by the writer right after the commit, so events keep commit order
+            if (done.result() == InsertResult.CREATED) {
+               booking.setId(done.id());
+               events.publish(new RepositoryEvent.BookingCreated(booking));
+            }
+         });
+         return inserted.result();
+
+      } catch (SQLException e) {
+         throw new RuntimeException("Failed to insert booking", e);
+      }
+   }
+
+   // Outcome of the insertIfAvailable write command; id is only set when CREATED
+   private record Inserted(InsertResult result, int id) {
+   }
+
+   /**
+    * Tells why {@link #insertIfAvailable} inserted nothing, within its write command.
+    */
+   private static InsertResult rejection(Connection conn, HotelBooking booking) throws SQLException {
+      String sql = """
+            SELECT max_guests
+            FROM hotel_rooms
+            WHERE id = ?
+            """;
+
+      try (PreparedStatement ps = conn.prepareStatement(sql)) {
+         ps.setInt(1, booking.getRoomId());
+         try (ResultSet rs = ps.executeQuery()) {
+            if (!rs.next()) {
+               return InsertResult.UNKNOWN_ROOM;
+            }
+            return rs.getInt(1) < booking.getGuestCount() ? InsertResult.OVER_CAPACITY : InsertResult.CONFLICT;
+         }
+      }
+   }
+
+   @Override
+   public Optional<HotelBooking> deleteById(int id) {
+      String sql = """
+            DELETE FROM %s
+            WHERE id = ?
+            RETURNING *
+            """;
+
+      try {
+         // Archived stays are history and are not cancelled
+         HotelBooking deleted = database.write(conn -> {
+            for (Partition p : BookingPartitions.list(conn)) {
+               List<HotelBooking> found = query(conn, sql.formatted(p.tableName()), id);
+               if (!found.isEmpty()) {
+                  HotelBooking booking = found.get(0);
+                  RoomInventory.releaseStay(conn, booking.getRoomId(),
+                          booking.getCheckInDate(), booking.getCheckOutDate());
+                  return booking;
+               }
+            }
+            return null;
+         }, cancelled -> {
+            // Published by the writer right after the commit, so events keep commit order
+            if (cancelled != null) {
+               events.publish(new RepositoryEvent.BookingCancelled(cancelled));
+            }
+         });
+
+         if (deleted == null) {
+            return Optional.empty();
+         }
+         return Optional.of(deleted);
+
+      } catch (SQLException e) {
+         throw new RuntimeException("Failed to delete booking id=" + id, e);
+      }
+   }
+
    @Override
    public Optional<HotelBooking> findById(int id) {
       String sql = """
             SELECT *
-            FROM hotel_bookings
+            FROM %s
             WHERE id = ?
             """;
 
-      try (Connection conn = DatabaseManager.getConnection();
-           PreparedStatement ps = conn.prepareStatement(sql)) {
+      RepositoryQueryEvent event = RepositoryQueryEvent.start(REPOSITORY, "findById");
+      try (Connection conn = database.getReadConnection()) {
 
-         ps.setInt(1, id);
+         // Primary key lookup per partition, then the archive; ids are unique across all of them
+         List<Partition> targets = new ArrayList<>(BookingPartitions.list(conn));
+         targets.add(BookingPartitions.archive(conn));
 
-         try (ResultSet rs = ps.executeQuery()) {
-            if (rs.next()) {
-               return Optional.of(mapRow(rs));
-            } else {
-               return Optional.empty();
+         int queried = 0;
+         for (Partition p : targets) {
+            queried++;
+            List<HotelBooking> found = query(conn, sql.formatted(p.tableName()), id);
+            if (!found.isEmpty()) {
+               event.result(queried, found.size());
+               return Optional.of(found.get(0));
             }
          }
+         event.result(queried, 0);
+         return Optional.empty();
 
       } catch (SQLException e) {
          throw new RuntimeException("Failed to find booking by id=" + id, e);
+      } finally {
+         event.finish(0, null, null);
       }
    }
 
@@ -88,58 +299,504 @@ public class SQLiteHotelBookingRepository implements HotelBookingRepository {
    public List<HotelBooking> findAll() {
       String sql = """
             SELECT *
-            FROM hotel_bookings
+            FROM %s
             ORDER BY check_in_date
             """;
 
-      List<HotelBooking> result = new ArrayList<>();
+      RepositoryQueryEvent event = RepositoryQueryEvent.start(REPOSITORY, "findAll");
+      try {
+         Layout layout = BookingPartitions.layout(database);
+         List<HotelBooking> result = BookingPartitions.fanOut(database, layout.partitions(), layout.archive(),
+                 (conn, p) -> query(conn, sql.formatted(p.tableName())), BY_CHECK_IN);
+         event.result(tableCount(layout.partitions(), layout.archive()), result.size());
+         return result;
 
-      try (Connection conn = DatabaseManager.getConnection();
-           PreparedStatement ps = conn.prepareStatement(sql);
-           ResultSet rs = ps.executeQuery()) {
+      } catch (SQLException e) {
+         throw new RuntimeException("Failed to list all bookings", e);
+      } finally {
+         event.finish(0, null, null);
+      }
+   }
 
-         while (rs.next()) {
-            result.add(mapRow(rs));
-         }
+   @Override
+   public List<HotelBooking> findByRoomId(int roomId) {
+      String sql = """
+            SELECT *
+            FROM %s
+            WHERE room_id = ?
+            ORDER BY check_in_date
+            """;
 
+      RepositoryQueryEvent event = RepositoryQueryEvent.start(REPOSITORY, "findByRoomId");
+      try {
+         Layout layout = BookingPartitions.layout(database);
+         List<HotelBooking> result = BookingPartitions.fanOut(database, layout.partitions(), layout.archive(),
+                 (conn, p) -> query(conn, sql.formatted(p.tableName()), roomId), BY_CHECK_IN);
+         event.result(tableCount(layout.partitions(), layout.archive()), result.size());
          return result;
 
       } catch (SQLException e) {
-         throw new RuntimeException("Failed to list all bookings", e);
+         throw new RuntimeException(
+                 "Failed to list bookings for roomId=" + roomId, e
+         );
+      } finally {
+         event.finish(roomId, null, null);
       }
    }
 
    @Override
-   public List<HotelBooking> findByRoomId(int roomId) {
+   public List<HotelBooking> findByRoomIdOverlapping(int roomId, LocalDate from, LocalDate to) {
       String sql = """
             SELECT *
-            FROM hotel_bookings
+            FROM %s
             WHERE room_id = ?
+              AND check_in_date < ?
+              AND check_out_date > ?
             ORDER BY check_in_date
             """;
 
-      List<HotelBooking> result = new ArrayList<>();
+      RepositoryQueryEvent event = RepositoryQueryEvent.start(REPOSITORY, "findByRoomIdOverlapping");
+      try {
+         Layout layout = BookingPartitions.layout(database);
+
+         // The archive is only consulted for historical ranges
+         List<Partition> partitions = layout.overlapping(from, to);
+         Partition archive = layout.archiveIfOverlapping(from);
+         List<HotelBooking> result = BookingPartitions.fanOut(database, partitions, archive,
+                 (conn, p) -> query(conn, sql.formatted(p.tableName()),
+                         roomId, to.toString(), from.toString()), BY_CHECK_IN);
+         event.result(tableCount(partitions, archive), result.size());
+         return result;
 
-      try (Connection conn = DatabaseManager.getConnection();
-           PreparedStatement ps = conn.prepareStatement(sql)) {
+      } catch (SQLException e) {
+         throw new RuntimeException(
+                 "Failed to list bookings for roomId=" + roomId + " between " + from + " and " + to, e
+         );
+      } finally {
+         event.finish(roomId, from, to);
+      }
+   }
 
-         ps.setInt(1, roomId);
+   @Override
+   public List<HotelBooking> findOverlapping(LocalDate from, LocalDate to) {
+      String sql = """
+            SELECT *
+            FROM %s%s
+            WHERE check_in_date < ?
+              AND check_in_date >= ?
+              AND check_out_date > ?
+            ORDER BY check_in_date
+            """;
 
-         try (ResultSet rs = ps.executeQuery()) {
-            while (rs.next()) {
-               result.add(mapRow(rs));
+      RepositoryQueryEvent event = RepositoryQueryEvent.start(REPOSITORY, "findOverlapping");
+      try {
+         Layout layout = BookingPartitions.layout(database);
+         List<Partition> partitions = layout.overlapping(from, to);
+         Partition archive = layout.archiveIfOverlapping(from);
+         List<HotelBooking> result = BookingPartitions.fanOut(database, partitions, archive,
+                 (conn, p) -> query(conn, sql.formatted(p.tableName(), boundedRangeIndexHint(p, from, to)),
+                         to.toString(), earliestCheckIn(p, from), from.toString()), BY_CHECK_IN);
+         event.result(tableCount(partitions, archive), result.size());
+         return result;
+
+      } catch (SQLException e) {
+         throw new RuntimeException("Failed to list bookings between " + from + " and " + to, e);
+      } finally {
+         event.finish(0, from, to);
+      }
+   }
+
+   @Override
+   public List<CompactBooking> findCompactOverlapping(LocalDate from, LocalDate to) {
+      // Dates and creation time converted by SQLite, so no LocalDate or LocalDateTime is built per row
+      String sql = """
+            SELECT id, room_id,
+                   CAST(julianday(check_in_date) - 2440587.5 AS INTEGER) AS check_in_day,
+                   CAST(julianday(check_out_date) - 2440587.5 AS INTEGER) AS check_out_day,
+                   guest_count, guest_names, created_by, guest_privilege, special_requests,
+                   CAST(strftime('%%s', created_at) AS INTEGER) AS created_at_second
+            FROM %s%s
+            WHERE check_in_date < ?
+              AND check_in_date >= ?
+              AND check_out_date > ?
+            ORDER BY check_in_date
+            """;
+
+      RepositoryQueryEvent event = RepositoryQueryEvent.start(REPOSITORY, "findCompactOverlapping");
+      try {
+         Layout layout = BookingPartitions.layout(database);
+         List<Partition> partitions = layout.overlapping(from, to);
+         Partition archive = layout.archiveIfOverlapping(from);
+         List<CompactBooking> result = BookingPartitions.fanOut(database, partitions, archive, (conn, p) -> {
+            List<CompactBooking> rows = new ArrayList<>();
+            try (PreparedStatement ps = conn.prepareStatement(
+                    sql.formatted(p.tableName(), boundedRangeIndexHint(p, from, to)))) {
+               ps.setString(1, to.toString());
+               ps.setString(2, earliestCheckIn(p, from));
+               ps.setString(3, from.toString());
+               try (ResultSet rs = ps.executeQuery()) {
+                  while (rs.next()) {
+                     rows.add(mapCompactRow(rs));
+                  }
+               }
+            }
+            return rows;
+         }, Comparator.comparingInt(CompactBooking::getCheckInDay));
+         event.result(tableCount(partitions, archive), result.size());
+         return result;
+
+      } catch (SQLException e) {
+         throw new RuntimeException("Failed to list compact bookings between " + from + " and " + to, e);
+      } finally {
+         event.finish(0, from, to);
+      }
+   }
+
+   @Override
+   public List<HotelBooking> findArrivingOn(LocalDate date) {
+      String sql = """
+            SELECT *
+            FROM %s
+            WHERE check_in_date = ?
+            ORDER BY room_id
+            """;
+
+      RepositoryQueryEvent event = RepositoryQueryEvent.start(REPOSITORY, "findArrivingOn");
+      try {
+         Layout layout = BookingPartitions.layout(database);
+
+         // Only the partition of the date's year can hold its check-ins
+         List<Partition> partitions = new ArrayList<>();
+         for (Partition p : layout.overlapping(date, date.plusDays(1))) {
+            if (p.year() == date.getYear()) {
+               partitions.add(p);
             }
          }
+         Partition archive = layout.archiveIfOverlapping(date);
+         List<HotelBooking> result = BookingPartitions.fanOut(database, partitions, archive,
+                 (conn, p) -> query(conn, sql.formatted(p.tableName()), date.toString()), BY_ROOM);
+         event.result(tableCount(partitions, archive), result.size());
+         return result;
+
+      } catch (SQLException e) {
+         throw new RuntimeException("Failed to list arrivals on " + date, e);
+      } finally {
+         event.finish(0, date, date.plusDays(1));
+      }
+   }
+
+   @Override
+   public List<HotelBooking> findDepartingOn(LocalDate date) {
+      String sql = """
+            SELECT *
+            FROM %s
+            WHERE check_out_date = ?
+            ORDER BY room_id
+            """;
+
+      RepositoryQueryEvent event = RepositoryQueryEvent.start(REPOSITORY, "findDepartingOn");
+      try {
+         Layout layout = BookingPartitions.layout(database);
+
+         // A stay leaving on the date occupied the night before it
+         LocalDate lastNight = date.minusDays(1);
+         List<Partition> partitions = layout.overlapping(lastNight, date);
+         Partition archive = layout.archiveIfOverlapping(lastNight);
+         List<HotelBooking> result = BookingPartitions.fanOut(database, partitions, archive,
+                 (conn, p) -> query(conn, sql.formatted(p.tableName()), date.toString()), BY_ROOM);
+         event.result(tableCount(partitions, archive), result.size());
+         return result;
+
+      } catch (SQLException e) {
+         throw new RuntimeException("Failed to list departures on " + date, e);
+      } finally {
+         event.finish(0, date.minusDays(1), date);
+      }
+   }
+
+   @Override
+   public List<HotelBooking> findInHouseOn(LocalDate date) {
+      String sql = """
+            SELECT *
+            FROM %s%s
+            WHERE check_in_date <= ?
+              AND check_in_date >= ?
+              AND check_out_date > ?
+            ORDER BY room_id
+            """;
 
+      RepositoryQueryEvent event = RepositoryQueryEvent.start(REPOSITORY, "findInHouseOn");
+      try {
+         Layout layout = BookingPartitions.layout(database);
+         LocalDate nextDay = date.plusDays(1);
+         List<Partition> partitions = layout.overlapping(date, nextDay);
+         Partition archive = layout.archiveIfOverlapping(date);
+         List<HotelBooking> result = BookingPartitions.fanOut(database, partitions, archive,
+                 (conn, p) -> query(conn, sql.formatted(p.tableName(), boundedRangeIndexHint(p, date, nextDay)),
+                         date.toString(), earliestCheckIn(p, date), date.toString()), BY_ROOM);
+         event.result(tableCount(partitions, archive), result.size());
+         return result;
+
+      } catch (SQLException e) {
+         throw new RuntimeException("Failed to list in-house bookings on " + date, e);
+      } finally {
+         event.finish(0, date, date.plusDays(1));
+      }
+   }
+
+   @Override
+   public List<HotelBooking> searchSpecialRequests(String query, LocalDate from, LocalDate to) {
+      String matchQuery = SpecialRequestIndex.toMatchQuery(query);
+      if (matchQuery == null) {
+         return new ArrayList<>();
+      }
+
+      // The index yields the matching ids, limited to the partition's id range (bookings of one
+      // year are mostly created close together); the date range is checked on the partition rows
+      String sql = """
+            SELECT *
+            FROM %1$s
+            WHERE id IN (SELECT rowid
+                         FROM %2$s
+                         WHERE %2$s MATCH ?
+                           AND rowid BETWEEN (SELECT min(id) FROM %1$s) AND (SELECT max(id) FROM %1$s))
+              AND check_in_date < ?
+              AND check_out_date > ?
+            ORDER BY check_in_date
+            """;
+
+      RepositoryQueryEvent event = RepositoryQueryEvent.start(REPOSITORY, "searchSpecialRequests");
+      try {
+         Layout layout = BookingPartitions.layout(database);
+         List<Partition> partitions = layout.overlapping(from, to);
+         Partition archive = layout.archiveIfOverlapping(from);
+         List<HotelBooking> result = BookingPartitions.fanOut(database, partitions, archive,
+                 (conn, p) -> query(conn,
+                         sql.formatted(p.tableName(), SpecialRequestIndex.FTS_TABLE),
+                         matchQuery, to.toString(), from.toString()), BY_CHECK_IN);
+         event.result(tableCount(partitions, archive), result.size());
          return result;
 
       } catch (SQLException e) {
          throw new RuntimeException(
-                 "Failed to list bookings for roomId=" + roomId, e
+                 "Failed to search special requests for '" + query + "' between " + from + " and " + to, e
          );
+      } finally {
+         event.finish(0, from, to);
       }
    }
 
+   @Override
+   public void forEachStayOverlapping(LocalDate from, LocalDate to, StayVisitor visitor) {
+      streamStays("forEachStayOverlapping", "id, room_id", from, to, rs ->
+              visitor.visit(rs.getInt(1), rs.getInt(2),
+                      LocalDate.ofEpochDay(rs.getLong(3)), LocalDate.ofEpochDay(rs.getLong(4))));
+   }
+
+   @Override
+   public void forEachStayDetailsOverlapping(LocalDate from, LocalDate to, StayDetailsVisitor visitor) {
+      streamStays("forEachStayDetailsOverlapping", "id, room_id, guest_count, guest_privilege", from, to, rs ->
+              visitor.visit(rs.getInt(1), rs.getInt(2), rs.getLong(5), rs.getLong(6),
+                      rs.getInt(3), GuestPrivilege.valueOf(rs.getString(4))));
+   }
+
+   @Override
+   public void forEachStayByRoom(StayDetailsVisitor visitor) {
+      String select = """
+            SELECT id, room_id, guest_count, guest_privilege,
+                   CAST(julianday(check_in_date) - 2440587.5 AS INTEGER),
+                   CAST(julianday(check_out_date) - 2440587.5 AS INTEGER),
+                   check_in_date
+            FROM %1$s INDEXED BY idx_%1$s_room
+            """;
+
+      RepositoryQueryEvent event = RepositoryQueryEvent.start(REPOSITORY, "forEachStayByRoom");
+      try (Connection conn = database.getReadConnection()) {
+         List<String> tables = new ArrayList<>();
+         tables.add(BookingPartitions.ARCHIVE_TABLE);
+         for (Partition p : BookingPartitions.list(conn)) {
+            tables.add(p.tableName());
+         }
+
+         // Every table is read in order of its room index and the results are merged,
+         // so the database never sorts the whole set
+         List<String> parts = new ArrayList<>();
+         for (String table : tables) {
+            parts.add(select.formatted(table));
+         }
+         String sql = String.join("UNION ALL\n", parts) + "ORDER BY 2, 7";
+
+         int rows = 0;
+         try (PreparedStatement ps = conn.prepareStatement(sql);
+              ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+               visitor.visit(rs.getInt(1), rs.getInt(2), rs.getLong(5), rs.getLong(6),
+                       rs.getInt(3), GuestPrivilege.valueOf(rs.getString(4)));
+               rows++;
+            }
+         }
+         event.result(tables.size(), rows);
+
+      } catch (SQLException e) {
+         throw new RuntimeException("Failed to read stays by room", e);
+      } finally {
+         event.finish(0, null, null);
+      }
+   }
+
+   @FunctionalInterface
+   private interface RowHandler {
+      void handle(ResultSet rs) throws SQLException;
+   }
+
+   /**
+    * Streams the given columns of every stay overlapping [from, to), followed by
+    * check-in and check-out as epoch days, to the handler in one statement over
+    * all relevant tables.
+    */
+   private void streamStays(String operation, String columns, LocalDate from, LocalDate to, RowHandler handler) {
+      // Dates as epoch days: reading two integers is cheaper than two strings plus parsing
+      String select = """
+            SELECT %s,
+                   CAST(julianday(check_in_date) - 2440587.5 AS INTEGER),
+                   CAST(julianday(check_out_date) - 2440587.5 AS INTEGER)
+            FROM %s%s
+            WHERE check_in_date < ?
+              AND check_out_date > ?
+            """;
+
+      RepositoryQueryEvent event = RepositoryQueryEvent.start(REPOSITORY, operation);
+      try (Connection conn = database.getReadConnection()) {
+         Layout layout = new Layout(BookingPartitions.list(conn), BookingPartitions.archive(conn));
+         List<Partition> tables = new ArrayList<>(layout.overlapping(from, to));
+         if (layout.archiveIfOverlapping(from) != null) {
+            tables.add(layout.archive());
+         }
+         if (tables.isEmpty()) {
+            event.result(0, 0);
+            return;
+         }
+
+         // One statement over all relevant tables, streamed row by row
+         List<String> parts = new ArrayList<>();
+         for (Partition p : tables) {
+            parts.add(select.formatted(columns, p.tableName(), rangeIndexHint(p, from, to)));
+         }
+         String sql = String.join("UNION ALL\n", parts);
+
+         int rows = 0;
+         try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            for (int i = 0; i < tables.size(); i++) {
+               ps.setString(2 * i + 1, to.toString());
+               ps.setString(2 * i + 2, from.toString());
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+               while (rs.next()) {
+                  handler.handle(rs);
+                  rows++;
+               }
+            }
+         }
+         event.result(tables.size(), rows);
+
+      } catch (SQLException e) {
+         throw new RuntimeException("Failed to read stays between " + from + " and " + to, e);
+      } finally {
+         event.finish(0, from, to);
+      }
+   }
+
+   /**
+    * Picks the index that reads fewer rows for an overlap query on one partition.
+    *
+    * <p>Without statistics SQLite tends to use the check-out index, which for a
+    * partition of a later year reads every stay of that year. Since a partition
+    * only holds check-ins of its own year, the check-in index is exact there;
+    * for the year the range starts in, the bound closer to its edge of the year wins.</p>
+    */
+   private static String rangeIndexHint(Partition p, LocalDate from, LocalDate to) {
+      if (p.tableName().equals(BookingPartitions.ARCHIVE_TABLE)) {
+         return "";   // keep the planner's choice
+      }
+      boolean useCheckIn;
+      if (p.year() > from.getYear()) {
+         useCheckIn = true;
+      } else if (p.year() < from.getYear()) {
+         useCheckIn = false;
+      } else {
+         // Check-in index: the year's check-ins before from; check-out index: its check-outs
+         // after to, of which there are hardly any once the range runs into the next year
+         long extraBeforeFrom = from.getDayOfYear();
+         long extraAfterTo = to.getYear() > p.year() ? 0 : to.lengthOfYear() - to.getDayOfYear();
+         useCheckIn = extraBeforeFrom < extraAfterTo;
+      }
+      return " INDEXED BY idx_" + p.tableName() + (useCheckIn ? "_check_in" : "_check_out");
+   }
+
+   /**
+    * Lower check-in bound for stays of the partition overlapping a range starting at
+    * {@code from}, as a query parameter; the empty string (no bound) if unknown.
+    */
+   private static String earliestCheckIn(Partition p, LocalDate from) {
+      LocalDate earliest = p.earliestCheckInReaching(from);
+      return earliest == null ? "" : earliest.toString();
+   }
+
+   /**
+    * Index for an overlap query that also bounds check-in from below with
+    * {@link #earliestCheckIn}: the check-in range is then at most the longest stay
+    * plus the range itself, so the check-in index wins whenever the bound is known.
+    */
+   private static String boundedRangeIndexHint(Partition p, LocalDate from, LocalDate to) {
+      if (p.maxNights() > 0 && !p.tableName().equals(BookingPartitions.ARCHIVE_TABLE)) {
+         return " INDEXED BY idx_" + p.tableName() + "_check_in";
+      }
+      return rangeIndexHint(p, from, to);
+   }
+
+   private static int tableCount(List<Partition> partitions, Partition archive) {
+      return partitions.size() + (archive == null ? 0 : 1);
+   }
+
+   /**
+    * Runs a booking query with positional parameters and maps every row.
+    */
+   private List<HotelBooking> query(Connection conn, String sql, Object... params) throws SQLException {
+      List<HotelBooking> result = new ArrayList<>();
+
+      try (PreparedStatement ps = conn.prepareStatement(sql)) {
+         for (int i = 0; i < params.length; i++) {
+            ps.setObject(i + 1, params[i]);
+         }
+
+         try (ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+               result.add(mapRow(rs));
+            }
+         }
+      }
+      return result;
+   }
+
+   /**
+    * Binds the columns room_id ... created_at of a booking insert, starting at parameter {@code first}.
+    *
+    * @return the index of the next parameter
+    */
+   private int bindColumns(PreparedStatement ps, int first, HotelBooking booking) throws SQLException {
+      int i = first;
+      ps.setInt(i++, booking.getRoomId());
+      ps.setString(i++, booking.getCheckInDate().toString());   // LocalDate -> "YYYY-MM-DD"
+      ps.setString(i++, booking.getCheckOutDate().toString());
+      ps.setInt(i++, booking.getGuestCount());
+      ps.setString(i++, serializeGuestNames(booking.getGuestNames()));
+      ps.setString(i++, booking.getCreatedBy());
+      ps.setString(i++, booking.getGuestPrivilege().name());
+      ps.setString(i++, booking.getSpecialRequests());
+      ps.setString(i++, booking.getCreatedAt().toString());    // LocalDateTime -> ISO string
+      return i;
+   }
+
    /**
     * Serializes a list of guest names to a single string for storage in the database.
     * Example: ["Alice Smith", "Bob Smith"] -> "Alice Smith|Bob Smith".
@@ -185,6 +842,24 @@ public class SQLiteHotelBookingRepository implements HotelBookingRepository {
       );
    }
 
+   /**
+    * Maps a row of {@link #findCompactOverlapping} to a compact booking.
+    */
+   private CompactBooking mapCompactRow(ResultSet rs) throws SQLException {
+      return new CompactBooking(
+              rs.getInt("id"),
+              rs.getInt("room_id"),
+              rs.getInt("check_in_day"),
+              rs.getInt("check_out_day"),
+              rs.getInt("guest_count"),
+              rs.getString("guest_names"),
+              GuestPrivilege.valueOf(rs.getString("guest_privilege")),
+              rs.getString("created_by"),
+              rs.getString("special_requests"),
+              rs.getLong("created_at_second")
+      );
+   }
+
    /**
     * Deserializes the guest_names string from the database back into a list.
     * Example: "Alice Smith|Bob Smith" -> ["Alice Smith", "Bob Smith"].
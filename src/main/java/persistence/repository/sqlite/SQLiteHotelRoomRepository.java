@@ -1,8 +1,12 @@
 package persistence.repository.sqlite;
 
+import diagnostics.RepositoryQueryEvent;
 import domain.HotelRoom;
 import domain.RoomType;
+import persistence.Database;
 import persistence.DatabaseManager;
+import persistence.event.RepositoryEvent;
+import persistence.event.RepositoryEventBus;
 import persistence.repository.HotelRoomRepository;
 
 import java.sql.*;
@@ -12,6 +16,37 @@ import java.util.Optional;
 
 public class SQLiteHotelRoomRepository implements HotelRoomRepository {
 
+   // Repository name reported in JFR query events
+   private static final String REPOSITORY = "rooms";
+
+   private final Database database;
+   private final RepositoryEventBus events;
+
+   /**
+    * Creates a repository whose change events are not delivered anywhere.
+    */
+   public SQLiteHotelRoomRepository() {
+      this(new RepositoryEventBus(1));
+   }
+
+   /**
+    * Creates a repository on the default property's database.
+    *
+    * @param events bus that receives a {@code RoomSaved} event after each committed insert
+    */
+   public SQLiteHotelRoomRepository(RepositoryEventBus events) {
+      this(DatabaseManager.defaultDatabase(), events);
+   }
+
+   /**
+    * @param database the database of the property this repository reads and writes
+    * @param events bus that receives a {@code RoomSaved} event after each committed insert
+    */
+   public SQLiteHotelRoomRepository(Database database, RepositoryEventBus events) {
+      this.database = database;
+      this.events = events;
+   }
+
    @Override
    public HotelRoom save(HotelRoom room) {
       if (room.getId() != null) {
@@ -24,24 +59,31 @@ public class SQLiteHotelRoomRepository implements HotelRoomRepository {
               VALUES (?, ?, ?, ?, ?, ?)
               """;
 
-      try (Connection conn = DatabaseManager.getConnection();
-           PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-
-         ps.setInt(1, room.getRoomNumber());
-         ps.setString(2, room.getRoomType().name());
-         ps.setInt(3, room.getMaxGuests());
-         ps.setInt(4, room.hasBalcony() ? 1 : 0);
-         ps.setInt(5, room.hasBeachView() ? 1 : 0);
-         ps.setInt(6, room.hasAirConditioning() ? 1 : 0);
-
-         ps.executeUpdate();
-
-         try (ResultSet rs = ps.getGeneratedKeys()) {
-            if (rs.next()) {
-               room.setId(rs.getInt(1));
+      try {
+         database.write(conn -> {
+            try (PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+
+               ps.setInt(1, room.getRoomNumber());
+               ps.setString(2, room.getRoomType().name());
+               ps.setInt(3, room.getMaxGuests());
+               ps.setInt(4, room.hasBalcony() ? 1 : 0);
+               ps.setInt(5, room.hasBeachView() ? 1 : 0);
+               ps.setInt(6, room.hasAirConditioning() ? 1 : 0);
+
+               ps.executeUpdate();
+
+               try (ResultSet rs = ps.getGeneratedKeys()) {
+                  if (!rs.next()) {
+                     throw new SQLException("No id generated for room " + room.getRoomNumber());
+                  }
+                  return rs.getInt(1);
+               }
             }
-         }
-
+         }, id -> {
+            // Published by the writer right after the commit, so events keep commit order
+            room.setId(id);
+            events.publish(new RepositoryEvent.RoomSaved(room));
+         });
          return room;
 
       } catch (SQLException e) {
@@ -58,21 +100,26 @@ public class SQLiteHotelRoomRepository implements HotelRoomRepository {
                 WHERE id = ?
                 """;
 
-      try (Connection conn = DatabaseManager.getConnection();
+      RepositoryQueryEvent event = RepositoryQueryEvent.start(REPOSITORY, "findById");
+      try (Connection conn = database.getReadConnection();
            PreparedStatement ps = conn.prepareStatement(sql)) {
 
          ps.setInt(1, id);
 
          try (ResultSet rs = ps.executeQuery()) {
             if (rs.next()) {
+               event.result(1, 1);
                return Optional.of(mapRow(rs));
             } else {
+               event.result(1, 0);
                return Optional.empty();
             }
          }
 
       } catch (SQLException e) {
          throw new RuntimeException("Failed to find room by id", e);
+      } finally {
+         event.finish(id, null, null);
       }
    }
 
@@ -85,21 +132,29 @@ public class SQLiteHotelRoomRepository implements HotelRoomRepository {
                 WHERE room_number = ?
                 """;
 
-      try (Connection conn = DatabaseManager.getConnection();
+      RepositoryQueryEvent event = RepositoryQueryEvent.start(REPOSITORY, "findByRoomNumber");
+      int roomId = 0;
+      try (Connection conn = database.getReadConnection();
            PreparedStatement ps = conn.prepareStatement(sql)) {
 
          ps.setInt(1, roomNumber);
 
          try (ResultSet rs = ps.executeQuery()) {
             if (rs.next()) {
-               return Optional.of(mapRow(rs));
+               HotelRoom room = mapRow(rs);
+               roomId = room.getId();
+               event.result(1, 1);
+               return Optional.of(room);
             } else {
+               event.result(1, 0);
                return Optional.empty();
             }
          }
 
       } catch (SQLException e) {
          throw new RuntimeException("Failed to find room by room number", e);
+      } finally {
+         event.finish(roomId, null, null);
       }
    }
 
@@ -114,7 +169,8 @@ public class SQLiteHotelRoomRepository implements HotelRoomRepository {
 
       List<HotelRoom> result = new ArrayList<>();
 
-      try (Connection conn = DatabaseManager.getConnection();
+      RepositoryQueryEvent event = RepositoryQueryEvent.start(REPOSITORY, "findAll");
+      try (Connection conn = database.getReadConnection();
            PreparedStatement ps = conn.prepareStatement(sql);
            ResultSet rs = ps.executeQuery()){
 
@@ -122,10 +178,13 @@ public class SQLiteHotelRoomRepository implements HotelRoomRepository {
             result.add(mapRow(rs));
          }
 
+         event.result(1, result.size());
          return result;
 
       } catch (SQLException e) {
          throw new RuntimeException("Failed to list rooms", e);
+      } finally {
+         event.finish(0, null, null);
       }
    }
 
@@ -0,0 +1,122 @@
+package persistence.repository.sqlite;
+
+import diagnostics.RepositoryQueryEvent;
+import domain.NightlyInventory;
+import domain.RoomType;
+import persistence.Database;
+import persistence.DatabaseManager;
+import persistence.repository.RoomInventoryRepository;
+
+import java.sql.*;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads the per-night counters maintained in {@code room_type_inventory}.
+ *
+ * <p>A range costs one indexed range scan plus one pass over its nights,
+ * independent of the number of rooms and bookings.</p>
+ */
+public class SQLiteRoomInventoryRepository implements RoomInventoryRepository {
+
+   // Repository name reported in JFR query events
+   private static final String REPOSITORY = "inventory";
+
+   private static final RoomType[] ROOM_TYPES = RoomType.values();
+
+   private final Database database;
+
+   /**
+    * Creates a repository on the default property's database.
+    */
+   public SQLiteRoomInventoryRepository() {
+      this(DatabaseManager.defaultDatabase());
+   }
+
+   /**
+    * @param database the database of the property this repository reads
+    */
+   public SQLiteRoomInventoryRepository(Database database) {
+      this.database = database;
+   }
+
+   @Override
+   public List<NightlyInventory> findByRoomType(RoomType roomType, LocalDate from, LocalDate to) {
+      return find(new RoomType[]{roomType}, from, to, "findByRoomType");
+   }
+
+   @Override
+   public List<NightlyInventory> findAll(LocalDate from, LocalDate to) {
+      return find(ROOM_TYPES, from, to, "findAll");
+   }
+
+   private List<NightlyInventory> find(RoomType[] types, LocalDate from, LocalDate to, String operation) {
+      if (!from.isBefore(to)) {
+         throw new IllegalArgumentException("from (" + from + ") must be before to (" + to + ")");
+      }
+
+      String totalsSql = """
+              SELECT room_type, count(*) AS rooms
+              FROM hotel_rooms
+              GROUP BY room_type
+              """;
+      String soldSql = """
+              SELECT room_type, night, sold
+              FROM room_type_inventory
+              WHERE room_type = ?
+                AND night >= ?
+                AND night < ?
+              """;
+
+      int nights = (int) ChronoUnit.DAYS.between(from, to);
+      int[] totals = new int[ROOM_TYPES.length];
+      int[][] sold = new int[ROOM_TYPES.length][nights];
+      int rows = 0;
+
+      RepositoryQueryEvent event = RepositoryQueryEvent.start(REPOSITORY, operation);
+      try (Connection conn = database.getReadConnection()) {
+
+         try (PreparedStatement ps = conn.prepareStatement(totalsSql);
+              ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+               totals[RoomType.valueOf(rs.getString("room_type")).ordinal()] = rs.getInt("rooms");
+               rows++;
+            }
+         }
+
+         try (PreparedStatement ps = conn.prepareStatement(soldSql)) {
+            for (RoomType type : types) {
+               ps.setString(1, type.name());
+               ps.setString(2, from.toString());
+               ps.setString(3, to.toString());
+
+               try (ResultSet rs = ps.executeQuery()) {
+                  while (rs.next()) {
+                     int night = (int) ChronoUnit.DAYS.between(from, LocalDate.parse(rs.getString("night")));
+                     sold[type.ordinal()][night] = rs.getInt("sold");
+                     rows++;
+                  }
+               }
+            }
+         }
+
+         event.result(2, rows);
+
+      } catch (SQLException e) {
+         throw new RuntimeException("Failed to read room inventory between " + from + " and " + to, e);
+      } finally {
+         event.finish(0, from, to);
+      }
+
+      List<NightlyInventory> result = new ArrayList<>(nights * types.length);
+      for (int n = 0; n < nights; n++) {
+         LocalDate night = from.plusDays(n);
+         for (RoomType type : types) {
+            result.add(new NightlyInventory(type, night, totals[type.ordinal()], sold[type.ordinal()][n]));
+         }
+      }
+      return result;
+   }
+}
@@ -0,0 +1,189 @@
+package persistence.repository.sqlite;
+
+import diagnostics.RepositoryQueryEvent;
+import domain.GuestPrivilege;
+import domain.RoomType;
+import domain.WaitlistEntry;
+import persistence.Database;
+import persistence.DatabaseManager;
+import persistence.repository.WaitlistRepository;
+
+import java.sql.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Stores waiting stay requests in {@code stay_waitlist}. The waitlist is small
+ * and matched in memory, so it is only ever read as a whole.
+ */
+public class SQLiteWaitlistRepository implements WaitlistRepository {
+
+   // Repository name reported in JFR query events
+   private static final String REPOSITORY = "waitlist";
+
+   private final Database database;
+
+   /**
+    * Creates a repository on the default property's database.
+    */
+   public SQLiteWaitlistRepository() {
+      this(DatabaseManager.defaultDatabase());
+   }
+
+   public SQLiteWaitlistRepository(Database database) {
+      this.database = database;
+   }
+
+   @Override
+   public WaitlistEntry save(WaitlistEntry entry) {
+      if (entry.getId() != null) {
+         return update(entry);
+      }
+
+      String sql = """
+              INSERT INTO stay_waitlist
+              (room_type, check_in_date, check_out_date, guest_count,
+               guest_names, created_by, guest_privilege,
+               special_requests, priority, created_at)
+              VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+              """;
+
+      try {
+         int id = database.write(conn -> {
+            try (PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+               ps.setString(1, entry.getRoomType().name());
+               ps.setString(2, entry.getCheckInDate().toString());
+               ps.setString(3, entry.getCheckOutDate().toString());
+               ps.setInt(4, entry.getGuestCount());
+               ps.setString(5, String.join("|", entry.getGuestNames()));
+               ps.setString(6, entry.getCreatedBy());
+               ps.setString(7, entry.getGuestPrivilege().name());
+               ps.setString(8, entry.getSpecialRequests());
+               ps.setInt(9, entry.getPriority());
+               ps.setString(10, entry.getCreatedAt().toString());
+               ps.executeUpdate();
+
+               try (ResultSet rs = ps.getGeneratedKeys()) {
+                  if (!rs.next()) {
+                     throw new SQLException("No id generated for waitlist entry");
+                  }
+                  return rs.getInt(1);
+               }
+            }
+         });
+
+         // write() returns once the transaction has committed
+         entry.setId(id);
+         return entry;
+
+      } catch (SQLException e) {
+         throw new RuntimeException("Failed to insert waitlist entry", e);
+      }
+   }
+
+   private WaitlistEntry update(WaitlistEntry entry) {
+      String sql = """
+              UPDATE stay_waitlist
+              SET room_type = ?, check_in_date = ?, check_out_date = ?, guest_count = ?,
+                  guest_names = ?, created_by = ?, guest_privilege = ?,
+                  special_requests = ?, priority = ?, created_at = ?
+              WHERE id = ?
+              """;
+
+      int updated;
+      try {
+         updated = database.write(conn -> {
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+               ps.setString(1, entry.getRoomType().name());
+               ps.setString(2, entry.getCheckInDate().toString());
+               ps.setString(3, entry.getCheckOutDate().toString());
+               ps.setInt(4, entry.getGuestCount());
+               ps.setString(5, String.join("|", entry.getGuestNames()));
+               ps.setString(6, entry.getCreatedBy());
+               ps.setString(7, entry.getGuestPrivilege().name());
+               ps.setString(8, entry.getSpecialRequests());
+               ps.setInt(9, entry.getPriority());
+               ps.setString(10, entry.getCreatedAt().toString());
+               ps.setInt(11, entry.getId());
+               return ps.executeUpdate();
+            }
+         });
+
+      } catch (SQLException e) {
+         throw new RuntimeException("Failed to update waitlist entry id=" + entry.getId(), e);
+      }
+
+      if (updated == 0) {
+         throw new IllegalArgumentException("No waitlist entry with id=" + entry.getId());
+      }
+      return entry;
+   }
+
+   @Override
+   public boolean deleteById(int id) {
+      String sql = """
+              DELETE FROM stay_waitlist
+              WHERE id = ?
+              """;
+
+      try {
+         return database.write(conn -> {
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+               ps.setInt(1, id);
+               return ps.executeUpdate() > 0;
+            }
+         });
+
+      } catch (SQLException e) {
+         throw new RuntimeException("Failed to delete waitlist entry id=" + id, e);
+      }
+   }
+
+   @Override
+   public List<WaitlistEntry> findAll() {
+      String sql = """
+              SELECT *
+              FROM stay_waitlist
+              ORDER BY id
+              """;
+
+      List<WaitlistEntry> result = new ArrayList<>();
+
+      RepositoryQueryEvent event = RepositoryQueryEvent.start(REPOSITORY, "findAll");
+      try (Connection conn = database.getReadConnection();
+           PreparedStatement ps = conn.prepareStatement(sql);
+           ResultSet rs = ps.executeQuery()) {
+
+         while (rs.next()) {
+            result.add(mapRow(rs));
+         }
+
+         event.result(1, result.size());
+         return result;
+
+      } catch (SQLException e) {
+         throw new RuntimeException("Failed to list waitlist entries", e);
+      } finally {
+         event.finish(0, null, null);
+      }
+   }
+
+   private WaitlistEntry mapRow(ResultSet rs) throws SQLException {
+      String names = rs.getString("guest_names");
+      return new WaitlistEntry(
+              rs.getInt("id"),
+              RoomType.valueOf(rs.getString("room_type")),
+              LocalDate.parse(rs.getString("check_in_date")),
+              LocalDate.parse(rs.getString("check_out_date")),
+              rs.getInt("guest_count"),
+              names == null || names.isBlank() ? List.of() : List.of(names.split("\\|")),
+              GuestPrivilege.valueOf(rs.getString("guest_privilege")),
+              rs.getString("created_by"),
+              rs.getString("special_requests"),
+              rs.getInt("priority"),
+              LocalDateTime.parse(rs.getString("created_at"))
+      );
+   }
+}
@@ -0,0 +1,28 @@
+package service;
+
+/**
+ * Thrown by {@link BookingAdmission} when a booking request is turned away
+ * instead of being queued; nothing has been written. The request can be
+ * retried later.
+ */
+public class AdmissionRejectedException extends RuntimeException {
+
+   private static final long serialVersionUID = 1L;
+
+   private final BookingAdmission.Channel channel;
+   private final BookingAdmission.Reason reason;
+
+   public AdmissionRejectedException(BookingAdmission.Channel channel, BookingAdmission.Reason reason, String message) {
+      super(message);
+      this.channel = channel;
+      this.reason = reason;
+   }
+
+   public BookingAdmission.Channel getChannel() {
+      return channel;
+   }
+
+   public BookingAdmission.Reason getReason() {
+      return reason;
+   }
+}
@@ -0,0 +1,169 @@
+package service;
+
+import domain.GuestPrivilege;
+import domain.HotelBooking;
+import domain.HotelRoom;
+import domain.RoomType;
+import persistence.repository.HotelRoomRepository;
+import persistence.repository.async.AsyncHotelRoomRepository;
+import persistence.repository.async.DatabaseExecutor;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * {@link CompletableFuture}-based counterpart of {@link BookingService}.
+ *
+ * <p>Blocking calls run on the bounded executor of the property's database
+ * (see {@link DatabaseExecutor}), so callers serving
+ * many clients do not need a thread per in-flight SQL call. Validation and
+ * business-rule failures complete the future exceptionally with the same
+ * {@link IllegalArgumentException} / {@link IllegalStateException} the
+ * blocking service throws.</p>
+ */
+public class AsyncBookingService {
+
+   private final BookingService bookingService;
+   private final AsyncHotelRoomRepository roomRepository;
+   private final Executor executor;
+
+   /**
+    * @param executor created with {@link DatabaseExecutor#create} for the property's database
+    */
+   public AsyncBookingService(HotelGroup.Property property, Executor executor) {
+      this(property.bookingService(), property.rooms(), executor);
+   }
+
+   /**
+    * @param executor created with {@link DatabaseExecutor#create} for the database the
+    *                 service and repository use
+    */
+   public AsyncBookingService(BookingService bookingService,
+                              HotelRoomRepository roomRepository,
+                              Executor executor) {
+      this.bookingService = bookingService;
+      this.roomRepository = new AsyncHotelRoomRepository(roomRepository, executor);
+      this.executor = executor;
+   }
+
+   /**
+    * Async version of {@link BookingService#isRoomAvailable}.
+    */
+   public CompletableFuture<Boolean> isRoomAvailable(int roomId,
+                                                     LocalDate checkIn,
+                                                     LocalDate checkOut) {
+      return DatabaseExecutor.supply(
+              () -> bookingService.isRoomAvailable(roomId, checkIn, checkOut), executor);
+   }
+
+   /**
+    * Async version of {@link BookingService#createBooking}.
+    */
+   public CompletableFuture<HotelBooking> createBooking(int roomId,
+                                                        LocalDate checkIn,
+                                                        LocalDate checkOut,
+                                                        int guestCount,
+                                                        List<String> guestNames,
+                                                        String createdBy,
+                                                        GuestPrivilege privilege,
+                                                        String specialRequests) {
+      return DatabaseExecutor.supply(
+              () -> bookingService.createBooking(roomId, checkIn, checkOut, guestCount,
+                      guestNames, createdBy, privilege, specialRequests),
+              executor);
+   }
+
+   /**
+    * Async version of {@link BookingService#createBookingForType}.
+    */
+   public CompletableFuture<HotelBooking> createBookingForType(RoomType roomType,
+                                                               LocalDate checkIn,
+                                                               LocalDate checkOut,
+                                                               int guestCount,
+                                                               List<String> guestNames,
+                                                               String createdBy,
+                                                               GuestPrivilege privilege,
+                                                               String specialRequests) {
+      return DatabaseExecutor.supply(
+              () -> bookingService.createBookingForType(roomType, checkIn, checkOut, guestCount,
+                      guestNames, createdBy, privilege, specialRequests),
+              executor);
+   }
+
+   /**
+    * Looks up a room by its number and, as soon as it is found, checks its availability.
+    *
+    * @throws IllegalArgumentException (via the future) if no room has that number
+    */
+   public CompletableFuture<RoomAvailability> checkAvailability(int roomNumber,
+                                                                LocalDate checkIn,
+                                                                LocalDate checkOut) {
+      return findRoom(roomNumber)
+              .thenCompose(room -> isRoomAvailable(room.getId(), checkIn, checkOut)
+                      .thenApply(available -> new RoomAvailability(room, checkIn, checkOut, available)));
+   }
+
+   /**
+    * Booking flow keyed by room number: room lookup, then booking creation.
+    *
+    * @throws IllegalArgumentException (via the future) if no room has that number
+    */
+   public CompletableFuture<HotelBooking> createBookingForRoomNumber(int roomNumber,
+                                                                     LocalDate checkIn,
+                                                                     LocalDate checkOut,
+                                                                     int guestCount,
+                                                                     List<String> guestNames,
+                                                                     String createdBy,
+                                                                     GuestPrivilege privilege,
+                                                                     String specialRequests) {
+      return findRoom(roomNumber)
+              .thenCompose(room -> createBooking(room.getId(), checkIn, checkOut, guestCount,
+                      guestNames, createdBy, privilege, specialRequests));
+   }
+
+   /**
+    * Checks several rooms for the same range concurrently.
+    */
+   public CompletableFuture<List<RoomAvailability>> checkAvailability(List<Integer> roomNumbers,
+                                                                      LocalDate checkIn,
+                                                                      LocalDate checkOut) {
+      List<CompletableFuture<RoomAvailability>> checks = new ArrayList<>();
+      for (int roomNumber : roomNumbers) {
+         checks.add(checkAvailability(roomNumber, checkIn, checkOut));
+      }
+      return allOf(checks);
+   }
+
+   /**
+    * Completes with all results, in input order, once every future has completed.
+    * Fails as soon as any of them fails, with that failure, without waiting for the others.
+    */
+   public static <T> CompletableFuture<List<T>> allOf(List<CompletableFuture<T>> futures) {
+      CompletableFuture<List<T>> result = new CompletableFuture<>();
+      for (CompletableFuture<T> f : futures) {
+         f.whenComplete((value, failure) -> {
+            if (failure != null) {
+               result.completeExceptionally(failure);
+            }
+         });
+      }
+      CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]))
+              .thenRun(() -> {
+                 List<T> values = new ArrayList<>(futures.size());
+                 for (CompletableFuture<T> f : futures) {
+                    values.add(f.join());
+                 }
+                 result.complete(values);
+              });
+      return result;
+   }
+
+   private CompletableFuture<HotelRoom> findRoom(int roomNumber) {
+      return roomRepository.findByRoomNumber(roomNumber)
+              .thenApply(room -> room.orElseThrow(() ->
+                      new IllegalArgumentException("No room found with number " + roomNumber)));
+   }
+}
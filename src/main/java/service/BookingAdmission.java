@@ -0,0 +1,324 @@
+package service;
+
+import config.AppConfig;
+import domain.GuestPrivilege;
+import domain.HotelBooking;
+import domain.RoomType;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Admission control in front of {@link BookingService}: limits how many bookings
+ * of each channel (taken from {@code createdBy}) run at once and how fast they
+ * arrive, and turns the excess away instead of letting it pile up.
+ *
+ * <p>Every channel has its own lane: a token bucket for the rate, a fair
+ * semaphore for the bookings in flight, and room for a bounded number of
+ * requests waiting for a permit, at most {@code maxWait} each. A request over
+ * the rate, arriving at a full waiting line, or not admitted in time fails
+ * fast with an {@link AdmissionRejectedException}. Only admitted requests use
+ * up the rate: a request turned away while waiting gets its token back.</p>
+ *
+ * <p>The front desk is the priority lane: it never competes for the permits of
+ * the online and agency channels, and since those are capped, no more than the
+ * sum of their concurrency limits can be queued at the single database writer
+ * ahead of a front-desk booking, however hard a flash sale pushes. The writer
+ * queue itself is first come, first served: a front-desk booking is not moved
+ * ahead of those writes, it only never waits behind more of them.</p>
+ */
+public class BookingAdmission {
+
+   private final BookingService bookingService;
+   private final long maxWaitNanos;
+   private final Map<Channel, Lane> lanes = new EnumMap<>(Channel.class);
+
+   /**
+    * Booking channel, derived from a booking's {@code createdBy}.
+    */
+   public enum Channel {
+      FRONT_DESK,
+      ONLINE,
+      AGENCY,    // e.g. "AGENCY: SUNTOURS"
+      OTHER;
+
+      public static Channel of(String createdBy) {
+         String source = createdBy == null ? "" : createdBy.trim().toUpperCase(Locale.ROOT);
+         for (Channel channel : List.of(FRONT_DESK, ONLINE, AGENCY)) {
+            if (source.startsWith(channel.name())) {
+               return channel;
+            }
+         }
+         return OTHER;
+      }
+   }
+
+   public enum Reason {
+      RATE_LIMITED,   // more requests per second than the channel may make
+      QUEUE_FULL,     // too many requests of the channel already waiting
+      TIMED_OUT       // not admitted within the maximum wait
+   }
+
+   /**
+    * @param maxConcurrent bookings of the channel running at once
+    * @param maxWaiting requests waiting for one of those, beyond which requests are rejected right away
+    * @param ratePerSecond sustained requests per second, or 0 for no rate limit
+    * @param burst requests allowed at once above the sustained rate
+    */
+   public record Limits(int maxConcurrent, int maxWaiting, double ratePerSecond, int burst) {
+
+      public Limits {
+         if (maxConcurrent <= 0) {
+            throw new IllegalArgumentException("maxConcurrent must be positive");
+         }
+         if (maxWaiting < 0 || ratePerSecond < 0) {
+            throw new IllegalArgumentException("maxWaiting and ratePerSecond must not be negative");
+         }
+         if (ratePerSecond > 0 && burst <= 0) {
+            throw new IllegalArgumentException("burst must be positive when the rate is limited");
+         }
+      }
+   }
+
+   /**
+    * @param inFlight bookings running now
+    * @param waiting requests waiting for admission now
+    * @param admitted requests admitted since startup
+    * @param averageQueueMillis average wait of admitted requests
+    * @param maxQueueMillis longest wait of an admitted request
+    */
+   public record ChannelMetrics(Channel channel,
+                                int inFlight,
+                                int waiting,
+                                long admitted,
+                                long rateLimited,
+                                long queueFull,
+                                long timedOut,
+                                double averageQueueMillis,
+                                double maxQueueMillis) {
+
+      public long rejected() {
+         return rateLimited + queueFull + timedOut;
+      }
+   }
+
+   /**
+    * @param limits the limits of every channel
+    * @param maxWaitMillis longest a request waits for admission
+    */
+   public BookingAdmission(BookingService bookingService, Map<Channel, Limits> limits, long maxWaitMillis) {
+      for (Channel channel : Channel.values()) {
+         Limits channelLimits = limits.get(channel);
+         if (channelLimits == null) {
+            throw new IllegalArgumentException("No limits for channel " + channel);
+         }
+         lanes.put(channel, new Lane(channel, channelLimits));
+      }
+      this.bookingService = bookingService;
+      this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+   }
+
+   /**
+    * Creates the admission control from the {@code admission.*} settings in
+    * application.properties, e.g. {@code admission.online.concurrent}.
+    */
+   public static BookingAdmission fromConfig(BookingService bookingService) {
+      Map<Channel, Limits> limits = new EnumMap<>(Channel.class);
+      limits.put(Channel.FRONT_DESK, limitsFromConfig("front_desk", new Limits(8, 64, 0, 0)));
+      limits.put(Channel.ONLINE, limitsFromConfig("online", new Limits(4, 16, 50, 100)));
+      limits.put(Channel.AGENCY, limitsFromConfig("agency", new Limits(2, 8, 20, 40)));
+      limits.put(Channel.OTHER, limitsFromConfig("other", new Limits(2, 8, 10, 20)));
+      return new BookingAdmission(bookingService, limits, AppConfig.getInt("admission.max.wait.millis", 500));
+   }
+
+   /**
+    * {@link BookingService#createBooking} once admitted for the channel of {@code createdBy}.
+    *
+    * @throws AdmissionRejectedException if the request is turned away; nothing is written
+    */
+   public HotelBooking createBooking(int roomId,
+                                     LocalDate checkIn,
+                                     LocalDate checkOut,
+                                     int guestCount,
+                                     List<String> guestNames,
+                                     String createdBy,
+                                     GuestPrivilege privilege,
+                                     String specialRequests) {
+      return admit(createdBy, () -> bookingService.createBooking(roomId, checkIn, checkOut, guestCount,
+              guestNames, createdBy, privilege, specialRequests));
+   }
+
+   /**
+    * {@link BookingService#createBookingForType} once admitted for the channel of {@code createdBy}.
+    *
+    * @throws AdmissionRejectedException if the request is turned away; nothing is written
+    */
+   public HotelBooking createBookingForType(RoomType roomType,
+                                            LocalDate checkIn,
+                                            LocalDate checkOut,
+                                            int guestCount,
+                                            List<String> guestNames,
+                                            String createdBy,
+                                            GuestPrivilege privilege,
+                                            String specialRequests) {
+      return admit(createdBy, () -> bookingService.createBookingForType(roomType, checkIn, checkOut, guestCount,
+              guestNames, createdBy, privilege, specialRequests));
+   }
+
+   /**
+    * Current load, admissions, rejections and queue times, per channel.
+    */
+   public List<ChannelMetrics> getMetrics() {
+      List<ChannelMetrics> metrics = new ArrayList<>();
+      for (Lane lane : lanes.values()) {
+         metrics.add(lane.metrics());
+      }
+      return metrics;
+   }
+
+   // ----- private helpers -----
+
+   private static Limits limitsFromConfig(String channel, Limits defaults) {
+      String prefix = "admission." + channel + ".";
+      return new Limits(
+              AppConfig.getInt(prefix + "concurrent", defaults.maxConcurrent()),
+              AppConfig.getInt(prefix + "waiting", defaults.maxWaiting()),
+              AppConfig.getDouble(prefix + "rate.per.second", defaults.ratePerSecond()),
+              AppConfig.getInt(prefix + "burst", defaults.burst())
+      );
+   }
+
+   private <T> T admit(String createdBy, Supplier<T> booking) {
+      Lane lane = lanes.get(Channel.of(createdBy));
+      lane.acquire(maxWaitNanos);
+      try {
+         return booking.get();
+      } finally {
+         lane.release();
+      }
+   }
+
+   /**
+    * Limits and counters of one channel.
+    */
+   private static final class Lane {
+      final Channel channel;
+      final Limits limits;
+      final Semaphore permits;
+      final AtomicInteger waiting = new AtomicInteger();
+      final AtomicInteger inFlight = new AtomicInteger();
+
+      final AtomicLong admitted = new AtomicLong();
+      final AtomicLong rateLimited = new AtomicLong();
+      final AtomicLong queueFull = new AtomicLong();
+      final AtomicLong timedOut = new AtomicLong();
+      final AtomicLong totalQueueNanos = new AtomicLong();
+      final AtomicLong maxQueueNanos = new AtomicLong();
+
+      // Token bucket; guarded by this
+      double tokens;
+      long refilledAt = System.nanoTime();
+
+      Lane(Channel channel, Limits limits) {
+         this.channel = channel;
+         this.limits = limits;
+         this.permits = new Semaphore(limits.maxConcurrent(), true);
+         this.tokens = limits.burst();
+      }
+
+      void acquire(long maxWaitNanos) {
+         long arrivedAt = System.nanoTime();
+         if (!takeToken()) {
+            rateLimited.incrementAndGet();
+            throw reject(Reason.RATE_LIMITED, channel + " bookings are over their limit of "
+                    + limits.ratePerSecond() + " per second; try again shortly");
+         }
+
+         if (!permits.tryAcquire()) {
+            if (waiting.incrementAndGet() > limits.maxWaiting()) {
+               waiting.decrementAndGet();
+               refundToken();
+               queueFull.incrementAndGet();
+               throw reject(Reason.QUEUE_FULL, limits.maxWaiting() + " " + channel
+                       + " bookings are already waiting; try again shortly");
+            }
+            try {
+               if (!permits.tryAcquire(maxWaitNanos, TimeUnit.NANOSECONDS)) {
+                  refundToken();
+                  timedOut.incrementAndGet();
+                  throw reject(Reason.TIMED_OUT, channel + " booking was not admitted within "
+                          + TimeUnit.NANOSECONDS.toMillis(maxWaitNanos) + " ms; try again shortly");
+               }
+            } catch (InterruptedException e) {
+               refundToken();
+               Thread.currentThread().interrupt();
+               throw new RuntimeException("Interrupted while waiting for admission", e);
+            } finally {
+               waiting.decrementAndGet();
+            }
+         }
+
+         long queued = System.nanoTime() - arrivedAt;
+         inFlight.incrementAndGet();
+         admitted.incrementAndGet();
+         totalQueueNanos.addAndGet(queued);
+         maxQueueNanos.accumulateAndGet(queued, Math::max);
+      }
+
+      void release() {
+         inFlight.decrementAndGet();
+         permits.release();
+      }
+
+      synchronized boolean takeToken() {
+         if (limits.ratePerSecond() == 0) {
+            return true;
+         }
+         long now = System.nanoTime();
+         tokens = Math.min(limits.burst(), tokens + (now - refilledAt) * limits.ratePerSecond() / 1e9);
+         refilledAt = now;
+         if (tokens < 1) {
+            return false;
+         }
+         tokens--;
+         return true;
+      }
+
+      /**
+       * Gives back the token of a request that was not admitted after all.
+       */
+      synchronized void refundToken() {
+         if (limits.ratePerSecond() > 0) {
+            tokens = Math.min(limits.burst(), tokens + 1);
+         }
+      }
+
+      AdmissionRejectedException reject(Reason reason, String message) {
+         return new AdmissionRejectedException(channel, reason, "Booking rejected: " + message);
+      }
+
+      ChannelMetrics metrics() {
+         long count = admitted.get();
+         return new ChannelMetrics(
+                 channel,
+                 inFlight.get(),
+                 waiting.get(),
+                 count,
+                 rateLimited.get(),
+                 queueFull.get(),
+                 timedOut.get(),
+                 count == 0 ? 0 : totalQueueNanos.get() / 1e6 / count,
+                 maxQueueNanos.get() / 1e6
+         );
+      }
+   }
+}
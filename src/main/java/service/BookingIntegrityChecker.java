@@ -0,0 +1,245 @@
+package service;
+
+import config.AppConfig;
+import domain.HotelRoom;
+import persistence.repository.HotelBookingRepository;
+import persistence.repository.HotelRoomRepository;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Checks every stored booking for double bookings, more guests than the room
+ * holds, rooms that do not exist and stays that do not last a night.
+ *
+ * <p>Bookings are streamed once, ordered by room and check-in
+ * ({@link HotelBookingRepository#forEachStayByRoom}), into columns of
+ * primitives. In that order a stay overlaps an earlier one of its room exactly
+ * when it checks in before the latest check-out seen so far for the room, so
+ * one sweep per room finds every double booking in linear time instead of
+ * comparing every pair of bookings. Rooms are independent, so they are split
+ * across the common fork/join pool.</p>
+ *
+ * <p>Bookings written through {@link BookingService} are checked atomically on
+ * insert; the check is there for rows that bypassed it, such as older data,
+ * imports or edits made directly in the database.</p>
+ */
+public class BookingIntegrityChecker {
+
+   // Bookings swept by one fork/join task before it stops splitting (whole rooms only)
+   private static final int BOOKINGS_PER_TASK = 1 << 15;
+
+   private static final String PREFIX = "integrity-";
+   private static final DateTimeFormatter STAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+   private final HotelRoomRepository roomRepository;
+   private final HotelBookingRepository bookingRepository;
+   private final Path directory;
+
+   /**
+    * @param directory where {@link #writeRepairReport} puts its CSV files
+    */
+   public BookingIntegrityChecker(HotelRoomRepository roomRepository,
+                                  HotelBookingRepository bookingRepository,
+                                  Path directory) {
+      this.roomRepository = roomRepository;
+      this.bookingRepository = bookingRepository;
+      this.directory = directory;
+   }
+
+   /**
+    * Creates the checker of a property, writing its repair reports next to the
+    * booking exports ({@code export.dir} in application.properties).
+    */
+   public static BookingIntegrityChecker fromConfig(HotelGroup.Property property) {
+      return new BookingIntegrityChecker(
+              property.rooms(),
+              property.bookings(),
+              Path.of(AppConfig.get("export.dir", "exports")).resolve(property.id())
+      );
+   }
+
+   /**
+    * Checks all bookings of the property, archived ones included.
+    */
+   public IntegrityReport check() {
+      long start = System.nanoTime();
+
+      // Guests every room holds by room id, 0 for unknown ids
+      List<HotelRoom> rooms = roomRepository.findAll();
+      int maxId = 0;
+      for (HotelRoom room : rooms) {
+         maxId = Math.max(maxId, room.getId());
+      }
+      int[] maxGuests = new int[maxId + 1];
+      for (HotelRoom room : rooms) {
+         maxGuests[room.getId()] = room.getMaxGuests();
+      }
+
+      Bookings bookings = new Bookings();
+      bookingRepository.forEachStayByRoom((id, roomId, checkIn, checkOut, guests, privilege) ->
+              bookings.add(id, roomId, checkIn, checkOut, guests));
+
+      List<IntegrityReport.Issue> issues = bookings.size == 0
+              ? List.of()
+              : ForkJoinPool.commonPool().invoke(new SweepTask(bookings, maxGuests, 0, bookings.size));
+
+      return new IntegrityReport(issues, bookings.size, rooms.size(), Duration.ofNanos(System.nanoTime() - start));
+   }
+
+   /**
+    * Writes the issues of the report with their suggested repairs as CSV into a new
+    * file of the report directory named after the current time, e.g.
+    * {@code integrity-20260315-020000.csv}.
+    *
+    * @return the file written
+    */
+   public Path writeRepairReport(IntegrityReport report) {
+      Path file = directory.resolve(PREFIX + STAMP.format(LocalDateTime.now()) + ".csv");
+      report.writeCsv(file);
+      return file;
+   }
+
+   // ----- private helpers -----
+
+   /**
+    * The bookings in room and check-in order as columns, dates as epoch days.
+    */
+   private static final class Bookings {
+      int[] id = new int[4096];
+      int[] roomId = new int[4096];
+      long[] checkIn = new long[4096];
+      long[] checkOut = new long[4096];
+      int[] guests = new int[4096];
+      int size;
+
+      void add(int bookingId, int room, long in, long out, int guestCount) {
+         if (size == id.length) {
+            int capacity = size + (size >> 1);
+            id = Arrays.copyOf(id, capacity);
+            roomId = Arrays.copyOf(roomId, capacity);
+            checkIn = Arrays.copyOf(checkIn, capacity);
+            checkOut = Arrays.copyOf(checkOut, capacity);
+            guests = Arrays.copyOf(guests, capacity);
+         }
+         id[size] = bookingId;
+         roomId[size] = room;
+         checkIn[size] = in;
+         checkOut[size] = out;
+         guests[size] = guestCount;
+         size++;
+      }
+
+      /**
+       * First index at or after {@code i} holding another room than the one before it.
+       */
+      int roomBoundary(int i) {
+         while (i > 0 && i < size && roomId[i] == roomId[i - 1]) {
+            i++;
+         }
+         return i;
+      }
+   }
+
+   // Only ever run in memory on the fork/join pool, never serialized
+   @SuppressWarnings("serial")
+   private static final class SweepTask extends RecursiveTask<List<IntegrityReport.Issue>> {
+
+      private final Bookings bookings;
+      private final int[] maxGuests;
+      private final int from;
+      private final int to;
+
+      SweepTask(Bookings bookings, int[] maxGuests, int from, int to) {
+         this.bookings = bookings;
+         this.maxGuests = maxGuests;
+         this.from = from;
+         this.to = to;
+      }
+
+      @Override
+      protected List<IntegrityReport.Issue> compute() {
+         if (to - from > BOOKINGS_PER_TASK) {
+            // Split between two rooms, so that every room is swept by one task
+            int middle = bookings.roomBoundary((from + to) >>> 1);
+            if (middle < to) {
+               SweepTask left = new SweepTask(bookings, maxGuests, from, middle);
+               SweepTask right = new SweepTask(bookings, maxGuests, middle, to);
+               left.fork();
+               List<IntegrityReport.Issue> rightIssues = right.compute();
+               List<IntegrityReport.Issue> issues = new ArrayList<>(left.join());
+               issues.addAll(rightIssues);
+               return issues;
+            }
+         }
+
+         List<IntegrityReport.Issue> issues = new ArrayList<>();
+         int i = from;
+         while (i < to) {
+            int room = bookings.roomId[i];
+            int end = i;
+            while (end < to && bookings.roomId[end] == room) {
+               end++;
+            }
+            sweepRoom(room, i, end, issues);
+            i = end;
+         }
+         return issues;
+      }
+
+      private void sweepRoom(int room, int from, int to, List<IntegrityReport.Issue> issues) {
+         boolean known = room > 0 && room < maxGuests.length && maxGuests[room] > 0;
+
+         // Latest check-out of the stays swept so far, and the booking holding it
+         long latestCheckOut = Long.MIN_VALUE;
+         int latestId = 0;
+         for (int i = from; i < to; i++) {
+            int id = bookings.id[i];
+            long checkIn = bookings.checkIn[i];
+            long checkOut = bookings.checkOut[i];
+            int guests = bookings.guests[i];
+
+            if (!known) {
+               issues.add(issue(IntegrityReport.Kind.UNKNOWN_ROOM, i, 0,
+                       "Room " + room + " does not exist: re-create it or move booking " + id
+                               + " to an existing room"));
+            } else if (guests > maxGuests[room]) {
+               issues.add(issue(IntegrityReport.Kind.OVER_CAPACITY, i, 0,
+                       "Room " + room + " holds " + maxGuests[room] + " guests: move booking " + id
+                               + " to a room for " + guests + " or reduce its guests"));
+            }
+            if (checkOut <= checkIn) {
+               issues.add(issue(IntegrityReport.Kind.INVALID_DATES, i, 0,
+                       "Correct the dates of booking " + id + " or cancel it"));
+               continue;
+            }
+
+            if (checkIn < latestCheckOut) {
+               // Ids grow with creation, so the later booking is the one to move
+               int later = Math.max(id, latestId);
+               issues.add(issue(IntegrityReport.Kind.DOUBLE_BOOKING, i, latestId,
+                       "Overlaps booking " + latestId + ": move booking " + later
+                               + " to another free room of the same type or cancel it"));
+            }
+            if (checkOut > latestCheckOut) {
+               latestCheckOut = checkOut;
+               latestId = id;
+            }
+         }
+      }
+
+      private IntegrityReport.Issue issue(IntegrityReport.Kind kind, int i, int otherBookingId, String repair) {
+         return new IntegrityReport.Issue(kind, bookings.id[i], bookings.roomId[i],
+                 LocalDate.ofEpochDay(bookings.checkIn[i]), LocalDate.ofEpochDay(bookings.checkOut[i]),
+                 bookings.guests[i], otherBookingId, repair);
+      }
+   }
+}
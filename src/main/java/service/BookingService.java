@@ -1,13 +1,21 @@
 package service;
 
+import diagnostics.AvailabilityCheckEvent;
+import diagnostics.BookingCreateEvent;
 import domain.GuestPrivilege;
 import domain.HotelBooking;
 import domain.HotelRoom;
+import domain.RoomType;
 import persistence.repository.HotelBookingRepository;
 import persistence.repository.HotelRoomRepository;
 
+import java.time.Duration;
 import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
 /**
@@ -17,17 +25,47 @@ public class BookingService {
 
    private final HotelRoomRepository roomRepository;
    private final HotelBookingRepository bookingRepository;
+   private final RoomAssignmentOptimizer assignmentOptimizer = new RoomAssignmentOptimizer();
+   private final FlexibleDateSearch flexibleDateSearch = new FlexibleDateSearch();
+   private final SearchCache searchCache;
 
+   // Nights read beyond each end of a flexible-dates search or an auto-assigned stay
+   // to score the gaps around it; a gap running past them counts as open-ended
+   private static final int SEARCH_LOOKAROUND_NIGHTS = 30;
+
+   // Cache keys of the cached searches, holding all their parameters
+   private record RoomAvailabilityKey(int roomId, LocalDate checkIn, LocalDate checkOut) {
+   }
+
+   private record OpenWindowsKey(RoomType roomType, int guestCount, int nights,
+                                 LocalDate from, LocalDate to, int limit) {
+   }
+
+   /**
+    * Creates a service that does not cache search results.
+    */
    public BookingService(HotelRoomRepository roomRepository,
                          HotelBookingRepository bookingRepository) {
+      this(roomRepository, bookingRepository, new SearchCache(0, Duration.ZERO));
+   }
+
+   /**
+    * @param searchCache caches availability checks and flexible-dates searches; it must
+    *                    also receive the change events of the booking repository
+    */
+   public BookingService(HotelRoomRepository roomRepository,
+                         HotelBookingRepository bookingRepository,
+                         SearchCache searchCache) {
       this.roomRepository = roomRepository;
       this.bookingRepository = bookingRepository;
+      this.searchCache = searchCache;
    }
 
    /**
     * Checks whether a room has no conflicting bookings for the given date range.
     *
-    * <p>Dates are treated as a half-open interval: [checkIn, checkOut).</p>
+    * <p>Dates are treated as a half-open interval: [checkIn, checkOut). Answers
+    * are cached until a booking of the room overlapping the range changes.</p>
     *
     * @param roomId the room identifier
     * @param checkIn the start date (inclusive)
@@ -40,19 +78,33 @@ public class BookingService {
                                   LocalDate checkOut) {
       validateDates(checkIn, checkOut);
 
-      List<HotelBooking> existing = bookingRepository.findByRoomId(roomId);
-      for (HotelBooking b : existing) {
-         if (datesOverlap(b.getCheckInDate(), b.getCheckOutDate(),
-                 checkIn, checkOut)) {
-            return false;
+      AvailabilityCheckEvent event = AvailabilityCheckEvent.start();
+      try {
+         boolean[] searched = new boolean[1];
+         boolean available = searchCache.get(new RoomAvailabilityKey(roomId, checkIn, checkOut),
+                 roomId, checkIn, checkOut, () -> {
+                    // Only bookings overlapping the range are loaded, so any result is a conflict
+                    int conflicts = bookingRepository.findByRoomIdOverlapping(roomId, checkIn, checkOut).size();
+                    event.result(conflicts);
+                    searched[0] = true;
+                    return conflicts == 0;
+                 });
+         if (!searched[0]) {
+            event.cachedResult(available);
          }
+         return available;
+      } finally {
+         event.finish(roomId, checkIn, checkOut);
       }
-      return true;
    }
 
    /**
     * Validates input and creates a booking if the room exists and is available.
     *
+    * <p>Room, capacity and overlap are checked by the repository in the same
+    * statement that inserts the booking, so two concurrent requests for the same
+    * room can never both succeed, even from different processes.</p>
+    *
     * @param roomId the room identifier
     * @param checkIn the start date (inclusive)
     * @param checkOut the end date (exclusive)
@@ -74,7 +126,266 @@ public class BookingService {
                                      GuestPrivilege privilege,
                                      String specialRequests) {
 
+      BookingCreateEvent event = BookingCreateEvent.start();
+      try {
+         HotelBooking saved = validateAndSave(roomId, checkIn, checkOut, guestCount,
+                 guestNames, createdBy, privilege, specialRequests);
+         // Right away; the repository event follows asynchronously
+         searchCache.invalidate(saved);
+         event.created(saved.getId());
+         return saved;
+      } catch (IllegalArgumentException | NullPointerException e) {
+         event.outcome(BookingCreateEvent.REJECTED);
+         throw e;
+      } catch (IllegalStateException e) {
+         event.outcome(BookingCreateEvent.UNAVAILABLE);
+         throw e;
+      } finally {
+         event.finish(roomId, checkIn, checkOut, guestCount);
+      }
+   }
+
+   private HotelBooking validateAndSave(int roomId,
+                                        LocalDate checkIn,
+                                        LocalDate checkOut,
+                                        int guestCount,
+                                        List<String> guestNames,
+                                        String createdBy,
+                                        GuestPrivilege privilege,
+                                        String specialRequests) {
+
       // 1) Basic null/date validation
+      validateRequest(checkIn, checkOut, guestCount, guestNames, createdBy, privilege);
+
+      // 2) Insert if the room exists, holds the guests and is free; the room is only read to explain a rejection
+      HotelBooking booking = new HotelBooking(
+              roomId,
+              checkIn,
+              checkOut,
+              guestCount,
+              guestNames,
+              privilege,
+              createdBy,
+              specialRequests
+      );
+
+      return switch (bookingRepository.insertIfAvailable(booking)) {
+         case CREATED -> booking;
+         case UNKNOWN_ROOM -> throw new IllegalArgumentException("Room with id " + roomId + " does not exist");
+         case OVER_CAPACITY -> throw new IllegalArgumentException(
+                 "guestCount " + guestCount + " exceeds room capacity " + findRoom(roomId).getMaxGuests()
+         );
+         case CONFLICT -> throw new IllegalStateException(
+                 "Room " + findRoom(roomId).getRoomNumber() + " is not available between " +
+                         checkIn + " and " + checkOut
+         );
+      };
+   }
+
+   /**
+    * Validates input and books the room of the given type that fits the stay best.
+    *
+    * <p>Instead of the caller picking a room number, every room of the requested
+    * type with enough capacity is considered and the one whose existing bookings
+    * leave the smallest unsellable gaps around the stay is chosen
+    * (see {@link RoomAssignmentOptimizer}). The stays of all candidates within
+    * the look-around nights of the stay are read in one query; a gap reaching
+    * beyond them counts as open-ended. If another booking takes the chosen room
+    * first, the next best candidate is booked instead.</p>
+    *
+    * @param roomType the requested room type
+    * @param checkIn the start date (inclusive)
+    * @param checkOut the end date (exclusive)
+    * @param guestCount total number of guests
+    * @param guestNames list of guest names (size must match guestCount)
+    * @param createdBy source of booking (e.g., FRONT_DESK, ONLINE)
+    * @param privilege guest privilege tier
+    * @param specialRequests optional special requests text
+    * @return the saved booking with generated id
+    * @throws IllegalArgumentException for invalid input
+    * @throws IllegalStateException if no room of that type is available
+    */
+   public HotelBooking createBookingForType(RoomType roomType,
+                                            LocalDate checkIn,
+                                            LocalDate checkOut,
+                                            int guestCount,
+                                            List<String> guestNames,
+                                            String createdBy,
+                                            GuestPrivilege privilege,
+                                            String specialRequests) {
+
+      Objects.requireNonNull(roomType, "roomType must not be null");
+      validateRequest(checkIn, checkOut, guestCount, guestNames, createdBy, privilege);
+
+      List<HotelRoom> candidates = new ArrayList<>();
+      Map<Integer, RoomCalendar> calendars = new HashMap<>();
+      for (HotelRoom room : roomRepository.findAll()) {
+         if (room.getRoomType() == roomType && room.getMaxGuests() >= guestCount) {
+            candidates.add(room);
+            calendars.put(room.getId(), new RoomCalendar());
+         }
+      }
+
+      // One query for the stays of all candidates around the requested nights
+      bookingRepository.forEachStayOverlapping(checkIn.minusDays(SEARCH_LOOKAROUND_NIGHTS),
+              checkOut.plusDays(SEARCH_LOOKAROUND_NIGHTS),
+              (bookingId, roomId, stayIn, stayOut) -> {
+                 RoomCalendar calendar = calendars.get(roomId);
+                 if (calendar != null) {
+                    calendar.add(stayIn, stayOut);
+                 }
+              });
+
+      // A room another writer booked since the stays were read is dropped, and the next best tried
+      while (true) {
+         HotelRoom room = assignmentOptimizer.chooseRoom(candidates, calendars, checkIn, checkOut)
+                 .orElseThrow(() -> new IllegalStateException(
+                         "No " + roomType + " room for " + guestCount + " guests is available between " +
+                                 checkIn + " and " + checkOut
+                 ));
+
+         try {
+            return createBooking(
+                    room.getId(),
+                    checkIn,
+                    checkOut,
+                    guestCount,
+                    guestNames,
+                    createdBy,
+                    privilege,
+                    specialRequests
+            );
+         } catch (IllegalStateException e) {
+            candidates.remove(room);
+         }
+      }
+   }
+
+   /**
+    * Cancels a booking and frees its nights.
+    *
+    * <p>The repository publishes a {@code BookingCancelled} event, which lets the
+    * {@link Waitlist} book the freed nights for waiting guests.</p>
+    *
+    * @param bookingId the booking identifier
+    * @return the cancelled booking
+    * @throws IllegalArgumentException if there is no such booking, or it has been archived
+    */
+   public HotelBooking cancelBooking(int bookingId) {
+      HotelBooking cancelled = bookingRepository.deleteById(bookingId)
+              .orElseThrow(() -> new IllegalArgumentException(
+                      "Booking with id " + bookingId + " does not exist or has been archived"));
+      searchCache.invalidate(cancelled);
+      return cancelled;
+   }
+
+   /**
+    * Hit rate and size of the search result cache.
+    */
+   public SearchCache.Stats getSearchCacheStats() {
+      return searchCache.getStats();
+   }
+
+   /**
+    * Builds the occupancy of every room for {@code nights} nights starting at {@code firstNight}.
+    *
+    * <p>All stays in the window are read with a single streaming query and marked
+    * directly in the calendar matrix; no booking objects are created.</p>
+    *
+    * @param firstNight the first night shown
+    * @param nights number of nights shown
+    * @return the filled calendar, rooms ordered by room number
+    * @throws IllegalArgumentException if firstNight is null or nights is not positive
+    */
+   public OccupancyCalendar buildOccupancyCalendar(LocalDate firstNight, int nights) {
+      if (firstNight == null) {
+         throw new IllegalArgumentException("firstNight must not be null");
+      }
+      OccupancyCalendar calendar = new OccupancyCalendar(roomRepository.findAll(), firstNight, nights);
+      bookingRepository.forEachStayOverlapping(firstNight, firstNight.plusDays(nights),
+              (bookingId, roomId, checkIn, checkOut) -> calendar.markStay(roomId, checkIn, checkOut));
+      return calendar;
+   }
+
+   /**
+    * Finds the best free stays of {@code nights} nights within [from, to) for any
+    * room matching the criteria, e.g. "any 4 nights in March".
+    *
+    * <p>Windows that fit tightly between existing stays rank first (see
+    * {@link FlexibleDateSearch}). Results are cached until a booking overlapping
+    * the searched nights changes or a room is added.</p>
+    *
+    * @param roomType the requested room type, or null for any type
+    * @param guestCount number of guests the room must hold
+    * @param nights length of the stay
+    * @param from earliest check-in (inclusive)
+    * @param to latest check-out (inclusive), i.e. the end of the half-open range
+    * @param limit maximum number of windows returned
+    * @return up to {@code limit} windows, best first; not modifiable
+    * @throws IllegalArgumentException for invalid input
+    */
+   public List<StayWindow> findOpenWindows(RoomType roomType,
+                                           int guestCount,
+                                           int nights,
+                                           LocalDate from,
+                                           LocalDate to,
+                                           int limit) {
+      validateDates(from, to);
+      if (guestCount <= 0 || nights <= 0 || limit <= 0) {
+         throw new IllegalArgumentException("guestCount, nights and limit must be positive");
+      }
+
+      // The gaps around windows are scored from the stays of the look-around nights too
+      return searchCache.get(new OpenWindowsKey(roomType, guestCount, nights, from, to, limit),
+              SearchCache.ANY_ROOM,
+              from.minusDays(SEARCH_LOOKAROUND_NIGHTS),
+              to.plusDays(SEARCH_LOOKAROUND_NIGHTS),
+              () -> List.copyOf(searchOpenWindows(roomType, guestCount, nights, from, to, limit)));
+   }
+
+   // ----- private helpers -----
+
+   private List<StayWindow> searchOpenWindows(RoomType roomType,
+                                              int guestCount,
+                                              int nights,
+                                              LocalDate from,
+                                              LocalDate to,
+                                              int limit) {
+      List<HotelRoom> candidates = new ArrayList<>();
+      for (HotelRoom room : roomRepository.findAll()) {
+         if ((roomType == null || room.getRoomType() == roomType) && room.getMaxGuests() >= guestCount) {
+            candidates.add(room);
+         }
+      }
+      int searchedNights = (int) ChronoUnit.DAYS.between(from, to);
+      if (candidates.isEmpty() || nights > searchedNights) {
+         return List.of();
+      }
+
+      OccupancyCalendar calendar = new OccupancyCalendar(candidates,
+              from.minusDays(SEARCH_LOOKAROUND_NIGHTS), searchedNights + 2 * SEARCH_LOOKAROUND_NIGHTS);
+      bookingRepository.forEachStayOverlapping(calendar.getFirstNight(),
+              calendar.getFirstNight().plusDays(calendar.getNights()),
+              (bookingId, roomId, checkIn, checkOut) -> calendar.markStay(roomId, checkIn, checkOut));
+
+      return flexibleDateSearch.search(calendar,
+              SEARCH_LOOKAROUND_NIGHTS,
+              SEARCH_LOOKAROUND_NIGHTS + searchedNights - nights,
+              nights,
+              limit);
+   }
+
+   private HotelRoom findRoom(int roomId) {
+      return roomRepository.findById(roomId)
+              .orElseThrow(() -> new IllegalArgumentException("Room with id " + roomId + " does not exist"));
+   }
+
+   private void validateRequest(LocalDate checkIn,
+                                LocalDate checkOut,
+                                int guestCount,
+                                List<String> guestNames,
+                                String createdBy,
+                                GuestPrivilege privilege) {
       validateDates(checkIn, checkOut);
 
       if (guestCount <= 0) {
@@ -96,43 +407,8 @@ public class BookingService {
       }
 
       Objects.requireNonNull(privilege, "guestPrivilege must not be null");
-
-      // 2) Check that room exists
-      HotelRoom room = roomRepository.findById(roomId)
-              .orElseThrow(() -> new IllegalArgumentException("Room with id " + roomId + " does not exist"));
-
-      // 3) Capacity validation
-      if (guestCount > room.getMaxGuests()) {
-         throw new IllegalArgumentException(
-                 "guestCount " + guestCount + " exceeds room capacity " + room.getMaxGuests()
-         );
-      }
-
-      // 4) Availability validation
-      if (!isRoomAvailable(roomId, checkIn, checkOut)) {
-         throw new IllegalStateException(
-                 "Room " + room.getRoomNumber() + " is not available between " +
-                         checkIn + " and " + checkOut
-         );
-      }
-
-      // 5) All good → create and save booking
-      HotelBooking booking = new HotelBooking(
-              roomId,
-              checkIn,
-              checkOut,
-              guestCount,
-              guestNames,
-              privilege,
-              createdBy,
-              specialRequests
-      );
-
-      return bookingRepository.save(booking);
    }
 
-   // ----- private helpers -----
-
    private void validateDates(LocalDate checkIn, LocalDate checkOut) {
       if (checkIn == null || checkOut == null) {
          throw new IllegalArgumentException("checkIn and checkOut must not be null");
@@ -143,12 +419,4 @@ public class BookingService {
          );
       }
    }
-
-   // Overlap logic for [existingStart, existingEnd) and [newStart, newEnd)
-   private boolean datesOverlap(LocalDate existingStart,
-                                LocalDate existingEnd,
-                                LocalDate newStart,
-                                LocalDate newEnd) {
-      return existingStart.isBefore(newEnd) && existingEnd.isAfter(newStart);
-   }
 }
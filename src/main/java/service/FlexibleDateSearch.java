@@ -0,0 +1,145 @@
+package service;
+
+import domain.HotelRoom;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Finds the best free (room, check-in) windows of a given length in an occupancy calendar.
+ *
+ * <p>Each room row is scanned once from the end to count the free nights
+ * starting at every night, and once from the start keeping the free nights
+ * before it, so every possible check-in is tested and scored in O(1). Rows are
+ * split across the common fork/join pool; every task keeps only its best
+ * {@code limit} windows and the partial results are merged on join.</p>
+ *
+ * <p>Windows are ranked like {@link RoomAssignmentOptimizer} ranks rooms: by
+ * the cost of the gaps they leave, then by the earliest check-in, then by room
+ * number. Gaps are only visible as far as the calendar reaches; a gap running
+ * into the calendar's edge counts as open-ended.</p>
+ */
+public class FlexibleDateSearch {
+
+   // Rooms scanned by one fork/join task before it stops splitting
+   private static final int ROWS_PER_TASK = 32;
+
+   private static final Comparator<StayWindow> BEST_FIRST = Comparator
+           .comparingLong(StayWindow::fragmentationCost)
+           .thenComparing(StayWindow::checkIn)
+           .thenComparingInt(w -> w.room().getRoomNumber());
+
+   private final RoomAssignmentOptimizer optimizer = new RoomAssignmentOptimizer();
+
+   /**
+    * Returns up to {@code limit} free windows of {@code nights} nights whose check-in
+    * lies between {@code firstCheckIn} and {@code lastCheckIn} (both calendar night
+    * indexes, inclusive), best first.
+    *
+    * @param calendar occupancy of the candidate rooms; should extend a few weeks beyond
+    *                 the searched range so that gaps around the windows can be scored
+    */
+   public List<StayWindow> search(OccupancyCalendar calendar,
+                                  int firstCheckIn,
+                                  int lastCheckIn,
+                                  int nights,
+                                  int limit) {
+      if (nights <= 0 || limit <= 0) {
+         throw new IllegalArgumentException("nights and limit must be positive");
+      }
+      if (firstCheckIn < 0 || lastCheckIn + nights > calendar.getNights() || firstCheckIn > lastCheckIn) {
+         return List.of();
+      }
+
+      List<StayWindow> result = ForkJoinPool.commonPool().invoke(
+              new ScanTask(calendar, 0, calendar.getRooms().size(), firstCheckIn, lastCheckIn, nights, limit));
+      result.sort(BEST_FIRST);
+      return result;
+   }
+
+   // Only ever run in memory on the fork/join pool, never serialized
+   @SuppressWarnings("serial")
+   private final class ScanTask extends RecursiveTask<List<StayWindow>> {
+
+      private final OccupancyCalendar calendar;
+      private final int fromRow;
+      private final int toRow;
+      private final int firstCheckIn;
+      private final int lastCheckIn;
+      private final int nights;
+      private final int limit;
+
+      ScanTask(OccupancyCalendar calendar, int fromRow, int toRow,
+               int firstCheckIn, int lastCheckIn, int nights, int limit) {
+         this.calendar = calendar;
+         this.fromRow = fromRow;
+         this.toRow = toRow;
+         this.firstCheckIn = firstCheckIn;
+         this.lastCheckIn = lastCheckIn;
+         this.nights = nights;
+         this.limit = limit;
+      }
+
+      @Override
+      protected List<StayWindow> compute() {
+         if (toRow - fromRow > ROWS_PER_TASK) {
+            int middle = (fromRow + toRow) >>> 1;
+            ScanTask left = new ScanTask(calendar, fromRow, middle, firstCheckIn, lastCheckIn, nights, limit);
+            ScanTask right = new ScanTask(calendar, middle, toRow, firstCheckIn, lastCheckIn, nights, limit);
+            left.fork();
+            List<StayWindow> merged = new ArrayList<>(right.compute());
+            merged.addAll(left.join());
+            merged.sort(BEST_FIRST);
+            return merged.size() > limit ? new ArrayList<>(merged.subList(0, limit)) : merged;
+         }
+
+         // Worst kept window at the head, so it can be replaced cheaply
+         PriorityQueue<StayWindow> best = new PriorityQueue<>(limit + 1, BEST_FIRST.reversed());
+         int[] freeFrom = new int[calendar.getNights() + 1];
+         for (int row = fromRow; row < toRow; row++) {
+            scanRow(row, freeFrom, best);
+         }
+         return new ArrayList<>(best);
+      }
+
+      private void scanRow(int row, int[] freeFrom, PriorityQueue<StayWindow> best) {
+         int total = calendar.getNights();
+
+         // freeFrom[n] = consecutive free nights starting at night n
+         freeFrom[total] = 0;
+         for (int n = total - 1; n >= 0; n--) {
+            freeFrom[n] = calendar.isOccupied(row, n) ? 0 : freeFrom[n + 1] + 1;
+         }
+
+         HotelRoom room = calendar.getRooms().get(row);
+         int freeBefore = 0;
+         for (int n = 0; n <= lastCheckIn; n++) {
+            if (n >= firstCheckIn && freeFrom[n] >= nights) {
+               long gapBefore = freeBefore == n ? RoomCalendar.UNBOUNDED : freeBefore;
+               long gapAfter = n + freeFrom[n] == total ? RoomCalendar.UNBOUNDED : freeFrom[n] - nights;
+               long cost = optimizer.gapCost(gapBefore) + optimizer.gapCost(gapAfter);
+               if (best.size() == limit && cost > best.peek().fragmentationCost()) {
+                  freeBefore = calendar.isOccupied(row, n) ? 0 : freeBefore + 1;
+                  continue;
+               }
+
+               StayWindow window = new StayWindow(room,
+                       calendar.getFirstNight().plusDays(n),
+                       calendar.getFirstNight().plusDays(n + nights),
+                       cost);
+               if (best.size() < limit) {
+                  best.add(window);
+               } else if (BEST_FIRST.compare(window, best.peek()) < 0) {
+                  best.poll();
+                  best.add(window);
+               }
+            }
+            freeBefore = calendar.isOccupied(row, n) ? 0 : freeBefore + 1;
+         }
+      }
+   }
+}
@@ -0,0 +1,253 @@
+package service;
+
+import domain.NightlyInventory;
+import domain.RoomType;
+import persistence.Database;
+import persistence.DatabaseManager;
+import persistence.event.RepositoryEventBus;
+import persistence.repository.HotelBookingRepository;
+import persistence.repository.HotelRoomRepository;
+import persistence.repository.RoomInventoryRepository;
+import persistence.repository.sqlite.SQLiteHotelBookingRepository;
+import persistence.repository.sqlite.SQLiteHotelRoomRepository;
+import persistence.repository.sqlite.SQLiteRoomInventoryRepository;
+import persistence.repository.sqlite.SQLiteWaitlistRepository;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * All properties (hotels) of the group, each with its own database, repositories
+ * and {@link BookingService}.
+ *
+ * <p>Everything about one property goes through {@link #property(String)}; its
+ * reads and writes only touch that property's database, so adding a property
+ * never slows down the others. Searches across the group
+ * ({@link #findAvailability}, {@link #findOpenWindows}) ask every property in
+ * parallel, on threads of their own, and merge the answers.</p>
+ */
+public class HotelGroup {
+
+   private static final Comparator<PropertyStayWindow> BEST_FIRST = Comparator
+           .comparingLong((PropertyStayWindow w) -> w.window().fragmentationCost())
+           .thenComparing(w -> w.window().checkIn())
+           .thenComparing(PropertyStayWindow::propertyId)
+           .thenComparingInt(w -> w.window().room().getRoomNumber());
+
+   private final Map<String, Property> properties = new LinkedHashMap<>();
+   private final ExecutorService fanOut;
+
+   /**
+    * The services of one property.
+    *
+    * @param events change events of this property's repositories
+    * @param admission per-channel limits in front of the booking service, for bookings from outside
+    * @param waitlist stay requests waiting for a room, matched on these events
+    */
+   public record Property(String id,
+                          Database database,
+                          RepositoryEventBus events,
+                          HotelRoomRepository rooms,
+                          HotelBookingRepository bookings,
+                          RoomInventoryRepository inventory,
+                          BookingService bookingService,
+                          BookingAdmission admission,
+                          Waitlist waitlist) {
+   }
+
+   public HotelGroup(List<Property> properties) {
+      if (properties.isEmpty()) {
+         throw new IllegalArgumentException("A hotel group needs at least one property");
+      }
+      for (Property property : properties) {
+         this.properties.put(property.id(), property);
+      }
+
+      AtomicInteger counter = new AtomicInteger();
+      this.fanOut = Executors.newFixedThreadPool(properties.size(), r -> {
+         Thread t = new Thread(r, "property-query-" + counter.incrementAndGet());
+         t.setDaemon(true);
+         return t;
+      });
+   }
+
+   /**
+    * Creates the services of every property listed in {@code hotel.properties}.
+    *
+    * @param eventBufferSize capacity of each property's event bus
+    * @param searchCacheSize search results cached per property; 0 disables the cache
+    * @param searchCacheTtl how long a cached search result is served
+    */
+   public static HotelGroup fromConfig(int eventBufferSize, int searchCacheSize, Duration searchCacheTtl) {
+      List<Property> properties = new ArrayList<>();
+      for (String id : DatabaseManager.getPropertyIds()) {
+         Database database = DatabaseManager.forProperty(id);
+         RepositoryEventBus events = new RepositoryEventBus(eventBufferSize);
+         HotelRoomRepository rooms = new SQLiteHotelRoomRepository(database, events);
+         HotelBookingRepository bookings = new SQLiteHotelBookingRepository(database, events);
+         RoomInventoryRepository inventory = new SQLiteRoomInventoryRepository(database);
+
+         SearchCache searchCache = new SearchCache(searchCacheSize, searchCacheTtl);
+         events.subscribe(searchCache);
+         BookingService bookingService = new BookingService(rooms, bookings, searchCache);
+         BookingAdmission admission = BookingAdmission.fromConfig(bookingService);
+
+         Waitlist waitlist = new Waitlist(new SQLiteWaitlistRepository(database), rooms, inventory, bookingService, id);
+         events.subscribe(waitlist);
+
+         properties.add(new Property(id, database, events, rooms, bookings, inventory, bookingService,
+                 admission, waitlist));
+      }
+      return new HotelGroup(properties);
+   }
+
+   /**
+    * Ids of all properties, the default property first.
+    */
+   public List<String> getPropertyIds() {
+      return List.copyOf(properties.keySet());
+   }
+
+   /**
+    * @throws IllegalArgumentException if the group has no such property
+    */
+   public Property property(String propertyId) {
+      Property property = properties.get(propertyId);
+      if (property == null) {
+         throw new IllegalArgumentException("Unknown property '" + propertyId + "', expected one of "
+                 + properties.keySet());
+      }
+      return property;
+   }
+
+   /**
+    * Creates the tables of every property's database, in parallel.
+    */
+   public void initializeSchemas() {
+      askEveryProperty(property -> {
+         property.database().initializeSchema();
+         return null;
+      });
+   }
+
+   /**
+    * Rooms left for a whole stay, per property and room type, across the group.
+    *
+    * <p>A room type's rooms left is its fewest free rooms on any night of the stay.
+    * Room types a property does not have are left out.</p>
+    *
+    * @param checkIn the start date (inclusive)
+    * @param checkOut the end date (exclusive)
+    * @return properties in configuration order, room types in declaration order
+    * @throws IllegalArgumentException if dates are null or invalid
+    */
+   public List<PropertyAvailability> findAvailability(LocalDate checkIn, LocalDate checkOut) {
+      if (checkIn == null || checkOut == null || !checkIn.isBefore(checkOut)) {
+         throw new IllegalArgumentException("checkIn must be before checkOut");
+      }
+
+      List<PropertyAvailability> result = new ArrayList<>();
+      for (List<PropertyAvailability> answer : askEveryProperty(property -> {
+         Map<RoomType, NightlyInventory> fewest = new EnumMap<>(RoomType.class);
+         for (NightlyInventory night : property.inventory().findAll(checkIn, checkOut)) {
+            fewest.merge(night.roomType(), night, (a, b) -> b.available() < a.available() ? b : a);
+         }
+
+         List<PropertyAvailability> types = new ArrayList<>();
+         for (NightlyInventory n : fewest.values()) {
+            if (n.totalRooms() > 0) {
+               types.add(new PropertyAvailability(property.id(), n.roomType(), n.totalRooms(), n.available()));
+            }
+         }
+         return types;
+      })) {
+         result.addAll(answer);
+      }
+      return result;
+   }
+
+   /**
+    * Finds the best free stays across the group; see {@link BookingService#findOpenWindows}.
+    *
+    * <p>Every property returns its own best {@code limit} windows and the tightest
+    * fits of all of them are kept.</p>
+    *
+    * @return up to {@code limit} windows, best first
+    * @throws IllegalArgumentException for invalid input
+    */
+   public List<PropertyStayWindow> findOpenWindows(RoomType roomType,
+                                                   int guestCount,
+                                                   int nights,
+                                                   LocalDate from,
+                                                   LocalDate to,
+                                                   int limit) {
+      List<PropertyStayWindow> merged = new ArrayList<>();
+      for (List<PropertyStayWindow> answer : askEveryProperty(property -> {
+         List<PropertyStayWindow> windows = new ArrayList<>();
+         List<StayWindow> found = property.bookingService()
+                 .findOpenWindows(roomType, guestCount, nights, from, to, limit);
+         for (StayWindow window : found) {
+            windows.add(new PropertyStayWindow(property.id(), window));
+         }
+         return windows;
+      })) {
+         merged.addAll(answer);
+      }
+      merged.sort(BEST_FIRST);
+      return merged.size() > limit ? new ArrayList<>(merged.subList(0, limit)) : merged;
+   }
+
+   /**
+    * Stops the threads used by searches across the group.
+    */
+   public void shutdown() {
+      fanOut.shutdownNow();
+   }
+
+   // ----- private helpers -----
+
+   /**
+    * Runs the query for every property in parallel and returns the answers in
+    * property order. The first failure is rethrown once every query has finished.
+    */
+   private <T> List<T> askEveryProperty(Function<Property, T> query) {
+      List<Future<T>> futures = new ArrayList<>(properties.size());
+      for (Property property : properties.values()) {
+         futures.add(fanOut.submit(() -> query.apply(property)));
+      }
+
+      List<T> answers = new ArrayList<>(futures.size());
+      RuntimeException failure = null;
+      for (Future<T> future : futures) {
+         try {
+            answers.add(future.get());
+         } catch (ExecutionException e) {
+            if (failure == null) {
+               failure = e.getCause() instanceof RuntimeException re
+                       ? re
+                       : new RuntimeException("Failed to query a property", e.getCause());
+            }
+         } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            futures.forEach(f -> f.cancel(true));
+            throw new RuntimeException("Interrupted while querying the properties", e);
+         }
+      }
+      if (failure != null) {
+         throw failure;
+      }
+      return answers;
+   }
+}
@@ -0,0 +1,88 @@
+package service;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Problems found in the stored bookings by {@link BookingIntegrityChecker}, each
+ * with a suggested repair.
+ *
+ * @param issues ordered by room and check-in
+ * @param bookings bookings checked, archived ones included
+ * @param rooms rooms known to the property
+ * @param duration time taken by the check
+ */
+public record IntegrityReport(List<Issue> issues, long bookings, int rooms, Duration duration) {
+
+   public enum Kind {
+      DOUBLE_BOOKING,   // the stay overlaps an earlier stay of the same room
+      OVER_CAPACITY,    // more guests than the room holds
+      UNKNOWN_ROOM,     // the room does not exist
+      INVALID_DATES     // check-out is not after check-in
+   }
+
+   /**
+    * @param otherBookingId the booking the stay overlaps for a double booking, otherwise 0
+    * @param repair what to do about it
+    */
+   public record Issue(Kind kind,
+                       int bookingId,
+                       int roomId,
+                       LocalDate checkIn,
+                       LocalDate checkOut,
+                       int guestCount,
+                       int otherBookingId,
+                       String repair) {
+   }
+
+   public boolean isClean() {
+      return issues.isEmpty();
+   }
+
+   public long count(Kind kind) {
+      return issues.stream().filter(issue -> issue.kind() == kind).count();
+   }
+
+   /**
+    * Writes the issues as CSV, one row per issue with its suggested repair. The
+    * file is written under a temporary name and moved into place once complete.
+    */
+   public void writeCsv(Path file) {
+      Path partial = file.resolveSibling(file.getFileName() + ".part");
+      try {
+         if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+         }
+         try (Writer out = Files.newBufferedWriter(partial, StandardCharsets.UTF_8)) {
+            out.write("kind,booking_id,room_id,check_in_date,check_out_date,guest_count,"
+                    + "conflicting_booking_id,suggested_repair\r\n");
+            for (Issue issue : issues) {
+               out.write(issue.kind() + "," + issue.bookingId() + "," + issue.roomId() + ","
+                       + issue.checkIn() + "," + issue.checkOut() + "," + issue.guestCount() + ","
+                       + (issue.otherBookingId() == 0 ? "" : issue.otherBookingId()) + ","
+                       + quoted(issue.repair()) + "\r\n");
+            }
+         }
+         Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+      } catch (IOException e) {
+         try {
+            Files.deleteIfExists(partial);
+         } catch (IOException ignored) {
+            // the original failure matters more
+         }
+         throw new RuntimeException("Failed to write integrity report to " + file, e);
+      }
+   }
+
+   private static String quoted(String text) {
+      return "\"" + text.replace("\"", "\"\"") + "\"";
+   }
+}
@@ -0,0 +1,167 @@
+package service;
+
+import java.time.LocalDate;
+import java.util.Random;
+import java.util.function.Consumer;
+
+/**
+ * Interval index over date ranges, such as the stays of waitlist entries.
+ *
+ * <p>A treap ordered by (start, id) in which every node also keeps the latest
+ * end of its subtree. A search for the ranges overlapping [from, to) skips
+ * every subtree whose latest end is not after {@code from}, and every right
+ * subtree once starts reach {@code to}, so it costs O(log n + k) for k matches
+ * on average instead of a pass over every range.</p>
+ *
+ * <p>Not thread-safe.</p>
+ *
+ * @param <T> the values indexed by their range
+ */
+final class IntervalIndex<T> {
+
+   private static final class Node<T> {
+      final T value;
+      final int start;
+      final int end;
+      final int id;
+      final int heapPriority;
+      Node<T> left;
+      Node<T> right;
+      int maxEnd;
+
+      Node(T value, int start, int end, int id, int heapPriority) {
+         this.value = value;
+         this.start = start;
+         this.end = end;
+         this.id = id;
+         this.heapPriority = heapPriority;
+         this.maxEnd = end;
+      }
+   }
+
+   /**
+    * The two treaps a split produces: the nodes ordered before the key and the rest.
+    */
+   private record Split<T>(Node<T> left, Node<T> right) {
+   }
+
+   private final Random random = new Random();
+   private Node<T> root;
+   private int size;
+
+   /**
+    * Adds a value for the range [from, to).
+    *
+    * @param id unique among the values with the same {@code from}
+    */
+   void add(T value, LocalDate from, LocalDate to, int id) {
+      Node<T> node = new Node<>(value, (int) from.toEpochDay(), (int) to.toEpochDay(), id, random.nextInt());
+      Split<T> parts = split(root, node.start, node.id);
+      root = merge(merge(parts.left(), node), parts.right());
+      size++;
+   }
+
+   /**
+    * Removes the value added with {@code from} and {@code id}.
+    *
+    * @return false if it was not in the index
+    */
+   boolean remove(LocalDate from, int id) {
+      int start = (int) from.toEpochDay();
+      Split<T> below = split(root, start, id);
+      Split<T> rest = split(below.right(), start, id + 1);
+      boolean found = rest.left() != null;
+      root = merge(below.left(), rest.right());
+      if (found) {
+         size--;
+      }
+      return found;
+   }
+
+   /**
+    * Calls {@code action} for every value whose range overlaps [from, to), in start order.
+    *
+    * @param to end of the range (exclusive), or null for no end
+    */
+   void forEachOverlapping(LocalDate from, LocalDate to, Consumer<T> action) {
+      visit(root, (int) from.toEpochDay(), to == null ? Integer.MAX_VALUE : (int) to.toEpochDay(), action);
+   }
+
+   /**
+    * Calls {@code action} for every value, in start order.
+    */
+   void forEach(Consumer<T> action) {
+      visit(root, Integer.MIN_VALUE, Integer.MAX_VALUE, action);
+   }
+
+   int size() {
+      return size;
+   }
+
+   // ----- private helpers -----
+
+   private static <T> void visit(Node<T> node, int from, int to, Consumer<T> action) {
+      if (node == null || node.maxEnd <= from) {
+         return;
+      }
+      visit(node.left, from, to, action);
+      if (node.start >= to) {
+         // Everything to the right starts even later
+         return;
+      }
+      if (node.end > from) {
+         action.accept(node.value);
+      }
+      visit(node.right, from, to, action);
+   }
+
+   /**
+    * Splits into the nodes ordered before (start, id) and the rest.
+    */
+   private static <T> Split<T> split(Node<T> node, int start, int id) {
+      if (node == null) {
+         return new Split<>(null, null);
+      }
+      if (node.start < start || (node.start == start && node.id < id)) {
+         Split<T> parts = split(node.right, start, id);
+         node.right = parts.left();
+         update(node);
+         return new Split<>(node, parts.right());
+      }
+      Split<T> parts = split(node.left, start, id);
+      node.left = parts.right();
+      update(node);
+      return new Split<>(parts.left(), node);
+   }
+
+   /**
+    * Joins two treaps where every node of {@code a} is ordered before every node of {@code b}.
+    */
+   private static <T> Node<T> merge(Node<T> a, Node<T> b) {
+      if (a == null) {
+         return b;
+      }
+      if (b == null) {
+         return a;
+      }
+      if (a.heapPriority > b.heapPriority) {
+         a.right = merge(a.right, b);
+         update(a);
+         return a;
+      }
+      b.left = merge(a, b.left);
+      update(b);
+      return b;
+   }
+
+   private static void update(Node<?> node) {
+      int max = node.end;
+      if (node.left != null) {
+         max = Math.max(max, node.left.maxEnd);
+      }
+      if (node.right != null) {
+         max = Math.max(max, node.right.maxEnd);
+      }
+      node.maxEnd = max;
+   }
+}
@@ -0,0 +1,157 @@
+package service;
+
+import domain.HotelRoom;
+
+import java.io.PrintWriter;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Occupancy of every room for every night of a window, as a compact matrix.
+ *
+ * <p>Rooms are rows (in the order given), nights are columns. Each cell is one
+ * byte: {@link #FREE}, {@link #OCCUPIED} or {@link #ARRIVAL} (first night of a
+ * stay, so that back-to-back stays stay distinguishable).</p>
+ */
+public class OccupancyCalendar {
+
+   public static final byte FREE = 0;
+   public static final byte OCCUPIED = 1;
+   public static final byte ARRIVAL = 2;
+
+   private static final char[] SYMBOLS = {'.', '#', '['};
+
+   private final List<HotelRoom> rooms;
+   private final LocalDate firstNight;
+   private final int nights;
+   private final byte[] cells;
+
+   // room id -> row, -1 for rooms not in the calendar
+   private final int[] rowOfRoom;
+
+   public OccupancyCalendar(List<HotelRoom> rooms, LocalDate firstNight, int nights) {
+      if (nights <= 0) {
+         throw new IllegalArgumentException("nights must be positive");
+      }
+      this.rooms = List.copyOf(rooms);
+      this.firstNight = firstNight;
+      this.nights = nights;
+      this.cells = new byte[rooms.size() * nights];
+
+      int maxId = 0;
+      for (HotelRoom room : rooms) {
+         maxId = Math.max(maxId, room.getId());
+      }
+      rowOfRoom = new int[maxId + 1];
+      Arrays.fill(rowOfRoom, -1);
+      for (int row = 0; row < rooms.size(); row++) {
+         rowOfRoom[rooms.get(row).getId()] = row;
+      }
+   }
+
+   /**
+    * Marks the nights of [checkIn, checkOut) that fall into the window as occupied.
+    * Stays of rooms outside the calendar are ignored.
+    */
+   public void markStay(int roomId, LocalDate checkIn, LocalDate checkOut) {
+      if (roomId < 0 || roomId >= rowOfRoom.length || rowOfRoom[roomId] < 0) {
+         return;
+      }
+      int offset = rowOfRoom[roomId] * nights;
+
+      int start = (int) ChronoUnit.DAYS.between(firstNight, checkIn);
+      int end = (int) ChronoUnit.DAYS.between(firstNight, checkOut);
+      for (int n = Math.max(0, start); n < Math.min(nights, end); n++) {
+         cells[offset + n] = n == start ? ARRIVAL : OCCUPIED;
+      }
+   }
+
+   public List<HotelRoom> getRooms() {
+      return rooms;
+   }
+
+   public LocalDate getFirstNight() {
+      return firstNight;
+   }
+
+   public int getNights() {
+      return nights;
+   }
+
+   public byte cell(int row, int night) {
+      return cells[row * nights + night];
+   }
+
+   public boolean isOccupied(int row, int night) {
+      return cell(row, night) != FREE;
+   }
+
+   /**
+    * Occupied room-nights divided by all room-nights, between 0 and 1.
+    */
+   public double occupancyRate() {
+      if (cells.length == 0) {
+         return 0;
+      }
+      int occupied = 0;
+      for (byte c : cells) {
+         if (c != FREE) {
+            occupied++;
+         }
+      }
+      return (double) occupied / cells.length;
+   }
+
+   /**
+    * Prints the grid: a header with month and day of month, then one line per room
+    * with one character per night and the room's occupancy for the window.
+    */
+   public void render(PrintWriter out) {
+      String label = "%-6s %-6s |";
+      int labelWidth = String.format(label, "", "").length();
+
+      char[] months = new char[nights];
+      char[] tens = new char[nights];
+      char[] ones = new char[nights];
+      Arrays.fill(months, ' ');
+      for (int n = 0; n < nights; n++) {
+         LocalDate night = firstNight.plusDays(n);
+         if (n == 0 || night.getDayOfMonth() == 1) {
+            String month = night.getMonth().name().substring(0, 3);
+            for (int i = 0; i < month.length() && n + i < nights; i++) {
+               months[n + i] = month.charAt(i);
+            }
+         }
+         tens[n] = night.getDayOfMonth() < 10 ? ' ' : (char) ('0' + night.getDayOfMonth() / 10);
+         ones[n] = (char) ('0' + night.getDayOfMonth() % 10);
+      }
+
+      String pad = " ".repeat(labelWidth);
+      out.print(pad);
+      out.println(months);
+      out.print(pad);
+      out.println(tens);
+      out.printf(label, "Room", "Type");
+      out.println(ones);
+
+      char[] line = new char[nights];
+      for (int row = 0; row < rooms.size(); row++) {
+         HotelRoom room = rooms.get(row);
+         int occupied = 0;
+         for (int n = 0; n < nights; n++) {
+            byte c = cells[row * nights + n];
+            line[n] = SYMBOLS[c];
+            if (c != FREE) {
+               occupied++;
+            }
+         }
+         out.printf(label, room.getRoomNumber(), room.getRoomType());
+         out.print(line);
+         out.printf("| %3d%%%n", occupied * 100 / nights);
+      }
+
+      out.printf("%nLegend: [ arrival  # occupied  . free    Occupancy %.1f%%%n", occupancyRate() * 100);
+   }
+}
@@ -0,0 +1,17 @@
+package service;
+
+import domain.RoomType;
+
+/**
+ * Rooms of one type free for a whole stay at one property.
+ *
+ * @param propertyId the property (hotel)
+ * @param roomType the room type
+ * @param totalRooms number of rooms of this type at the property
+ * @param roomsLeft rooms of this type free on every night of the stay
+ */
+public record PropertyAvailability(String propertyId,
+                                   RoomType roomType,
+                                   int totalRooms,
+                                   int roomsLeft) {
+}
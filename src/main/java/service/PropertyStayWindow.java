@@ -0,0 +1,10 @@
+package service;
+
+/**
+ * A free stay found by a flexible-dates search across properties.
+ *
+ * @param propertyId the property (hotel) the room belongs to
+ * @param window the free stay
+ */
+public record PropertyStayWindow(String propertyId, StayWindow window) {
+}
@@ -0,0 +1,82 @@
+package service;
+
+import domain.HotelRoom;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Picks the room whose existing bookings fit tightest around a requested stay.
+ *
+ * <p>Every free candidate room is scored by the gaps the stay would leave on
+ * either side of it. A gap of zero nights is perfect, a gap of one or two
+ * nights is almost impossible to sell and is penalized heavily, and longer or
+ * open-ended gaps cost their length. The cheapest room wins; ties go to the
+ * lowest room number so assignment is deterministic.</p>
+ */
+public class RoomAssignmentOptimizer {
+
+   /** Gaps shorter than this (in nights) are treated as unsellable. */
+   static final long MIN_SELLABLE_GAP = 3;
+
+   private static final long ORPHAN_GAP_COST = 1_000;
+   private static final long OPEN_GAP_COST = 365;
+
+   /**
+    * Chooses the best room for [checkIn, checkOut) among the candidates.
+    *
+    * @param candidates rooms that already satisfy type and capacity criteria
+    * @param calendars booked stays per room id; a missing entry means an empty room
+    * @param checkIn the start date (inclusive)
+    * @param checkOut the end date (exclusive)
+    * @return the best free room, or empty if none of the candidates is free
+    */
+   public Optional<HotelRoom> chooseRoom(List<HotelRoom> candidates,
+                                         Map<Integer, RoomCalendar> calendars,
+                                         LocalDate checkIn,
+                                         LocalDate checkOut) {
+      HotelRoom best = null;
+      long bestCost = Long.MAX_VALUE;
+
+      for (HotelRoom room : candidates) {
+         RoomCalendar calendar = calendars.getOrDefault(room.getId(), new RoomCalendar());
+         if (!calendar.isFree(checkIn, checkOut)) {
+            continue;
+         }
+
+         long cost = fragmentationCost(calendar, checkIn, checkOut);
+         if (cost < bestCost
+                 || (cost == bestCost && room.getRoomNumber() < best.getRoomNumber())) {
+            best = room;
+            bestCost = cost;
+         }
+      }
+
+      return Optional.ofNullable(best);
+   }
+
+   /**
+    * Cost of placing [checkIn, checkOut) into a room, based on the gaps it leaves.
+    * Assumes the range is free in the given calendar.
+    */
+   public long fragmentationCost(RoomCalendar calendar,
+                                 LocalDate checkIn,
+                                 LocalDate checkOut) {
+      return gapCost(calendar.gapBefore(checkIn)) + gapCost(calendar.gapAfter(checkOut));
+   }
+
+   long gapCost(long gap) {
+      if (gap == 0) {
+         return 0;
+      }
+      if (gap == RoomCalendar.UNBOUNDED) {
+         return OPEN_GAP_COST;
+      }
+      if (gap < MIN_SELLABLE_GAP) {
+         return ORPHAN_GAP_COST;
+      }
+      return Math.min(gap, OPEN_GAP_COST);
+   }
+}
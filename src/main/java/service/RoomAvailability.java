@@ -0,0 +1,14 @@
+package service;
+
+import domain.HotelRoom;
+
+import java.time.LocalDate;
+
+/**
+ * Result of an availability check for one room and date range.
+ */
+public record RoomAvailability(HotelRoom room,
+                               LocalDate checkIn,
+                               LocalDate checkOut,
+                               boolean available) {
+}
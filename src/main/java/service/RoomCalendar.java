@@ -0,0 +1,76 @@
+package service;
+
+import domain.HotelBooking;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Ordered set of the stays booked in a single room.
+ *
+ * <p>Stays are kept in a {@link TreeMap} keyed by check-in date, so the
+ * neighbours of any date range (the stay right before it and the stay right
+ * after it) are found in O(log n) without scanning the room's history.</p>
+ *
+ * <p>Dates are treated as half-open intervals: [checkIn, checkOut).</p>
+ */
+public final class RoomCalendar {
+
+   /** Gap length used when a range has no neighbouring stay on one side. */
+   public static final long UNBOUNDED = Long.MAX_VALUE;
+
+   // checkIn -> checkOut
+   private final TreeMap<LocalDate, LocalDate> stays = new TreeMap<>();
+
+   public RoomCalendar() {
+   }
+
+   public RoomCalendar(List<HotelBooking> bookings) {
+      for (HotelBooking b : bookings) {
+         add(b.getCheckInDate(), b.getCheckOutDate());
+      }
+   }
+
+   /**
+    * Records a stay in this calendar.
+    */
+   public void add(LocalDate checkIn, LocalDate checkOut) {
+      stays.put(checkIn, checkOut);
+   }
+
+   /**
+    * Checks whether [checkIn, checkOut) does not overlap any recorded stay.
+    */
+   public boolean isFree(LocalDate checkIn, LocalDate checkOut) {
+      // The only candidate for an overlap is the latest stay starting before checkOut
+      Map.Entry<LocalDate, LocalDate> previous = stays.lowerEntry(checkOut);
+      return previous == null || !previous.getValue().isAfter(checkIn);
+   }
+
+   /**
+    * Number of free nights between the previous stay's check-out and {@code checkIn},
+    * or {@link #UNBOUNDED} if no stay ends before it.
+    */
+   public long gapBefore(LocalDate checkIn) {
+      Map.Entry<LocalDate, LocalDate> previous = stays.lowerEntry(checkIn);
+      if (previous == null) {
+         return UNBOUNDED;
+      }
+      return ChronoUnit.DAYS.between(previous.getValue(), checkIn);
+   }
+
+   /**
+    * Number of free nights between {@code checkOut} and the next stay's check-in,
+    * or {@link #UNBOUNDED} if no stay starts after it.
+    */
+   public long gapAfter(LocalDate checkOut) {
+      LocalDate next = stays.ceilingKey(checkOut);
+      if (next == null) {
+         return UNBOUNDED;
+      }
+      return ChronoUnit.DAYS.between(checkOut, next);
+   }
+}
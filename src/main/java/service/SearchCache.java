@@ -0,0 +1,252 @@
+package service;
+
+import domain.HotelBooking;
+import persistence.event.RepositoryEvent;
+import persistence.event.RepositoryEventListener;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Bounded LRU cache of availability search results with a time to live.
+ *
+ * <p>Every result is stored with the nights of bookings it was computed from and,
+ * for a single-room check, that room. When a booking is created or cancelled only
+ * the results whose nights overlap its stay are dropped, found through an
+ * {@link IntervalIndex} rather than by flushing the cache; a new room drops
+ * every result. Invalidations arrive from {@link BookingService} right after its
+ * own writes and, for every other writer, as events from the property's
+ * {@link persistence.event.RepositoryEventBus}.</p>
+ *
+ * <p>A search that was running while an overlapping booking changed is not
+ * cached, so a result read before a change never outlives it. Between another
+ * writer's commit and the delivery of its event a cached result may be briefly
+ * stale; this only affects what is shown, since bookings are always checked
+ * against the database when inserted.</p>
+ */
+public class SearchCache implements RepositoryEventListener {
+
+   /**
+    * Room of a result that depends on the bookings of every room.
+    */
+   public static final int ANY_ROOM = -1;
+
+   // Invalidations remembered for searches still running; older searches are not cached
+   private static final int RECENT_INVALIDATIONS = 64;
+
+   private final int capacity;
+   private final long ttlNanos;
+
+   // All guarded by this; entries in access order, least recently used first
+   private final Map<Object, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+   private IntervalIndex<Entry> byNights = new IntervalIndex<>();
+   private final Deque<Invalidation> recentInvalidations = new ArrayDeque<>();
+   private long generation;
+   private int nextEntryId;
+
+   private long hits;
+   private long misses;
+   private long evictions;
+   private long expirations;
+   private long invalidations;
+
+   /**
+    * @param size results cached
+    * @param hits lookups answered from the cache
+    * @param misses lookups that ran the search
+    * @param evictions results dropped because the cache was full
+    * @param expirations results dropped because they were older than the time to live
+    * @param invalidations results dropped because an overlapping booking changed
+    */
+   public record Stats(int size, long hits, long misses, long evictions, long expirations, long invalidations) {
+
+      public double hitRate() {
+         long lookups = hits + misses;
+         return lookups == 0 ? 0 : (double) hits / lookups;
+      }
+   }
+
+   private static final class Entry {
+      final Object key;
+      final int id;
+      final int roomId;
+      final LocalDate from;
+      final LocalDate to;
+      final Object value;
+      final long expiresAt;
+
+      Entry(Object key, int id, int roomId, LocalDate from, LocalDate to, Object value, long expiresAt) {
+         this.key = key;
+         this.id = id;
+         this.roomId = roomId;
+         this.from = from;
+         this.to = to;
+         this.value = value;
+         this.expiresAt = expiresAt;
+      }
+   }
+
+   /**
+    * A change to the bookings of a room (or of any room) over [from, to).
+    */
+   private record Invalidation(long generation, int roomId, LocalDate from, LocalDate to) {
+
+      boolean affects(int entryRoomId, LocalDate entryFrom, LocalDate entryTo) {
+         boolean sameRoom = roomId == ANY_ROOM || entryRoomId == ANY_ROOM || roomId == entryRoomId;
+         return sameRoom && from.isBefore(entryTo) && entryFrom.isBefore(to);
+      }
+   }
+
+   /**
+    * @param capacity maximum number of results kept; 0 disables caching
+    * @param ttl how long a result is served
+    */
+   public SearchCache(int capacity, Duration ttl) {
+      if (capacity < 0) {
+         throw new IllegalArgumentException("capacity must not be negative");
+      }
+      this.capacity = capacity;
+      this.ttlNanos = ttl.toNanos();
+   }
+
+   /**
+    * Returns the cached result of a search, or runs the search and caches its result.
+    *
+    * @param key identifies the search and all its parameters
+    * @param roomId the only room whose bookings the result depends on, or {@link #ANY_ROOM}
+    * @param from first night of bookings the result depends on
+    * @param to end of those nights (exclusive)
+    * @param search runs the search; its result must not be modified afterwards
+    */
+   @SuppressWarnings("unchecked")
+   public <T> T get(Object key, int roomId, LocalDate from, LocalDate to, Supplier<T> search) {
+      if (capacity == 0) {
+         return search.get();
+      }
+
+      long stamp;
+      synchronized (this) {
+         Entry entry = entries.get(key);
+         if (entry != null) {
+            if (System.nanoTime() - entry.expiresAt < 0) {
+               hits++;
+               return (T) entry.value;
+            }
+            drop(entry);
+            expirations++;
+         }
+         misses++;
+         stamp = generation;
+      }
+
+      T value = search.get();
+
+      synchronized (this) {
+         if (isCurrent(stamp, roomId, from, to) && !entries.containsKey(key)) {
+            Entry entry = new Entry(key, nextEntryId++, roomId, from, to, value, System.nanoTime() + ttlNanos);
+            entries.put(key, entry);
+            byNights.add(entry, from, to, entry.id);
+            if (entries.size() > capacity) {
+               Iterator<Entry> eldest = entries.values().iterator();
+               Entry evicted = eldest.next();
+               eldest.remove();
+               byNights.remove(evicted.from, evicted.id);
+               evictions++;
+            }
+         }
+      }
+      return value;
+   }
+
+   /**
+    * Drops the results that depend on the bookings of the room over [from, to).
+    *
+    * @param roomId the room whose bookings changed, or {@link #ANY_ROOM}
+    */
+   public synchronized void invalidate(int roomId, LocalDate from, LocalDate to) {
+      Invalidation invalidation = new Invalidation(++generation, roomId, from, to);
+      remember(invalidation);
+
+      List<Entry> affected = new ArrayList<>();
+      byNights.forEachOverlapping(from, to, entry -> {
+         if (invalidation.affects(entry.roomId, entry.from, entry.to)) {
+            affected.add(entry);
+         }
+      });
+      for (Entry entry : affected) {
+         drop(entry);
+      }
+      invalidations += affected.size();
+   }
+
+   /**
+    * Drops every result.
+    */
+   public synchronized void invalidateAll() {
+      remember(new Invalidation(++generation, ANY_ROOM, LocalDate.MIN, LocalDate.MAX));
+      invalidations += entries.size();
+      entries.clear();
+      byNights = new IntervalIndex<>();
+   }
+
+   public synchronized Stats getStats() {
+      return new Stats(entries.size(), hits, misses, evictions, expirations, invalidations);
+   }
+
+   @Override
+   public void onEvent(RepositoryEvent event) {
+      if (event instanceof RepositoryEvent.BookingCreated created) {
+         invalidate(created.booking());
+      } else if (event instanceof RepositoryEvent.BookingCancelled cancelled) {
+         invalidate(cancelled.booking());
+      } else if (event instanceof RepositoryEvent.RoomSaved || event instanceof RepositoryEvent.EventsDropped) {
+         // Rooms are rarely added; changes may have been missed when events were dropped
+         invalidateAll();
+      }
+   }
+
+   /**
+    * Drops the results that depend on the booking's room over its stay.
+    */
+   public void invalidate(HotelBooking booking) {
+      invalidate(booking.getRoomId(), booking.getCheckInDate(), booking.getCheckOutDate());
+   }
+
+   // ----- private helpers -----
+
+   /**
+    * Whether no change overlapping [from, to) of the room happened since {@code stamp}.
+    */
+   private boolean isCurrent(long stamp, int roomId, LocalDate from, LocalDate to) {
+      if (generation - stamp > recentInvalidations.size()) {
+         // Some of the changes since then are no longer remembered
+         return false;
+      }
+      for (Invalidation invalidation : recentInvalidations) {
+         if (invalidation.generation() > stamp && invalidation.affects(roomId, from, to)) {
+            return false;
+         }
+      }
+      return true;
+   }
+
+   private void remember(Invalidation invalidation) {
+      recentInvalidations.addLast(invalidation);
+      if (recentInvalidations.size() > RECENT_INVALIDATIONS) {
+         recentInvalidations.removeFirst();
+      }
+   }
+
+   private void drop(Entry entry) {
+      entries.remove(entry.key);
+      byNights.remove(entry.from, entry.id);
+   }
+}
@@ -0,0 +1,294 @@
+package service;
+
+import config.AppConfig;
+import domain.GuestPrivilege;
+import domain.HotelRoom;
+import domain.RoomType;
+import persistence.repository.HotelBookingRepository;
+import persistence.repository.HotelRoomRepository;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Computes occupancy, average length of stay and the mix of room types and
+ * board per month, for any number of months, in one pass over the bookings.
+ *
+ * <p>The stays overlapping the months are streamed once with
+ * {@link HotelBookingRepository#forEachStayDetailsOverlapping} into columns of
+ * primitives (check-in and check-out as night indexes, room type and board as
+ * ordinals). Every stay then adds +1 at its first night and -1 after its last
+ * night to a difference array per room type and per board, so a stay costs the
+ * same whatever its length; a running sum over the nights afterwards expands
+ * those into the rooms sold every night, which are summed per month.</p>
+ *
+ * <p>The stays are split across the common fork/join pool; every task fills
+ * difference arrays of its own and the partial arrays are added up on join.
+ * Rooms are counted as available every night of the report, and stays of rooms
+ * that no longer exist are left out.</p>
+ */
+public class StayAnalytics {
+
+   // Stays aggregated by one fork/join task before it stops splitting
+   private static final int STAYS_PER_TASK = 1 << 15;
+
+   private static final RoomType[] TYPES = RoomType.values();
+   private static final GuestPrivilege[] PRIVILEGES = GuestPrivilege.values();
+
+   private static final String PREFIX = "stays-";
+   private static final DateTimeFormatter STAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+   private final HotelRoomRepository roomRepository;
+   private final HotelBookingRepository bookingRepository;
+   private final Path directory;
+
+   /**
+    * @param directory where {@link #writeReport} puts its CSV files
+    */
+   public StayAnalytics(HotelRoomRepository roomRepository,
+                        HotelBookingRepository bookingRepository,
+                        Path directory) {
+      this.roomRepository = roomRepository;
+      this.bookingRepository = bookingRepository;
+      this.directory = directory;
+   }
+
+   /**
+    * Creates the analytics of a property, writing its reports next to the
+    * booking exports ({@code export.dir} in application.properties).
+    */
+   public static StayAnalytics fromConfig(HotelGroup.Property property) {
+      return new StayAnalytics(
+              property.rooms(),
+              property.bookings(),
+              Path.of(AppConfig.get("export.dir", "exports")).resolve(property.id())
+      );
+   }
+
+   /**
+    * Computes the report for the months from {@code first} to {@code last}, both included.
+    */
+   public StayReport report(YearMonth first, YearMonth last) {
+      if (last.isBefore(first)) {
+         throw new IllegalArgumentException("last month must not be before the first");
+      }
+      long start = System.nanoTime();
+
+      LocalDate from = first.atDay(1);
+      LocalDate to = last.plusMonths(1).atDay(1);
+      int nights = (int) ChronoUnit.DAYS.between(from, to);
+      long firstDay = from.toEpochDay();
+
+      // Room type of every room id, -1 for unknown ids
+      List<HotelRoom> rooms = roomRepository.findAll();
+      int maxId = 0;
+      for (HotelRoom room : rooms) {
+         maxId = Math.max(maxId, room.getId());
+      }
+      byte[] typeOfRoom = new byte[maxId + 1];
+      Arrays.fill(typeOfRoom, (byte) -1);
+      int[] roomsOfType = new int[TYPES.length];
+      for (HotelRoom room : rooms) {
+         typeOfRoom[room.getId()] = (byte) room.getRoomType().ordinal();
+         roomsOfType[room.getRoomType().ordinal()]++;
+      }
+
+      Stays stays = new Stays();
+      bookingRepository.forEachStayDetailsOverlapping(from, to, (id, roomId, checkIn, checkOut, guests, privilege) -> {
+         if (roomId >= 0 && roomId < typeOfRoom.length && typeOfRoom[roomId] >= 0) {
+            stays.add((int) (checkIn - firstDay), (int) (checkOut - firstDay),
+                    typeOfRoom[roomId], (byte) privilege.ordinal());
+         }
+      });
+
+      // Month index of every night
+      int monthCount = (int) ChronoUnit.MONTHS.between(first, last) + 1;
+      int[] monthOfNight = new int[nights];
+      for (int m = 0, night = 0; m < monthCount; m++) {
+         int length = first.plusMonths(m).lengthOfMonth();
+         Arrays.fill(monthOfNight, night, night + length, m);
+         night += length;
+      }
+
+      Totals totals = ForkJoinPool.commonPool().invoke(
+              new AggregateTask(stays, 0, stays.size, nights, monthOfNight, monthCount));
+
+      // Running sums turn the differences into rooms sold per night
+      long[][] soldByType = new long[monthCount][TYPES.length];
+      long[][] soldByPrivilege = new long[monthCount][PRIVILEGES.length];
+      int[] soldOfType = new int[TYPES.length];
+      int[] soldOfPrivilege = new int[PRIVILEGES.length];
+      for (int n = 0; n < nights; n++) {
+         int m = monthOfNight[n];
+         for (int t = 0; t < TYPES.length; t++) {
+            soldOfType[t] += totals.typeDiff[n * TYPES.length + t];
+            soldByType[m][t] += soldOfType[t];
+         }
+         for (int p = 0; p < PRIVILEGES.length; p++) {
+            soldOfPrivilege[p] += totals.privilegeDiff[n * PRIVILEGES.length + p];
+            soldByPrivilege[m][p] += soldOfPrivilege[p];
+         }
+      }
+
+      List<StayReport.MonthlyStays> months = new ArrayList<>(monthCount);
+      for (int m = 0; m < monthCount; m++) {
+         YearMonth month = first.plusMonths(m);
+         Map<RoomType, Long> byType = new EnumMap<>(RoomType.class);
+         long sold = 0;
+         for (int t = 0; t < TYPES.length; t++) {
+            byType.put(TYPES[t], soldByType[m][t]);
+            sold += soldByType[m][t];
+         }
+         Map<GuestPrivilege, Long> byPrivilege = new EnumMap<>(GuestPrivilege.class);
+         for (int p = 0; p < PRIVILEGES.length; p++) {
+            byPrivilege.put(PRIVILEGES[p], soldByPrivilege[m][p]);
+         }
+         months.add(new StayReport.MonthlyStays(month, (long) rooms.size() * month.lengthOfMonth(), sold,
+                 totals.arrivals[m], totals.arrivalNights[m], byType, byPrivilege));
+      }
+
+      return new StayReport(months, rooms.size(), stays.size, Duration.ofNanos(System.nanoTime() - start));
+   }
+
+   /**
+    * Writes the report as CSV into a new file of the report directory named after
+    * the current time, e.g. {@code stays-20260315-020000.csv}.
+    *
+    * @return the file written
+    */
+   public Path writeReport(StayReport report) {
+      Path file = directory.resolve(PREFIX + STAMP.format(LocalDateTime.now()) + ".csv");
+      report.writeCsv(file);
+      return file;
+   }
+
+   // ----- private helpers -----
+
+   /**
+    * The stays of a report as columns; nights are indexes from the first night of
+    * the report, so check-in may be negative and check-out beyond its last night.
+    */
+   private static final class Stays {
+      int[] checkIn = new int[4096];
+      int[] checkOut = new int[4096];
+      byte[] type = new byte[4096];
+      byte[] privilege = new byte[4096];
+      int size;
+
+      void add(int in, int out, byte roomType, byte board) {
+         if (size == checkIn.length) {
+            int capacity = size + (size >> 1);
+            checkIn = Arrays.copyOf(checkIn, capacity);
+            checkOut = Arrays.copyOf(checkOut, capacity);
+            type = Arrays.copyOf(type, capacity);
+            privilege = Arrays.copyOf(privilege, capacity);
+         }
+         checkIn[size] = in;
+         checkOut[size] = out;
+         type[size] = roomType;
+         privilege[size] = board;
+         size++;
+      }
+   }
+
+   /**
+    * Partial sums of a range of stays.
+    */
+   private static final class Totals {
+      // Change of the rooms sold from the night before, per night and room type / board
+      final int[] typeDiff;
+      final int[] privilegeDiff;
+      final long[] arrivals;
+      final long[] arrivalNights;
+
+      Totals(int nights, int months) {
+         this.typeDiff = new int[(nights + 1) * TYPES.length];
+         this.privilegeDiff = new int[(nights + 1) * PRIVILEGES.length];
+         this.arrivals = new long[months];
+         this.arrivalNights = new long[months];
+      }
+
+      void add(Totals other) {
+         addInto(typeDiff, other.typeDiff);
+         addInto(privilegeDiff, other.privilegeDiff);
+         for (int m = 0; m < arrivals.length; m++) {
+            arrivals[m] += other.arrivals[m];
+            arrivalNights[m] += other.arrivalNights[m];
+         }
+      }
+
+      private static void addInto(int[] target, int[] source) {
+         for (int i = 0; i < target.length; i++) {
+            target[i] += source[i];
+         }
+      }
+   }
+
+   // Only ever run in memory on the fork/join pool, never serialized
+   @SuppressWarnings("serial")
+   private static final class AggregateTask extends RecursiveTask<Totals> {
+
+      private final Stays stays;
+      private final int from;
+      private final int to;
+      private final int nights;
+      private final int[] monthOfNight;
+      private final int months;
+
+      AggregateTask(Stays stays, int from, int to, int nights, int[] monthOfNight, int months) {
+         this.stays = stays;
+         this.from = from;
+         this.to = to;
+         this.nights = nights;
+         this.monthOfNight = monthOfNight;
+         this.months = months;
+      }
+
+      @Override
+      protected Totals compute() {
+         if (to - from > STAYS_PER_TASK) {
+            int middle = (from + to) >>> 1;
+            AggregateTask left = new AggregateTask(stays, from, middle, nights, monthOfNight, months);
+            AggregateTask right = new AggregateTask(stays, middle, to, nights, monthOfNight, months);
+            left.fork();
+            Totals totals = right.compute();
+            totals.add(left.join());
+            return totals;
+         }
+
+         Totals totals = new Totals(nights, months);
+         int types = TYPES.length;
+         int privileges = PRIVILEGES.length;
+         for (int i = from; i < to; i++) {
+            int in = stays.checkIn[i];
+            int out = stays.checkOut[i];
+            if (in >= 0) {
+               int m = monthOfNight[in];
+               totals.arrivals[m]++;
+               totals.arrivalNights[m] += out - in;
+            }
+
+            // Only the nights inside the report count
+            int firstNight = Math.max(in, 0);
+            int end = Math.min(out, nights);
+            totals.typeDiff[firstNight * types + stays.type[i]]++;
+            totals.typeDiff[end * types + stays.type[i]]--;
+            totals.privilegeDiff[firstNight * privileges + stays.privilege[i]]++;
+            totals.privilegeDiff[end * privileges + stays.privilege[i]]--;
+         }
+         return totals;
+      }
+   }
+}
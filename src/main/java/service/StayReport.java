@@ -0,0 +1,115 @@
+package service;
+
+import domain.GuestPrivilege;
+import domain.RoomType;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Occupancy, length of stay and the mix of room types and board per month, as
+ * computed by {@link StayAnalytics}.
+ *
+ * @param rooms rooms of the property, all counted as available every night
+ * @param stays stays overlapping the months of the report
+ * @param duration time taken to compute the report
+ */
+public record StayReport(List<MonthlyStays> months, int rooms, long stays, Duration duration) {
+
+   /**
+    * One month of the report.
+    *
+    * @param availableRoomNights rooms times nights of the month
+    * @param soldRoomNights nights of the month a room was booked
+    * @param arrivals stays checking in during the month
+    * @param arrivalNights nights of those stays, including any in later months
+    * @param soldByType sold room nights per room type
+    * @param soldByPrivilege sold room nights per board
+    */
+   public record MonthlyStays(YearMonth month,
+                              long availableRoomNights,
+                              long soldRoomNights,
+                              long arrivals,
+                              long arrivalNights,
+                              Map<RoomType, Long> soldByType,
+                              Map<GuestPrivilege, Long> soldByPrivilege) {
+
+      public double occupancy() {
+         return availableRoomNights == 0 ? 0 : (double) soldRoomNights / availableRoomNights;
+      }
+
+      public double averageLengthOfStay() {
+         return arrivals == 0 ? 0 : (double) arrivalNights / arrivals;
+      }
+
+      public double typeShare(RoomType type) {
+         return soldRoomNights == 0 ? 0 : (double) soldByType.get(type) / soldRoomNights;
+      }
+
+      public double privilegeShare(GuestPrivilege privilege) {
+         return soldRoomNights == 0 ? 0 : (double) soldByPrivilege.get(privilege) / soldRoomNights;
+      }
+   }
+
+   public double staysPerSecond() {
+      double seconds = duration.toNanos() / 1e9;
+      return seconds == 0 ? 0 : stays / seconds;
+   }
+
+   /**
+    * Writes the report as CSV, one row per month, with the sold room nights of
+    * every room type and board after the totals. The file is written under a
+    * temporary name and moved into place once complete.
+    *
+    * @return size of the file in bytes
+    */
+   public long writeCsv(Path file) {
+      Path partial = file.resolveSibling(file.getFileName() + ".part");
+      try {
+         if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+         }
+         try (Writer out = Files.newBufferedWriter(partial, StandardCharsets.UTF_8)) {
+            out.write("month,available_room_nights,sold_room_nights,occupancy_pct,arrivals,average_length_of_stay");
+            for (RoomType type : RoomType.values()) {
+               out.write(",nights_" + type.name().toLowerCase(Locale.ROOT));
+            }
+            for (GuestPrivilege privilege : GuestPrivilege.values()) {
+               out.write(",nights_" + privilege.name().toLowerCase(Locale.ROOT));
+            }
+            out.write("\r\n");
+
+            for (MonthlyStays m : months) {
+               out.write(String.format(Locale.ROOT, "%s,%d,%d,%.2f,%d,%.2f", m.month(), m.availableRoomNights(),
+                       m.soldRoomNights(), m.occupancy() * 100, m.arrivals(), m.averageLengthOfStay()));
+               for (RoomType type : RoomType.values()) {
+                  out.write("," + m.soldByType().get(type));
+               }
+               for (GuestPrivilege privilege : GuestPrivilege.values()) {
+                  out.write("," + m.soldByPrivilege().get(privilege));
+               }
+               out.write("\r\n");
+            }
+         }
+         Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+         return Files.size(file);
+
+      } catch (IOException e) {
+         try {
+            Files.deleteIfExists(partial);
+         } catch (IOException ignored) {
+            // the original failure matters more
+         }
+         throw new RuntimeException("Failed to write stay report to " + file, e);
+      }
+   }
+}
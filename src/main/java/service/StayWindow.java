@@ -0,0 +1,19 @@
+package service;
+
+import domain.HotelRoom;
+
+import java.time.LocalDate;
+
+/**
+ * A free stay found by the flexible-dates search.
+ *
+ * @param room the free room
+ * @param checkIn the start date (inclusive)
+ * @param checkOut the end date (exclusive)
+ * @param fragmentationCost cost of the gaps the stay leaves around it; lower fits tighter
+ */
+public record StayWindow(HotelRoom room,
+                         LocalDate checkIn,
+                         LocalDate checkOut,
+                         long fragmentationCost) {
+}
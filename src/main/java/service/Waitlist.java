@@ -0,0 +1,319 @@
+package service;
+
+import domain.HotelBooking;
+import domain.HotelRoom;
+import domain.NightlyInventory;
+import domain.RoomType;
+import domain.WaitlistEntry;
+import persistence.event.RepositoryEvent;
+import persistence.event.RepositoryEventListener;
+import persistence.repository.HotelRoomRepository;
+import persistence.repository.RoomInventoryRepository;
+import persistence.repository.WaitlistRepository;
+
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stay requests waiting for a room, promoted to bookings when rooms free up.
+ *
+ * <p>Entries are stored by a {@link WaitlistRepository} and indexed in memory
+ * by their stay ({@link IntervalIndex}). Subscribed to the property's
+ * {@link persistence.event.RepositoryEventBus}, the waitlist reacts to a
+ * cancelled booking by evaluating only the entries whose stay overlaps the
+ * freed nights, and to a new room by evaluating the entries from today on
+ * that the room could hold. Candidates are tried by priority, then in the
+ * order they were added; each is first checked against the per-night
+ * inventory and only then booked with
+ * {@link BookingService#createBookingForType}, which picks the room.</p>
+ *
+ * <p>Matching runs on a thread of its own, so the event dispatcher is never
+ * held up by the bookings it makes. Entries whose check-in has passed, or that
+ * can no longer be booked as requested, are dropped when they come up; any
+ * other failure is reported and the entry keeps waiting.</p>
+ */
+public class Waitlist implements RepositoryEventListener {
+
+   // Recently promoted entries kept for display
+   private static final int RECENT_PROMOTIONS = 20;
+
+   private static final Comparator<WaitlistEntry> PROMOTION_ORDER = Comparator
+           .comparingInt(WaitlistEntry::getPriority).reversed()
+           .thenComparing(WaitlistEntry::getCreatedAt)
+           .thenComparing(WaitlistEntry::getId);
+
+   private final WaitlistRepository waitlistRepository;
+   private final HotelRoomRepository roomRepository;
+   private final RoomInventoryRepository inventoryRepository;
+   private final BookingService bookingService;
+   private final ExecutorService matcher;
+
+   // Waiting entries by stay, and by id; guarded by this
+   private final IntervalIndex<WaitlistEntry> index = new IntervalIndex<>();
+   private final Map<Integer, WaitlistEntry> byId = new HashMap<>();
+   private final Deque<Promotion> recentPromotions = new ArrayDeque<>();
+   private final AtomicLong evaluated = new AtomicLong();
+   private final AtomicLong promoted = new AtomicLong();
+   private boolean loaded;
+
+   /**
+    * A waitlist entry that became a booking.
+    */
+   public record Promotion(WaitlistEntry entry, HotelBooking booking) {
+   }
+
+   /**
+    * @param waiting entries currently waiting
+    * @param evaluated entries tried since startup
+    * @param promoted entries booked since startup
+    */
+   public record Stats(int waiting, long evaluated, long promoted) {
+   }
+
+   /**
+    * @param name used in the name of the matching thread, e.g. the property id
+    */
+   public Waitlist(WaitlistRepository waitlistRepository,
+                   HotelRoomRepository roomRepository,
+                   RoomInventoryRepository inventoryRepository,
+                   BookingService bookingService,
+                   String name) {
+      this.waitlistRepository = waitlistRepository;
+      this.roomRepository = roomRepository;
+      this.inventoryRepository = inventoryRepository;
+      this.bookingService = bookingService;
+      this.matcher = Executors.newSingleThreadExecutor(r -> {
+         Thread t = new Thread(r, "waitlist-matcher-" + name);
+         t.setDaemon(true);
+         return t;
+      });
+   }
+
+   /**
+    * Puts a stay request on the waitlist. If a room frees up in the meantime it
+    * is booked right away.
+    *
+    * @return the stored entry with generated id
+    * @throws IllegalArgumentException for invalid input
+    */
+   public WaitlistEntry add(WaitlistEntry entry) {
+      Objects.requireNonNull(entry.getRoomType(), "roomType must not be null");
+      if (entry.getCheckInDate() == null || entry.getCheckOutDate() == null
+              || !entry.getCheckInDate().isBefore(entry.getCheckOutDate())) {
+         throw new IllegalArgumentException("checkIn must be before checkOut");
+      }
+      if (entry.getGuestCount() <= 0 || entry.getGuestNames() == null
+              || entry.getGuestNames().size() != entry.getGuestCount()) {
+         throw new IllegalArgumentException("guestCount must be positive and match the number of guest names");
+      }
+
+      synchronized (this) {
+         // Before saving, so that the new entry is not loaded twice
+         ensureLoaded();
+      }
+      WaitlistEntry saved = waitlistRepository.save(entry);
+      synchronized (this) {
+         track(saved);
+      }
+      // A room may have freed up between the failed booking and now
+      matcher.execute(() -> tryToBook(saved));
+      return saved;
+   }
+
+   /**
+    * Takes an entry off the waitlist.
+    *
+    * @return false if there was no such entry
+    */
+   public boolean remove(int entryId) {
+      WaitlistEntry entry;
+      synchronized (this) {
+         ensureLoaded();
+         entry = byId.remove(entryId);
+         if (entry == null) {
+            return false;
+         }
+         index.remove(entry.getCheckInDate(), entry.getId());
+      }
+      waitlistRepository.deleteById(entryId);
+      return true;
+   }
+
+   /**
+    * Waiting entries in the order they would be promoted.
+    */
+   public List<WaitlistEntry> findAll() {
+      List<WaitlistEntry> entries = new ArrayList<>();
+      synchronized (this) {
+         ensureLoaded();
+         index.forEach(entries::add);
+      }
+      entries.sort(PROMOTION_ORDER);
+      return entries;
+   }
+
+   /**
+    * The last promotions, newest first.
+    */
+   public synchronized List<Promotion> getRecentPromotions() {
+      return List.copyOf(recentPromotions);
+   }
+
+   public synchronized Stats getStats() {
+      ensureLoaded();
+      return new Stats(index.size(), evaluated.get(), promoted.get());
+   }
+
+   @Override
+   public void onEvent(RepositoryEvent event) {
+      if (event instanceof RepositoryEvent.BookingCancelled cancelled) {
+         HotelBooking booking = cancelled.booking();
+         matcher.execute(() -> roomRepository.findById(booking.getRoomId()).ifPresent(room ->
+                 match(room.getRoomType(), room.getMaxGuests(), booking.getCheckInDate(), booking.getCheckOutDate())));
+
+      } else if (event instanceof RepositoryEvent.RoomSaved saved) {
+         HotelRoom room = saved.room();
+         matcher.execute(() -> match(room.getRoomType(), room.getMaxGuests(), LocalDate.now(), null));
+
+      } else if (event instanceof RepositoryEvent.EventsDropped) {
+         // Frees may have been missed; give every entry a chance
+         matcher.execute(() -> {
+            for (RoomType type : RoomType.values()) {
+               match(type, Integer.MAX_VALUE, LocalDate.now(), null);
+            }
+         });
+      }
+   }
+
+   /**
+    * Stops the matching thread; pending matches are discarded.
+    */
+   public void shutdown() {
+      matcher.shutdownNow();
+   }
+
+   // ----- private helpers -----
+
+   /**
+    * Tries to book the entries of the room type, for at most {@code maxGuests}
+    * guests, whose stay overlaps the freed nights [from, to). Runs on the matcher thread.
+    *
+    * @param to end of the freed nights (exclusive), or null for no end
+    */
+   private void match(RoomType roomType, int maxGuests, LocalDate from, LocalDate to) {
+      List<WaitlistEntry> candidates = new ArrayList<>();
+      synchronized (this) {
+         ensureLoaded();
+         index.forEachOverlapping(from, to, e -> {
+            if (e.getRoomType() == roomType && e.getGuestCount() <= maxGuests) {
+               candidates.add(e);
+            }
+         });
+      }
+      candidates.sort(PROMOTION_ORDER);
+
+      for (WaitlistEntry entry : candidates) {
+         tryToBook(entry);
+      }
+   }
+
+   /**
+    * Books a waiting entry if a room is free for its whole stay. Runs on the matcher thread.
+    *
+    * <p>A failure is reported and only affects this entry, so the other
+    * candidates of a match are still tried.</p>
+    */
+   private void tryToBook(WaitlistEntry entry) {
+      try {
+         book(entry);
+      } catch (RuntimeException e) {
+         // Keep matching the others; the entry is tried again on the next event
+         System.err.println("Waitlist entry " + entry.getId() + " could not be booked: " + e.getMessage());
+      }
+   }
+
+   private void book(WaitlistEntry entry) {
+      if (entry.getCheckInDate().isBefore(LocalDate.now())) {
+         remove(entry.getId());
+         return;
+      }
+      synchronized (this) {
+         if (!byId.containsKey(entry.getId())) {
+            // Taken off the waitlist meanwhile
+            return;
+         }
+      }
+      evaluated.incrementAndGet();
+      if (!hasRoomLeftEveryNight(entry)) {
+         return;
+      }
+      HotelBooking booking;
+      try {
+         booking = bookingService.createBookingForType(
+                 entry.getRoomType(),
+                 entry.getCheckInDate(),
+                 entry.getCheckOutDate(),
+                 entry.getGuestCount(),
+                 entry.getGuestNames(),
+                 entry.getCreatedBy(),
+                 entry.getGuestPrivilege(),
+                 entry.getSpecialRequests()
+         );
+      } catch (IllegalStateException e) {
+         // The rooms left are fragmented or taken meanwhile; keep waiting
+         return;
+      } catch (IllegalArgumentException e) {
+         // No longer bookable as requested (e.g. no room of the type holds the guests); waiting won't help
+         remove(entry.getId());
+         System.err.println("Waitlist entry " + entry.getId() + " removed: " + e.getMessage());
+         return;
+      }
+
+      remove(entry.getId());
+      promoted.incrementAndGet();
+      synchronized (this) {
+         recentPromotions.addFirst(new Promotion(entry, booking));
+         if (recentPromotions.size() > RECENT_PROMOTIONS) {
+            recentPromotions.removeLast();
+         }
+      }
+   }
+
+   /**
+    * Cheap check against the per-night counters before trying to book.
+    */
+   private boolean hasRoomLeftEveryNight(WaitlistEntry entry) {
+      for (NightlyInventory night : inventoryRepository.findByRoomType(
+              entry.getRoomType(), entry.getCheckInDate(), entry.getCheckOutDate())) {
+         if (night.available() == 0) {
+            return false;
+         }
+      }
+      return true;
+   }
+
+   /**
+    * Loads the stored entries on first use, after the schema has been initialized.
+    */
+   private void ensureLoaded() {
+      if (!loaded) {
+         waitlistRepository.findAll().forEach(this::track);
+         loaded = true;
+      }
+   }
+
+   private void track(WaitlistEntry entry) {
+      index.add(entry, entry.getCheckInDate(), entry.getCheckOutDate(), entry.getId());
+      byId.put(entry.getId(), entry);
+   }
+}
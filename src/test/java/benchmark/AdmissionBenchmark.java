@@ -0,0 +1,148 @@
+package benchmark;
+
+import domain.GuestPrivilege;
+import persistence.repository.sqlite.SQLiteHotelBookingRepository;
+import persistence.repository.sqlite.SQLiteHotelRoomRepository;
+import service.AdmissionRejectedException;
+import service.BookingAdmission;
+import service.BookingService;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Simulates a flash sale: many online threads book as fast as they can (retrying
+ * 20 ms after a rejection) while the front desk books one stay every 50 ms, once
+ * straight through {@link BookingService} and once through {@link BookingAdmission},
+ * and reports the front desk's booking latency and what happened to the online
+ * requests.
+ *
+ * <p>Usage: {@code java benchmark.AdmissionBenchmark [onlineThreads] [seconds]}</p>
+ */
+public class AdmissionBenchmark {
+
+   private static final int ROOMS = 500;
+   private static final long FRONT_DESK_PAUSE_MILLIS = 50;
+   // Rejected clients retry after this, as a channel manager would
+   private static final long RETRY_AFTER_MILLIS = 20;
+
+   @FunctionalInterface
+   private interface Booker {
+      void book(int roomId, LocalDate checkIn, String createdBy);
+   }
+
+   public static void main(String[] args) throws InterruptedException {
+      int onlineThreads = args.length > 0 ? Integer.parseInt(args[0]) : 64;
+      int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+      BenchmarkData.useTemporaryDatabase("admission-benchmark");
+      LocalDate today = LocalDate.now();
+      int bookings = BenchmarkData.seed(ROOMS, today.minusMonths(1), today.plusMonths(1), 47L);
+      System.out.println("Seeded " + ROOMS + " rooms, " + bookings + " bookings");
+
+      BookingService service = new BookingService(new SQLiteHotelRoomRepository(), new SQLiteHotelBookingRepository());
+      Map<BookingAdmission.Channel, BookingAdmission.Limits> limits = new EnumMap<>(BookingAdmission.Channel.class);
+      limits.put(BookingAdmission.Channel.FRONT_DESK, new BookingAdmission.Limits(8, 64, 0, 0));
+      // Online gets 200/s instead of the configured 50/s, so that it really loads the writer
+      limits.put(BookingAdmission.Channel.ONLINE, new BookingAdmission.Limits(4, 16, 200, 200));
+      limits.put(BookingAdmission.Channel.AGENCY, new BookingAdmission.Limits(2, 8, 20, 40));
+      limits.put(BookingAdmission.Channel.OTHER, new BookingAdmission.Limits(2, 8, 10, 20));
+      BookingAdmission admission = new BookingAdmission(service, limits, 500);
+
+      run("no admission control", onlineThreads, seconds, 0, (roomId, checkIn, createdBy) ->
+              service.createBooking(roomId, checkIn, checkIn.plusDays(1), 1, List.of("Guest"), createdBy,
+                      GuestPrivilege.ROOM_ONLY, null));
+      run("admission control   ", onlineThreads, seconds, 1, (roomId, checkIn, createdBy) ->
+              admission.createBooking(roomId, checkIn, checkIn.plusDays(1), 1, List.of("Guest"), createdBy,
+                      GuestPrivilege.ROOM_ONLY, null));
+
+      for (BookingAdmission.ChannelMetrics m : admission.getMetrics()) {
+         if (m.admitted() + m.rejected() > 0) {
+            System.out.printf("  %-10s admitted %,d (queue avg %.2f ms, max %.2f ms), rejected %,d "
+                            + "(rate %,d, queue full %,d, timed out %,d)%n",
+                    m.channel(), m.admitted(), m.averageQueueMillis(), m.maxQueueMillis(), m.rejected(),
+                    m.rateLimited(), m.queueFull(), m.timedOut());
+         }
+      }
+   }
+
+   /**
+    * @param round keeps the stays of each run in their own years, so runs do not conflict
+    */
+   private static void run(String label, int onlineThreads, int seconds, int round, Booker booker)
+           throws InterruptedException {
+      AtomicBoolean running = new AtomicBoolean(true);
+      AtomicInteger onlineBooked = new AtomicInteger();
+      AtomicInteger onlineRejected = new AtomicInteger();
+      LocalDate firstNight = LocalDate.now().plusYears(2 + 2L * round);
+
+      List<Thread> threads = new ArrayList<>();
+      for (int t = 0; t < onlineThreads; t++) {
+         threads.add(new Thread(() -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            while (running.get()) {
+               try {
+                  booker.book(1 + random.nextInt(ROOMS), firstNight.plusDays(random.nextInt(365)), "ONLINE");
+                  onlineBooked.incrementAndGet();
+               } catch (AdmissionRejectedException e) {
+                  onlineRejected.incrementAndGet();
+                  try {
+                     Thread.sleep(RETRY_AFTER_MILLIS);
+                  } catch (InterruptedException ie) {
+                     return;
+                  }
+               } catch (IllegalStateException e) {
+                  // taken already
+               }
+            }
+         }));
+      }
+
+      long[] frontDesk = new long[(int) (seconds * 1_000 / FRONT_DESK_PAUSE_MILLIS) + 1];
+      AtomicInteger frontDeskCount = new AtomicInteger();
+      threads.add(new Thread(() -> {
+         ThreadLocalRandom random = ThreadLocalRandom.current();
+         while (running.get() && frontDeskCount.get() < frontDesk.length) {
+            LocalDate checkIn = firstNight.plusYears(1).plusDays(random.nextInt(365));
+            long start = System.nanoTime();
+            try {
+               booker.book(1 + random.nextInt(ROOMS), checkIn, "FRONT_DESK");
+            } catch (IllegalStateException e) {
+               // taken already; the latency still counts
+            }
+            frontDesk[frontDeskCount.getAndIncrement()] = System.nanoTime() - start;
+            try {
+               Thread.sleep(FRONT_DESK_PAUSE_MILLIS);
+            } catch (InterruptedException e) {
+               return;
+            }
+         }
+      }));
+
+      threads.forEach(Thread::start);
+      Thread.sleep(seconds * 1_000L);
+      running.set(false);
+      for (Thread t : threads) {
+         t.join();
+      }
+
+      long[] latencies = Arrays.copyOf(frontDesk, frontDeskCount.get());
+      Arrays.sort(latencies);
+      System.out.printf("%s: front desk p50 %.1f ms, p99 %.1f ms, max %.1f ms (%d bookings); "
+                      + "online %,d booked/s, %,d rejected/s%n",
+              label,
+              latencies[latencies.length / 2] / 1e6,
+              latencies[(int) (latencies.length * 0.99)] / 1e6,
+              latencies[latencies.length - 1] / 1e6,
+              latencies.length,
+              onlineBooked.get() / seconds,
+              onlineRejected.get() / seconds);
+   }
+}
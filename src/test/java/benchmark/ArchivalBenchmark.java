@@ -0,0 +1,46 @@
+package benchmark;
+
+import persistence.BookingArchiver;
+import persistence.repository.sqlite.SQLiteHotelBookingRepository;
+import persistence.repository.sqlite.SQLiteHotelRoomRepository;
+import service.BookingService;
+
+import java.time.LocalDate;
+import java.util.Random;
+
+/**
+ * Measures {@code isRoomAvailable} latency for upcoming stays before and after
+ * archiving past stays.
+ *
+ * <p>Usage: {@code java benchmark.ArchivalBenchmark [rooms] [yearsOfHistory]}</p>
+ */
+public class ArchivalBenchmark {
+
+   public static void main(String[] args) {
+      int rooms = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+      int years = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+      BenchmarkData.useTemporaryDatabase("archival-benchmark");
+      LocalDate today = LocalDate.now();
+      int bookings = BenchmarkData.seed(rooms, today.minusYears(years), today.plusMonths(6), 1L);
+      System.out.println("Seeded " + rooms + " rooms, " + bookings + " bookings over " + years + " years");
+
+      BookingService service = new BookingService(new SQLiteHotelRoomRepository(), new SQLiteHotelBookingRepository());
+
+      System.out.printf("isRoomAvailable before archival: %.1f us%n", measure(service, rooms, today) / 1_000);
+
+      long start = System.nanoTime();
+      int moved = new BookingArchiver(30, 500).archiveNow();
+      System.out.printf("Archived %d bookings in %d ms%n", moved, (System.nanoTime() - start) / 1_000_000);
+
+      System.out.printf("isRoomAvailable after archival:  %.1f us%n", measure(service, rooms, today) / 1_000);
+   }
+
+   private static double measure(BookingService service, int rooms, LocalDate today) {
+      Random random = new Random(7);
+      return BenchmarkData.nanosPerCall(2_000, () -> {
+         LocalDate checkIn = today.plusDays(random.nextInt(90));
+         service.isRoomAvailable(1 + random.nextInt(rooms), checkIn, checkIn.plusDays(3));
+      });
+   }
+}
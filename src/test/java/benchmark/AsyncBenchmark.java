@@ -0,0 +1,106 @@
+package benchmark;
+
+import domain.HotelRoom;
+import persistence.Database;
+import persistence.DatabaseManager;
+import persistence.repository.HotelRoomRepository;
+import persistence.repository.async.DatabaseExecutor;
+import persistence.repository.sqlite.SQLiteHotelBookingRepository;
+import persistence.repository.sqlite.SQLiteHotelRoomRepository;
+import service.AsyncBookingService;
+import service.BookingService;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Compares throughput of the blocking and the async booking API for
+ * "look up room by number, then check availability" requests.
+ *
+ * <p>The blocking API is measured with one caller thread and with a
+ * thread-per-client pool; the async API is driven by a single thread that
+ * keeps many requests in flight on the bounded database executor.</p>
+ *
+ * <p>Usage: {@code java benchmark.AsyncBenchmark [requests] [clients]}</p>
+ */
+public class AsyncBenchmark {
+
+   private static final int ROOMS = 200;
+
+   public static void main(String[] args) throws Exception {
+      int requests = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+      int clients = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+
+      BenchmarkData.useTemporaryDatabase("async-benchmark");
+      LocalDate today = LocalDate.now();
+      BenchmarkData.seed(ROOMS, today.minusYears(1), today.plusYears(1), 5L);
+
+      HotelRoomRepository roomRepo = new SQLiteHotelRoomRepository();
+      BookingService service = new BookingService(roomRepo, new SQLiteHotelBookingRepository());
+      Database database = DatabaseManager.defaultDatabase();
+      ExecutorService executor = DatabaseExecutor.create(database, 10_000);
+      AsyncBookingService asyncService = new AsyncBookingService(service, roomRepo, executor);
+
+      // warm-up
+      blocking(roomRepo, service, requests / 4, clients);
+      async(asyncService, requests / 4, clients);
+
+      report("blocking, 1 thread", 1, requests, () -> blocking(roomRepo, service, requests, 1));
+      report("blocking, " + clients + " threads", clients, requests,
+              () -> blocking(roomRepo, service, requests, clients));
+      report("async, " + clients + " in flight", 1 + database.getMaxConcurrency(), requests,
+              () -> async(asyncService, requests, clients));
+
+      executor.shutdown();
+   }
+
+   private interface Run {
+      void run() throws Exception;
+   }
+
+   private static void report(String label, int threads, int requests, Run run) throws Exception {
+      long start = System.nanoTime();
+      run.run();
+      double seconds = (System.nanoTime() - start) / 1e9;
+      System.out.printf("%-24s %,8.0f requests/s using %d threads%n", label, requests / seconds, threads);
+   }
+
+   private static void blocking(HotelRoomRepository roomRepo,
+                                BookingService service,
+                                int requests,
+                                int threads) throws InterruptedException {
+      AtomicInteger remaining = new AtomicInteger(requests);
+      List<Thread> workers = new ArrayList<>();
+      for (int t = 0; t < threads; t++) {
+         workers.add(new Thread(() -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            while (remaining.getAndDecrement() > 0) {
+               LocalDate checkIn = LocalDate.now().plusDays(random.nextInt(180));
+               HotelRoom room = roomRepo.findByRoomNumber(101 + random.nextInt(ROOMS)).orElseThrow();
+               service.isRoomAvailable(room.getId(), checkIn, checkIn.plusDays(3));
+            }
+         }));
+      }
+      workers.forEach(Thread::start);
+      for (Thread w : workers) {
+         w.join();
+      }
+   }
+
+   private static void async(AsyncBookingService service, int requests, int inFlight) throws InterruptedException {
+      Semaphore permits = new Semaphore(inFlight);
+      ThreadLocalRandom random = ThreadLocalRandom.current();
+      for (int i = 0; i < requests; i++) {
+         permits.acquire();
+         LocalDate checkIn = LocalDate.now().plusDays(random.nextInt(180));
+         service.checkAvailability(101 + random.nextInt(ROOMS), checkIn, checkIn.plusDays(3))
+                 .whenComplete((result, error) -> permits.release());
+      }
+      permits.acquire(inFlight);
+   }
+}
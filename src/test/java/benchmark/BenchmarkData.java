@@ -0,0 +1,179 @@
+package benchmark;
+
+import persistence.BookingPartitions;
+import persistence.DatabaseManager;
+import persistence.RoomInventory;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Seeds a throw-away database for the benchmarks in this package.
+ *
+ * <p>{@link #useTemporaryDatabase(String)} must run before anything touches
+ * {@link DatabaseManager}, because the database URL is read once.</p>
+ */
+final class BenchmarkData {
+
+   private static final String[] SOURCES = {"ONLINE", "FRONT_DESK", "AGENCY: SUNTOURS", "ONLINE", "ONLINE"};
+   private static final String[] PRIVILEGES = {
+           "ROOM_ONLY", "BED_AND_BREAKFAST", "HALF_BOARD", "FULL_BOARD", "ALL_INCLUSIVE", "ULTRA_ALL_INCLUSIVE"
+   };
+   private static final String[] ROOM_TYPES = {"SINGLE", "TWIN", "DOUBLE", "DOUBLE", "SUITE"};
+   private static final String[] SPECIAL_REQUESTS = {
+           "Late check-in, baby crib", "Baby crib please", "Late check-in around midnight",
+           "Quiet room away from the elevator", "Extra pillows", "Gluten-free breakfast",
+           "Airport transfer on arrival", "Honeymoon, flowers in the room"
+   };
+
+   private BenchmarkData() {
+   }
+
+   /**
+    * Points the application at a fresh database file in the temp directory and creates the schema.
+    */
+   static File useTemporaryDatabase(String name) {
+      return useTemporaryDatabase(name, "jdbc:sqlite:");
+   }
+
+   /**
+    * Same as {@link #useTemporaryDatabase(String)}, with the URL of the database
+    * file starting with {@code urlPrefix} instead of {@code jdbc:sqlite:}.
+    */
+   static File useTemporaryDatabase(String name, String urlPrefix) {
+      try {
+         File file = File.createTempFile(name, ".db");
+         file.deleteOnExit();
+         System.setProperty("db.url", urlPrefix + file.getAbsolutePath());
+         DatabaseManager.initializeSchema();
+         return file;
+      } catch (IOException e) {
+         throw new IllegalStateException("Cannot create temporary database", e);
+      }
+   }
+
+   /**
+    * Inserts {@code rooms} rooms and fills each with back-to-back stays of 1–7 nights
+    * (separated by 0–3 free nights) between {@code from} and {@code to}.
+    *
+    * @return number of bookings inserted
+    */
+   static int seed(int rooms, LocalDate from, LocalDate to, long seed) {
+      Random random = new Random(seed);
+      try {
+         return DatabaseManager.write(conn -> insert(conn, rooms, from, to, random));
+      } catch (SQLException e) {
+         throw new RuntimeException("Failed to seed benchmark data", e);
+      }
+   }
+
+   private static int insert(Connection conn, int rooms, LocalDate from, LocalDate to, Random random)
+           throws SQLException {
+      String roomSql = """
+              INSERT INTO hotel_rooms
+              (id, room_number, room_type, max_guests, has_balcony, has_beach_view, has_air_conditioning)
+              VALUES (?, ?, ?, ?, ?, ?, ?)
+              """;
+      String bookingSql = """
+              INSERT INTO %s
+              (id, room_id, check_in_date, check_out_date, guest_count,
+               guest_names, created_by, guest_privilege, special_requests, created_at)
+              VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+              """;
+
+      try (PreparedStatement ps = conn.prepareStatement(roomSql)) {
+         for (int r = 1; r <= rooms; r++) {
+            ps.setInt(1, r);
+            ps.setInt(2, 100 + r);
+            ps.setString(3, ROOM_TYPES[r % ROOM_TYPES.length]);
+            ps.setInt(4, 2 + r % 3);
+            ps.setInt(5, r % 2);
+            ps.setInt(6, r % 3 == 0 ? 1 : 0);
+            ps.setInt(7, 1);
+            ps.addBatch();
+         }
+         ps.executeBatch();
+      }
+
+      Map<Integer, PreparedStatement> statements = new HashMap<>();
+      int id = 0;
+
+      try {
+         for (int r = 1; r <= rooms; r++) {
+            LocalDate checkIn = from.plusDays(random.nextInt(4));
+            while (checkIn.isBefore(to)) {
+               LocalDate checkOut = checkIn.plusDays(1 + random.nextInt(7));
+               int year = checkIn.getYear();
+
+               PreparedStatement ps = statements.get(year);
+               if (ps == null) {
+                  ps = conn.prepareStatement(bookingSql.formatted(BookingPartitions.ensure(conn, year)));
+                  statements.put(year, ps);
+               }
+
+               int guests = 1 + random.nextInt(2);
+               ps.setInt(1, ++id);
+               ps.setInt(2, r);
+               ps.setString(3, checkIn.toString());
+               ps.setString(4, checkOut.toString());
+               ps.setInt(5, guests);
+               ps.setString(6, guests == 1 ? "Guest " + id : "Guest " + id + "|Partner " + id);
+               ps.setString(7, SOURCES[random.nextInt(SOURCES.length)]);
+               ps.setString(8, PRIVILEGES[random.nextInt(PRIVILEGES.length)]);
+               ps.setString(9, random.nextInt(10) == 0
+                       ? SPECIAL_REQUESTS[random.nextInt(SPECIAL_REQUESTS.length)] : null);
+               ps.setString(10, LocalDateTime.of(checkIn.minusDays(30), LocalTime.NOON).toString());
+               ps.addBatch();
+
+               checkIn = checkOut.plusDays(random.nextInt(4));
+            }
+            if (r % 50 == 0) {
+               for (PreparedStatement ps : statements.values()) {
+                  ps.executeBatch();
+               }
+            }
+         }
+         for (PreparedStatement ps : statements.values()) {
+            ps.executeBatch();
+         }
+      } finally {
+         for (PreparedStatement ps : statements.values()) {
+            ps.close();
+         }
+      }
+
+      for (int year : statements.keySet()) {
+         BookingPartitions.refreshStatistics(conn, year);
+      }
+      try (Statement stmt = conn.createStatement()) {
+         stmt.executeUpdate("UPDATE hotel_booking_sequence SET last_id = " + id + " WHERE id = 1");
+      }
+      RoomInventory.rebuild(conn);
+
+      return id;
+   }
+
+   /**
+    * Average nanoseconds per call of {@code task}, after a warm-up of the same length.
+    */
+   static double nanosPerCall(int calls, Runnable task) {
+      for (int i = 0; i < calls; i++) {
+         task.run();
+      }
+      long start = System.nanoTime();
+      for (int i = 0; i < calls; i++) {
+         task.run();
+      }
+      return (System.nanoTime() - start) / (double) calls;
+   }
+}
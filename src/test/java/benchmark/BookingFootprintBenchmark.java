@@ -0,0 +1,70 @@
+package benchmark;
+
+import domain.CompactBooking;
+import domain.HotelBooking;
+import persistence.repository.sqlite.SQLiteHotelBookingRepository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Compares the retained heap of a large working set loaded as {@link HotelBooking}s
+ * and as {@link CompactBooking}s, together with the time to load it.
+ *
+ * <p>Usage: {@code java benchmark.BookingFootprintBenchmark [rooms] [years]}. The
+ * defaults (3000 rooms, 5 years) give about a million bookings; run with a heap of
+ * at least 1 GB.</p>
+ */
+public class BookingFootprintBenchmark {
+
+   public static void main(String[] args) {
+      int rooms = args.length > 0 ? Integer.parseInt(args[0]) : 3_000;
+      int years = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+      BenchmarkData.useTemporaryDatabase("booking-footprint-benchmark");
+      LocalDate from = LocalDate.now().minusYears(years - 1).withDayOfYear(1);
+      LocalDate to = from.plusYears(years);
+      int bookings = BenchmarkData.seed(rooms, from, to, 39L);
+      System.out.println("Seeded " + rooms + " rooms, " + bookings + " bookings");
+
+      SQLiteHotelBookingRepository repository = new SQLiteHotelBookingRepository();
+
+      // Warm up the queries and the JIT on a small range first
+      repository.findOverlapping(from, from.plusMonths(1));
+      repository.findCompactOverlapping(from, from.plusMonths(1));
+
+      for (int run = 1; run <= 3; run++) {
+         long before = usedHeap();
+         long start = System.nanoTime();
+         List<HotelBooking> full = repository.findOverlapping(from, to);
+         long loaded = System.nanoTime();
+         long fullBytes = usedHeap() - before;
+         print("HotelBooking  ", full.size(), fullBytes, loaded - start);
+         full = null;
+
+         before = usedHeap();
+         start = System.nanoTime();
+         List<CompactBooking> compact = repository.findCompactOverlapping(from, to);
+         loaded = System.nanoTime();
+         long compactBytes = usedHeap() - before;
+         print("CompactBooking", compact.size(), compactBytes, loaded - start);
+
+         System.out.printf("run %d: compact working set is %.1fx smaller%n%n",
+                 run, (double) fullBytes / compactBytes);
+         compact = null;
+      }
+   }
+
+   private static void print(String label, int count, long bytes, long nanos) {
+      System.out.printf("%s %,10d bookings  %,8.1f MB retained  %5.1f bytes/booking  loaded in %,d ms%n",
+              label, count, bytes / 1e6, (double) bytes / Math.max(1, count), nanos / 1_000_000);
+   }
+
+   private static long usedHeap() {
+      Runtime runtime = Runtime.getRuntime();
+      for (int i = 0; i < 3; i++) {
+         System.gc();
+      }
+      return runtime.totalMemory() - runtime.freeMemory();
+   }
+}
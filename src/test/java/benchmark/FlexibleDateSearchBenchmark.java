@@ -0,0 +1,69 @@
+package benchmark;
+
+import domain.RoomType;
+import persistence.repository.sqlite.SQLiteHotelBookingRepository;
+import persistence.repository.sqlite.SQLiteHotelRoomRepository;
+import service.BookingService;
+import service.FlexibleDateSearch;
+import service.OccupancyCalendar;
+import service.StayWindow;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Measures the flexible-dates search ("any N nights in this month") for a full hotel,
+ * split into loading the occupancy and scanning it, and checks every returned
+ * window against {@code isRoomAvailable}.
+ *
+ * <p>Usage: {@code java benchmark.FlexibleDateSearchBenchmark [rooms] [nights] [limit]}</p>
+ */
+public class FlexibleDateSearchBenchmark {
+
+   public static void main(String[] args) {
+      int rooms = args.length > 0 ? Integer.parseInt(args[0]) : 1_000;
+      int nights = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+      int limit = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+
+      BenchmarkData.useTemporaryDatabase("flexible-date-search-benchmark");
+      LocalDate today = LocalDate.now();
+      int bookings = BenchmarkData.seed(rooms, today.minusMonths(6), today.plusYears(1), 13L);
+      System.out.println("Seeded " + rooms + " rooms, " + bookings + " bookings");
+
+      BookingService service = new BookingService(new SQLiteHotelRoomRepository(), new SQLiteHotelBookingRepository());
+      LocalDate from = today.plusMonths(1).withDayOfMonth(1);
+      LocalDate to = from.plusMonths(1);
+
+      List<StayWindow> windows = List.of();
+      for (int run = 1; run <= 5; run++) {
+         long start = System.nanoTime();
+         windows = service.findOpenWindows(null, 1, nights, from, to, limit);
+         System.out.printf("run %d: search incl. loading %.1f ms%n", run, (System.nanoTime() - start) / 1e6);
+      }
+
+      // Scan only, on an already loaded calendar with the same 30-night margins
+      OccupancyCalendar calendar = service.buildOccupancyCalendar(from.minusDays(30), (int) (to.toEpochDay()
+              - from.toEpochDay()) + 60);
+      FlexibleDateSearch search = new FlexibleDateSearch();
+      int lastCheckIn = 30 + (int) (to.toEpochDay() - from.toEpochDay()) - nights;
+      double scanNanos = BenchmarkData.nanosPerCall(200, () -> search.search(calendar, 30, lastCheckIn, nights, limit));
+      System.out.printf("scan only (%d rooms x %d nights): %.2f ms%n",
+              calendar.getRooms().size(), calendar.getNights(), scanNanos / 1e6);
+
+      int invalid = 0;
+      for (StayWindow w : windows) {
+         if (!service.isRoomAvailable(w.room().getId(), w.checkIn(), w.checkOut())) {
+            invalid++;
+         }
+      }
+      System.out.println("Top " + windows.size() + " windows for any " + nights + " nights between "
+              + from + " and " + to + " (" + invalid + " not actually free):");
+      for (StayWindow w : windows) {
+         System.out.printf("  room %d %-6s %s -> %s  cost %d%n", w.room().getRoomNumber(), w.room().getRoomType(),
+                 w.checkIn(), w.checkOut(), w.fragmentationCost());
+      }
+
+      List<StayWindow> suites = service.findOpenWindows(RoomType.SUITE, 2, nights, from, to, 3);
+      System.out.println("Best SUITE windows for 2 guests: " + suites.size());
+   }
+}
@@ -0,0 +1,126 @@
+package benchmark;
+
+import domain.GuestPrivilege;
+import domain.HotelBooking;
+import domain.HotelRoom;
+import persistence.repository.HotelBookingRepository;
+import persistence.repository.HotelRoomRepository;
+import persistence.repository.sqlite.SQLiteHotelBookingRepository;
+import persistence.repository.sqlite.SQLiteHotelRoomRepository;
+import service.BookingIntegrityChecker;
+import service.IntegrityReport;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Seeds clean bookings, adds double bookings, over-capacity stays and stays of
+ * rooms that do not exist through {@code save} (which checks nothing), then
+ * finds them once by comparing every pair of bookings and once with
+ * {@link BookingIntegrityChecker}, and checks that both agree.
+ *
+ * <p>Usage: {@code java benchmark.IntegrityCheckBenchmark [rooms] [years] [broken bookings per kind]}</p>
+ */
+public class IntegrityCheckBenchmark {
+
+   public static void main(String[] args) throws IOException {
+      int rooms = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+      int years = args.length > 1 ? Integer.parseInt(args[1]) : 2;
+      int broken = args.length > 2 ? Integer.parseInt(args[2]) : 50;
+      run(rooms, years, broken);
+   }
+
+   /**
+    * Seeds a temporary database with broken bookings and checks it both ways.
+    *
+    * @return true if both checks found the same problems
+    */
+   static boolean run(int rooms, int years, int broken) throws IOException {
+      BenchmarkData.useTemporaryDatabase("integrity-benchmark");
+      LocalDate from = LocalDate.now().minusYears(years);
+      int bookings = BenchmarkData.seed(rooms, from, LocalDate.now(), 49L);
+      System.out.println("Seeded " + rooms + " rooms, " + bookings + " bookings over " + years + " years");
+
+      HotelRoomRepository roomRepo = new SQLiteHotelRoomRepository();
+      HotelBookingRepository bookingRepo = new SQLiteHotelBookingRepository();
+      Random random = new Random(49);
+      int days = (int) (LocalDate.now().toEpochDay() - from.toEpochDay()) - 7;
+      for (int i = 0; i < broken; i++) {
+         LocalDate checkIn = from.plusDays(random.nextInt(days));
+         bookingRepo.save(booking(1 + random.nextInt(rooms), checkIn, 1));
+         bookingRepo.save(booking(1 + random.nextInt(rooms), checkIn, 9));
+         bookingRepo.save(booking(rooms + 1 + random.nextInt(10), checkIn, 1));
+      }
+      System.out.println("Added " + broken + " double bookings, over-capacity stays and unknown rooms each");
+
+      long start = System.nanoTime();
+      long[] pairwise = pairwiseCheck(roomRepo, bookingRepo);
+      double pairwiseSeconds = (System.nanoTime() - start) / 1e9;
+      System.out.printf("Every pair of bookings:  %.2f s%n", pairwiseSeconds);
+
+      Path directory = Files.createTempDirectory("integrity");
+      BookingIntegrityChecker checker = new BookingIntegrityChecker(roomRepo, bookingRepo, directory);
+      // First run warms up the JIT
+      checker.check();
+      IntegrityReport report = checker.check();
+      double seconds = report.duration().toNanos() / 1e9;
+      System.out.printf("Sort and sweep:          %.2f s (%,d bookings), %.1fx faster%n",
+              seconds, report.bookings(), pairwiseSeconds / seconds);
+
+      long[] swept = {
+              report.count(IntegrityReport.Kind.DOUBLE_BOOKING),
+              report.count(IntegrityReport.Kind.OVER_CAPACITY),
+              report.count(IntegrityReport.Kind.UNKNOWN_ROOM)
+      };
+      System.out.printf("double bookings %d / %d, over capacity %d / %d, unknown rooms %d / %d (sweep / pairs): %s%n",
+              swept[0], pairwise[0], swept[1], pairwise[1], swept[2], pairwise[2],
+              Arrays.equals(swept, pairwise) ? "agree" : "DIFFER");
+      System.out.println("Repair report: " + checker.writeRepairReport(report));
+      return Arrays.equals(swept, pairwise);
+   }
+
+   private static HotelBooking booking(int roomId, LocalDate checkIn, int guests) {
+      return new HotelBooking(roomId, checkIn, checkIn.plusDays(2), guests, List.of("Imported guest"),
+              GuestPrivilege.ROOM_ONLY, "IMPORT", null);
+   }
+
+   /**
+    * Bookings overlapping an earlier-starting booking of their room, over capacity,
+    * and of unknown rooms, by comparing every pair of bookings.
+    */
+   private static long[] pairwiseCheck(HotelRoomRepository roomRepo, HotelBookingRepository bookingRepo) {
+      Map<Integer, HotelRoom> roomsById = new HashMap<>();
+      for (HotelRoom room : roomRepo.findAll()) {
+         roomsById.put(room.getId(), room);
+      }
+      List<HotelBooking> all = bookingRepo.findAll();
+
+      long[] result = new long[3];
+      for (HotelBooking b : all) {
+         HotelRoom room = roomsById.get(b.getRoomId());
+         if (room == null) {
+            result[2]++;
+         } else if (b.getGuestCount() > room.getMaxGuests()) {
+            result[1]++;
+         }
+         for (HotelBooking a : all) {
+            boolean earlier = a.getCheckInDate().isBefore(b.getCheckInDate())
+                    || (a.getCheckInDate().equals(b.getCheckInDate()) && a.getId() < b.getId());
+            if (a.getRoomId() == b.getRoomId() && earlier
+                    && a.getCheckInDate().isBefore(b.getCheckOutDate())
+                    && b.getCheckInDate().isBefore(a.getCheckOutDate())) {
+               result[0]++;
+               break;
+            }
+         }
+      }
+      return result;
+   }
+}
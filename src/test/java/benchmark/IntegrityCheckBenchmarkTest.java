@@ -0,0 +1,18 @@
+package benchmark;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The sort-and-sweep integrity check finds the same problems as comparing every pair of bookings.
+ */
+class IntegrityCheckBenchmarkTest {
+
+   @Test
+   void sweepAgreesWithPairwiseCheck() throws IOException {
+      assertTrue(IntegrityCheckBenchmark.run(40, 1, 20), "sweep and pairwise check differ, see the report above");
+   }
+}
@@ -0,0 +1,55 @@
+package benchmark;
+
+import persistence.repository.sqlite.SQLiteHotelBookingRepository;
+import persistence.repository.sqlite.SQLiteHotelRoomRepository;
+import service.BookingService;
+import service.OccupancyCalendar;
+
+import java.io.BufferedWriter;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.time.LocalDate;
+
+/**
+ * Measures building and rendering the whole-hotel occupancy calendar.
+ *
+ * <p>Usage: {@code java benchmark.OccupancyCalendarBenchmark [rooms] [nights] [print]}</p>
+ */
+public class OccupancyCalendarBenchmark {
+
+   public static void main(String[] args) {
+      int rooms = args.length > 0 ? Integer.parseInt(args[0]) : 1_000;
+      int nights = args.length > 1 ? Integer.parseInt(args[1]) : 60;
+      boolean print = args.length > 2 && Boolean.parseBoolean(args[2]);
+
+      BenchmarkData.useTemporaryDatabase("occupancy-calendar-benchmark");
+      LocalDate today = LocalDate.now();
+      int bookings = BenchmarkData.seed(rooms, today.minusYears(1), today.plusYears(1), 11L);
+      System.out.println("Seeded " + rooms + " rooms, " + bookings + " bookings");
+
+      BookingService service = new BookingService(new SQLiteHotelRoomRepository(), new SQLiteHotelBookingRepository());
+
+      for (int run = 1; run <= 5; run++) {
+         long start = System.nanoTime();
+         OccupancyCalendar calendar = service.buildOccupancyCalendar(today, nights);
+         long built = System.nanoTime();
+
+         StringWriter text = new StringWriter();
+         try (PrintWriter out = new PrintWriter(new BufferedWriter(text, 1 << 16))) {
+            calendar.render(out);
+         }
+         long rendered = System.nanoTime();
+
+         System.out.printf("run %d: build %d ms, render %d ms (%,d chars), occupancy %.1f%%%n",
+                 run, (built - start) / 1_000_000, (rendered - built) / 1_000_000,
+                 text.getBuffer().length(), calendar.occupancyRate() * 100);
+
+         if (print && run == 5) {
+            PrintWriter out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out), 1 << 16));
+            out.print(text);
+            out.flush();
+         }
+      }
+   }
+}
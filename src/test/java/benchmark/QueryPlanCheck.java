@@ -0,0 +1,524 @@
+package benchmark;
+
+import domain.GuestPrivilege;
+import domain.HotelBooking;
+import domain.HotelRoom;
+import domain.RoomType;
+import domain.WaitlistEntry;
+import persistence.BookingPartitions;
+import persistence.repository.HotelBookingRepository;
+import persistence.repository.HotelRoomRepository;
+import persistence.repository.RoomInventoryRepository;
+import persistence.repository.WaitlistRepository;
+import persistence.repository.sqlite.SQLiteHotelBookingRepository;
+import persistence.repository.sqlite.SQLiteHotelRoomRepository;
+import persistence.repository.sqlite.SQLiteRoomInventoryRepository;
+import persistence.repository.sqlite.SQLiteWaitlistRepository;
+
+import java.io.File;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.DriverPropertyInfo;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Release check of the query plans and latencies of every repository statement.
+ *
+ * <p>Seeds a database with about a million bookings and calls every method of
+ * the SQLite repositories. A JDBC driver registered for {@code jdbc:plancheck:}
+ * URLs sits between the application and SQLite and records each statement the
+ * repositories run, with its parameters, so the statements checked are exactly
+ * the ones in the code. Every recorded statement is then run through
+ * {@code EXPLAIN QUERY PLAN}; a {@code SCAN} of a table with at least
+ * {@value #LARGE_TABLE_ROWS} rows fails the check, unless the method reads the
+ * whole table by design, and so does a plan not using an index a scenario
+ * requires. Each method also has a 95th-percentile latency budget.</p>
+ *
+ * <p>Usage: {@code java benchmark.QueryPlanCheck [rooms] [years]}; the defaults
+ * (3000 rooms, 5 years) give about a million bookings. Exits with status 1 if
+ * any plan or budget check fails. The build runs the plan checks on a smaller
+ * database ({@code QueryPlanCheckTest}).</p>
+ */
+public class QueryPlanCheck {
+
+   // Tables with at least this many rows must not be scanned
+   private static final int LARGE_TABLE_ROWS = 10_000;
+
+   // Timed calls per method after the recorded one
+   private static final int TIMED_CALLS = 20;
+
+   private static final long NO_BUDGET = -1;
+
+   private static final Pattern TABLE_REFERENCE = Pattern.compile(
+           "\\b(?:FROM|JOIN|INTO|UPDATE)\\s+([A-Za-z_][A-Za-z0-9_]*)(?:\\s+(?:AS\\s+)?([A-Za-z_][A-Za-z0-9_]*))?",
+           Pattern.CASE_INSENSITIVE);
+
+   private static final Set<String> KEYWORDS = Set.of(
+           "where", "join", "on", "order", "group", "limit", "using", "inner", "left", "cross", "natural",
+           "set", "values", "select", "union", "returning", "as", "default", "having", "window");
+
+   /**
+    * A repository method called by the check.
+    *
+    * @param budgetMillis 95th-percentile latency budget, or {@link #NO_BUDGET} to call it only once
+    * @param readsWholeTable true if scanning large tables is the method's job (e.g. findAll)
+    * @param requiredIndexes indexes the plans of the method's statements must use
+    */
+   private record Scenario(String name, long budgetMillis, boolean readsWholeTable, Runnable call,
+                           List<String> requiredIndexes) {
+
+      Scenario(String name, long budgetMillis, boolean readsWholeTable, Runnable call) {
+         this(name, budgetMillis, readsWholeTable, call, List.of());
+      }
+   }
+
+   /**
+    * @param problem what is wrong with the plan, e.g. "FULL SCAN"
+    */
+   private record Violation(String scenario, String problem, String sql, String plan) {
+   }
+
+   public static void main(String[] args) throws SQLException {
+      int rooms = args.length > 0 ? Integer.parseInt(args[0]) : 3_000;
+      int years = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+      System.exit(run(rooms, years, true) == 0 ? 0 : 1);
+   }
+
+   /**
+    * Seeds a temporary database, calls every repository method and checks the
+    * plans of the statements they sent, printing a report.
+    *
+    * @param checkBudgets false to check the plans only, leaving out the latencies,
+    *                     which depend on the machine
+    * @return number of problems found
+    */
+   static int run(int rooms, int years, boolean checkBudgets) throws SQLException {
+      DriverManager.registerDriver(new RecordingDriver());
+      File file = BenchmarkData.useTemporaryDatabase("query-plan-check", RecordingDriver.PREFIX);
+
+      LocalDate today = LocalDate.now();
+      long start = System.nanoTime();
+      int seeded = BenchmarkData.seed(rooms, today.minusYears(years - 1).withDayOfYear(1),
+              today.plusYears(1).withDayOfYear(1), 44L);
+      System.out.printf("Seeded %d rooms, %,d bookings in %d s%n%n",
+              rooms, seeded, (System.nanoTime() - start) / 1_000_000_000);
+
+      List<Scenario> scenarios = scenarios(today, years);
+
+      int failures = 0;
+      System.out.printf("%-36s %10s %10s%n", "Method", "p95", "budget");
+      for (Scenario scenario : scenarios) {
+         RecordingDriver.recordInto(scenario.name());
+         scenario.call().run();
+         RecordingDriver.recordInto(null);
+
+         if (scenario.budgetMillis() == NO_BUDGET || !checkBudgets) {
+            System.out.printf("%-36s %10s %10s%n", scenario.name(), "-", "-");
+            continue;
+         }
+         double p95 = p95Millis(scenario.call());
+         boolean ok = p95 <= scenario.budgetMillis();
+         if (!ok) {
+            failures++;
+         }
+         System.out.printf("%-36s %7.2f ms %7d ms  %s%n",
+                 scenario.name(), p95, scenario.budgetMillis(), ok ? "ok" : "OVER BUDGET");
+      }
+
+      List<Violation> violations = checkPlans(file, scenarios);
+      failures += violations.size();
+
+      System.out.println();
+      if (violations.isEmpty()) {
+         System.out.println("No scans of tables with " + LARGE_TABLE_ROWS + "+ rows in "
+                 + RecordingDriver.statementCount() + " statements.");
+      }
+      for (Violation v : violations) {
+         System.out.println(v.problem() + " in " + v.scenario() + ":");
+         System.out.println("  " + v.sql().strip().replaceAll("\\s+", " "));
+         System.out.println(v.plan().indent(4).stripTrailing());
+      }
+
+      System.out.println(failures == 0
+              ? "Query plan check passed."
+              : "Query plan check FAILED: " + failures + " problem(s).");
+      return failures;
+   }
+
+   // ----- scenarios -----
+
+   private static List<Scenario> scenarios(LocalDate today, int years) {
+      HotelRoomRepository rooms = new SQLiteHotelRoomRepository();
+      HotelBookingRepository bookings = new SQLiteHotelBookingRepository();
+      RoomInventoryRepository inventory = new SQLiteRoomInventoryRepository();
+      WaitlistRepository waitlist = new SQLiteWaitlistRepository();
+
+      HotelBooking inHouse = bookings.findInHouseOn(today).get(0);
+      HotelRoom room = rooms.findById(inHouse.getRoomId()).orElseThrow();
+
+      // New stays go past the seeded years, one after another
+      LocalDate future = today.plusYears(years + 1);
+      AtomicInteger slot = new AtomicInteger();
+      AtomicInteger roomNumber = new AtomicInteger(1_000_000);
+      Deque<Integer> saved = new ArrayDeque<>();
+      Deque<Integer> queued = new ArrayDeque<>();
+
+      List<Scenario> list = new ArrayList<>();
+
+      list.add(new Scenario("rooms.findById", 5, false, () -> rooms.findById(room.getId())));
+      list.add(new Scenario("rooms.findByRoomNumber", 5, false, () -> rooms.findByRoomNumber(room.getRoomNumber())));
+      list.add(new Scenario("rooms.findAll", 100, true, rooms::findAll));
+      list.add(new Scenario("rooms.save", 50, false, () -> rooms.save(
+              new HotelRoom(null, roomNumber.incrementAndGet(), RoomType.DOUBLE, 2, false, false, true))));
+
+      list.add(new Scenario("bookings.findById", 10, false, () -> bookings.findById(inHouse.getId())));
+      list.add(new Scenario("bookings.findAll", NO_BUDGET, true, bookings::findAll));
+      list.add(new Scenario("bookings.findByRoomId", 50, false, () -> bookings.findByRoomId(room.getId())));
+      list.add(new Scenario("bookings.findByRoomIdOverlapping", 10, false,
+              () -> bookings.findByRoomIdOverlapping(room.getId(), today, today.plusDays(7))));
+      list.add(new Scenario("bookings.findOverlapping", 100, false,
+              () -> bookings.findOverlapping(today, today.plusDays(1))));
+      list.add(new Scenario("bookings.findCompactOverlapping", 100, false,
+              () -> bookings.findCompactOverlapping(today, today.plusDays(1))));
+      list.add(new Scenario("bookings.findArrivingOn", 50, false, () -> bookings.findArrivingOn(today)));
+      list.add(new Scenario("bookings.findDepartingOn", 50, false, () -> bookings.findDepartingOn(today)));
+      list.add(new Scenario("bookings.findInHouseOn", 100, false, () -> bookings.findInHouseOn(today)));
+      list.add(new Scenario("bookings.searchSpecialRequests", 100, false,
+              () -> bookings.searchSpecialRequests("crib, late check-in", today, today.plusDays(1))));
+      list.add(new Scenario("bookings.forEachStayOverlapping", 250, false,
+              () -> bookings.forEachStayOverlapping(today, today.plusDays(30), (id, roomId, in, out) -> { })));
+      // A range running into the next year reads the earlier year's partition by check-out,
+      // which only holds the few stays leaving after the range starts
+      LocalDate newYear = today.withDayOfYear(1);
+      list.add(new Scenario("bookings.forEachStayOverlapping (Dec-Jan)", 250, false,
+              () -> bookings.forEachStayOverlapping(newYear.minusDays(12), newYear.plusDays(10),
+                      (id, roomId, in, out) -> { }),
+              List.of("idx_" + BookingPartitions.tableName(newYear.getYear() - 1) + "_check_out")));
+      list.add(new Scenario("bookings.forEachStayDetailsOverlapping", 250, false,
+              () -> bookings.forEachStayDetailsOverlapping(today, today.plusDays(30),
+                      (id, roomId, in, out, guests, privilege) -> { })));
+      list.add(new Scenario("bookings.forEachStayByRoom", NO_BUDGET, true,
+              () -> bookings.forEachStayByRoom((id, roomId, in, out, guests, privilege) -> { })));
+
+      list.add(new Scenario("bookings.save", 50, false, () -> {
+         LocalDate checkIn = future.plusDays(3L * slot.incrementAndGet());
+         saved.add(bookings.save(booking(room.getId(), checkIn)).getId());
+      }));
+      list.add(new Scenario("bookings.insertIfAvailable (created)", 50, false, () -> {
+         LocalDate checkIn = future.plusDays(3L * slot.incrementAndGet());
+         bookings.insertIfAvailable(booking(room.getId(), checkIn));
+      }));
+      list.add(new Scenario("bookings.insertIfAvailable (conflict)", 50, false,
+              () -> bookings.insertIfAvailable(booking(room.getId(), inHouse.getCheckInDate()))));
+      list.add(new Scenario("bookings.deleteById", 50, false, () -> bookings.deleteById(saved.remove())));
+
+      list.add(new Scenario("inventory.findByRoomType", 20, false,
+              () -> inventory.findByRoomType(RoomType.DOUBLE, today, today.plusDays(30))));
+      list.add(new Scenario("inventory.findAll", 20, false, () -> inventory.findAll(today, today.plusDays(30))));
+
+      list.add(new Scenario("waitlist.save", 50, false, () -> queued.add(waitlist.save(new WaitlistEntry(
+              RoomType.DOUBLE, today, today.plusDays(2), 1, List.of("Check Guest"),
+              GuestPrivilege.ROOM_ONLY, "FRONT_DESK", null, 0)).getId())));
+      list.add(new Scenario("waitlist.findAll", 20, true, waitlist::findAll));
+      list.add(new Scenario("waitlist.deleteById", 50, false, () -> waitlist.deleteById(queued.remove())));
+
+      return list;
+   }
+
+   private static HotelBooking booking(int roomId, LocalDate checkIn) {
+      return new HotelBooking(roomId, checkIn, checkIn.plusDays(2), 1, List.of("Check Guest"),
+              GuestPrivilege.ROOM_ONLY, "FRONT_DESK", null);
+   }
+
+   private static double p95Millis(Runnable call) {
+      long[] nanos = new long[TIMED_CALLS];
+      for (int i = 0; i < nanos.length; i++) {
+         long start = System.nanoTime();
+         call.run();
+         nanos[i] = System.nanoTime() - start;
+      }
+      Arrays.sort(nanos);
+      return nanos[(int) Math.ceil(nanos.length * 0.95) - 1] / 1e6;
+   }
+
+   // ----- plan check -----
+
+   private static List<Violation> checkPlans(File file, List<Scenario> scenarios) throws SQLException {
+      List<Violation> violations = new ArrayList<>();
+
+      try (Connection conn = DriverManager.getConnection("jdbc:sqlite:" + file.getAbsolutePath())) {
+         Map<String, Long> rowCounts = rowCounts(conn);
+
+         for (Scenario scenario : scenarios) {
+            List<String> missingIndexes = new ArrayList<>(scenario.requiredIndexes());
+            String lastSql = "";
+            List<String> lastPlan = List.of();
+            for (Map.Entry<String, List<Object>> statement : RecordingDriver.statementsOf(scenario.name()).entrySet()) {
+               String sql = statement.getKey();
+               List<String> plan = explain(conn, sql, statement.getValue());
+               missingIndexes.removeIf(index -> plan.stream().anyMatch(step -> step.contains(index)));
+               lastSql = sql;
+               lastPlan = plan;
+               if (scenario.readsWholeTable()) {
+                  continue;
+               }
+
+               Map<String, String> tables = tableReferences(sql);
+               for (String step : plan) {
+                  String detail = step.strip();
+                  if (!detail.startsWith("SCAN ") || detail.contains("VIRTUAL TABLE")) {
+                     continue;
+                  }
+                  String name = detail.split("\\s+")[1];
+                  String table = tables.getOrDefault(name.toLowerCase(Locale.ROOT), name);
+                  if (rowCounts.getOrDefault(table.toLowerCase(Locale.ROOT), 0L) >= LARGE_TABLE_ROWS) {
+                     violations.add(new Violation(scenario.name(), "FULL SCAN", sql, String.join("\n", plan)));
+                     break;
+                  }
+               }
+            }
+            for (String index : missingIndexes) {
+               violations.add(new Violation(scenario.name(), "NOT USING " + index, lastSql,
+                       String.join("\n", lastPlan)));
+            }
+         }
+      }
+      return violations;
+   }
+
+   /**
+    * Rows per ordinary table, keyed by lower-case table name.
+    */
+   private static Map<String, Long> rowCounts(Connection conn) throws SQLException {
+      List<String> tables = new ArrayList<>();
+      try (Statement stmt = conn.createStatement();
+           ResultSet rs = stmt.executeQuery("""
+                   SELECT name
+                   FROM sqlite_master
+                   WHERE type = 'table'
+                     AND name NOT LIKE 'sqlite_%'
+                     AND sql NOT LIKE 'CREATE VIRTUAL TABLE%'
+                   """)) {
+         while (rs.next()) {
+            tables.add(rs.getString(1));
+         }
+      }
+
+      Map<String, Long> counts = new HashMap<>();
+      try (Statement stmt = conn.createStatement()) {
+         for (String table : tables) {
+            try (ResultSet rs = stmt.executeQuery("SELECT count(*) FROM \"" + table + "\"")) {
+               counts.put(table.toLowerCase(Locale.ROOT), rs.getLong(1));
+            }
+         }
+      }
+      return counts;
+   }
+
+   /**
+    * The plan of a statement as indented lines, one per step.
+    */
+   private static List<String> explain(Connection conn, String sql, List<Object> params) throws SQLException {
+      Map<Integer, Integer> depth = new HashMap<>();
+      List<String> plan = new ArrayList<>();
+
+      try (PreparedStatement ps = conn.prepareStatement("EXPLAIN QUERY PLAN " + sql)) {
+         for (int i = 0; i < params.size(); i++) {
+            ps.setObject(i + 1, params.get(i));
+         }
+         try (ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+               int level = depth.getOrDefault(rs.getInt("parent"), -1) + 1;
+               depth.put(rs.getInt("id"), level);
+               plan.add("  ".repeat(level) + rs.getString("detail"));
+            }
+         }
+      }
+      return plan;
+   }
+
+   /**
+    * Maps every table name and alias used in the statement to the table name, in lower case.
+    */
+   private static Map<String, String> tableReferences(String sql) {
+      Map<String, String> tables = new HashMap<>();
+      Matcher m = TABLE_REFERENCE.matcher(sql);
+      while (m.find()) {
+         String table = m.group(1).toLowerCase(Locale.ROOT);
+         tables.put(table, table);
+         String alias = m.group(2);
+         if (alias != null && !KEYWORDS.contains(alias.toLowerCase(Locale.ROOT))) {
+            tables.put(alias.toLowerCase(Locale.ROOT), table);
+         }
+      }
+      return tables;
+   }
+
+   // ----- statement recording -----
+
+   /**
+    * JDBC driver for {@code jdbc:plancheck:<file>} that opens {@code jdbc:sqlite:<file>}
+    * and records the queries and changes run on it while a scenario is being recorded.
+    */
+   private static final class RecordingDriver implements Driver {
+
+      static final String PREFIX = "jdbc:plancheck:";
+
+      // Scenario -> statement -> parameters of its first run
+      private static final Map<String, Map<String, List<Object>>> STATEMENTS = new LinkedHashMap<>();
+
+      private static volatile String recording;
+
+      static void recordInto(String scenario) {
+         recording = scenario;
+      }
+
+      static synchronized Map<String, List<Object>> statementsOf(String scenario) {
+         return new LinkedHashMap<>(STATEMENTS.getOrDefault(scenario, Map.of()));
+      }
+
+      static synchronized int statementCount() {
+         return STATEMENTS.values().stream().mapToInt(Map::size).sum();
+      }
+
+      private static void record(String sql, Map<Integer, Object> params) {
+         String scenario = recording;
+         if (scenario == null || !isQueryOrChange(sql)) {
+            return;
+         }
+         List<Object> values = new ArrayList<>(params.values());
+         synchronized (RecordingDriver.class) {
+            STATEMENTS.computeIfAbsent(scenario, s -> new LinkedHashMap<>()).putIfAbsent(sql, values);
+         }
+      }
+
+      private static boolean isQueryOrChange(String sql) {
+         String head = sql.stripLeading().toUpperCase(Locale.ROOT);
+         return head.startsWith("SELECT") || head.startsWith("WITH") || head.startsWith("INSERT")
+                 || head.startsWith("UPDATE") || head.startsWith("DELETE") || head.startsWith("REPLACE");
+      }
+
+      @Override
+      public Connection connect(String url, Properties info) throws SQLException {
+         if (!acceptsURL(url)) {
+            return null;
+         }
+         Connection target = DriverManager.getConnection("jdbc:sqlite:" + url.substring(PREFIX.length()), info);
+         return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                 new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                    // The reader pool finds its connections by identity
+                    if (method.getName().equals("equals")) {
+                       return proxy == args[0];
+                    }
+                    if (method.getName().equals("hashCode")) {
+                       return System.identityHashCode(proxy);
+                    }
+                    Object result = invoke(target, method, args);
+                    if (result instanceof PreparedStatement ps && method.getName().equals("prepareStatement")) {
+                       return recordingStatement(ps, (String) args[0]);
+                    }
+                    if (result instanceof Statement stmt && method.getName().equals("createStatement")) {
+                       return recordingStatement(stmt);
+                    }
+                    return result;
+                 });
+      }
+
+      /**
+       * Records the SQL passed to execute*, executeQuery and executeUpdate of a plain statement.
+       */
+      private static Statement recordingStatement(Statement target) {
+         return (Statement) Proxy.newProxyInstance(Statement.class.getClassLoader(),
+                 new Class<?>[]{Statement.class}, (proxy, method, args) -> {
+                    if (method.getName().startsWith("execute") && args != null && args[0] instanceof String sql) {
+                       record(sql, Map.of());
+                    }
+                    return invoke(target, method, args);
+                 });
+      }
+
+      /**
+       * Records the prepared SQL with the parameters bound when it is executed.
+       */
+      private static PreparedStatement recordingStatement(PreparedStatement target, String sql) {
+         Map<Integer, Object> params = new TreeMap<>();
+         return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                 new Class<?>[]{PreparedStatement.class}, (proxy, method, args) -> {
+                    String name = method.getName();
+                    if (name.equals("setNull")) {
+                       params.put((Integer) args[0], null);
+                    } else if (name.startsWith("set") && args != null && args.length >= 2
+                            && args[0] instanceof Integer i) {
+                       params.put(i, args[1]);
+                    } else if (name.equals("clearParameters")) {
+                       params.clear();
+                    } else if (name.startsWith("execute") || name.equals("addBatch")) {
+                       record(sql, params);
+                    }
+                    return invoke(target, method, args);
+                 });
+      }
+
+      private static Object invoke(Object target, java.lang.reflect.Method method, Object[] args) throws Throwable {
+         try {
+            return method.invoke(target, args);
+         } catch (InvocationTargetException e) {
+            throw e.getCause();
+         }
+      }
+
+      @Override
+      public boolean acceptsURL(String url) {
+         return url != null && url.startsWith(PREFIX);
+      }
+
+      @Override
+      public DriverPropertyInfo[] getPropertyInfo(String url, Properties info) {
+         return new DriverPropertyInfo[0];
+      }
+
+      @Override
+      public int getMajorVersion() {
+         return 1;
+      }
+
+      @Override
+      public int getMinorVersion() {
+         return 0;
+      }
+
+      @Override
+      public boolean jdbcCompliant() {
+         return false;
+      }
+
+      @Override
+      public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+         throw new SQLFeatureNotSupportedException();
+      }
+   }
+}
@@ -0,0 +1,20 @@
+package benchmark;
+
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Runs {@link QueryPlanCheck} on a database of two years, large enough that a
+ * scan of a booking partition is reported. Latency budgets are left to the
+ * full-size run, since they depend on the machine.
+ */
+class QueryPlanCheckTest {
+
+   @Test
+   void everyStatementUsesItsIndexes() throws SQLException {
+      assertEquals(0, QueryPlanCheck.run(300, 2, false), "query plan problems, see the report above");
+   }
+}
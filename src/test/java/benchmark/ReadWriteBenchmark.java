@@ -0,0 +1,110 @@
+package benchmark;
+
+import domain.GuestPrivilege;
+import domain.HotelBooking;
+import persistence.repository.HotelBookingRepository;
+import persistence.repository.sqlite.SQLiteHotelBookingRepository;
+import persistence.repository.sqlite.SQLiteHotelRoomRepository;
+import service.BookingService;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Measures {@code isRoomAvailable} latency with and without a concurrent
+ * stream of booking inserts.
+ *
+ * <p>Usage: {@code java benchmark.ReadWriteBenchmark [readerThreads] [seconds]}</p>
+ */
+public class ReadWriteBenchmark {
+
+   private static final int ROOMS = 200;
+
+   public static void main(String[] args) throws InterruptedException {
+      int readers = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+      int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+      BenchmarkData.useTemporaryDatabase("read-write-benchmark");
+      LocalDate today = LocalDate.now();
+      int bookings = BenchmarkData.seed(ROOMS, today.minusYears(1), today.plusYears(1), 3L);
+      System.out.println("Seeded " + ROOMS + " rooms, " + bookings + " bookings");
+
+      HotelBookingRepository bookingRepo = new SQLiteHotelBookingRepository();
+      BookingService service = new BookingService(new SQLiteHotelRoomRepository(), bookingRepo);
+
+      run("reads only      ", service, bookingRepo, readers, seconds, false);
+      run("reads + 1 writer", service, bookingRepo, readers, seconds, true);
+   }
+
+   private static void run(String label,
+                           BookingService service,
+                           HotelBookingRepository bookingRepo,
+                           int readers,
+                           int seconds,
+                           boolean withWriter) throws InterruptedException {
+      AtomicBoolean running = new AtomicBoolean(true);
+      AtomicInteger writes = new AtomicInteger();
+      List<long[]> samples = new ArrayList<>();
+      List<Thread> threads = new ArrayList<>();
+
+      for (int t = 0; t < readers; t++) {
+         long[] latencies = new long[2_000_000];
+         samples.add(latencies);
+         threads.add(new Thread(() -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            int n = 0;
+            while (running.get() && n < latencies.length - 1) {
+               LocalDate checkIn = LocalDate.now().plusDays(random.nextInt(180));
+               long start = System.nanoTime();
+               service.isRoomAvailable(1 + random.nextInt(ROOMS), checkIn, checkIn.plusDays(3));
+               latencies[++n] = System.nanoTime() - start;
+            }
+            latencies[0] = n;
+         }));
+      }
+
+      if (withWriter) {
+         threads.add(new Thread(() -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            while (running.get()) {
+               LocalDate checkIn = LocalDate.now().plusYears(2).plusDays(random.nextInt(365));
+               bookingRepo.save(new HotelBooking(1 + random.nextInt(ROOMS), checkIn, checkIn.plusDays(2),
+                       1, List.of("Load Test"), GuestPrivilege.ROOM_ONLY, "ONLINE", null));
+               writes.incrementAndGet();
+            }
+         }));
+      }
+
+      threads.forEach(Thread::start);
+      Thread.sleep(seconds * 1_000L);
+      running.set(false);
+      for (Thread t : threads) {
+         t.join();
+      }
+
+      int total = 0;
+      for (long[] s : samples) {
+         total += (int) s[0];
+      }
+      long[] all = new long[total];
+      int offset = 0;
+      for (long[] s : samples) {
+         System.arraycopy(s, 1, all, offset, (int) s[0]);
+         offset += (int) s[0];
+      }
+      Arrays.sort(all);
+
+      System.out.printf("%s: %,d reads/s, p50 %.0f us, p99 %.0f us, max %.0f us, %,d writes/s%n",
+              label,
+              total / seconds,
+              all[all.length / 2] / 1_000.0,
+              all[(int) (all.length * 0.99)] / 1_000.0,
+              all[all.length - 1] / 1_000.0,
+              writes.get() / seconds);
+   }
+}
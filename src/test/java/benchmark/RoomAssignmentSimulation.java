@@ -0,0 +1,131 @@
+package benchmark;
+
+import domain.HotelRoom;
+import domain.RoomType;
+import service.RoomAssignmentOptimizer;
+import service.RoomCalendar;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+
+/**
+ * Compares room assignment policies on a synthetic booking stream.
+ *
+ * <p>The same shuffled stream of stay requests is replayed twice against an
+ * in-memory hotel: once with first-fit (lowest free room number, which is what
+ * an operator typing room numbers tends to do) and once with
+ * {@link RoomAssignmentOptimizer}. Demand is set above capacity so that the
+ * policies differ in how many requests they can still place.</p>
+ *
+ * <p>Usage: {@code java benchmark.RoomAssignmentSimulation [rooms] [nights] [seed]}</p>
+ */
+public class RoomAssignmentSimulation {
+
+   private static final int[] STAY_LENGTHS = {1, 2, 2, 3, 3, 3, 4, 4, 5, 7};
+
+   public static void main(String[] args) {
+      int roomCount = args.length > 0 ? Integer.parseInt(args[0]) : 50;
+      int nights = args.length > 1 ? Integer.parseInt(args[1]) : 120;
+      long seed = args.length > 2 ? Long.parseLong(args[2]) : 42L;
+
+      List<HotelRoom> rooms = new ArrayList<>();
+      for (int i = 0; i < roomCount; i++) {
+         HotelRoom room = new HotelRoom(i + 1, 100 + i, RoomType.DOUBLE, 2, false, false, true);
+         rooms.add(room);
+      }
+
+      LocalDate start = LocalDate.of(2025, 1, 1);
+      List<LocalDate[]> requests = generateRequests(roomCount, nights, start, new Random(seed));
+
+      System.out.println("Rooms: " + roomCount + ", nights: " + nights + ", requests: " + requests.size());
+      report("first-fit", simulate(rooms, requests, false), roomCount, nights, start);
+      report("optimizer", simulate(rooms, requests, true), roomCount, nights, start);
+   }
+
+   private static List<LocalDate[]> generateRequests(int roomCount, int nights, LocalDate start, Random random) {
+      // Roughly 115% of the available room-nights are requested
+      long demand = Math.round(roomCount * nights * 1.15);
+      List<LocalDate[]> requests = new ArrayList<>();
+      long requested = 0;
+      while (requested < demand) {
+         int length = STAY_LENGTHS[random.nextInt(STAY_LENGTHS.length)];
+         int offset = random.nextInt(nights - length + 1);
+         LocalDate checkIn = start.plusDays(offset);
+         requests.add(new LocalDate[]{checkIn, checkIn.plusDays(length)});
+         requested += length;
+      }
+      // Requests arrive in random order, not in stay order
+      for (int i = requests.size() - 1; i > 0; i--) {
+         int j = random.nextInt(i + 1);
+         LocalDate[] tmp = requests.get(i);
+         requests.set(i, requests.get(j));
+         requests.set(j, tmp);
+      }
+      return requests;
+   }
+
+   private static Map<Integer, RoomCalendar> simulate(List<HotelRoom> rooms,
+                                                      List<LocalDate[]> requests,
+                                                      boolean optimized) {
+      RoomAssignmentOptimizer optimizer = new RoomAssignmentOptimizer();
+      Map<Integer, RoomCalendar> calendars = new HashMap<>();
+      for (HotelRoom room : rooms) {
+         calendars.put(room.getId(), new RoomCalendar());
+      }
+
+      for (LocalDate[] request : requests) {
+         Optional<HotelRoom> chosen = optimized
+                 ? optimizer.chooseRoom(rooms, calendars, request[0], request[1])
+                 : firstFit(rooms, calendars, request[0], request[1]);
+         chosen.ifPresent(room -> calendars.get(room.getId()).add(request[0], request[1]));
+      }
+      return calendars;
+   }
+
+   private static Optional<HotelRoom> firstFit(List<HotelRoom> rooms,
+                                              Map<Integer, RoomCalendar> calendars,
+                                              LocalDate checkIn,
+                                              LocalDate checkOut) {
+      for (HotelRoom room : rooms) {
+         if (calendars.get(room.getId()).isFree(checkIn, checkOut)) {
+            return Optional.of(room);
+         }
+      }
+      return Optional.empty();
+   }
+
+   private static void report(String policy,
+                              Map<Integer, RoomCalendar> calendars,
+                              int roomCount,
+                              int nights,
+                              LocalDate start) {
+      long sold = 0;
+      long orphanNights = 0;
+      for (RoomCalendar calendar : calendars.values()) {
+         int freeRun = 0;
+         boolean seenStay = false;
+         for (int n = 0; n < nights; n++) {
+            LocalDate night = start.plusDays(n);
+            if (calendar.isFree(night, night.plusDays(1))) {
+               freeRun++;
+            } else {
+               sold++;
+               // Count short free runs squeezed between two stays
+               if (seenStay && freeRun > 0 && freeRun < 3) {
+                  orphanNights += freeRun;
+               }
+               freeRun = 0;
+               seenStay = true;
+            }
+         }
+      }
+      double occupancy = 100.0 * sold / ((long) roomCount * nights);
+      System.out.printf("%-10s occupancy %.2f%%, room-nights sold %d, orphan nights (1-2 night gaps) %d%n",
+              policy, occupancy, sold, orphanNights);
+   }
+}
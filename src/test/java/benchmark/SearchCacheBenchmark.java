@@ -0,0 +1,126 @@
+package benchmark;
+
+import domain.GuestPrivilege;
+import domain.RoomType;
+import persistence.event.RepositoryEventBus;
+import persistence.repository.HotelBookingRepository;
+import persistence.repository.HotelRoomRepository;
+import persistence.repository.sqlite.SQLiteHotelBookingRepository;
+import persistence.repository.sqlite.SQLiteHotelRoomRepository;
+import service.BookingService;
+import service.SearchCache;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+
+/**
+ * Replays the searches of online channels (the same popular rooms, dates and
+ * room types over and over, with a booking every few searches) against a
+ * {@link BookingService} without and with a {@link SearchCache}, then checks that
+ * every cached answer matches a fresh search while bookings keep coming in.
+ *
+ * <p>Usage: {@code java benchmark.SearchCacheBenchmark [rooms] [searches] [searches per booking]}</p>
+ */
+public class SearchCacheBenchmark {
+
+   // Rooms and check-in days the channels keep asking for
+   private static final int POPULAR_ROOMS = 50;
+   private static final int POPULAR_DAYS = 30;
+
+   public static void main(String[] args) {
+      int rooms = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+      int searches = args.length > 1 ? Integer.parseInt(args[1]) : 20_000;
+      int searchesPerBooking = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+      run(rooms, searches, searchesPerBooking);
+   }
+
+   /**
+    * Seeds a temporary database, times the searches and compares cached answers with fresh ones.
+    *
+    * @return number of cached answers that differed from a fresh search
+    */
+   static int run(int rooms, int searches, int searchesPerBooking) {
+      BenchmarkData.useTemporaryDatabase("search-cache-benchmark");
+      LocalDate today = LocalDate.now();
+      int bookings = BenchmarkData.seed(rooms, today.minusMonths(1), today.plusYears(1), 46L);
+      System.out.println("Seeded " + rooms + " rooms, " + bookings + " bookings");
+
+      RepositoryEventBus events = new RepositoryEventBus(4096);
+      HotelRoomRepository roomRepo = new SQLiteHotelRoomRepository(events);
+      HotelBookingRepository bookingRepo = new SQLiteHotelBookingRepository(events);
+      SearchCache cache = new SearchCache(10_000, Duration.ofMinutes(1));
+      events.subscribe(cache);
+
+      BookingService uncached = new BookingService(roomRepo, bookingRepo);
+      BookingService cached = new BookingService(roomRepo, bookingRepo, cache);
+
+      for (BookingService service : List.of(uncached, cached)) {
+         Random random = new Random(7);
+         long start = System.nanoTime();
+         for (int i = 1; i <= searches; i++) {
+            search(service, random, rooms, today);
+            if (i % searchesPerBooking == 0) {
+               book(service, random, today);
+            }
+         }
+         double seconds = (System.nanoTime() - start) / 1e9;
+         System.out.printf("%-8s %,d searches in %.2f s: %,.0f searches/s, %.3f ms per search%n",
+                 service == cached ? "cached" : "uncached", searches, seconds, searches / seconds,
+                 seconds * 1e3 / searches);
+      }
+
+      SearchCache.Stats stats = cache.getStats();
+      System.out.printf("hit rate %.1f%%, %,d cached, %,d invalidated, %,d evicted, %,d expired%n",
+              stats.hitRate() * 100, stats.size(), stats.invalidations(), stats.evictions(), stats.expirations());
+
+      // Every cached answer must match a fresh search, also right after bookings
+      Random random = new Random(11);
+      int checked = 0;
+      int stale = 0;
+      for (int i = 1; i <= 2_000; i++) {
+         long seed = random.nextLong();
+         Object fromCache = search(cached, new Random(seed), rooms, today);
+         Object fresh = search(uncached, new Random(seed), rooms, today);
+         checked++;
+         if (!Objects.equals(fromCache, fresh)) {
+            stale++;
+         }
+         if (i % 20 == 0) {
+            book(cached, random, today);
+         }
+      }
+      System.out.println(checked + " cached answers checked, " + stale + " differed from a fresh search");
+      return stale;
+   }
+
+   /**
+    * One channel search: mostly single-room checks, sometimes a flexible-dates search.
+    */
+   private static Object search(BookingService service, Random random, int rooms, LocalDate today) {
+      if (random.nextInt(5) > 0) {
+         int roomId = 1 + random.nextInt(Math.min(rooms, POPULAR_ROOMS));
+         LocalDate checkIn = today.plusDays(random.nextInt(POPULAR_DAYS));
+         return service.isRoomAvailable(roomId, checkIn, checkIn.plusDays(1 + random.nextInt(4)));
+      }
+      RoomType type = RoomType.values()[random.nextInt(RoomType.values().length)];
+      LocalDate from = today.plusMonths(1 + random.nextInt(3)).withDayOfMonth(1);
+      // Rooms have no equals; compare windows by room id
+      return service.findOpenWindows(type, 1, 3, from, from.plusMonths(1), 5).stream()
+              .map(w -> w.room().getId() + " " + w.checkIn() + " " + w.checkOut() + " " + w.fragmentationCost())
+              .toList();
+   }
+
+   private static void book(BookingService service, Random random, LocalDate today) {
+      RoomType type = RoomType.values()[random.nextInt(RoomType.values().length)];
+      LocalDate checkIn = today.plusDays(random.nextInt(120));
+      try {
+         service.createBookingForType(type, checkIn, checkIn.plusDays(1 + random.nextInt(3)), 1,
+                 List.of("Channel guest"), "ONLINE", GuestPrivilege.ROOM_ONLY, null);
+      } catch (IllegalStateException | IllegalArgumentException e) {
+         // Sold out or no such room type; the searches go on
+      }
+   }
+}
@@ -0,0 +1,16 @@
+package benchmark;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Cached availability answers match a fresh search, also right after bookings.
+ */
+class SearchCacheBenchmarkTest {
+
+   @Test
+   void cachedAnswersAreNeverStale() {
+      assertEquals(0, SearchCacheBenchmark.run(100, 2_000, 50), "cached answers differing from a fresh search");
+   }
+}
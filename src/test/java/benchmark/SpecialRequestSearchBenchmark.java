@@ -0,0 +1,88 @@
+package benchmark;
+
+import domain.HotelBooking;
+import persistence.BookingPartitions;
+import persistence.BookingPartitions.Partition;
+import persistence.DatabaseManager;
+import persistence.repository.HotelBookingRepository;
+import persistence.repository.sqlite.SQLiteHotelBookingRepository;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Compares the FTS5 special-request search with a {@code LIKE} scan of every partition.
+ *
+ * <p>Usage: {@code java benchmark.SpecialRequestSearchBenchmark [rooms] [years]}</p>
+ */
+public class SpecialRequestSearchBenchmark {
+
+   public static void main(String[] args) throws SQLException {
+      int rooms = args.length > 0 ? Integer.parseInt(args[0]) : 3_000;
+      int years = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+      BenchmarkData.useTemporaryDatabase("special-request-benchmark");
+      LocalDate today = LocalDate.now();
+      long start = System.nanoTime();
+      int bookings = BenchmarkData.seed(rooms, today.minusYears(years - 1), today.plusYears(1), 17L);
+      System.out.printf("Seeded %d rooms, %,d bookings in %d s%n",
+              rooms, bookings, (System.nanoTime() - start) / 1_000_000_000);
+
+      HotelBookingRepository repo = new SQLiteHotelBookingRepository();
+
+      LocalDate tomorrow = today.plusDays(1);
+      LocalDate nextMonth = today.plusMonths(1);
+      String[] cribOrLate = {"%crib%", "%late check-in%"};
+      report("tonight, crib / late check-in", repo, "crib, late check-in", cribOrLate, today, tomorrow);
+      report("next month, crib / late check-in", repo, "crib, late check-in", cribOrLate, today, nextMonth);
+      report("all years, honeymoon", repo, "honeymoon", new String[]{"%honeymoon%"},
+              today.minusYears(years), nextMonth);
+   }
+
+   private static void report(String label, HotelBookingRepository repo, String query, String[] likePatterns,
+                              LocalDate from, LocalDate to) throws SQLException {
+      List<HotelBooking> found = repo.searchSpecialRequests(query, from, to);
+      double ftsNanos = BenchmarkData.nanosPerCall(20, () -> repo.searchSpecialRequests(query, from, to));
+
+      int likeCount = likeScan(likePatterns, from, to);
+      long start = System.nanoTime();
+      likeScan(likePatterns, from, to);
+      double likeNanos = System.nanoTime() - start;
+
+      System.out.printf("%-34s FTS %,6d rows %8.2f ms | LIKE scan %,6d rows %8.2f ms%n",
+              label, found.size(), ftsNanos / 1e6, likeCount, likeNanos / 1e6);
+   }
+
+   // What the search would cost without the index: a LIKE over every partition
+   private static int likeScan(String[] patterns, LocalDate from, LocalDate to) throws SQLException {
+      String likes = String.join(" OR ", Collections.nCopies(patterns.length, "special_requests LIKE ?"));
+      int count = 0;
+      try (Connection conn = DatabaseManager.getReadConnection()) {
+         for (Partition p : BookingPartitions.list(conn)) {
+            String sql = """
+                    SELECT count(*) FROM %s
+                    WHERE (%s)
+                      AND check_in_date < ? AND check_out_date > ?
+                    """.formatted(p.tableName(), likes);
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+               int i = 1;
+               for (String pattern : patterns) {
+                  ps.setString(i++, pattern);
+               }
+               ps.setString(i++, to.toString());
+               ps.setString(i, from.toString());
+               try (ResultSet rs = ps.executeQuery()) {
+                  rs.next();
+                  count += rs.getInt(1);
+               }
+            }
+         }
+      }
+      return count;
+   }
+}
@@ -0,0 +1,125 @@
+package benchmark;
+
+import domain.HotelBooking;
+import domain.HotelRoom;
+import persistence.repository.HotelBookingRepository;
+import persistence.repository.HotelRoomRepository;
+import persistence.repository.sqlite.SQLiteHotelBookingRepository;
+import persistence.repository.sqlite.SQLiteHotelRoomRepository;
+import service.StayAnalytics;
+import service.StayReport;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Computes the monthly stay report over several years once the way it was done
+ * before {@link StayAnalytics} (every booking loaded, then every month checked
+ * against every booking) and once with {@link StayAnalytics}, checks that both
+ * agree, and writes the CSV.
+ *
+ * <p>Usage: {@code java benchmark.StayAnalyticsBenchmark [rooms] [years]}</p>
+ */
+public class StayAnalyticsBenchmark {
+
+   public static void main(String[] args) throws IOException {
+      int rooms = args.length > 0 ? Integer.parseInt(args[0]) : 1_000;
+      int years = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+      run(rooms, years);
+   }
+
+   /**
+    * Seeds a temporary database and computes the report both ways.
+    *
+    * @return number of months in which the two reports differ
+    */
+   static int run(int rooms, int years) throws IOException {
+      BenchmarkData.useTemporaryDatabase("stay-analytics-benchmark");
+      YearMonth last = YearMonth.now();
+      YearMonth first = last.minusYears(years).plusMonths(1);
+      int bookings = BenchmarkData.seed(rooms, first.atDay(1), last.atEndOfMonth().plusDays(1), 48L);
+      System.out.println("Seeded " + rooms + " rooms, " + bookings + " bookings over " + years + " years");
+
+      HotelRoomRepository roomRepo = new SQLiteHotelRoomRepository();
+      HotelBookingRepository bookingRepo = new SQLiteHotelBookingRepository();
+      Path directory = Files.createTempDirectory("stay-analytics");
+      StayAnalytics analytics = new StayAnalytics(roomRepo, bookingRepo, directory);
+
+      long start = System.nanoTime();
+      long[][] naive = naiveReport(roomRepo, bookingRepo, first, last);
+      double naiveSeconds = (System.nanoTime() - start) / 1e9;
+      System.out.printf("findAll + nested loops: %.2f s%n", naiveSeconds);
+
+      // First run warms up the JIT
+      analytics.report(first, last);
+      StayReport report = analytics.report(first, last);
+      double seconds = report.duration().toNanos() / 1e9;
+      System.out.printf("StayAnalytics:          %.2f s (%,d stays, %,.0f stays/s), %.1fx faster%n",
+              seconds, report.stays(), report.staysPerSecond(), naiveSeconds / seconds);
+
+      int differing = 0;
+      for (int m = 0; m < report.months().size(); m++) {
+         StayReport.MonthlyStays month = report.months().get(m);
+         if (month.soldRoomNights() != naive[m][0] || month.arrivals() != naive[m][1]
+                 || month.arrivalNights() != naive[m][2]) {
+            differing++;
+         }
+      }
+      System.out.println(report.months().size() + " months compared, " + differing + " differed");
+
+      StayReport.MonthlyStays busiest = report.months().get(0);
+      for (StayReport.MonthlyStays month : report.months()) {
+         if (month.occupancy() > busiest.occupancy()) {
+            busiest = month;
+         }
+      }
+      System.out.printf("Busiest month %s: %.1f%% occupancy, %.2f nights average stay%n",
+              busiest.month(), busiest.occupancy() * 100, busiest.averageLengthOfStay());
+      System.out.println("CSV written: " + analytics.writeReport(report));
+      return differing;
+   }
+
+   /**
+    * Sold room nights, arrivals and nights of those arrivals per month, by checking
+    * every month against every booking.
+    */
+   private static long[][] naiveReport(HotelRoomRepository roomRepo, HotelBookingRepository bookingRepo,
+                                       YearMonth first, YearMonth last) {
+      Map<Integer, HotelRoom> roomsById = new HashMap<>();
+      for (HotelRoom room : roomRepo.findAll()) {
+         roomsById.put(room.getId(), room);
+      }
+      List<HotelBooking> all = bookingRepo.findAll();
+
+      int months = (int) ChronoUnit.MONTHS.between(first, last) + 1;
+      long[][] result = new long[months][3];
+      for (int m = 0; m < months; m++) {
+         LocalDate monthStart = first.plusMonths(m).atDay(1);
+         LocalDate monthEnd = monthStart.plusMonths(1);
+         for (HotelBooking booking : all) {
+            if (!roomsById.containsKey(booking.getRoomId())) {
+               continue;
+            }
+            LocalDate in = booking.getCheckInDate();
+            LocalDate out = booking.getCheckOutDate();
+            if (in.isBefore(monthEnd) && out.isAfter(monthStart)) {
+               LocalDate a = in.isAfter(monthStart) ? in : monthStart;
+               LocalDate b = out.isBefore(monthEnd) ? out : monthEnd;
+               result[m][0] += ChronoUnit.DAYS.between(a, b);
+            }
+            if (!in.isBefore(monthStart) && in.isBefore(monthEnd)) {
+               result[m][1]++;
+               result[m][2] += ChronoUnit.DAYS.between(in, out);
+            }
+         }
+      }
+      return result;
+   }
+}
@@ -0,0 +1,18 @@
+package benchmark;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * The one-pass monthly stay report agrees with checking every month against every booking.
+ */
+class StayAnalyticsBenchmarkTest {
+
+   @Test
+   void reportAgreesWithNestedLoops() throws IOException {
+      assertEquals(0, StayAnalyticsBenchmark.run(50, 2), "months differing from the nested loops");
+   }
+}
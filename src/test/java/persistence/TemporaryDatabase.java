@@ -0,0 +1,34 @@
+package persistence;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Points the default property at a new, empty database file for a test class.
+ *
+ * <p>{@code db.url} is read once per JVM, so this must run before anything
+ * touches {@link DatabaseManager}; the build gives every test class a JVM of
+ * its own.</p>
+ */
+public final class TemporaryDatabase {
+
+   private TemporaryDatabase() {
+   }
+
+   /**
+    * Creates the database file, makes it the default property's database and creates the schema.
+    *
+    * @return the default property's database
+    */
+   public static Database use(String name) {
+      try {
+         File file = File.createTempFile(name, ".db");
+         file.deleteOnExit();
+         System.setProperty("db.url", "jdbc:sqlite:" + file.getAbsolutePath());
+         DatabaseManager.initializeSchema();
+         return DatabaseManager.defaultDatabase();
+      } catch (IOException e) {
+         throw new IllegalStateException("Cannot create temporary database", e);
+      }
+   }
+}
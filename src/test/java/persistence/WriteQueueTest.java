@@ -0,0 +1,171 @@
+package persistence;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class WriteQueueTest {
+
+   private String url;
+   private WriteQueue queue;
+   private final ExecutorService callers = Executors.newCachedThreadPool();
+   private final CountDownLatch unblock = new CountDownLatch(1);
+
+   @BeforeEach
+   void startQueue() throws IOException, SQLException {
+      File file = File.createTempFile("write-queue-test", ".db");
+      file.deleteOnExit();
+      url = "jdbc:sqlite:" + file.getAbsolutePath();
+      try (Connection conn = DriverManager.getConnection(url);
+           Statement stmt = conn.createStatement()) {
+         stmt.executeUpdate("PRAGMA journal_mode = WAL");
+         stmt.executeUpdate("CREATE TABLE items (id INTEGER PRIMARY KEY)");
+      }
+      queue = new WriteQueue(() -> DriverManager.getConnection(url), 64, 64, 5_000);
+      queue.start();
+   }
+
+   @AfterEach
+   void stopQueue() {
+      unblock.countDown();
+      callers.shutdownNow();
+      queue.shutdown();
+   }
+
+   @Test
+   void failingCommandRollsBackOnlyItsOwnWrites() throws Exception {
+      List<String> committed = Collections.synchronizedList(new ArrayList<>());
+      blockWriter();
+
+      Future<Integer> first = enqueue(conn -> insert(conn, 1), v -> committed.add("first"));
+      Future<Integer> failing = enqueue(conn -> {
+         insert(conn, 2);
+         throw new SQLException("constraint broken");
+      }, v -> committed.add("failing"));
+      Future<Integer> last = enqueue(conn -> insert(conn, 3), v -> committed.add("last"));
+      unblock.countDown();
+
+      assertEquals(1, first.get(5, TimeUnit.SECONDS));
+      assertEquals(3, last.get(5, TimeUnit.SECONDS));
+      Exception e = assertThrows(Exception.class, () -> failing.get(5, TimeUnit.SECONDS));
+      assertInstanceOf(SQLException.class, e.getCause());
+
+      assertEquals(List.of(1, 3), storedIds());
+      assertEquals(List.of("first", "last"), committed);
+      // The blocking command ran alone, the three others in one transaction
+      assertEquals(2, queue.metrics().transactions());
+   }
+
+   @Test
+   void afterCommitWorkRunsInCommitOrderWithNestedWrites() throws Exception {
+      List<String> order = Collections.synchronizedList(new ArrayList<>());
+      blockWriter();
+
+      List<Future<Integer>> writes = new ArrayList<>();
+      writes.add(enqueue(conn -> insert(conn, 1), v -> order.add("1 visible=" + isStored(v))));
+      writes.add(enqueue(conn -> {
+         // Runs on the writer thread, inside this command's transaction
+         queue.submit(nested -> insert(nested, 20), v -> order.add("20 visible=" + isStored(v)));
+         return insert(conn, 2);
+      }, v -> order.add("2 visible=" + isStored(v))));
+      writes.add(enqueue(conn -> insert(conn, 3), v -> order.add("3 visible=" + isStored(v))));
+      unblock.countDown();
+      for (Future<Integer> write : writes) {
+         write.get(5, TimeUnit.SECONDS);
+      }
+
+      // A later batch comes after the earlier one
+      queue.submit(conn -> insert(conn, 4), v -> order.add("4 visible=" + isStored(v)));
+
+      assertEquals(List.of("1 visible=true", "20 visible=true", "2 visible=true", "3 visible=true",
+              "4 visible=true"), order);
+   }
+
+   // ----- helpers -----
+
+   /**
+    * Occupies the writer until {@link #unblock} is counted down, so the next commands form one batch.
+    */
+   private void blockWriter() throws InterruptedException {
+      CountDownLatch running = new CountDownLatch(1);
+      callers.submit(() -> queue.submit(conn -> {
+         running.countDown();
+         try {
+            unblock.await();
+         } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+         }
+         return 0;
+      }, null));
+      if (!running.await(5, TimeUnit.SECONDS)) {
+         throw new AssertionError("Writer did not start the blocking command");
+      }
+   }
+
+   /**
+    * Submits from another thread and waits until the command is queued, so commands queue in call order.
+    */
+   private Future<Integer> enqueue(WriteQueue.WriteCommand<Integer> command,
+                                   WriteQueue.AfterCommit<Integer> afterCommit) throws InterruptedException {
+      int depth = queue.metrics().queueDepth();
+      Future<Integer> result = callers.submit(() -> queue.submit(command, afterCommit));
+      long deadline = System.currentTimeMillis() + 5_000;
+      while (queue.metrics().queueDepth() == depth) {
+         if (System.currentTimeMillis() > deadline) {
+            throw new AssertionError("Command was not queued");
+         }
+         Thread.sleep(1);
+      }
+      return result;
+   }
+
+   private static int insert(Connection conn, int id) throws SQLException {
+      try (PreparedStatement ps = conn.prepareStatement("INSERT INTO items (id) VALUES (?)")) {
+         ps.setInt(1, id);
+         ps.executeUpdate();
+      }
+      return id;
+   }
+
+   /**
+    * Whether another connection sees the row, i.e. its transaction has committed.
+    */
+   private boolean isStored(int id) {
+      return storedIds().contains(id);
+   }
+
+   private List<Integer> storedIds() {
+      List<Integer> ids = new ArrayList<>();
+      try (Connection conn = DriverManager.getConnection(url);
+           Statement stmt = conn.createStatement();
+           ResultSet rs = stmt.executeQuery("SELECT id FROM items ORDER BY id")) {
+         while (rs.next()) {
+            ids.add(rs.getInt(1));
+         }
+      } catch (SQLException e) {
+         throw new RuntimeException("Failed to read items", e);
+      }
+      return ids;
+   }
+}
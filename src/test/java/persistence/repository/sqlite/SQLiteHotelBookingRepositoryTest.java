@@ -0,0 +1,131 @@
+package persistence.repository.sqlite;
+
+import domain.GuestPrivilege;
+import domain.HotelBooking;
+import domain.HotelRoom;
+import domain.RoomType;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import persistence.BookingArchiver;
+import persistence.Database;
+import persistence.TemporaryDatabase;
+import persistence.event.RepositoryEventBus;
+import persistence.repository.HotelBookingRepository;
+import persistence.repository.HotelBookingRepository.InsertResult;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * The conditional insert: a booking is stored only if its room exists, holds
+ * the guests and has no overlapping stay in any partition or the archive.
+ */
+class SQLiteHotelBookingRepositoryTest {
+
+   private static Database database;
+   private static HotelBookingRepository bookings;
+   private static HotelRoom room;
+
+   @BeforeAll
+   static void createRoom() {
+      database = TemporaryDatabase.use("booking-repository-test");
+      bookings = new SQLiteHotelBookingRepository(database, new RepositoryEventBus(16));
+      room = new SQLiteHotelRoomRepository().save(new HotelRoom(301, RoomType.TWIN, 2, false, false, true));
+   }
+
+   @Test
+   void overlappingStayIsAConflict() {
+      LocalDate checkIn = LocalDate.now().plusMonths(1);
+      assertEquals(InsertResult.CREATED, bookings.insertIfAvailable(booking(room.getId(), checkIn, 3, 2)));
+
+      HotelBooking overlapping = booking(room.getId(), checkIn.plusDays(2), 2, 1);
+      assertEquals(InsertResult.CONFLICT, bookings.insertIfAvailable(overlapping));
+      assertNull(overlapping.getId());
+   }
+
+   @Test
+   void tooManyGuestsAreOverCapacity() {
+      LocalDate checkIn = LocalDate.now().plusMonths(2);
+      assertEquals(InsertResult.OVER_CAPACITY, bookings.insertIfAvailable(booking(room.getId(), checkIn, 2, 3)));
+   }
+
+   @Test
+   void missingRoomIsUnknown() {
+      LocalDate checkIn = LocalDate.now().plusMonths(2);
+      assertEquals(InsertResult.UNKNOWN_ROOM, bookings.insertIfAvailable(booking(9_999, checkIn, 2, 1)));
+   }
+
+   @Test
+   void stayCrossingNewYearConflictsFromTheEarlierPartition() {
+      int year = LocalDate.now().getYear() + 2;
+      LocalDate newYearsEve = LocalDate.of(year, 12, 30);
+      assertEquals(InsertResult.CREATED, bookings.insertIfAvailable(booking(room.getId(), newYearsEve, 5, 1)));
+
+      // Stored in the next year's partition, overlapping only the stay stored in this year's
+      LocalDate january = LocalDate.of(year + 1, 1, 2);
+      assertEquals(InsertResult.CONFLICT, bookings.insertIfAvailable(booking(room.getId(), january, 2, 1)));
+      assertEquals(InsertResult.CREATED,
+              bookings.insertIfAvailable(booking(room.getId(), january.plusDays(2), 2, 1)));
+   }
+
+   @Test
+   void archivedStayIsAConflict() {
+      LocalDate checkIn = LocalDate.now().minusDays(40);
+      assertEquals(InsertResult.CREATED, bookings.insertIfAvailable(booking(room.getId(), checkIn, 4, 1)));
+      assertEquals(1, new BookingArchiver(database, 30, 100).archiveNow());
+
+      HotelBooking overlapping = booking(room.getId(), checkIn.plusDays(1), 1, 1);
+      assertEquals(InsertResult.CONFLICT, bookings.insertIfAvailable(overlapping));
+   }
+
+   @Test
+   void backToBackStaysAreAccepted() {
+      LocalDate checkIn = LocalDate.now().plusMonths(3);
+      assertEquals(InsertResult.CREATED, bookings.insertIfAvailable(booking(room.getId(), checkIn, 2, 1)));
+
+      HotelBooking after = booking(room.getId(), checkIn.plusDays(2), 2, 1);
+      HotelBooking before = booking(room.getId(), checkIn.minusDays(2), 2, 1);
+      assertEquals(InsertResult.CREATED, bookings.insertIfAvailable(after));
+      assertEquals(InsertResult.CREATED, bookings.insertIfAvailable(before));
+      assertNotNull(after.getId());
+      assertNotNull(before.getId());
+   }
+
+   @Test
+   void rejectedInsertsDoNotUseUpIds() throws SQLException {
+      LocalDate checkIn = LocalDate.now().plusMonths(4);
+      assertEquals(InsertResult.CREATED, bookings.insertIfAvailable(booking(room.getId(), checkIn, 2, 1)));
+      long lastId = lastBookingId();
+
+      assertEquals(InsertResult.CONFLICT, bookings.insertIfAvailable(booking(room.getId(), checkIn, 2, 1)));
+      assertEquals(InsertResult.OVER_CAPACITY, bookings.insertIfAvailable(booking(room.getId(), checkIn, 2, 5)));
+      assertEquals(InsertResult.UNKNOWN_ROOM, bookings.insertIfAvailable(booking(9_999, checkIn, 2, 1)));
+      assertEquals(lastId, lastBookingId());
+
+      HotelBooking next = booking(room.getId(), checkIn.plusDays(2), 1, 1);
+      assertEquals(InsertResult.CREATED, bookings.insertIfAvailable(next));
+      assertEquals(lastId + 1, (long) next.getId());
+   }
+
+   private static HotelBooking booking(int roomId, LocalDate checkIn, int nights, int guests) {
+      return new HotelBooking(roomId, checkIn, checkIn.plusDays(nights), guests,
+              Collections.nCopies(guests, "Guest"), GuestPrivilege.ROOM_ONLY, "FRONT_DESK", null);
+   }
+
+   private static long lastBookingId() throws SQLException {
+      try (Connection conn = database.getReadConnection();
+           Statement stmt = conn.createStatement();
+           ResultSet rs = stmt.executeQuery("SELECT last_id FROM hotel_booking_sequence WHERE id = 1")) {
+         rs.next();
+         return rs.getLong(1);
+      }
+   }
+}
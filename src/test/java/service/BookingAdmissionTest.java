@@ -0,0 +1,158 @@
+package service;
+
+import domain.GuestPrivilege;
+import domain.HotelBooking;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BookingAdmissionTest {
+
+   private static final LocalDate CHECK_IN = LocalDate.now().plusDays(10);
+
+   // Never limits the channels a test does not set
+   private static final BookingAdmission.Limits UNLIMITED = new BookingAdmission.Limits(8, 8, 0, 0);
+
+   private final HoldingService service = new HoldingService();
+   private final ExecutorService callers = Executors.newCachedThreadPool();
+
+   @AfterEach
+   void releaseHeldBookings() {
+      service.release.countDown();
+      callers.shutdownNow();
+   }
+
+   @Test
+   void requestsOverTheRateAreRateLimited() {
+      BookingAdmission admission = admission(new BookingAdmission.Limits(4, 4, 1, 2), 500);
+
+      book(admission, "ONLINE");
+      book(admission, "ONLINE");
+      assertRejected(BookingAdmission.Reason.RATE_LIMITED, () -> book(admission, "ONLINE"));
+   }
+
+   @Test
+   void requestsBeyondTheWaitingLineAreQueueFull() throws InterruptedException {
+      BookingAdmission admission = admission(new BookingAdmission.Limits(1, 0, 0, 0), 5_000);
+      hold(admission, "ONLINE");
+
+      assertRejected(BookingAdmission.Reason.QUEUE_FULL, () -> book(admission, "ONLINE"));
+   }
+
+   @Test
+   void requestsNotAdmittedInTimeTimeOut() throws InterruptedException {
+      BookingAdmission admission = admission(new BookingAdmission.Limits(1, 1, 0, 0), 50);
+      hold(admission, "ONLINE");
+
+      assertRejected(BookingAdmission.Reason.TIMED_OUT, () -> book(admission, "ONLINE"));
+   }
+
+   @Test
+   void queueFullRequestGivesItsTokenBack() throws Exception {
+      // One token left after the held booking; the rejected request must not keep it
+      BookingAdmission admission = admission(new BookingAdmission.Limits(1, 0, 1, 2), 5_000);
+      Future<?> held = hold(admission, "ONLINE");
+
+      assertRejected(BookingAdmission.Reason.QUEUE_FULL, () -> book(admission, "ONLINE"));
+      service.release.countDown();
+      held.get(5, TimeUnit.SECONDS);
+
+      book(admission, "ONLINE");
+   }
+
+   @Test
+   void timedOutRequestGivesItsTokenBack() throws Exception {
+      BookingAdmission admission = admission(new BookingAdmission.Limits(1, 1, 1, 2), 50);
+      Future<?> held = hold(admission, "ONLINE");
+
+      assertRejected(BookingAdmission.Reason.TIMED_OUT, () -> book(admission, "ONLINE"));
+      service.release.countDown();
+      held.get(5, TimeUnit.SECONDS);
+
+      book(admission, "ONLINE");
+   }
+
+   @Test
+   void frontDeskIsAdmittedWhileOnlineIsSaturated() throws InterruptedException {
+      BookingAdmission admission = admission(new BookingAdmission.Limits(1, 0, 0, 0), 5_000);
+      hold(admission, "ONLINE");
+      assertRejected(BookingAdmission.Reason.QUEUE_FULL, () -> book(admission, "ONLINE"));
+
+      book(admission, "FRONT_DESK");
+      BookingAdmission.ChannelMetrics frontDesk = admission.getMetrics().get(0);
+      assertEquals(BookingAdmission.Channel.FRONT_DESK, frontDesk.channel());
+      assertEquals(1, frontDesk.admitted());
+      assertEquals(0, frontDesk.rejected());
+   }
+
+   /**
+    * Booking service that creates nothing; bookings for the guest "Hold" run until released.
+    */
+   private static final class HoldingService extends BookingService {
+      final CountDownLatch release = new CountDownLatch(1);
+      final Semaphore holding = new Semaphore(0);
+
+      HoldingService() {
+         super(null, null);
+      }
+
+      @Override
+      public HotelBooking createBooking(int roomId, LocalDate checkIn, LocalDate checkOut, int guestCount,
+                                        List<String> guestNames, String createdBy, GuestPrivilege privilege,
+                                        String specialRequests) {
+         if (guestNames.contains("Hold")) {
+            holding.release();
+            try {
+               release.await();
+            } catch (InterruptedException e) {
+               Thread.currentThread().interrupt();
+            }
+         }
+         return null;
+      }
+   }
+
+   private BookingAdmission admission(BookingAdmission.Limits online, long maxWaitMillis) {
+      Map<BookingAdmission.Channel, BookingAdmission.Limits> limits = new EnumMap<>(BookingAdmission.Channel.class);
+      for (BookingAdmission.Channel channel : BookingAdmission.Channel.values()) {
+         limits.put(channel, UNLIMITED);
+      }
+      limits.put(BookingAdmission.Channel.ONLINE, online);
+      return new BookingAdmission(service, limits, maxWaitMillis);
+   }
+
+   /**
+    * Starts a booking of the channel that holds its permit until the test releases it.
+    */
+   private Future<?> hold(BookingAdmission admission, String createdBy) throws InterruptedException {
+      Future<?> held = callers.submit(() -> admission.createBooking(1, CHECK_IN, CHECK_IN.plusDays(1), 1,
+              List.of("Hold"), createdBy, GuestPrivilege.ROOM_ONLY, null));
+      if (!service.holding.tryAcquire(5, TimeUnit.SECONDS)) {
+         throw new AssertionError("Held booking was not admitted");
+      }
+      return held;
+   }
+
+   private static void book(BookingAdmission admission, String createdBy) {
+      admission.createBooking(1, CHECK_IN, CHECK_IN.plusDays(1), 1, List.of("Guest"), createdBy,
+              GuestPrivilege.ROOM_ONLY, null);
+   }
+
+   private static void assertRejected(BookingAdmission.Reason reason, Runnable request) {
+      AdmissionRejectedException e = assertThrows(AdmissionRejectedException.class, request::run);
+      assertEquals(reason, e.getReason());
+   }
+}
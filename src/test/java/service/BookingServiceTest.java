@@ -0,0 +1,92 @@
+package service;
+
+import domain.GuestPrivilege;
+import domain.HotelBooking;
+import domain.HotelRoom;
+import domain.RoomType;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import persistence.TemporaryDatabase;
+import persistence.repository.HotelBookingRepository;
+import persistence.repository.HotelRoomRepository;
+import persistence.repository.sqlite.SQLiteHotelBookingRepository;
+import persistence.repository.sqlite.SQLiteHotelRoomRepository;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BookingServiceTest {
+
+   private static final LocalDate CHECK_IN = LocalDate.now().plusMonths(2);
+   private static final LocalDate CHECK_OUT = CHECK_IN.plusDays(3);
+
+   private static HotelRoomRepository rooms;
+   private static HotelBookingRepository bookings;
+   private static final List<HotelRoom> doubles = new ArrayList<>();
+
+   @BeforeAll
+   static void createRooms() {
+      TemporaryDatabase.use("booking-service-test");
+      rooms = new SQLiteHotelRoomRepository();
+      bookings = new SQLiteHotelBookingRepository();
+      for (int number = 101; number <= 103; number++) {
+         doubles.add(rooms.save(new HotelRoom(number, RoomType.DOUBLE, 2, false, false, true)));
+      }
+   }
+
+   @Test
+   void roomTakenSinceTheReadIsSkippedForTheNextCandidate() {
+      BookingService service = new BookingService(rooms, bookings);
+      service.createBooking(doubles.get(0).getId(), CHECK_IN, CHECK_OUT, 1, List.of("First"),
+              "FRONT_DESK", GuestPrivilege.ROOM_ONLY, null);
+      service.createBooking(doubles.get(1).getId(), CHECK_IN, CHECK_OUT, 1, List.of("Second"),
+              "FRONT_DESK", GuestPrivilege.ROOM_ONLY, null);
+
+      // Reads no stays, as if both bookings were made right after the read
+      BookingService stale = new BookingService(rooms, withoutStays(bookings));
+      HotelBooking booking = stale.createBookingForType(RoomType.DOUBLE, CHECK_IN, CHECK_OUT, 2,
+              List.of("Guest", "Guest"), "ONLINE", GuestPrivilege.ROOM_ONLY, null);
+
+      assertEquals(doubles.get(2).getId(), booking.getRoomId());
+   }
+
+   @Test
+   void failsOnlyOnceNoCandidateIsLeft() {
+      LocalDate checkIn = CHECK_IN.plusMonths(1);
+      BookingService service = new BookingService(rooms, bookings);
+      for (HotelRoom room : doubles) {
+         service.createBooking(room.getId(), checkIn, checkIn.plusDays(2), 1, List.of("Guest"),
+                 "FRONT_DESK", GuestPrivilege.ROOM_ONLY, null);
+      }
+
+      BookingService stale = new BookingService(rooms, withoutStays(bookings));
+      IllegalStateException e = assertThrows(IllegalStateException.class, () ->
+              stale.createBookingForType(RoomType.DOUBLE, checkIn, checkIn.plusDays(2), 1,
+                      List.of("Guest"), "ONLINE", GuestPrivilege.ROOM_ONLY, null));
+      assertTrue(e.getMessage().startsWith("No DOUBLE room"), e.getMessage());
+   }
+
+   /**
+    * The repository, except that {@code forEachStayOverlapping} finds nothing.
+    */
+   private static HotelBookingRepository withoutStays(HotelBookingRepository repository) {
+      return (HotelBookingRepository) Proxy.newProxyInstance(HotelBookingRepository.class.getClassLoader(),
+              new Class<?>[]{HotelBookingRepository.class}, (proxy, method, args) -> {
+                 if (method.getName().equals("forEachStayOverlapping")) {
+                    return null;
+                 }
+                 try {
+                    return method.invoke(repository, args);
+                 } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                 }
+              });
+   }
+}
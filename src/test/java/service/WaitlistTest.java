@@ -0,0 +1,121 @@
+package service;
+
+import domain.GuestPrivilege;
+import domain.HotelBooking;
+import domain.HotelRoom;
+import domain.RoomType;
+import domain.WaitlistEntry;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import persistence.TemporaryDatabase;
+import persistence.event.RepositoryEvent;
+import persistence.repository.HotelBookingRepository;
+import persistence.repository.HotelRoomRepository;
+import persistence.repository.sqlite.SQLiteHotelBookingRepository;
+import persistence.repository.sqlite.SQLiteHotelRoomRepository;
+import persistence.repository.sqlite.SQLiteRoomInventoryRepository;
+import persistence.repository.sqlite.SQLiteWaitlistRepository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WaitlistTest {
+
+   private static HotelRoomRepository rooms;
+   private static HotelBookingRepository bookings;
+   private static HotelRoom room;
+
+   @BeforeAll
+   static void createRoom() {
+      TemporaryDatabase.use("waitlist-test");
+      rooms = new SQLiteHotelRoomRepository();
+      bookings = new SQLiteHotelBookingRepository();
+      room = rooms.save(new HotelRoom(201, RoomType.SUITE, 2, true, true, true));
+   }
+
+   @Test
+   void failingEntryDoesNotStopTheOthers() throws InterruptedException {
+      LocalDate checkIn = LocalDate.now().plusMonths(1);
+      Waitlist waitlist = waitlist(new FailingFor("Broken", new RuntimeException("database gone")));
+      HotelBooking taken = occupy(checkIn);
+
+      WaitlistEntry broken = waitlist.add(entry(checkIn, "Broken", 5));
+      WaitlistEntry waiting = waitlist.add(entry(checkIn, "Waiting", 1));
+      awaitTrue(() -> waitlist.getStats().evaluated() == 2);
+
+      bookings.deleteById(taken.getId());
+      waitlist.onEvent(new RepositoryEvent.BookingCancelled(taken));
+      awaitTrue(() -> waitlist.getStats().promoted() == 1);
+
+      assertEquals(waiting.getId(), waitlist.getRecentPromotions().get(0).entry().getId());
+      assertEquals(List.of(broken.getId()), waitlist.findAll().stream().map(WaitlistEntry::getId).toList());
+      waitlist.shutdown();
+   }
+
+   @Test
+   void entryNoLongerBookableAsRequestedIsRemoved() throws InterruptedException {
+      LocalDate checkIn = LocalDate.now().plusMonths(2);
+      Waitlist waitlist = waitlist(new FailingFor("Gone", new IllegalArgumentException("room is gone")));
+
+      waitlist.add(entry(checkIn, "Gone", 1));
+      awaitTrue(() -> waitlist.getStats().evaluated() == 1 && waitlist.getStats().waiting() == 0);
+
+      assertTrue(waitlist.findAll().isEmpty());
+      assertTrue(new SQLiteWaitlistRepository().findAll().isEmpty());
+      waitlist.shutdown();
+   }
+
+   /**
+    * Booking service failing with {@code failure} for entries of the given guest.
+    */
+   private static final class FailingFor extends BookingService {
+      private final String guest;
+      private final RuntimeException failure;
+
+      FailingFor(String guest, RuntimeException failure) {
+         super(rooms, bookings);
+         this.guest = guest;
+         this.failure = failure;
+      }
+
+      @Override
+      public HotelBooking createBookingForType(RoomType roomType, LocalDate checkIn, LocalDate checkOut,
+                                               int guestCount, List<String> guestNames, String createdBy,
+                                               GuestPrivilege privilege, String specialRequests) {
+         if (guestNames.contains(guest)) {
+            throw failure;
+         }
+         return super.createBookingForType(roomType, checkIn, checkOut, guestCount, guestNames,
+                 createdBy, privilege, specialRequests);
+      }
+   }
+
+   private static Waitlist waitlist(BookingService service) {
+      return new Waitlist(new SQLiteWaitlistRepository(), rooms, new SQLiteRoomInventoryRepository(),
+              service, "test");
+   }
+
+   private static HotelBooking occupy(LocalDate checkIn) {
+      return new BookingService(rooms, bookings).createBooking(room.getId(), checkIn, checkIn.plusDays(2), 1,
+              List.of("Guest"), "FRONT_DESK", GuestPrivilege.ROOM_ONLY, null);
+   }
+
+   private static WaitlistEntry entry(LocalDate checkIn, String guest, int priority) {
+      return new WaitlistEntry(RoomType.SUITE, checkIn, checkIn.plusDays(2), 1, List.of(guest),
+              GuestPrivilege.ROOM_ONLY, "ONLINE", null, priority);
+   }
+
+   private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+      long deadline = System.currentTimeMillis() + 5_000;
+      while (!condition.getAsBoolean()) {
+         if (System.currentTimeMillis() > deadline) {
+            throw new AssertionError("Condition not met within 5 s");
+         }
+         Thread.sleep(10);
+      }
+   }
+}